@@ -0,0 +1,192 @@
+package org.opendatakit.espresso;
+
+import android.Manifest;
+import android.content.Intent;
+import android.os.SystemClock;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.espresso.web.webdriver.Locator;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.rule.GrantPermissionRule;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.opendatakit.consts.IntentConsts;
+import org.opendatakit.tables.activities.MainActivity;
+import org.opendatakit.tables.activities.TableDisplayActivity;
+import org.opendatakit.tables.benchmark.dataset.SyntheticAppGenerator;
+import org.opendatakit.tables.data.ViewFragmentType;
+import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.PerfMetrics;
+import org.opendatakit.tables.utils.PerfTrace;
+import org.opendatakit.tables.views.SpreadsheetView;
+import org.opendatakit.util.PerfBudgets;
+import org.opendatakit.util.SyntheticData;
+import org.opendatakit.util.UAUtils;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.assertion.ViewAssertions.matches;
+import static androidx.test.espresso.matcher.ViewMatchers.isAssignableFrom;
+import static androidx.test.espresso.matcher.ViewMatchers.isDisplayed;
+import static androidx.test.espresso.web.sugar.Web.onWebView;
+import static androidx.test.espresso.web.webdriver.DriverAtoms.findElement;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.opendatakit.util.TestConstants.APP_NAME;
+
+/**
+ * Performance budgets, measured against synthetic tables that are generated and imported the
+ * first time the test runs, and deleted again once all of them have run. The budgets and table
+ * sizes can be changed with instrumentation arguments, see {@link PerfBudgets}. The defaults are
+ * for a mid-range device; expect to tune them per device.
+ */
+@LargeTest
+public class PerformanceBudgetTest {
+  private static final String SPREADSHEET_TABLE_ID = "synthetic_large";
+  private static final String MAP_TABLE_ID = "synthetic_map";
+  private static final int TIMEOUT_MS = 2 * 60 * 1000;
+  private static final int POLL_MS = 50;
+
+  // the tables are generated and imported once per test run
+  private static boolean installed = false;
+  private static double importRowsPerSecond;
+
+  private Boolean initSuccess = null;
+  private UiDevice mDevice;
+
+  // don't annotate used in chain rule
+  private ActivityTestRule<MainActivity> mActivityRule = new ActivityTestRule<MainActivity>(
+      MainActivity.class, false, true) {
+    @Override
+    protected void beforeActivityLaunched() {
+      super.beforeActivityLaunched();
+
+      if (initSuccess == null) {
+        mDevice = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
+        initSuccess = UAUtils.turnOnCustomHome(mDevice);
+      }
+    }
+  };
+
+  // don't annotate used in chain rule
+  private GrantPermissionRule grantPermissionRule = GrantPermissionRule.grant(
+      Manifest.permission.WRITE_EXTERNAL_STORAGE,
+      Manifest.permission.READ_EXTERNAL_STORAGE,
+      Manifest.permission.ACCESS_FINE_LOCATION
+  );
+
+  @Rule
+  public TestRule chainedRules = RuleChain
+      .outerRule(grantPermissionRule)
+      .around(mActivityRule);
+
+  @Before
+  public void setup() throws Exception {
+    UAUtils.assertInitSucess(initSuccess);
+    if (installed) {
+      return;
+    }
+    int spreadsheetRows = (int) PerfBudgets.get(PerfBudgets.SPREADSHEET_ROWS, 50000);
+    SyntheticAppGenerator.Spec spreadsheet = SyntheticData
+        .spec(SPREADSHEET_TABLE_ID, spreadsheetRows, 20);
+    spreadsheet.geopointDensity = 0;
+    SyntheticData.install(spreadsheet);
+    long importMs = SyntheticData.importTable(SPREADSHEET_TABLE_ID);
+    importRowsPerSecond = spreadsheetRows * 1000.0 / Math.max(importMs, 1);
+
+    int mapRows = (int) PerfBudgets.get(PerfBudgets.MAP_ROWS, 10000);
+    SyntheticAppGenerator.Spec map = SyntheticData.spec(MAP_TABLE_ID, mapRows, 5);
+    map.geopointDensity = 1.0;
+    SyntheticData.install(map);
+    SyntheticData.importTable(MAP_TABLE_ID);
+    installed = true;
+  }
+
+  /**
+   * The test app is shared with the other ui tests, so don't leave the large tables in it
+   */
+  @AfterClass
+  public static void tearDown() throws Exception {
+    // also after a failed setup, which may have imported one of them
+    installed = false;
+    SyntheticData.uninstall(SPREADSHEET_TABLE_ID);
+    SyntheticData.uninstall(MAP_TABLE_ID);
+  }
+
+  @Test
+  public void csvImport_rowsPerSecond() {
+    PerfBudgets.assertAtLeast(PerfBudgets.CSV_IMPORT_ROWS_PER_SEC, importRowsPerSecond, 500);
+  }
+
+  @Test
+  public void spreadsheet_openLargeTable() {
+    long start = SystemClock.elapsedRealtime();
+    ActivityScenario<TableDisplayActivity> scenario = ActivityScenario
+        .launch(displayIntent(SPREADSHEET_TABLE_ID, ViewFragmentType.SPREADSHEET));
+    try {
+      onView(isAssignableFrom(SpreadsheetView.class)).check(matches(isDisplayed()));
+      long elapsed = SystemClock.elapsedRealtime() - start;
+      PerfBudgets.assertAtMost(PerfBudgets.SPREADSHEET_OPEN_MS, elapsed, 5000);
+    } finally {
+      scenario.close();
+    }
+  }
+
+  @Test
+  public void map_markerSetup() throws InterruptedException {
+    PerfMetrics.reset();
+    ActivityScenario<TableDisplayActivity> scenario = ActivityScenario
+        .launch(displayIntent(MAP_TABLE_ID, ViewFragmentType.MAP));
+    try {
+      PerfMetrics.Snapshot markers = null;
+      for (int waited = 0; markers == null && waited < TIMEOUT_MS; waited += POLL_MS) {
+        Thread.sleep(POLL_MS);
+        markers = PerfMetrics.getHistogram(PerfTrace.MAP_SET_MARKERS);
+      }
+      assertNotNull("the map never set its markers", markers);
+      PerfBudgets.assertAtMost(PerfBudgets.MAP_MARKERS_MS, markers.getMax() / 1000000.0, 3000);
+    } finally {
+      scenario.close();
+    }
+  }
+
+  @Test
+  public void webView_listFirstContent() throws InterruptedException {
+    long start = SystemClock.elapsedRealtime();
+    ActivityScenario<TableDisplayActivity> scenario = ActivityScenario
+        .launch(displayIntent(SPREADSHEET_TABLE_ID, ViewFragmentType.LIST));
+    try {
+      boolean found = false;
+      while (!found && SystemClock.elapsedRealtime() - start < TIMEOUT_MS) {
+        try {
+          onWebView().withElement(findElement(Locator.ID, SyntheticAppGenerator.FIRST_ROW_ID));
+          found = true;
+        } catch (RuntimeException e) {
+          Thread.sleep(POLL_MS);
+        }
+      }
+      long elapsed = SystemClock.elapsedRealtime() - start;
+      assertTrue("the list view never showed its first row", found);
+      PerfBudgets.assertAtMost(PerfBudgets.WEBVIEW_FIRST_CONTENT_MS, elapsed, 3000);
+    } finally {
+      scenario.close();
+    }
+  }
+
+  private static Intent displayIntent(String tableId, ViewFragmentType viewType) {
+    Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+        TableDisplayActivity.class);
+    intent.putExtra(IntentConsts.INTENT_KEY_APP_NAME, APP_NAME);
+    intent.putExtra(IntentConsts.INTENT_KEY_TABLE_ID, tableId);
+    intent.putExtra(Constants.IntentKeys.TABLE_DISPLAY_VIEW_TYPE, viewType.name());
+    return intent;
+  }
+}
@@ -32,7 +32,8 @@ import static org.hamcrest.Matchers.containsString;
 
 /**
  * This test can only be used with the index from the large
- * data set app and is used for very specific purposes.
+ * data set app and is used for very specific purposes. The table data of such an app can be
+ * generated at any size with {@link org.opendatakit.util.SyntheticData}.
  * <p>
  * This should never be run on the build server!
  */
@@ -0,0 +1,69 @@
+package org.opendatakit.util;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Performance budgets for the uitest flavor. Every budget has a default that can be overridden
+ * with an instrumentation argument, e.g.
+ * <pre>
+ * ./gradlew connectedUitestDebugAndroidTest \
+ *   -Pandroid.testInstrumentationRunnerArguments.budget.spreadsheetOpenMs=3000 \
+ *   -Pandroid.testInstrumentationRunnerArguments.budget.tolerance=0.1
+ * </pre>
+ * A measurement fails only when it misses its budget by more than the tolerance, a fraction of
+ * the budget, so that normal run to run noise does not fail the build.
+ */
+public class PerfBudgets {
+  private static final String TAG = PerfBudgets.class.getSimpleName();
+  private static final String ARG_PREFIX = "budget.";
+
+  public static final String TOLERANCE = "tolerance";
+  public static final String SPREADSHEET_ROWS = "spreadsheetRows";
+  public static final String SPREADSHEET_OPEN_MS = "spreadsheetOpenMs";
+  public static final String MAP_ROWS = "mapRows";
+  public static final String MAP_MARKERS_MS = "mapMarkersMs";
+  public static final String CSV_IMPORT_ROWS_PER_SEC = "csvImportRowsPerSec";
+  public static final String WEBVIEW_FIRST_CONTENT_MS = "webViewFirstContentMs";
+
+  private static final double DEFAULT_TOLERANCE = 0.25;
+
+  /**
+   * @return the value of a budget argument, or defaultValue if it wasn't passed
+   */
+  public static double get(String name, double defaultValue) {
+    Bundle args = InstrumentationRegistry.getArguments();
+    String value = args.getString(ARG_PREFIX + name);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+
+  /**
+   * Fails if a time or other lower-is-better measurement is over budget
+   */
+  public static void assertAtMost(String name, double measured, double defaultBudget) {
+    double budget = get(name, defaultBudget);
+    double limit = budget * (1 + get(TOLERANCE, DEFAULT_TOLERANCE));
+    report(name, measured, budget, limit);
+    assertTrue(name + ": measured " + measured + ", budget " + budget + ", limit with tolerance "
+        + limit, measured <= limit);
+  }
+
+  /**
+   * Fails if a throughput or other higher-is-better measurement is under budget
+   */
+  public static void assertAtLeast(String name, double measured, double defaultBudget) {
+    double budget = get(name, defaultBudget);
+    double limit = budget * (1 - get(TOLERANCE, DEFAULT_TOLERANCE));
+    report(name, measured, budget, limit);
+    assertTrue(name + ": measured " + measured + ", budget " + budget + ", limit with tolerance "
+        + limit, measured >= limit);
+  }
+
+  private static void report(String name, double measured, double budget, double limit) {
+    Log.i(TAG, name + " measured=" + measured + " budget=" + budget + " limit=" + limit);
+  }
+}
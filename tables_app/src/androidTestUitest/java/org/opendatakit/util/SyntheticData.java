@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.util;
+
+import org.opendatakit.builder.CsvUtil;
+import org.opendatakit.builder.CsvUtilSupervisor;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.listener.ImportListener;
+import org.opendatakit.tables.application.Tables;
+import org.opendatakit.tables.benchmark.dataset.SyntheticAppGenerator;
+import org.opendatakit.tables.benchmark.dataset.SyntheticTable;
+import org.opendatakit.tables.utils.TableHealthCache;
+import org.opendatakit.tables.utils.TableListCache;
+import org.opendatakit.tables.views.SpreadsheetColumnMetadata;
+import org.opendatakit.utilities.ODKFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes synthetic tables of the requested size into the test app and imports them, so that
+ * the performance and stress tests don't depend on a hand-made large data set app. The app's
+ * tables.init is left alone, so the other tests' tables are unaffected. The test app is shared
+ * with every other ui test, so call {@link #uninstall(String)} for each table when done.
+ */
+public class SyntheticData {
+  public static final String TABLE_ID = "synthetic";
+
+  /**
+   * @return a spec for a synthetic table, for the caller to adjust
+   */
+  public static SyntheticAppGenerator.Spec spec(String tableId, int rows, int columns) {
+    SyntheticAppGenerator.Spec spec = new SyntheticAppGenerator.Spec();
+    spec.tableId = tableId;
+    spec.rows = rows;
+    spec.columns = columns;
+    return spec;
+  }
+
+  /**
+   * @return a spec for the default synthetic table, for the caller to adjust
+   */
+  public static SyntheticAppGenerator.Spec spec(int rows, int columns) {
+    return spec(TABLE_ID, rows, columns);
+  }
+
+  /**
+   * Writes the files of the table described by spec into the app folder of
+   * {@link TestConstants#APP_NAME}. Call {@link #importTable(String)} to create it. Only the
+   * table's own files are written; writing a whole app would replace the tables.init of the
+   * shared test app.
+   *
+   * @return the generated table, to compare what is displayed against
+   */
+  public static SyntheticTable install(SyntheticAppGenerator.Spec spec) throws IOException {
+    File appDir = new File(ODKFileUtils.getAppFolder(TestConstants.APP_NAME));
+    return new SyntheticAppGenerator(spec).writeTable(appDir);
+  }
+
+  /**
+   * Drops the table if it exists and imports it again from the files written by
+   * {@link #install(SyntheticAppGenerator.Spec)}. Runs on the calling thread.
+   *
+   * @return how long the import took, in ms
+   */
+  public static long importTable(String tableId) throws ServicesAvailabilityException {
+    final UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(TestConstants.APP_NAME);
+      List<String> tableIds = dbInterface.getAllTableIds(TestConstants.APP_NAME, db);
+      if (tableIds.contains(tableId)) {
+        dbInterface.deleteTableAndAllData(TestConstants.APP_NAME, db, tableId);
+      }
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(TestConstants.APP_NAME, db);
+      }
+    }
+
+    CsvUtil cu = new CsvUtil(new CsvUtilSupervisor() {
+      @Override
+      public UserDbInterface getDatabase() {
+        return dbInterface;
+      }
+    }, TestConstants.APP_NAME);
+    final boolean[] outcome = new boolean[] { true };
+    long start = System.currentTimeMillis();
+    boolean imported = cu.importSeparable(new ImportListener() {
+      @Override
+      public void updateProgressDetail(int row, int total) {
+      }
+
+      @Override
+      public void importComplete(boolean result) {
+        outcome[0] = result;
+      }
+    }, tableId, null, true);
+    long elapsed = System.currentTimeMillis() - start;
+    TableHealthCache.get(TestConstants.APP_NAME).invalidate();
+    TableListCache.get(TestConstants.APP_NAME).invalidate();
+    SpreadsheetColumnMetadata.invalidate(TestConstants.APP_NAME, tableId);
+    if (!imported || !outcome[0]) {
+      throw new IllegalStateException("import of " + tableId + " failed");
+    }
+    return elapsed;
+  }
+
+  /**
+   * Deletes the table and its data, and the files {@link #install(SyntheticAppGenerator.Spec)}
+   * wrote for it, leaving the test app as it was before
+   */
+  public static void uninstall(String tableId) throws ServicesAvailabilityException {
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(TestConstants.APP_NAME);
+      if (dbInterface.getAllTableIds(TestConstants.APP_NAME, db).contains(tableId)) {
+        dbInterface.deleteTableAndAllData(TestConstants.APP_NAME, db, tableId);
+      }
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(TestConstants.APP_NAME, db);
+      }
+    }
+    TableHealthCache.get(TestConstants.APP_NAME).invalidate();
+    TableListCache.get(TestConstants.APP_NAME).invalidate();
+    SpreadsheetColumnMetadata.invalidate(TestConstants.APP_NAME, tableId);
+
+    File appDir = new File(ODKFileUtils.getAppFolder(TestConstants.APP_NAME));
+    delete(new File(appDir, "config" + File.separator + "tables" + File.separator + tableId));
+    delete(new File(appDir, "config" + File.separator + "assets" + File.separator + "csv"
+        + File.separator + tableId + ".csv"));
+    delete(new File(appDir, "benchmark" + File.separator + tableId + ".server.csv"));
+    delete(new File(appDir, "benchmark" + File.separator + tableId + ".spec.properties"));
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    if (file.exists() && !file.delete()) {
+      throw new IllegalStateException("unable to delete " + file);
+    }
+  }
+}
@@ -37,8 +37,14 @@ import org.opendatakit.logging.WebLogger;
 import org.opendatakit.properties.CommonToolProperties;
 import org.opendatakit.properties.PropertiesSingleton;
 import org.opendatakit.tables.R;
+import org.opendatakit.tables.utils.ColumnStatisticsCache;
 import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.GroupAggregateCache;
 import org.opendatakit.tables.utils.TableFileUtils;
+import org.opendatakit.tables.utils.TableHealthCache;
+import org.opendatakit.tables.utils.TableListCache;
+import org.opendatakit.tables.views.SpreadsheetColumnMetadata;
+import org.opendatakit.tables.views.SpreadsheetSearchIndex;
 
 import java.util.Iterator;
 import java.util.List;
@@ -135,45 +141,96 @@ public abstract class AbsBaseActivity extends BaseActivity {
     mActionTableId = tableId;
   }
 
+  /**
+   * Applies a background health refresh, then goes through conflict resolution again. The cache
+   * holds it weakly, so it has to stay in a field for as long as the activity lives.
+   */
+  private final TableHealthCache.RefreshListener mHealthRefreshListener =
+      new TableHealthCache.RefreshListener() {
+        @Override
+        public void tableHealthRefreshed(List<TableHealthInfo> tableHealthList) {
+          if (isFinishing()) {
+            return;
+          }
+          applyTableHealthStatuses(tableHealthList);
+          resolveAnyConflicts();
+        }
+
+        @Override
+        public void tableHealthRefreshFailed(Exception e) {
+          if (e != null && !isFinishing()) {
+            handleError(e);
+          }
+        }
+      };
+
+  @Override
+  protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+    switch (requestCode) {
+    case RequestCodeConsts.RequestCodes.LAUNCH_TABLE_PREFS:
+    case RequestCodeConsts.RequestCodes.LAUNCH_COLOR_RULE_LIST:
+    case RequestCodeConsts.RequestCodes.LAUNCH_DISPLAY_PREFS:
+      // column display settings, color rules or the font size may have changed
+      SpreadsheetColumnMetadata.invalidateAll(getAppName());
+      break;
+    case RequestCodeConsts.RequestCodes.LAUNCH_SYNC:
+    case RequestCodeConsts.RequestCodes.LAUNCH_IMPORT:
+      // tables may have been added, removed or renamed
+      TableListCache.get(getAppName()).invalidate();
+      SpreadsheetColumnMetadata.invalidateAll(getAppName());
+      SpreadsheetSearchIndex.invalidateAll(getAppName());
+      GroupAggregateCache.get(getAppName()).invalidate();
+      ColumnStatisticsCache.get(getAppName()).invalidate();
+      // fall through
+    case RequestCodeConsts.RequestCodes.LAUNCH_CHECKPOINT_RESOLVER:
+    case RequestCodeConsts.RequestCodes.LAUNCH_CONFLICT_RESOLVER:
+    case RequestCodeConsts.RequestCodes.ADD_ROW_SURVEY:
+    case RequestCodeConsts.RequestCodes.EDIT_ROW_SURVEY:
+    case RequestCodeConsts.RequestCodes.LAUNCH_DOACTION:
+      // any of these may have added or removed checkpoints or conflicts
+      TableHealthCache.get(getAppName()).invalidate();
+      break;
+    default:
+      break;
+    }
+    super.onActivityResult(requestCode, resultCode, data);
+  }
+
   /**
    * Checks all tables for checkpoints and conflicts, adding them to mConflictTables and
-   * mCheckpointTables
+   * mCheckpointTables. Uses the cached health snapshot when nothing has changed since the last
+   * scan. Otherwise, if the cache is configured to refresh in the background, the scan runs off
+   * the UI thread and conflict resolution resumes when it completes.
    */
   public void scanAllTables() {
-    long start = System.currentTimeMillis();
-    WebLogger.getLogger(getAppName())
-        .i(TAG, "scanAllTables -- searching for conflicts and checkpoints ");
+    TableHealthCache cache = TableHealthCache.get(mAppName);
+    List<TableHealthInfo> cached = cache.getFreshSnapshot();
+    if (cached != null) {
+      applyTableHealthStatuses(cached);
+      return;
+    }
 
     CommonApplication app = (CommonApplication) getApplication();
-    DbHandle db = null;
-
     if (app.getDatabase() == null) {
       return;
     }
 
-    try {
-      db = app.getDatabase().openDatabase(mAppName);
-      List<TableHealthInfo> tableHealthList = app.getDatabase()
-          .getTableHealthStatuses(mAppName, db);
-
-      Bundle checkpointTables = new Bundle();
-      Bundle conflictTables = new Bundle();
+    if (cache.isRefreshInBackground()) {
+      WebLogger.getLogger(getAppName())
+          .i(TAG, "scanAllTables -- refreshing table health in the background");
+      cache.refreshInBackground(mHealthRefreshListener);
+      return;
+    }
 
-      for (TableHealthInfo tableHealth : tableHealthList) {
-        String tableId = tableHealth.getTableId();
-        TableHealthStatus status = tableHealth.getHealthStatus();
+    long start = System.currentTimeMillis();
+    WebLogger.getLogger(getAppName())
+        .i(TAG, "scanAllTables -- searching for conflicts and checkpoints ");
 
-        if (status == TableHealthStatus.TABLE_HEALTH_HAS_CHECKPOINTS
-            || status == TableHealthStatus.TABLE_HEALTH_HAS_CHECKPOINTS_AND_CONFLICTS) {
-          checkpointTables.putString(tableId, tableId);
-        }
-        if (status == TableHealthStatus.TABLE_HEALTH_HAS_CONFLICTS
-            || status == TableHealthStatus.TABLE_HEALTH_HAS_CHECKPOINTS_AND_CONFLICTS) {
-          conflictTables.putString(tableId, tableId);
-        }
-      }
-      mCheckpointTables = checkpointTables;
-      mConflictTables = conflictTables;
+    DbHandle db = null;
+    try {
+      db = app.getDatabase().openDatabase(mAppName);
+      List<TableHealthInfo> tableHealthList = cache.scan(app.getDatabase(), db);
+      applyTableHealthStatuses(tableHealthList);
     } catch (ServicesAvailabilityException e) {
       handleError(e);
     } finally {
@@ -191,6 +248,33 @@ public abstract class AbsBaseActivity extends BaseActivity {
         .i(TAG, "scanAllTables -- full table scan completed: " + Long.toString(elapsed) + " ms");
   }
 
+  /**
+   * Replaces mConflictTables and mCheckpointTables with the tables in the given health list that
+   * have conflicts or checkpoints
+   *
+   * @param tableHealthList the result of a health scan of all tables
+   */
+  protected void applyTableHealthStatuses(List<TableHealthInfo> tableHealthList) {
+    Bundle checkpointTables = new Bundle();
+    Bundle conflictTables = new Bundle();
+
+    for (TableHealthInfo tableHealth : tableHealthList) {
+      String tableId = tableHealth.getTableId();
+      TableHealthStatus status = tableHealth.getHealthStatus();
+
+      if (status == TableHealthStatus.TABLE_HEALTH_HAS_CHECKPOINTS
+          || status == TableHealthStatus.TABLE_HEALTH_HAS_CHECKPOINTS_AND_CONFLICTS) {
+        checkpointTables.putString(tableId, tableId);
+      }
+      if (status == TableHealthStatus.TABLE_HEALTH_HAS_CONFLICTS
+          || status == TableHealthStatus.TABLE_HEALTH_HAS_CHECKPOINTS_AND_CONFLICTS) {
+        conflictTables.putString(tableId, tableId);
+      }
+    }
+    mCheckpointTables = checkpointTables;
+    mConflictTables = conflictTables;
+  }
+
   /**
    * Hijack the app here, after all screens have been resumed, to ensure that all checkpoints and
    * conflicts have been resolved. If they haven't, we branch to the resolution activity.
@@ -215,6 +299,7 @@ public abstract class AbsBaseActivity extends BaseActivity {
       i.putExtra(IntentConsts.INTENT_KEY_TABLE_ID, tableId);
       try {
         this.startActivityForResult(i, RequestCodeConsts.RequestCodes.LAUNCH_CHECKPOINT_RESOLVER);
+        TableHealthCache.get(getAppName()).invalidate();
       } catch (ActivityNotFoundException e) {
         handleError(e);
       }
@@ -233,6 +318,7 @@ public abstract class AbsBaseActivity extends BaseActivity {
       i.putExtra(IntentConsts.INTENT_KEY_TABLE_ID, tableId);
       try {
         this.startActivityForResult(i, RequestCodeConsts.RequestCodes.LAUNCH_CONFLICT_RESOLVER);
+        TableHealthCache.get(getAppName()).invalidate();
       } catch (ActivityNotFoundException e) {
         handleError(e);
       }
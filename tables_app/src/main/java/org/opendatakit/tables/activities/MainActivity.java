@@ -34,6 +34,7 @@ import org.opendatakit.consts.IntentConsts;
 import org.opendatakit.consts.RequestCodeConsts;
 import org.opendatakit.database.queries.ResumableQuery;
 import org.opendatakit.database.queries.SingleRowQuery;
+import org.opendatakit.database.service.TableHealthInfo;
 import org.opendatakit.database.utilities.QueryUtil;
 import org.opendatakit.fragment.AboutMenuFragment;
 import org.opendatakit.listener.DatabaseConnectionListener;
@@ -49,6 +50,7 @@ import org.opendatakit.tables.fragments.WebFragment;
 import org.opendatakit.tables.utils.Constants;
 import org.opendatakit.tables.utils.IntentUtil;
 import org.opendatakit.tables.utils.SQLQueryStruct;
+import org.opendatakit.tables.utils.StartupOrchestrator;
 import org.opendatakit.utilities.ODKFileUtils;
 import org.opendatakit.views.ODKWebView;
 import org.opendatakit.views.OdkData;
@@ -56,6 +58,7 @@ import org.opendatakit.webkitserver.utilities.UrlUtils;
 
 import java.io.File;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * The main activity for ODK Tables. It serves primarily as a holder for fragments.
@@ -63,7 +66,8 @@ import java.util.Collections;
  * @author sudar.sam@gmail.com
  */
 public class MainActivity extends AbsBaseWebActivity
-    implements DatabaseConnectionListener, IInitResumeActivity {
+    implements DatabaseConnectionListener, IInitResumeActivity,
+    StartupOrchestrator.StartupListener {
 
   public interface UXNotifyListener
   {
@@ -85,6 +89,10 @@ public class MainActivity extends AbsBaseWebActivity
    */
   private ScreenType lastMenuType = null;
   private PropertiesSingleton mPropSingleton;
+  /**
+   * Runs the health scan, table list warmup and webview preload off the UI thread
+   */
+  private StartupOrchestrator mStartup;
 
   private static String[] checkForQueryParameter(File webFile) {
     String webFileToDisplayPath = webFile.getPath();
@@ -180,6 +188,21 @@ public class MainActivity extends AbsBaseWebActivity
           activeScreenType.name());
     }
     mPropSingleton = CommonToolProperties.get( this ,mAppName);
+    mStartup = new StartupOrchestrator(this, mAppName, this);
+  }
+
+  @Override
+  protected void onDestroy() {
+    mStartup.shutdown();
+    super.onDestroy();
+  }
+
+  /**
+   * @return the startup orchestrator, used by the TableManagerFragment to pick up the warmed
+   * table list
+   */
+  public StartupOrchestrator getStartupOrchestrator() {
+    return mStartup;
   }
 
   @Override
@@ -274,6 +297,7 @@ public class MainActivity extends AbsBaseWebActivity
 
   @Override
   public void initializationCompleted() {
+    mStartup.initializationCompleted();
     File newHome = getHomeScreen(null);
 
     if ((newHome == null && webFileToDisplay == null) ||
@@ -556,6 +580,68 @@ public class MainActivity extends AbsBaseWebActivity
         null, null);
   }
 
+  /**
+   * Start the background startup phases before the fragments are told about the database, so
+   * that the health scan and table list load overlap with everything else.
+   */
+  @Override
+  public void databaseAvailable() {
+    mStartup.start(activeScreenType == ScreenType.INITIALIZATION_SCREEN);
+    super.databaseAvailable();
+  }
+
+  @Override
+  public void databaseUnavailable() {
+    mStartup.reset();
+    super.databaseUnavailable();
+  }
+
+  /**
+   * While the startup health scan is in flight there is no point in scanning again on the UI
+   * thread; {@link #tableHealthScanned(List)} resolves any conflicts when it completes.
+   */
+  @Override
+  public void scanAllTables() {
+    if (mStartup.isPhaseRunning(StartupOrchestrator.Phase.HEALTH_SCAN)) {
+      return;
+    }
+    super.scanAllTables();
+  }
+
+  @Override
+  public void tableHealthScanned(List<TableHealthInfo> tableHealthList) {
+    applyTableHealthStatuses(tableHealthList);
+    if (!isFinishing() && activeScreenType != ScreenType.INITIALIZATION_SCREEN) {
+      resolveAnyConflicts();
+    }
+  }
+
+  /**
+   * Falls back to the scan that {@link #scanAllTables()} skipped while the startup scan was
+   * running.
+   */
+  @Override
+  public void tableHealthScanFailed() {
+    if (!isFinishing()) {
+      super.scanAllTables();
+    }
+  }
+
+  /**
+   * The table manager waits for the warmup, so it is told either way. After a failure the list
+   * isn't cached and it loads the list itself.
+   */
+  @Override
+  public void tableListWarmed() {
+    if (activeScreenType == ScreenType.TABLE_MANAGER_SCREEN) {
+      Fragment fragment = getSupportFragmentManager()
+          .findFragmentByTag(ScreenType.TABLE_MANAGER_SCREEN.name());
+      if (fragment instanceof TableManagerFragment) {
+        ((TableManagerFragment) fragment).notifyUIChanges();
+      }
+    }
+  }
+
   private enum ScreenType {
     INITIALIZATION_SCREEN, TABLE_MANAGER_SCREEN, ABOUT_SCREEN, WEBVIEW_SCREEN
   }
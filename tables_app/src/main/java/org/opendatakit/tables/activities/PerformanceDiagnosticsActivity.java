@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.activities;
+
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
+import org.opendatakit.activities.BaseActivity;
+import org.opendatakit.consts.IntentConsts;
+import org.opendatakit.tables.R;
+import org.opendatakit.tables.utils.FrameMonitor;
+import org.opendatakit.tables.utils.PerfMetrics;
+import org.opendatakit.tables.utils.TableFileUtils;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Shows the latency percentiles and counters collected by {@link PerfMetrics} since the process
+ * started, and turns the {@link FrameMonitor} on or off. It is not reachable from any menu;
+ * start it with
+ * <pre>
+ * adb shell am start -a org.opendatakit.tables.activities.PerformanceDiagnosticsActivity
+ * </pre>
+ */
+public class PerformanceDiagnosticsActivity extends BaseActivity {
+
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  private String mAppName;
+  private TextView mReport;
+
+  @Override
+  public void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+    mAppName = getIntent().getStringExtra(IntentConsts.INTENT_KEY_APP_NAME);
+    if (mAppName == null) {
+      mAppName = TableFileUtils.getDefaultAppName();
+    }
+    setTitle(R.string.perf_diagnostics_title);
+
+    LinearLayout buttons = new LinearLayout(this);
+    buttons.setOrientation(LinearLayout.HORIZONTAL);
+    Button refresh = new Button(this);
+    refresh.setText(R.string.perf_diagnostics_refresh);
+    refresh.setOnClickListener(new View.OnClickListener() {
+      @Override
+      public void onClick(View v) {
+        showReport();
+      }
+    });
+    buttons.addView(refresh);
+    Button reset = new Button(this);
+    reset.setText(R.string.perf_diagnostics_reset);
+    reset.setOnClickListener(new View.OnClickListener() {
+      @Override
+      public void onClick(View v) {
+        PerfMetrics.reset();
+        showReport();
+      }
+    });
+    buttons.addView(reset);
+
+    CheckBox frameMonitor = new CheckBox(this);
+    frameMonitor.setText(R.string.perf_diagnostics_frame_monitor);
+    frameMonitor.setChecked(FrameMonitor.isEnabled(this));
+    frameMonitor.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+      @Override
+      public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+        FrameMonitor.setEnabled(PerformanceDiagnosticsActivity.this, isChecked);
+      }
+    });
+
+    mReport = new TextView(this);
+    mReport.setTypeface(Typeface.MONOSPACE);
+    mReport.setTextIsSelectable(true);
+
+    LinearLayout content = new LinearLayout(this);
+    content.setOrientation(LinearLayout.VERTICAL);
+    content.addView(buttons);
+    content.addView(frameMonitor);
+    content.addView(mReport);
+    ScrollView scroll = new ScrollView(this);
+    scroll.addView(content);
+    setContentView(scroll);
+  }
+
+  @Override
+  protected void onResume() {
+    super.onResume();
+    showReport();
+  }
+
+  private void showReport() {
+    StringBuilder b = new StringBuilder();
+    b.append(String.format(Locale.US, "%-28s %7s %9s %9s %9s %9s%n", "section (ms)", "count",
+        "p50", "p95", "p99", "max"));
+    for (PerfMetrics.Snapshot s : PerfMetrics.getHistograms()) {
+      b.append(String.format(Locale.US, "%-28s %7d %9.2f %9.2f %9.2f %9.2f%n", s.getName(),
+          s.getCount(), s.getPercentile(50) / NANOS_PER_MILLI,
+          s.getPercentile(95) / NANOS_PER_MILLI, s.getPercentile(99) / NANOS_PER_MILLI,
+          s.getMax() / NANOS_PER_MILLI));
+    }
+    Map<String, Long> counters = PerfMetrics.getCounters();
+    if (!counters.isEmpty()) {
+      b.append(String.format(Locale.US, "%n%-28s %7s%n", "counter", "value"));
+      for (Map.Entry<String, Long> entry : counters.entrySet()) {
+        b.append(String.format(Locale.US, "%-28s %7d%n", entry.getKey(), entry.getValue()));
+      }
+    }
+    if (PerfMetrics.getHistograms().isEmpty() && counters.isEmpty()) {
+      b.append(getString(R.string.perf_diagnostics_empty));
+    }
+    mReport.setText(b.toString());
+  }
+
+  @Override
+  public String getAppName() {
+    return mAppName;
+  }
+
+  /**
+   * We have to have this method because we implement DatabaseConnectionListener
+   */
+  @Override
+  public void databaseAvailable() {
+  }
+
+  /**
+   * We have to have this method because we implement DatabaseConnectionListener
+   */
+  @Override
+  public void databaseUnavailable() {
+  }
+}
@@ -28,6 +28,7 @@ import android.os.Bundle;
 import android.os.Parcelable;
 import androidx.annotation.NonNull;
 import androidx.core.app.ActivityCompat;
+import androidx.lifecycle.ViewModelProvider;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -36,6 +37,7 @@ import android.widget.Toast;
 import org.opendatakit.consts.IntentConsts;
 import org.opendatakit.consts.RequestCodeConsts;
 import org.opendatakit.data.utilities.TableUtil;
+import org.opendatakit.database.data.OrderedColumns;
 import org.opendatakit.database.data.UserTable;
 import org.opendatakit.database.queries.ArbitraryQuery;
 import org.opendatakit.database.queries.BindArgs;
@@ -60,10 +62,19 @@ import org.opendatakit.tables.fragments.NavigateFragment;
 import org.opendatakit.tables.fragments.SpreadsheetFragment;
 import org.opendatakit.tables.fragments.TableMapInnerFragment;
 import org.opendatakit.tables.fragments.TableMapInnerFragment.TableMapInnerFragmentListener;
+import org.opendatakit.tables.tasks.BulkRowTask;
 import org.opendatakit.tables.utils.ActivityUtil;
+import org.opendatakit.tables.utils.ColumnStatisticsCache;
 import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.FrameMonitor;
+import org.opendatakit.tables.utils.GroupAggregateCache;
 import org.opendatakit.tables.utils.IntentUtil;
+import org.opendatakit.tables.utils.MemoryCacheManager;
+import org.opendatakit.tables.utils.PerfMetrics;
+import org.opendatakit.tables.utils.PerfTrace;
 import org.opendatakit.tables.utils.SQLQueryStruct;
+import org.opendatakit.tables.utils.TableHealthCache;
+import org.opendatakit.tables.utils.TypedColumnCache;
 import org.opendatakit.tables.views.SpreadsheetProps;
 import org.opendatakit.utilities.RuntimePermissionUtils;
 import org.opendatakit.views.ODKWebView;
@@ -141,19 +152,43 @@ public class TableDisplayActivity extends AbsBaseWebActivity
   private ViewFragmentType mCurrentFragmentType;
   private String mCurrentFileName;
   private String mCurrentSubFileName;
+  /**
+   * Records frame times per view type when the user opted in, otherwise null
+   */
+  private FrameMonitor mFrameMonitor = null;
   /**
    * The type of fragment that was originally requested.
    */
   private ViewFragmentType mOriginalFragmentType;
   private String mOriginalFileName;
   /**
-   * Cached data from database
+   * Cached data from database: the loaded table and what was worked out from it, retained
+   * across configuration changes
    */
-  private PossibleTableViewTypes mPossibleTableViewTypes = null;
+  private TableDisplayViewModel mData;
   /**
-   * The {@link UserTable} that is being displayed in this activity.
+   * Lets the spreadsheet drop its own references to rows that were evicted while the activity
+   * was in the background, so that they can actually be freed
    */
-  private UserTable mUserTable = null;
+  private final TableDisplayViewModel.EvictionListener mEvictionListener =
+      new TableDisplayViewModel.EvictionListener() {
+        @Override
+        public void userTableEvicted() {
+          runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+              if (destroyed) {
+                return;
+              }
+              Fragment spreadsheetFragment = getSupportFragmentManager()
+                  .findFragmentByTag(ViewFragmentType.SPREADSHEET.name());
+              if (spreadsheetFragment instanceof SpreadsheetFragment) {
+                ((SpreadsheetFragment) spreadsheetFragment).userTableEvicted();
+              }
+            }
+          });
+        }
+      };
   private boolean pullFromDatabase;
   private String mDefaultRowId;
 
@@ -200,6 +235,11 @@ public class TableDisplayActivity extends AbsBaseWebActivity
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
+    // After a configuration change this is the data the previous instance loaded
+    mData = new ViewModelProvider(this).get(TableDisplayViewModel.class);
+    mData.mAppName = getAppName();
+    mData.mTableId = getTableId();
+    mData.mEvictionListener = mEvictionListener;
     // If we don't remove all fragments, we get the bug where if you go to a list view, then
     // switch to a spreadsheet view, then rotate the screen and switch back to list, the list
     // view never loads
@@ -222,6 +262,9 @@ public class TableDisplayActivity extends AbsBaseWebActivity
       props = new SpreadsheetProps();
     }
     props.setActivity(this);
+    if (FrameMonitor.isEnabled(this)) {
+      mFrameMonitor = new FrameMonitor(this, getAppName());
+    }
 
 
     /*
@@ -446,16 +489,16 @@ public class TableDisplayActivity extends AbsBaseWebActivity
    * @return the default filename to be used for that fragment type
    */
   private String getDefaultFileNameForViewFragmentType(ViewFragmentType fragmentType) {
-    if (mPossibleTableViewTypes == null || fragmentType == null) {
+    if (mData.mPossibleTableViewTypes == null || fragmentType == null) {
       return null;
     }
     switch (fragmentType) {
     case LIST:
-      return mPossibleTableViewTypes.getDefaultListViewFileName();
+      return mData.mPossibleTableViewTypes.getDefaultListViewFileName();
     case MAP:
-      return mPossibleTableViewTypes.getDefaultMapListViewFileName();
+      return mData.mPossibleTableViewTypes.getDefaultMapListViewFileName();
     case DETAIL:
-      return mPossibleTableViewTypes.getDefaultDetailFileName();
+      return mData.mPossibleTableViewTypes.getDefaultDetailFileName();
     case SPREADSHEET:
     case DETAIL_WITH_LIST:
     case SUB_LIST:
@@ -476,7 +519,7 @@ public class TableDisplayActivity extends AbsBaseWebActivity
    */
   public UserTable getUserTable() {
     String[] emptyArray = {};
-    if (mUserTable == null) {
+    if (mData.mUserTable == null) {
       DbHandle db = null;
       try {
         db = getDatabase().openDatabase(getAppName());
@@ -492,14 +535,27 @@ public class TableDisplayActivity extends AbsBaseWebActivity
         sqlQueryStruct.orderByElementKey = props.getSort();
         sqlQueryStruct.orderByDirection = props.getSortOrder();
 
-        mUserTable = getDatabase()
-            .simpleQuery(this.getAppName(), db, this.getTableId(), getColumnDefinitions(),
-                sqlQueryStruct.whereClause, sqlQueryStruct.selectionArgs,
-                sqlQueryStruct.groupBy == null ? emptyArray : sqlQueryStruct.groupBy,
-                sqlQueryStruct.having,
-                QueryUtil.convertStringToArray(sqlQueryStruct.orderByElementKey),
-                QueryUtil.convertStringToArray(sqlQueryStruct.orderByDirection),
-                null, null);
+        long start = PerfTrace.begin(PerfTrace.USER_TABLE_QUERY);
+        try {
+          mData.mUserTable = getDatabase()
+              .simpleQuery(this.getAppName(), db, this.getTableId(), getColumnDefinitions(),
+                  sqlQueryStruct.whereClause, sqlQueryStruct.selectionArgs,
+                  sqlQueryStruct.groupBy == null ? emptyArray : sqlQueryStruct.groupBy,
+                  sqlQueryStruct.having,
+                  QueryUtil.convertStringToArray(sqlQueryStruct.orderByElementKey),
+                  QueryUtil.convertStringToArray(sqlQueryStruct.orderByDirection),
+                  null, null);
+        } finally {
+          PerfTrace.end(PerfTrace.USER_TABLE_QUERY, start);
+        }
+        mData.mUserTableQuery = sqlQueryStruct;
+        if (mData.mUserTable != null) {
+          PerfMetrics
+              .increment(PerfTrace.COUNTER_USER_TABLE_ROWS, mData.mUserTable.getNumberOfRows());
+          if (mFrameMonitor != null) {
+            mFrameMonitor.setRowCount(mData.mUserTable.getNumberOfRows());
+          }
+        }
       } catch (ServicesAvailabilityException e) {
         WebLogger.getLogger(getAppName()).printStackTrace(e);
       } finally {
@@ -513,7 +569,77 @@ public class TableDisplayActivity extends AbsBaseWebActivity
         }
       }
     }
-    return mUserTable;
+    return mData.mUserTable;
+  }
+
+  /**
+   * Gets the parsed numeric columns of the {@link UserTable} held by this activity, loading the
+   * table if needed. Columns are parsed on first use and kept until the table is loaded again
+   * or memory runs low.
+   *
+   * @return the typed columns of the current table, or null if it couldn't be loaded
+   */
+  public TypedColumnCache getTypedColumns() {
+    final UserTable table = getUserTable();
+    if (table == null) {
+      return null;
+    }
+    if (mData.mTypedColumnsTable != table) {
+      mData.mTypedColumns = new TypedColumnCache(new TypedColumnCache.Source() {
+        @Override
+        public int getRowCount() {
+          return table.getNumberOfRows();
+        }
+
+        @Override
+        public String getValue(String elementKey, int rowIndex) {
+          return table.getRowAtIndex(rowIndex).getStringValueByKey(elementKey);
+        }
+      });
+      mData.mTypedColumnsTable = table;
+      MemoryCacheManager.get().register(mData.mTypedColumns);
+    }
+    return mData.mTypedColumns;
+  }
+
+  /**
+   * The column definitions are retained across configuration changes along with the table
+   *
+   * @return the column definitions of the table
+   */
+  @Override
+  public synchronized OrderedColumns getColumnDefinitions() {
+    if (mData.mColumnDefinitions == null) {
+      mData.mColumnDefinitions = super.getColumnDefinitions();
+    }
+    return mData.mColumnDefinitions;
+  }
+
+  /**
+   * Gets the markers the map view drew before the activity was recreated for a configuration
+   * change, so it can draw them again without going to the database
+   *
+   * @return the markers, or null if the map has to work them out
+   */
+  public TableDisplayViewModel.MapMarkers getMapMarkers() {
+    return mData.mMapMarkers;
+  }
+
+  /**
+   * @param markers the markers the map view just worked out
+   */
+  public void setMapMarkers(TableDisplayViewModel.MapMarkers markers) {
+    mData.mMapMarkers = markers;
+  }
+
+  /**
+   * Gets the query that the current {@link UserTable} was loaded with. The spreadsheet uses it
+   * to tell whether the rows already come out of the database in the order it displays them.
+   *
+   * @return the query, or null if no table has been loaded
+   */
+  public SQLQueryStruct getUserTableQuery() {
+    return mData.mUserTable == null ? null : mData.mUserTableQuery;
   }
 
   /**
@@ -586,6 +712,36 @@ public class TableDisplayActivity extends AbsBaseWebActivity
     return null;
   }
 
+  @Override
+  protected void onResume() {
+    super.onResume();
+    mData.mResumed = true;
+    if (mFrameMonitor != null) {
+      mFrameMonitor.start();
+    }
+  }
+
+  @Override
+  protected void onPause() {
+    mData.mResumed = false;
+    if (mFrameMonitor != null) {
+      mFrameMonitor.stop();
+    }
+    super.onPause();
+  }
+
+  /**
+   * The map markers are only reused when the activity is recreated for a configuration change;
+   * anything else the user does while the activity is stopped may move or recolor them
+   */
+  @Override
+  protected void onStop() {
+    if (!isChangingConfigurations()) {
+      mData.mMapMarkers = null;
+    }
+    super.onStop();
+  }
+
   /**
    * Log the destroy event
    */
@@ -593,6 +749,9 @@ public class TableDisplayActivity extends AbsBaseWebActivity
   protected void onDestroy() {
     super.onDestroy();
     this.destroyed = true;
+    if (mData.mEvictionListener == mEvictionListener) {
+      mData.mEvictionListener = null;
+    }
     WebLogger.getLogger(getAppName()).d(TAG, "[onDestroy]");
   }
   private boolean destroyed = false;
@@ -686,12 +845,10 @@ public class TableDisplayActivity extends AbsBaseWebActivity
       MenuItem mapItem = menu.findItem(R.id.top_level_table_menu_view_map_view);
       MenuItem navigateItem = menu.findItem(R.id.top_level_table_menu_view_navigate_view);
       spreadsheetItem.setEnabled(true); // always possible
-      listItem.setEnabled(
-          mPossibleTableViewTypes != null && mPossibleTableViewTypes.listViewIsPossible());
-      mapItem.setEnabled(
-          mPossibleTableViewTypes != null && mPossibleTableViewTypes.mapViewIsPossible());
-      navigateItem.setEnabled(
-          mPossibleTableViewTypes != null && mPossibleTableViewTypes.navigateViewIsPossible());
+      PossibleTableViewTypes viewTypes = mData.mPossibleTableViewTypes;
+      listItem.setEnabled(viewTypes != null && viewTypes.listViewIsPossible());
+      mapItem.setEnabled(viewTypes != null && viewTypes.mapViewIsPossible());
+      navigateItem.setEnabled(viewTypes != null && viewTypes.navigateViewIsPossible());
       // Set the checkbox highlight to the view type being displayed.
       switch (mCurrentFragmentType) {
       case SPREADSHEET:
@@ -710,11 +867,12 @@ public class TableDisplayActivity extends AbsBaseWebActivity
       }
       break;
     case DETAIL:
-      menuInflater.inflate(R.menu.detail_view_menu, menu);
-      break;
     case SUB_LIST: // This should never happen...
     case DETAIL_WITH_LIST:
       menuInflater.inflate(R.menu.detail_view_menu, menu);
+      // hide edit until the detail view knows the user may edit the row, if it doesn't yet
+      Boolean editable = mData.mRowEditableById.get(getInstanceId());
+      menu.findItem(R.id.menu_edit_row).setVisible(editable == null || editable);
       break;
     }
     return super.onCreateOptionsMenu(menu);
@@ -734,8 +892,8 @@ public class TableDisplayActivity extends AbsBaseWebActivity
         filename = mOriginalFileName;
       }
       if (filename == null) {
-        filename = mPossibleTableViewTypes != null ?
-            mPossibleTableViewTypes.getDefaultListViewFileName() :
+        filename = mData.mPossibleTableViewTypes != null ?
+            mData.mPossibleTableViewTypes.getDefaultListViewFileName() :
             null;
       }
       setCurrentFragmentType(ViewFragmentType.LIST, filename, null);
@@ -745,8 +903,8 @@ public class TableDisplayActivity extends AbsBaseWebActivity
         filename = mOriginalFileName;
       }
       if (filename == null) {
-        filename = mPossibleTableViewTypes != null ?
-            mPossibleTableViewTypes.getDefaultMapListViewFileName() :
+        filename = mData.mPossibleTableViewTypes != null ?
+            mData.mPossibleTableViewTypes.getDefaultMapListViewFileName() :
             null;
       }
       setCurrentFragmentType(ViewFragmentType.MAP, filename, null);
@@ -835,6 +993,15 @@ public class TableDisplayActivity extends AbsBaseWebActivity
       // This fallthrough is on purpose, we need to refresh because props (may have) changed
     case RequestCodeConsts.RequestCodes.ADD_ROW_SURVEY:
     case RequestCodeConsts.RequestCodes.EDIT_ROW_SURVEY:
+      // survey may have left a checkpoint behind
+      TableHealthCache.get(getAppName()).invalidate();
+      if (requestCode != RequestCodeConsts.RequestCodes.LAUNCH_VIEW) {
+        // rows were added or edited, so the groups, aggregates and statistics are stale
+        GroupAggregateCache.get(getAppName()).invalidate(getTableId());
+        ColumnStatisticsCache.get(getAppName()).invalidate(getTableId());
+        // an edit can change who may edit the row
+        mData.mRowEditableById.clear();
+      }
       try {
         // verify that the data table doesn't contain checkpoints...
         // always refresh, as table properties may have done something
@@ -848,15 +1015,60 @@ public class TableDisplayActivity extends AbsBaseWebActivity
     }
   }
 
+  /**
+   * Called when the spreadsheet deleted rows and took them out of its display without loading
+   * the table again. The spreadsheet keeps using the current table, but it is loaded again
+   * before any fragment is shown.
+   */
+  public void markUserTableStale() {
+    mData.mUserTableStale = true;
+  }
+
+  /**
+   * @return the bulk delete or update whose result hasn't been shown yet, or null
+   */
+  public BulkRowTask getBulkRowTask() {
+    return mData.mBulkRowTask;
+  }
+
+  /**
+   * Keeps the bulk delete or update across configuration changes, until its result is shown
+   *
+   * @param task the task, or null once its result has been shown
+   */
+  public void setBulkRowTask(BulkRowTask task) {
+    mData.mBulkRowTask = task;
+  }
+
+  /**
+   * @param rowId a row id
+   * @return whether the user may edit the row, or null if that hasn't been looked up yet
+   */
+  public Boolean getRowEditable(String rowId) {
+    return mData.mRowEditableById.get(rowId);
+  }
+
+  /**
+   * Remembers whether the user may edit a row, for as long as this activity lives, and updates
+   * the edit row menu item
+   *
+   * @param rowId    the row id
+   * @param editable whether the user may edit the row
+   */
+  public void setRowEditable(String rowId, boolean editable) {
+    mData.mRowEditableById.put(rowId, editable);
+    invalidateOptionsMenu();
+  }
+
   /**
    * Destroys the data in the current table, destroys the current fragment and recreates it
    */
   public void refreshDataAndDisplayFragment() {
     WebLogger.getLogger(getAppName()).d(TAG, "refreshDataAndDisplayFragment called");
     // drop cached table, if any...
-    mUserTable = null;
+    mData.dropUserTable();
     // drop default filenames...
-    mPossibleTableViewTypes = null;
+    mData.mPossibleTableViewTypes = null;
     showCurrentDisplayFragment(true);
   }
 
@@ -871,7 +1083,7 @@ public class TableDisplayActivity extends AbsBaseWebActivity
   public void setCurrentFragmentType(ViewFragmentType requestedType, String fileName,
       String subFileName) {
     if (requestedType != ViewFragmentType.SPREADSHEET && fileName == null
-        && mPossibleTableViewTypes != null) {
+        && mData.mPossibleTableViewTypes != null) {
       fileName = getDefaultFileNameForViewFragmentType(requestedType);
     }
     mCurrentFragmentType = requestedType;
@@ -886,13 +1098,13 @@ public class TableDisplayActivity extends AbsBaseWebActivity
    */
   private void possiblySupplyDefaults() {
 
-    if (mPossibleTableViewTypes == null && getDatabase() != null) {
+    if (mData.mPossibleTableViewTypes == null && getDatabase() != null) {
       UserDbInterface dbInterface = getDatabase();
       DbHandle db = null;
       try {
         db = dbInterface.openDatabase(getAppName());
-        mPossibleTableViewTypes = new PossibleTableViewTypes(dbInterface, getAppName(), db,
-            getTableId(), getColumnDefinitions());
+        mData.mPossibleTableViewTypes = new PossibleTableViewTypes(dbInterface,
+            getAppName(), db, getTableId(), getColumnDefinitions());
       } catch (ServicesAvailabilityException e) {
         WebLogger.getLogger(getAppName()).printStackTrace(e);
         WebLogger.getLogger(getAppName()).e(TAG, "[databaseAvailable] unable to access database");
@@ -913,9 +1125,9 @@ public class TableDisplayActivity extends AbsBaseWebActivity
       }
     }
 
-    if (mOriginalFragmentType == null && mPossibleTableViewTypes != null) {
+    if (mOriginalFragmentType == null && mData.mPossibleTableViewTypes != null) {
       // recover the default view for this table from the database...
-      mOriginalFragmentType = mPossibleTableViewTypes.getDefaultViewType();
+      mOriginalFragmentType = mData.mPossibleTableViewTypes.getDefaultViewType();
     }
 
     ViewFragmentType original = mOriginalFragmentType;
@@ -952,7 +1164,16 @@ public class TableDisplayActivity extends AbsBaseWebActivity
    */
   @SuppressWarnings("ConstantConditions") // too complex to analyze
   private void showCurrentDisplayFragment(boolean createNew) {
+    if (mData.mUserTableStale) {
+      mData.dropUserTable();
+    }
     possiblySupplyDefaults();
+    if (mFrameMonitor != null) {
+      mFrameMonitor.setSegment(mCurrentFragmentType.name(), getTableId());
+      if (mData.mUserTable != null) {
+        mFrameMonitor.setRowCount(mData.mUserTable.getNumberOfRows());
+      }
+    }
     updateChildViewVisibility(mCurrentFragmentType);
     FragmentManager fragmentManager = this.getSupportFragmentManager();
     FragmentTransaction fragmentTransaction = fragmentManager.beginTransaction();
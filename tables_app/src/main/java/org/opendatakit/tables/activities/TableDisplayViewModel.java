@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.activities;
+
+import androidx.lifecycle.ViewModel;
+import org.opendatakit.database.data.OrderedColumns;
+import org.opendatakit.database.data.UserTable;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.tables.data.PossibleTableViewTypes;
+import org.opendatakit.tables.tasks.BulkRowTask;
+import org.opendatakit.tables.utils.MemoryCacheManager;
+import org.opendatakit.tables.utils.SQLQueryStruct;
+import org.opendatakit.tables.utils.TypedColumnCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The data a {@link TableDisplayActivity} loads from the database. It is retained across
+ * configuration changes, so rotating the device shows the same rows again instead of querying
+ * for them, and it lets the loaded rows go under memory pressure while the activity is in the
+ * background.
+ */
+public class TableDisplayViewModel extends ViewModel implements MemoryCacheManager.Evictable {
+
+  private static final String TAG = TableDisplayViewModel.class.getSimpleName();
+
+  /**
+   * Roughly what one cell of a loaded {@link UserTable} costs in memory, and how many metadata
+   * columns each row carries besides the user defined ones
+   */
+  private static final int ESTIMATED_CELL_BYTES = 48;
+  private static final int METADATA_COLUMN_COUNT = 16;
+
+  /**
+   * Where the map puts its markers and what color they are, so that the map can be drawn again
+   * without querying for the locations or evaluating the color rules
+   */
+  public static final class MapMarkers {
+    public final String latitudeElementKey;
+    public final String longitudeElementKey;
+    /**
+     * The rows that have a location, and that location
+     */
+    public final int[] rowIndexes;
+    public final double[] latitudes;
+    public final double[] longitudes;
+    /**
+     * The hue of the marker of every row, by row index
+     */
+    public final float[] hueByRow;
+
+    public MapMarkers(String latitudeElementKey, String longitudeElementKey, int[] rowIndexes,
+        double[] latitudes, double[] longitudes, float[] hueByRow) {
+      this.latitudeElementKey = latitudeElementKey;
+      this.longitudeElementKey = longitudeElementKey;
+      this.rowIndexes = rowIndexes;
+      this.latitudes = latitudes;
+      this.longitudes = longitudes;
+      this.hueByRow = hueByRow;
+    }
+  }
+
+  /**
+   * Told when the loaded rows have been evicted, so that the views drawn from them let go of
+   * them too
+   */
+  interface EvictionListener {
+    void userTableEvicted();
+  }
+
+  String mAppName = null;
+  String mTableId = null;
+  /**
+   * Whether the activity is in the foreground, in which case its table is never evicted
+   */
+  boolean mResumed = false;
+  OrderedColumns mColumnDefinitions = null;
+  PossibleTableViewTypes mPossibleTableViewTypes = null;
+  /**
+   * The {@link UserTable} that is being displayed in the activity
+   */
+  UserTable mUserTable = null;
+  /**
+   * The query that mUserTable was loaded with, including the sort column and direction
+   */
+  SQLQueryStruct mUserTableQuery = null;
+  /**
+   * Set when rows were taken out of the spreadsheet in place, so mUserTable still has them
+   */
+  boolean mUserTableStale = false;
+  /**
+   * The parsed numeric columns of mTypedColumnsTable, which is mUserTable unless that was dropped
+   */
+  TypedColumnCache mTypedColumns = null;
+  UserTable mTypedColumnsTable = null;
+  /**
+   * Whether the user may edit each row that a detail view was opened for, by row id
+   */
+  final Map<String, Boolean> mRowEditableById = new HashMap<>();
+  /**
+   * The markers of the map view, kept only while the activity is being recreated
+   */
+  MapMarkers mMapMarkers = null;
+  /**
+   * The bulk delete or update started by the spreadsheet, until its result has been shown, so
+   * that a spreadsheet recreated by a rotation can still show it
+   */
+  BulkRowTask mBulkRowTask = null;
+  /**
+   * The activity that currently shows this data, while it exists
+   */
+  EvictionListener mEvictionListener = null;
+
+  public TableDisplayViewModel() {
+    MemoryCacheManager.get().register(this);
+  }
+
+  /**
+   * Drops the loaded rows and everything worked out from them. They are queried again when next
+   * needed.
+   */
+  void dropUserTable() {
+    mUserTable = null;
+    mUserTableStale = false;
+    mTypedColumns = null;
+    mTypedColumnsTable = null;
+    mMapMarkers = null;
+  }
+
+  @Override
+  public int getPriority() {
+    return mResumed ?
+        MemoryCacheManager.PRIORITY_VISIBLE_TABLE :
+        MemoryCacheManager.PRIORITY_HIDDEN_TABLE;
+  }
+
+  @Override
+  public long getApproximateSize() {
+    UserTable table = mUserTable;
+    OrderedColumns columns = mColumnDefinitions;
+    if (table == null || columns == null) {
+      return 0;
+    }
+    int width = columns.getColumnDefinitions().size() + METADATA_COLUMN_COUNT;
+    return (long) table.getNumberOfRows() * width * ESTIMATED_CELL_BYTES;
+  }
+
+  /**
+   * Drops the loaded rows while the activity is in the background and tells the activity, so
+   * that its display fragment lets go of them as well. Resuming the activity recreates its
+   * display fragment, which queries for them again.
+   */
+  @Override
+  public void evict() {
+    boolean loaded = mUserTable != null;
+    if (loaded && mAppName != null) {
+      WebLogger.getLogger(mAppName).i(TAG, "evicting the rows of " + mTableId);
+    }
+    dropUserTable();
+    EvictionListener listener = mEvictionListener;
+    if (loaded && listener != null) {
+      listener.userTableEvicted();
+    }
+  }
+
+  @Override
+  protected void onCleared() {
+    super.onCleared();
+    MemoryCacheManager.get().unregister(this);
+  }
+}
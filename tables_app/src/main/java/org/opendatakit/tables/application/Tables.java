@@ -18,7 +18,10 @@ import android.content.Context;
 
 import com.google.firebase.analytics.FirebaseAnalytics;
 import org.opendatakit.application.CommonApplication;
+import org.opendatakit.logging.WebLogger;
 import org.opendatakit.tables.R;
+import org.opendatakit.tables.utils.MemoryCacheManager;
+import org.opendatakit.tables.utils.TableFileUtils;
 
 import java.lang.ref.WeakReference;
 
@@ -30,7 +33,6 @@ public class Tables extends CommonApplication {
   /**
    * Used for logging
    */
-  @SuppressWarnings("unused")
   private static final String TAG = Tables.class.getSimpleName();
 
   private static WeakReference<Tables> ref = null;
@@ -72,4 +74,42 @@ public class Tables extends CommonApplication {
     analytics = FirebaseAnalytics.getInstance(this);
     analytics.logEvent(FirebaseAnalytics.Event.APP_OPEN, null);
   }
+
+  /**
+   * Drops cached data according to how much memory the system wants back. Data that can be
+   * worked out again from other cached data goes first, then cached query results, and then the
+   * rows loaded by activities that aren't in the foreground.
+   *
+   * @param level how badly memory is needed
+   */
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    int priority;
+    if (level >= TRIM_MEMORY_BACKGROUND) {
+      // we are on the list of processes to kill, none of our activities is in the foreground
+      priority = MemoryCacheManager.PRIORITY_HIDDEN_TABLE;
+    } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+      priority = MemoryCacheManager.PRIORITY_QUERY_RESULTS;
+    } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+      priority = MemoryCacheManager.PRIORITY_HIDDEN_TABLE;
+    } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+      priority = MemoryCacheManager.PRIORITY_QUERY_RESULTS;
+    } else {
+      priority = MemoryCacheManager.PRIORITY_DERIVED;
+    }
+    trimCaches(level, priority);
+  }
+
+  @Override
+  public void onLowMemory() {
+    super.onLowMemory();
+    trimCaches(TRIM_MEMORY_COMPLETE, MemoryCacheManager.PRIORITY_HIDDEN_TABLE);
+  }
+
+  private void trimCaches(int level, int priority) {
+    long freed = MemoryCacheManager.get().trim(priority);
+    WebLogger.getLogger(TableFileUtils.getDefaultAppName()).i(TAG,
+        "trim level " + level + " freed about " + (freed / 1024) + " KB");
+  }
 }
@@ -21,6 +21,8 @@ import org.opendatakit.database.data.OrderedColumns;
 import org.opendatakit.database.data.UserTable;
 import org.opendatakit.tables.activities.AbsTableActivity;
 import org.opendatakit.tables.activities.TableDisplayActivity;
+import org.opendatakit.tables.utils.SQLQueryStruct;
+import org.opendatakit.tables.utils.TypedColumnCache;
 
 /**
  * The base class for any {@link Fragment} that displays a table.
@@ -65,4 +67,24 @@ public abstract class AbsTableDisplayFragment extends AbsTablesFragment {
     return ((TableDisplayActivity) getActivity()).getUserTable();
   }
 
+  /**
+   * Get the parsed numeric columns of the {@link UserTable} held by the
+   * {@link TableDisplayActivity}.
+   *
+   * @return the typed columns of the user table from the enclosing activity
+   */
+  public TypedColumnCache getTypedColumns() {
+    return ((TableDisplayActivity) getActivity()).getTypedColumns();
+  }
+
+  /**
+   * Get the query that the {@link UserTable} held by the {@link TableDisplayActivity} was
+   * loaded with.
+   *
+   * @return the query, or null if no table has been loaded
+   */
+  public SQLQueryStruct getUserTableQuery() {
+    return ((TableDisplayActivity) getActivity()).getUserTableQuery();
+  }
+
 }
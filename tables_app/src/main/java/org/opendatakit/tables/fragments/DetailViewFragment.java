@@ -15,16 +15,18 @@
  */
 package org.opendatakit.tables.fragments;
 
+import android.app.Activity;
 import androidx.fragment.app.Fragment;
-import android.view.View;
-import org.opendatakit.activities.IOdkCommonActivity;
 import org.opendatakit.database.data.BaseTable;
 import org.opendatakit.database.queries.BindArgs;
 import org.opendatakit.database.service.DbHandle;
 import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
 import org.opendatakit.logging.WebLogger;
-import org.opendatakit.tables.R;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.tables.activities.TableDisplayActivity;
 import org.opendatakit.tables.application.Tables;
+
 /**
  * {@link Fragment} for displaying a detail view.
  *
@@ -35,44 +37,83 @@ public class DetailViewFragment extends AbsWebTableFragment {
   /**
    * Used for logging
    */
-  @SuppressWarnings("unused")
   private static final String TAG = DetailViewFragment.class.getSimpleName();
+
   public void databaseAvailable() {
     super.databaseAvailable();
-    View view = getView();
-    if (view != null) {
-      view.post(new Runnable() {
-        @Override
-        public void run() {
-          checkAccess();
-        }
-      });
-    }
+    checkAccess();
   }
+
+  /**
+   * Looks up whether the user may edit the displayed row and tells the activity, which hides the
+   * edit row menu item if not. The answer is remembered by the activity, so this only reads the
+   * database the first time a row is shown, and then on a background thread, reading only that
+   * row.
+   */
   private void checkAccess() {
-    String tableId = ((IOdkCommonActivity) getActivity()).getTableId();
-    String rowId = ((IOdkCommonActivity) getActivity()).getInstanceId();
+    Activity activity = getActivity();
+    if (!(activity instanceof TableDisplayActivity)) {
+      return;
+    }
+    final String appName = getAppName();
+    final String tableId = ((TableDisplayActivity) activity).getTableId();
+    final String rowId = ((TableDisplayActivity) activity).getInstanceId();
+    if (rowId == null || ((TableDisplayActivity) activity).getRowEditable(rowId) != null) {
+      return;
+    }
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        final String access;
+        try {
+          access = readAccess(appName, tableId, rowId);
+        } catch (ServicesAvailabilityException | RuntimeException e) {
+          // leave the edit item as it is rather than losing the thread silently
+          WebLogger.getLogger(appName).printStackTrace(e);
+          WebLogger.getLogger(appName).e(TAG, "Unable to read the access of row " + rowId);
+          return;
+        }
+        final Activity activity = getActivity();
+        if (activity == null) {
+          return;
+        }
+        activity.runOnUiThread(new Runnable() {
+          @Override
+          public void run() {
+            // a row without an effective access can be edited, as before
+            ((TableDisplayActivity) activity).setRowEditable(rowId,
+                access == null || access.contains("w"));
+          }
+        });
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /**
+   * @return the effective access of the row, or null if it has none or there is no such row
+   */
+  private static String readAccess(String appName, String tableId, String rowId)
+      throws ServicesAvailabilityException {
     UserDbInterface dbInt = Tables.getInstance().getDatabase();
-    boolean can_edit = true;
+    DbHandle db = null;
     try {
-      DbHandle db = dbInt.openDatabase(getAppName());
-
+      db = dbInt.openDatabase(appName);
+      // _effective_access isn't stored; the query wrapper works it out from the default access,
+      // row owner and group columns, so the whole row has to be selected
       BaseTable result = dbInt
-              // we know it's safe to dump the table id in there because we got it from the TDA
-              .arbitrarySqlQuery(getAppName(), db,tableId, "SELECT * FROM "+tableId+" WHERE _id = ?",
-                      new BindArgs(new String[] {rowId}), 1, 0);
-      String access = result.getRowAtIndex(0).getRawStringByKey("_effective_access");
-      if (access != null) {
-        can_edit = access.contains("w");
+          // we know it's safe to dump the table id in there because we got it from the TDA
+          .arbitrarySqlQuery(appName, db, tableId,
+              "SELECT * FROM " + tableId + " WHERE " + DataTableColumns.ID + " = ?",
+              new BindArgs(new String[] { rowId }), 1, 0);
+      if (result == null || result.getNumberOfRows() == 0) {
+        return null;
       }
-      dbInt.closeDatabase(getAppName(), db);
-    } catch (Exception e) {
-      WebLogger.getLogger(getAppName()).printStackTrace(e);
-    }
-    if (!can_edit) {
-      View edit_button = getActivity().findViewById(R.id.menu_edit_row);
-      if (edit_button != null) {
-        edit_button.setVisibility(View.GONE);
+      return result.getRowAtIndex(0).getRawStringByKey(DataTableColumns.EFFECTIVE_ACCESS);
+    } finally {
+      if (db != null) {
+        dbInt.closeDatabase(appName, db);
       }
     }
   }
@@ -36,6 +36,7 @@ import org.opendatakit.tables.preferences.EditColorPreference;
 import org.opendatakit.tables.utils.Constants;
 import org.opendatakit.tables.utils.IntentUtil;
 import org.opendatakit.tables.views.ColorPickerDialog.OnColorChangedListener;
+import org.opendatakit.tables.views.SpreadsheetColumnMetadata;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -405,6 +406,7 @@ public class EditColorRuleFragment extends AbsTableLevelPreferenceFragment
       this.mColorRuleGroup.getColorRules().set(mRulePosition, newRule);
     }
     mColorRuleGroup.saveRuleList(Tables.getInstance().getDatabase());
+    SpreadsheetColumnMetadata.invalidate(getAppName(), getTableId());
     updateStateOfSaveButton();
   }
 
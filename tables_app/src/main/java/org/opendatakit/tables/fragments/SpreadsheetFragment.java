@@ -17,21 +17,30 @@ package org.opendatakit.tables.fragments;
 
 import android.app.Activity;
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.ContextMenu;
+import android.view.Gravity;
+import android.view.KeyEvent;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.InputMethodManager;
+import android.widget.EditText;
+import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 import org.opendatakit.consts.RequestCodeConsts;
 import org.opendatakit.data.JoinColumn;
-import org.opendatakit.data.utilities.ColumnUtil;
 import org.opendatakit.database.data.ColumnDefinition;
+import org.opendatakit.database.data.TypedRow;
 import org.opendatakit.database.queries.BindArgs;
 import org.opendatakit.database.service.DbHandle;
 import org.opendatakit.database.service.UserDbInterface;
@@ -45,18 +54,27 @@ import org.opendatakit.tables.activities.ISpreadsheetFragmentContainer;
 import org.opendatakit.tables.activities.TableDisplayActivity;
 import org.opendatakit.tables.application.Tables;
 import org.opendatakit.tables.data.ViewFragmentType;
+import org.opendatakit.tables.tasks.BulkRowTask;
 import org.opendatakit.tables.utils.ActivityUtil;
+import org.opendatakit.tables.utils.ColumnStatistics;
+import org.opendatakit.tables.utils.ColumnStatisticsCache;
 import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.GroupAggregateCache;
 import org.opendatakit.tables.utils.IntentUtil;
+import org.opendatakit.tables.utils.PerfTrace;
+import org.opendatakit.tables.utils.QueryDescriptor;
 import org.opendatakit.tables.utils.SQLQueryStruct;
 import org.opendatakit.tables.views.CellInfo;
 import org.opendatakit.tables.views.SpreadsheetProps;
+import org.opendatakit.tables.views.SpreadsheetSearchIndex;
 import org.opendatakit.tables.views.SpreadsheetUserTable;
 import org.opendatakit.tables.views.SpreadsheetUserTable.SpreadsheetCell;
 import org.opendatakit.tables.views.SpreadsheetView;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Fragment responsible for displaying a spreadsheet view. This class is a hideous monstrosity
@@ -88,6 +106,28 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
   private static final int MENU_ITEM_ID_SORT_ASC = 12;
   private static final int MENU_ITEM_ID_SORT_DESC = 13;
   private static final int MENU_ITEM_ID_PREFS = 14;
+  // used in prepDataCellOccm, only displays the aggregates of the collection
+  private static final int MENU_ITEM_ID_COLLECTION_SUMMARY = 15;
+  private static final int MENU_ITEM_ID_ADD_THEN_BY = 16;
+  private static final int MENU_ITEM_ID_REMOVE_THEN_BY = 17;
+  private static final int MENU_ITEM_ID_SEARCH_COLUMN = 18;
+  private static final int MENU_ITEM_ID_COLUMN_STATISTICS = 19;
+  // used in prepDataCellOccm, for selecting rows and acting on all the selected rows at once
+  private static final int MENU_ITEM_ID_SELECT_ROW = 20;
+  private static final int MENU_ITEM_ID_DESELECT_ROW = 21;
+  private static final int MENU_ITEM_ID_CLEAR_SELECTION = 22;
+  private static final int MENU_ITEM_ID_DELETE_SELECTED_ROWS = 23;
+  private static final int MENU_ITEM_ID_UPDATE_SELECTED_ROWS = 24;
+  /**
+   * How many of the most common values to show in the column statistics
+   */
+  private static final int STATISTICS_TOP_VALUES = 5;
+
+  /**
+   * Collections with at most this many rows are opened by row id, larger ones by the values of
+   * their group by columns. Keeps the bind args well under SQLite's limit of 999.
+   */
+  private static final int MAX_COLLECTION_ROW_IDS = 500;
 
   /**
    * The object that contains the actual rows of the table and their data
@@ -104,6 +144,23 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
    */
   private View container;
 
+  /**
+   * The search bar above the spreadsheet, hidden until the user searches a column
+   */
+  private LinearLayout searchBar;
+  private EditText searchText;
+  private TextView searchStatus;
+  /**
+   * The columns being searched, in the order the user picked them
+   */
+  private final ArrayList<String> searchColumns = new ArrayList<>();
+  /**
+   * The hits of the current query, in display order: the row position and column of each
+   */
+  private int[] searchHitPositions = new int[0];
+  private String[] searchHitColumns = new String[0];
+  private int searchHitIndex = -1;
+
   /**
    * Called when the view needs to be displayed to the user. Since it might called before the
    * database is up, it just displays an error message that will be replaced when
@@ -122,7 +179,221 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     textView.setText(getString(R.string.error_accessing_database));
     theView.addView(textView);
     this.container = container;
-    return theView;
+
+    LinearLayout root = new LinearLayout(getActivity());
+    root.setOrientation(LinearLayout.VERTICAL);
+    searchBar = buildSearchBar();
+    root.addView(searchBar, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT,
+        LinearLayout.LayoutParams.WRAP_CONTENT));
+    root.addView(theView, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 0,
+        1));
+    return root;
+  }
+
+  /**
+   * Builds the search bar: a text box, the number of hits, buttons to go to the previous and
+   * next hit and a button to close it. It starts out hidden.
+   *
+   * @return the search bar
+   */
+  private LinearLayout buildSearchBar() {
+    LinearLayout bar = new LinearLayout(getActivity());
+    bar.setOrientation(LinearLayout.HORIZONTAL);
+    bar.setGravity(Gravity.CENTER_VERTICAL);
+    bar.setVisibility(View.GONE);
+
+    searchText = new EditText(getActivity());
+    searchText.setSingleLine(true);
+    searchText.setImeOptions(EditorInfo.IME_ACTION_SEARCH);
+    searchText.addTextChangedListener(new TextWatcher() {
+      @Override
+      public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+      }
+
+      @Override
+      public void onTextChanged(CharSequence s, int start, int before, int count) {
+      }
+
+      @Override
+      public void afterTextChanged(Editable s) {
+        search(s.toString());
+      }
+    });
+    searchText.setOnEditorActionListener(new TextView.OnEditorActionListener() {
+      @Override
+      public boolean onEditorAction(TextView v, int actionId, KeyEvent event) {
+        showSearchHit(searchHitIndex + 1);
+        return true;
+      }
+    });
+    bar.addView(searchText, new LinearLayout.LayoutParams(0,
+        LinearLayout.LayoutParams.WRAP_CONTENT, 1));
+
+    searchStatus = new TextView(getActivity());
+    bar.addView(searchStatus);
+    bar.addView(buildSearchButton(android.R.drawable.ic_media_previous,
+        R.string.search_previous_hit, new View.OnClickListener() {
+          @Override
+          public void onClick(View v) {
+            showSearchHit(searchHitIndex - 1);
+          }
+        }));
+    bar.addView(buildSearchButton(android.R.drawable.ic_media_next, R.string.search_next_hit,
+        new View.OnClickListener() {
+          @Override
+          public void onClick(View v) {
+            showSearchHit(searchHitIndex + 1);
+          }
+        }));
+    bar.addView(buildSearchButton(android.R.drawable.ic_menu_close_clear_cancel,
+        R.string.search_close, new View.OnClickListener() {
+          @Override
+          public void onClick(View v) {
+            closeSearch();
+          }
+        }));
+    return bar;
+  }
+
+  private ImageButton buildSearchButton(int drawable, int description,
+      View.OnClickListener listener) {
+    ImageButton button = new ImageButton(getActivity());
+    button.setImageResource(drawable);
+    button.setContentDescription(getString(description));
+    button.setOnClickListener(listener);
+    return button;
+  }
+
+  /**
+   * Adds a column to the columns being searched, and shows the search bar
+   *
+   * @param column the column to search
+   */
+  private void openSearch(String column) {
+    if (!searchColumns.contains(column)) {
+      searchColumns.add(column);
+    }
+    StringBuilder names = new StringBuilder();
+    for (String elementKey : searchColumns) {
+      if (names.length() != 0) {
+        names.append(", ");
+      }
+      names.append(spreadsheetTable.getDisplayName(elementKey));
+    }
+    searchText.setHint(getString(R.string.search_columns_hint, names.toString()));
+    searchBar.setVisibility(View.VISIBLE);
+    searchText.requestFocus();
+    InputMethodManager imm = (InputMethodManager) getActivity()
+        .getSystemService(Context.INPUT_METHOD_SERVICE);
+    if (imm != null) {
+      imm.showSoftInput(searchText, InputMethodManager.SHOW_IMPLICIT);
+    }
+    search(searchText.getText().toString());
+  }
+
+  /**
+   * Hides the search bar and forgets the searched columns
+   */
+  private void closeSearch() {
+    InputMethodManager imm = (InputMethodManager) getActivity()
+        .getSystemService(Context.INPUT_METHOD_SERVICE);
+    if (imm != null) {
+      imm.hideSoftInputFromWindow(searchText.getWindowToken(), 0);
+    }
+    searchColumns.clear();
+    searchText.setText("");
+    searchBar.setVisibility(View.GONE);
+  }
+
+  /**
+   * Looks up the query in the search index of the searched columns and jumps to the first hit.
+   * The index is built in the background the first time it is needed, and the search runs again
+   * once it is ready. If the table was loaded again since, for example after an edit, only the
+   * cells that changed are indexed again.
+   *
+   * @param query what the user typed
+   */
+  private void search(String query) {
+    searchHitPositions = new int[0];
+    searchHitColumns = new String[0];
+    searchHitIndex = -1;
+    searchStatus.setText("");
+    if (spreadsheetTable == null || searchColumns.isEmpty() || query.trim().isEmpty()) {
+      return;
+    }
+    SpreadsheetSearchIndex.RowSource source = spreadsheetTable.getSearchSource();
+    if (source == null) {
+      return;
+    }
+    SpreadsheetSearchIndex index = SpreadsheetSearchIndex.get(getAppName(), getTableId(),
+        searchColumns.toArray(new String[searchColumns.size()]));
+    long generation = spreadsheetTable.getSearchGeneration();
+    if (!index.isUpToDate(generation)) {
+      searchStatus.setText(getString(R.string.search_indexing));
+      final String appName = getAppName();
+      final long start = System.currentTimeMillis();
+      index.updateInBackground(source, generation, new SpreadsheetSearchIndex.UpdateListener() {
+        @Override
+        public void indexUpdated(int changed) {
+          WebLogger.getLogger(appName).i(TAG, "search index updated " + changed + " cells in "
+              + Long.toString(System.currentTimeMillis() - start) + " ms");
+          Activity act = getActivity();
+          if (act == null) {
+            return;
+          }
+          act.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+              if (isAdded() && searchBar.getVisibility() == View.VISIBLE) {
+                search(searchText.getText().toString());
+              }
+            }
+          });
+        }
+      });
+      return;
+    }
+
+    List<SpreadsheetSearchIndex.Hit> hits = index.search(query);
+    // order by display position, which differs from the table order when sorted in memory, and
+    // leave out the rows that were removed since the table was loaded
+    long[] ordered = new long[hits.size()];
+    int count = 0;
+    for (int i = 0; i < hits.size(); ++i) {
+      int position = spreadsheetTable.getDisplayPosition(hits.get(i).rowIndex);
+      if (position != -1) {
+        ordered[count++] = ((long) position << 32) | i;
+      }
+    }
+    Arrays.sort(ordered, 0, count);
+    searchHitPositions = new int[count];
+    searchHitColumns = new String[count];
+    for (int i = 0; i < count; ++i) {
+      searchHitPositions[i] = (int) (ordered[i] >>> 32);
+      searchHitColumns[i] = hits.get((int) ordered[i]).elementKey;
+    }
+    showSearchHit(0);
+  }
+
+  /**
+   * Highlights one of the hits of the current query and scrolls to it
+   *
+   * @param hitIndex which hit, wraps around at either end
+   */
+  private void showSearchHit(int hitIndex) {
+    if (searchHitPositions.length == 0) {
+      searchStatus.setText(searchText.getText().toString().trim().isEmpty() ?
+          "" :
+          getString(R.string.search_no_hits));
+      return;
+    }
+    searchHitIndex = (hitIndex + searchHitPositions.length) % searchHitPositions.length;
+    searchStatus.setText(getString(R.string.search_hit_count, searchHitIndex + 1,
+        searchHitPositions.length));
+    if (theView.getChildCount() != 0 && theView.getChildAt(0) instanceof SpreadsheetView) {
+      ((SpreadsheetView) theView.getChildAt(0))
+          .scrollToCell(searchHitColumns[searchHitIndex], searchHitPositions[searchHitIndex]);
+    }
   }
 
   /**
@@ -149,7 +420,12 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     WebLogger.getLogger(getAppName()).i(TAG, "SpreadsheetFragment databaseAvailable called");
     try {
 
-      spreadsheetTable = new SpreadsheetUserTable(this);
+      long start = PerfTrace.begin(PerfTrace.SPREADSHEET_TABLE_BUILD);
+      try {
+        spreadsheetTable = new SpreadsheetUserTable(this);
+      } finally {
+        PerfTrace.end(PerfTrace.SPREADSHEET_TABLE_BUILD, start);
+      }
       if (!spreadsheetTable.hasData()) {
         TextView textView = new TextView(getActivity());
         textView.setText(getString(R.string.no_data));
@@ -159,6 +435,7 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
         theView.removeAllViews();
         final SpreadsheetView theSpreadsheetView = buildSpreadsheetView();
         theView.addView(theSpreadsheetView);
+        loadGroupsInBackground();
         final SpreadsheetProps props = getProps();
         container.post(new Runnable() {
           @Override
@@ -175,6 +452,10 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
               } else if (props.deleteDialogOpen) {
                 openDeleteDialog();
               }
+              if (searchBar.getVisibility() == View.VISIBLE) {
+                // the rows may have changed, bring the index up to date and search again
+                search(searchText.getText().toString());
+              }
             }
           }
         });
@@ -251,46 +532,123 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
   }
 
   /**
-   * Displays a collection of elements based on what the table is currently grouped by
+   * Returns the direction a column is sorted in, whether it's the sort column or one of the
+   * further sort columns
+   *
+   * @param column the column
+   * @return ASC or DESC
+   */
+  private String getSortOrder(String column) {
+    int index = Arrays.asList(getProps().getThenBy()).indexOf(column);
+    if (index >= 0) {
+      return getProps().getThenByOrder()[index];
+    }
+    return getSortOrder();
+  }
+
+  /**
+   * Sets the direction of a column, whether it's the sort column or one of the further sort
+   * columns
+   *
+   * @param column    the column
+   * @param sortOrder ASC or DESC
+   */
+  private void setSortOrder(String column, String sortOrder) {
+    int index = Arrays.asList(getProps().getThenBy()).indexOf(column);
+    if (index >= 0) {
+      String[] thenByOrder = getProps().getThenByOrder().clone();
+      thenByOrder[index] = sortOrder;
+      getProps().setThenBy(getProps().getThenBy(), thenByOrder);
+    } else {
+      getProps().setSortOrder(sortOrder);
+    }
+  }
+
+  /**
+   * Adds a column to sort rows that tie on the earlier sort columns by, or removes it
+   *
+   * @param column the column
+   * @param add    true to append it, ascending, false to remove it
+   */
+  private void updateThenBy(String column, boolean add) {
+    ArrayList<String> thenBy = new ArrayList<>(Arrays.asList(getProps().getThenBy()));
+    ArrayList<String> thenByOrder = new ArrayList<>(Arrays.asList(getProps().getThenByOrder()));
+    int index = thenBy.indexOf(column);
+    if (index >= 0) {
+      thenBy.remove(index);
+      thenByOrder.remove(index);
+    }
+    if (add) {
+      thenBy.add(column);
+      thenByOrder.add("ASC");
+    }
+    getProps().setThenBy(thenBy.toArray(new String[thenBy.size()]),
+        thenByOrder.toArray(new String[thenByOrder.size()]));
+  }
+
+  /**
+   * Puts the rows that are already loaded in the order given by the props and redraws them.
+   * Unlike {@link #destroyAndRecreateFragment()} this doesn't query the database again, so
+   * changing a sort direction or adding a further sort column is immediate.
+   */
+  private void resortInPlace() {
+    if (spreadsheetTable == null || theView.getChildCount() == 0 || !(theView
+        .getChildAt(0) instanceof SpreadsheetView)) {
+      destroyAndRecreateFragment();
+      return;
+    }
+    spreadsheetTable.applySort();
+    ((SpreadsheetView) theView.getChildAt(0)).refreshRows();
+  }
+
+  /**
+   * Called by the activity when the rows it loaded were evicted to free memory. The spreadsheet
+   * lets go of everything it worked out from them; if it is drawn again before the activity
+   * recreates it, the rows are loaded again.
+   */
+  public void userTableEvicted() {
+    if (spreadsheetTable != null) {
+      spreadsheetTable.releaseUserTable();
+    }
+  }
+
+  /**
+   * Displays a collection of elements based on what the table is currently grouped by. If the
+   * row ids of the collection are known from the cached groups, the new view selects them
+   * directly instead of filtering the table on the group by columns again.
    *
    * @param cell the cell that the user had to double tap on to get the menu open to call this
    *             method
    */
   private void openCollectionView(SpreadsheetCell cell) {
-    Bundle intentExtras = this.getActivity().getIntent().getExtras();
+    // Start with the query from the intent. The where clause is built from the row ids or the
+    // values of the group by columns by the new activity, so only the values travel in the intent.
+    QueryDescriptor query = IntentUtil
+        .retrieveQueryDescriptorFromBundle(this.getActivity().getIntent().getExtras());
+    // We don't need to clear the group by of the query because
+    // TableDisplayActivity::getUserTable does that on the other end.
+    String[] rowIds = getCollectionRowIds(cell);
+    if (rowIds != null) {
+      // The row ids already satisfy the where clause from the intent, so replace it
+      startCollectionActivity(query.withRowIds(rowIds));
+      return;
+    }
 
-    // Start with the query from the intent.
-    SQLQueryStruct sqlQueryStruct = IntentUtil.getSQLQueryStructFromBundle(intentExtras);
+    // Narrow the query down to the values of the group by columns
     String[] sqlGroupBy = getProps().getGroupBy();
-    // Construct a new where clause
-    // We don't need to set sqlQueryStruct.groupBy to an empty array because
-    // TableDisplayActivity::getUserTable does that on the other end.
-    StringBuilder s = new StringBuilder();
-    if (sqlQueryStruct.whereClause != null && !sqlQueryStruct.whereClause.isEmpty()) {
-      s.append("(").append(sqlQueryStruct.whereClause).append(") AND ");
-    }
-    ArrayList<Object> newSelectionArgs = new ArrayList<>();
-    if (sqlQueryStruct.selectionArgs.bindArgs != null) {
-      newSelectionArgs.addAll(Arrays.asList(sqlQueryStruct.selectionArgs.bindArgs));
-    }
-    boolean first = true;
-    for (String groupByColumn : sqlGroupBy) {
-      if (!first) {
-        s.append(", ");
-      }
-      first = false;
-      String value = cell.row.getStringValueByKey(groupByColumn);
-      if (value == null) {
-        s.append(groupByColumn).append(" IS NULL");
-      } else {
-        s.append(groupByColumn).append("=?");
-        newSelectionArgs.add(value);
-      }
+    String[] values = new String[sqlGroupBy.length];
+    for (int i = 0; i < sqlGroupBy.length; ++i) {
+      values[i] = cell.row.getStringValueByKey(sqlGroupBy[i]);
     }
-    sqlQueryStruct.whereClause = s.toString();
-    sqlQueryStruct.selectionArgs = new BindArgs(
-        newSelectionArgs.toArray(new Object[newSelectionArgs.size()]));
+    startCollectionActivity(query.withFilter(sqlGroupBy, values));
+  }
 
+  /**
+   * Opens a new spreadsheet that shows only the rows matched by the given query
+   *
+   * @param query the query that selects the rows of the collection
+   */
+  private void startCollectionActivity(QueryDescriptor query) {
     Activity act = getActivity();
     if (!(act instanceof ISpreadsheetFragmentContainer)) {
       throw new IllegalStateException("Cannot view a collection in a spreadsheet using something "
@@ -300,7 +658,7 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     Bundle extras = new Bundle();
     IntentUtil.addAppNameToBundle(extras, this.getAppName());
     IntentUtil.addTableIdToBundle(extras, this.getTableId());
-    IntentUtil.addSQLQueryStructToBundle(extras, sqlQueryStruct);
+    IntentUtil.addQueryDescriptorToBundle(extras, query);
     IntentUtil.addFragmentViewTypeToBundle(extras, ViewFragmentType.SPREADSHEET);
     extras.putParcelable("props", getProps());
     // This tells it to ignore any groupBy and just use an empty array
@@ -311,6 +669,360 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     getActivity().startActivityForResult(intent, RequestCodeConsts.RequestCodes.LAUNCH_VIEW);
   }
 
+  /**
+   * @return whether the rows are grouped into collections, which they aren't once we are in a
+   * collection
+   */
+  private boolean isGrouped() {
+    return hasGroupBys() && !getActivity().getIntent().getExtras().containsKey("inCollection");
+  }
+
+  /**
+   * Starts loading the groups of the grouped table being displayed, and the rows in each of
+   * them, so that the row actions menu and opening a collection find them cached
+   */
+  private void loadGroupsInBackground() {
+    if (!isGrouped()) {
+      return;
+    }
+    SQLQueryStruct sqlQueryStruct = IntentUtil
+        .getSQLQueryStructFromBundle(getActivity().getIntent().getExtras());
+    GroupAggregateCache.get(getAppName())
+        .loadInBackground(getTableId(), getColumnDefinitions(), sqlQueryStruct,
+            getProps().getGroupBy());
+  }
+
+  /**
+   * Gets the groups of the grouped table being displayed if they have been loaded. This never
+   * goes to the database, so it may return null for a moment after the spreadsheet is shown.
+   *
+   * @return the groups, or null if they aren't loaded yet, the table isn't grouped or we are
+   * already in a collection
+   */
+  private GroupAggregateCache.Groups getCachedGroups() {
+    if (!isGrouped()) {
+      return null;
+    }
+    SQLQueryStruct sqlQueryStruct = IntentUtil
+        .getSQLQueryStructFromBundle(getActivity().getIntent().getExtras());
+    return GroupAggregateCache.get(getAppName())
+        .getCachedGroups(getTableId(), sqlQueryStruct, getProps().getGroupBy());
+  }
+
+  /**
+   * Looks up the ids of the rows in the collection that the given cell is the head of
+   *
+   * @param cell a cell of the grouped table
+   * @return the row ids, or null if they aren't loaded yet or there are too many to bind
+   */
+  private String[] getCollectionRowIds(SpreadsheetCell cell) {
+    GroupAggregateCache.Groups groups = getCachedGroups();
+    if (groups == null) {
+      return null;
+    }
+    int group = groups.indexOf(cell.row);
+    if (group < 0 || groups.getCount(group) > MAX_COLLECTION_ROW_IDS) {
+      return null;
+    }
+    return groups.getRowIds(group);
+  }
+
+  /**
+   * Opens the table that the cell's column is joined to, showing only the rows whose joined
+   * column equals the value of the cell. The filter is passed as the where clause of the new
+   * activity's query, so only the matching rows are loaded.
+   *
+   * @param cell the cell whose value to follow
+   */
+  private void openJoinTable(SpreadsheetCell cell) {
+    List<JoinColumn> joinColumns = spreadsheetTable.getJoinColumns(cell.elementKey);
+
+    AlertDialog.Builder badJoinDialog;
+    // TODO should check for valid table properties and column properties here. or rather valid
+    // ids and keys.
+    if (joinColumns == null || joinColumns.isEmpty()) {
+      badJoinDialog = new AlertDialog.Builder(this.getActivity());
+      badJoinDialog.setTitle("Bad Join");
+      badJoinDialog.setMessage("A join column has not been set in Column Properties.");
+      badJoinDialog.create().show();
+      WebLogger.getLogger(getAppName()).e(TAG,
+          "cp.getJoins was null but open join table was " + "requested for cp: "
+              + cell.elementKey);
+      return;
+    }
+    if (joinColumns.size() != 1) {
+      badJoinDialog = new AlertDialog.Builder(this.getActivity());
+      badJoinDialog.setTitle("Bad Join");
+      badJoinDialog.setMessage("Multiple join associations have been set in Column Properties.");
+      badJoinDialog.create().show();
+      WebLogger.getLogger(getAppName()).e(TAG,
+          "cp.getJoins has multiple joins (missing code is needed to handle this) for cp: "
+              + cell.elementKey);
+      return;
+    }
+    JoinColumn joinColumn = joinColumns.get(0);
+    if (joinColumn.getTableId().equals(JoinColumn.DEFAULT_NOT_SET_VALUE) || joinColumn
+        .getElementKey().equals(JoinColumn.DEFAULT_NOT_SET_VALUE)) {
+      badJoinDialog = new AlertDialog.Builder(this.getActivity());
+      badJoinDialog.setTitle("Bad Join");
+      badJoinDialog.setMessage("Both a table and column must be set.");
+      badJoinDialog.create().show();
+      WebLogger.getLogger(getAppName()).e(TAG,
+          "Bad elementKey or tableId in open join table. tableId: " + joinColumn.getTableId()
+              + " elementKey: " + joinColumn.getElementKey());
+      return;
+    }
+
+    String value = cell.value;
+    SQLQueryStruct joinQuery;
+    if (value == null) {
+      joinQuery = new SQLQueryStruct("\"" + joinColumn.getElementKey() + "\" IS NULL", null,
+          null, null, null, null);
+    } else {
+      joinQuery = new SQLQueryStruct("\"" + joinColumn.getElementKey() + "\" = ?",
+          new BindArgs(new Object[] { value }), null, null, null, null);
+    }
+
+    Intent intent = new Intent(this.getActivity(), TableDisplayActivity.class);
+    Bundle extras = new Bundle();
+    IntentUtil.addAppNameToBundle(extras, getAppName());
+    IntentUtil.addFragmentViewTypeToBundle(extras, ViewFragmentType.SPREADSHEET);
+    IntentUtil.addTableIdToBundle(extras, joinColumn.getTableId());
+    IntentUtil.addSQLQueryStructToBundle(extras, joinQuery);
+    // The props of this table name columns of this table, so the joined table is opened with
+    // its own saved sort and group by instead
+    intent.putExtras(extras);
+    getActivity().startActivityForResult(intent, RequestCodeConsts.RequestCodes.LAUNCH_VIEW);
+  }
+
+  /**
+   * Computes the statistics of a column over the rows being displayed and shows them in a
+   * dialog. The pass over the column runs on the cache's background thread; the result is
+   * cached until rows of the table change, so showing the same column again is immediate.
+   *
+   * @param elementKey the column
+   */
+  private void showColumnStatistics(String elementKey) {
+    ColumnDefinition column = spreadsheetTable.getColumnByElementKey(elementKey);
+    SQLQueryStruct query = getUserTableQuery();
+    if (column == null || query == null) {
+      return;
+    }
+    ColumnStatisticsCache.get(getAppName())
+        .loadInBackground(getTableId(), column, query, columnStatisticsListener);
+  }
+
+  /**
+   * Shows the statistics once they are computed, if the spreadsheet is still there. The cache
+   * holds it weakly, so it has to stay in a field.
+   */
+  private final ColumnStatisticsCache.LoadListener columnStatisticsListener =
+      new ColumnStatisticsCache.LoadListener() {
+        @Override
+        public void columnStatisticsLoaded(String elementKey, ColumnStatistics statistics) {
+          if (!isAdded() || spreadsheetTable == null) {
+            return;
+          }
+          AlertDialog.Builder dialog = new AlertDialog.Builder(getActivity());
+          dialog.setTitle(getString(R.string.column_statistics_title,
+              spreadsheetTable.getDisplayName(elementKey)));
+          dialog.setMessage(formatColumnStatistics(statistics));
+          dialog.setPositiveButton(R.string.ok, null);
+          dialog.create().show();
+        }
+
+        @Override
+        public void columnStatisticsFailed(String elementKey, Exception e) {
+          if (!isAdded()) {
+            return;
+          }
+          Toast.makeText(getActivity(), R.string.column_statistics_failed, Toast.LENGTH_LONG)
+              .show();
+        }
+      };
+
+  private String formatColumnStatistics(ColumnStatistics statistics) {
+    StringBuilder message = new StringBuilder();
+    message.append(getString(R.string.column_statistics_counts, statistics.getCount(),
+        statistics.getNullCount(), statistics.getDistinctCount()));
+    if (statistics.getMin() != null) {
+      message.append("\n").append(getString(R.string.column_statistics_range,
+          statistics.getMin(), statistics.getMax()));
+    }
+    if (statistics.isNumeric() && statistics.getMean() != null) {
+      message.append("\n").append(getString(R.string.column_statistics_mean,
+          String.format(Locale.getDefault(), "%.4g", statistics.getMean())));
+    }
+    List<ColumnStatistics.ValueCount> top = statistics.getTop(STATISTICS_TOP_VALUES);
+    if (!top.isEmpty()) {
+      message.append("\n\n").append(getString(R.string.column_statistics_top));
+      for (ColumnStatistics.ValueCount value : top) {
+        message.append("\n").append(getString(R.string.column_statistics_top_value, value.value,
+            value.count));
+      }
+    }
+    return message.toString();
+  }
+
+  /**
+   * Takes a deleted row out of the spreadsheet without querying the table again or rebuilding
+   * the view. A grouped table is rebuilt instead, since there a row stands for a whole group whose
+   * count and aggregates changed.
+   *
+   * @param position the display position of the deleted row
+   */
+  private void removeRowInPlace(int position) {
+    boolean grouped = hasGroupBys() && !getActivity().getIntent().getExtras()
+        .containsKey("inCollection");
+    if (grouped || theView.getChildCount() == 0 || !(theView
+        .getChildAt(0) instanceof SpreadsheetView)) {
+      destroyAndRecreateFragment();
+      return;
+    }
+    long start = System.currentTimeMillis();
+    ((SpreadsheetView) theView.getChildAt(0)).removeRow(position);
+    // the other views of this activity must not be shown the deleted row
+    ((TableDisplayActivity) getActivity()).markUserTableStale();
+    WebLogger.getLogger(getAppName()).i(TAG, "removed row " + position + " in place in "
+        + Long.toString(System.currentTimeMillis() - start) + " ms");
+    if (searchBar.getVisibility() == View.VISIBLE) {
+      search(searchText.getText().toString());
+    }
+  }
+
+  /**
+   * Redraws the rows after rows were selected or deselected
+   */
+  private void refreshSelection() {
+    if (theView.getChildCount() != 0 && theView.getChildAt(0) instanceof SpreadsheetView) {
+      ((SpreadsheetView) theView.getChildAt(0)).refreshRows();
+    }
+  }
+
+  /**
+   * Asks the user to confirm deleting all the selected rows, then deletes them in the background
+   */
+  private void openDeleteSelectedRowsDialog() {
+    final String[] rowIds = getProps().getSelectedRowIds();
+    AlertDialog.Builder alert = new AlertDialog.Builder(getActivity());
+    alert.setTitle(getString(R.string.confirm_delete_row))
+        .setMessage(getString(R.string.confirm_delete_selected_rows, rowIds.length));
+    alert.setPositiveButton(getString(R.string.ok), new DialogInterface.OnClickListener() {
+      public void onClick(DialogInterface dialog, int whichButton) {
+        runBulkRowTask(BulkRowTask
+            .delete(getAppName(), getTableId(), getColumnDefinitions(), rowIds, null));
+      }
+    });
+    alert.setNegativeButton(getString(R.string.cancel), null);
+    alert.create().show();
+  }
+
+  /**
+   * Asks the user for a value, then sets one column of all the selected rows to it in the
+   * background
+   *
+   * @param elementKey the column to set
+   */
+  private void openUpdateSelectedRowsDialog(final String elementKey) {
+    final String[] rowIds = getProps().getSelectedRowIds();
+    final EditText input = new EditText(getActivity());
+    input.setSingleLine(true);
+    input.setHint(R.string.update_selected_rows_hint);
+    AlertDialog.Builder alert = new AlertDialog.Builder(getActivity());
+    alert.setTitle(getString(R.string.update_selected_rows,
+        spreadsheetTable.getDisplayName(elementKey), rowIds.length));
+    alert.setView(input);
+    alert.setPositiveButton(getString(R.string.ok), new DialogInterface.OnClickListener() {
+      public void onClick(DialogInterface dialog, int whichButton) {
+        String value = input.getText().toString();
+        runBulkRowTask(BulkRowTask
+            .update(getAppName(), getTableId(), getColumnDefinitions(), rowIds, elementKey,
+                value.isEmpty() ? null : value, null));
+      }
+    });
+    alert.setNegativeButton(getString(R.string.cancel), null);
+    alert.create().show();
+  }
+
+  /**
+   * Clears the selection and starts a bulk delete or update. The spreadsheet is refreshed once
+   * when the task is done. The task is kept by the activity's retained data, so if the
+   * spreadsheet is recreated while it runs, the new spreadsheet shows its result.
+   *
+   * @param task the task to run
+   */
+  private void runBulkRowTask(BulkRowTask task) {
+    getProps().clearSelection();
+    refreshSelection();
+    if (getActivity() instanceof TableDisplayActivity) {
+      ((TableDisplayActivity) getActivity()).setBulkRowTask(task);
+    }
+    task.setListener(bulkRowTaskListener);
+    task.execute();
+  }
+
+  /**
+   * Listens again to a bulk delete or update started before the spreadsheet was recreated
+   */
+  @Override
+  public void onResume() {
+    super.onResume();
+    if (getActivity() instanceof TableDisplayActivity) {
+      BulkRowTask task = ((TableDisplayActivity) getActivity()).getBulkRowTask();
+      if (task != null) {
+        task.setListener(bulkRowTaskListener);
+      }
+    }
+  }
+
+  /**
+   * Stops listening to a running bulk delete or update, which keeps its result for the next
+   * listener
+   */
+  @Override
+  public void onPause() {
+    super.onPause();
+    if (getActivity() instanceof TableDisplayActivity) {
+      BulkRowTask task = ((TableDisplayActivity) getActivity()).getBulkRowTask();
+      if (task != null) {
+        task.setListener(null);
+      }
+    }
+  }
+
+  /**
+   * Tells the user how a bulk delete or update went and reloads the table once
+   */
+  private final BulkRowTask.Listener bulkRowTaskListener = new BulkRowTask.Listener() {
+    @Override
+    public void bulkRowTaskComplete(BulkRowTask task, BulkRowTask.Result result) {
+      Activity act = getActivity();
+      if (act instanceof TableDisplayActivity
+          && ((TableDisplayActivity) act).getBulkRowTask() == task) {
+        ((TableDisplayActivity) act).setBulkRowTask(null);
+      }
+      if (!isAdded()) {
+        return;
+      }
+      String message;
+      if (result.invalidValue) {
+        message = getString(R.string.bulk_rows_invalid_value, result.total);
+      } else if (result.failed != 0) {
+        message = getString(R.string.bulk_rows_failed, result.changed, result.total,
+            result.unauthorized + result.failed);
+      } else if (result.unauthorized != 0) {
+        message = getString(R.string.bulk_rows_unauthorized, result.changed, result.total,
+            result.unauthorized);
+      } else {
+        message = getString(R.string.bulk_rows_changed, result.changed, result.total);
+      }
+      Toast.makeText(act, message, Toast.LENGTH_LONG).show();
+      if (!result.invalidValue) {
+        destroyAndRecreateFragment();
+      }
+    }
+  };
+
   /**
    * Initializes and refreshes the activity
    */
@@ -335,6 +1047,8 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
       db = Tables.getInstance().getDatabase().openDatabase(getAppName());
       Tables.getInstance().getDatabase()
           .deleteRowWithId(getAppName(), db, getTableId(), getColumnDefinitions(), rowId);
+      GroupAggregateCache.get(getAppName()).invalidate(getTableId());
+      ColumnStatisticsCache.get(getAppName()).invalidate(getTableId());
     } finally {
       if (db != null) {
         Tables.getInstance().getDatabase().closeDatabase(getAppName(), db);
@@ -411,97 +1125,25 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     // Also in the row actions menu, but only if applicable
     case MENU_ITEM_ID_OPEN_JOIN_TABLE:
       cell = spreadsheetTable.getSpreadsheetCell(getProps().lastDataCellMenued);
-      ColumnDefinition cd = spreadsheetTable.getColumnByElementKey(cell.elementKey);
-      // Get the JoinColumn.
-      ArrayList<JoinColumn> joinColumns;
-      DbHandle db = null;
-      try {
-        db = dbInterface.openDatabase(getAppName());
-        joinColumns = ColumnUtil.get()
-            .getJoins(dbInterface, getAppName(), db, getTableId(), cd.getElementKey());
-
-        AlertDialog.Builder badJoinDialog;
-        // TODO should check for valid table properties and column properties here. or rather valid
-        // ids and keys.
-        if (joinColumns == null || joinColumns.isEmpty()) {
-          badJoinDialog = new AlertDialog.Builder(this.getActivity());
-          badJoinDialog.setTitle("Bad Join");
-          badJoinDialog.setMessage("A join column has not been set in Column Properties.");
-          badJoinDialog.create().show();
-          WebLogger.getLogger(getAppName()).e(TAG,
-              "cp.getJoins was null but open join table was " + "requested for cp: " + cd
-                  .getElementKey());
-        } else if (joinColumns.size() != 1) {
-          badJoinDialog = new AlertDialog.Builder(this.getActivity());
-          badJoinDialog.setTitle("Bad Join");
-          badJoinDialog
-              .setMessage("Multiple join associations have been set in Column Properties.");
-          badJoinDialog.create().show();
-          WebLogger.getLogger(getAppName()).e(TAG,
-              "cp.getJoins has multiple joins (missing code is needed to handle this) for cp: " + cd
-                  .getElementKey());
-        } else {
-          JoinColumn joinColumn = joinColumns.get(0);
-          if (joinColumn.getTableId().equals(JoinColumn.DEFAULT_NOT_SET_VALUE) || joinColumn
-              .getElementKey().equals(JoinColumn.DEFAULT_NOT_SET_VALUE)) {
-            badJoinDialog = new AlertDialog.Builder(this.getActivity());
-            badJoinDialog.setTitle("Bad Join");
-            badJoinDialog.setMessage("Both a table and column must be set.");
-            badJoinDialog.create().show();
-            WebLogger.getLogger(getAppName()).e(TAG,
-                "Bad elementKey or tableId in open join table. tableId: " + joinColumn.getTableId()
-                    + " elementKey: " + joinColumn.getElementKey());
-          } else {
-            db = null;
-            try {
-              db = dbInterface.openDatabase(getAppName());
-            } catch (ServicesAvailabilityException e) {
-              WebLogger.getLogger(activity.getAppName()).printStackTrace(e);
-              WebLogger.getLogger(activity.getAppName()).e(TAG, "Error while accessing database");
-              Toast.makeText(activity, "Error while accessing database", Toast.LENGTH_LONG).show();
-            } finally {
-              if (db != null) {
-                try {
-                  dbInterface.closeDatabase(getAppName(), db);
-                } catch (ServicesAvailabilityException e) {
-                  WebLogger.getLogger(activity.getAppName()).printStackTrace(e);
-                  WebLogger.getLogger(activity.getAppName()).e(TAG, "Error closing database");
-                  Toast.makeText(activity, "Error closing database", Toast.LENGTH_LONG).show();
-                }
-              }
-            }
-
-            // I would prefer this kind of query to be set in another
-            // object, but alas, it looks like atm it is hardcoded.
-            Intent intent = new Intent(this.getActivity(), TableDisplayActivity.class);
-            Bundle extras = new Bundle();
-            IntentUtil.addAppNameToBundle(extras, getAppName());
-            IntentUtil.addFragmentViewTypeToBundle(extras, ViewFragmentType.SPREADSHEET);
-            // TODO: Pass a query!
-            IntentUtil.addTableIdToBundle(extras, getTableId());
-            extras.putParcelable("props", getProps());
-            // Do not pass inCollection because that will set groupBy to null in TableDispAct
-            extras.putString(Constants.IntentKeys.CONTAINS_PROPS, "");
-            intent.putExtras(extras);
-            getActivity().startActivityForResult(intent, RequestCodeConsts.RequestCodes.LAUNCH_VIEW);
-          }
-        }
-      } catch (ServicesAvailabilityException e) {
-        WebLogger.getLogger(activity.getAppName()).printStackTrace(e);
-        WebLogger.getLogger(activity.getAppName()).e(TAG, "Error while accessing database");
-        Toast.makeText(activity, "Error while accessing database", Toast.LENGTH_LONG).show();
-        return true;
-      } finally {
-        if (db != null) {
-          try {
-            dbInterface.closeDatabase(getAppName(), db);
-          } catch (ServicesAvailabilityException e) {
-            WebLogger.getLogger(activity.getAppName()).printStackTrace(e);
-            WebLogger.getLogger(activity.getAppName()).e(TAG, "Error closing database");
-            Toast.makeText(activity, "Error closing database", Toast.LENGTH_LONG).show();
-          }
-        }
-      }
+      openJoinTable(cell);
+      return true;
+    // Also in the row actions menu, selecting rows for a bulk delete or update
+    case MENU_ITEM_ID_SELECT_ROW:
+    case MENU_ITEM_ID_DESELECT_ROW:
+      cell = spreadsheetTable.getSpreadsheetCell(getProps().lastDataCellMenued);
+      getProps().setRowSelected(cell.row.getStringValueByKey(DataTableColumns.ID),
+          item.getItemId() == MENU_ITEM_ID_SELECT_ROW);
+      refreshSelection();
+      return true;
+    case MENU_ITEM_ID_CLEAR_SELECTION:
+      getProps().clearSelection();
+      refreshSelection();
+      return true;
+    case MENU_ITEM_ID_DELETE_SELECTED_ROWS:
+      openDeleteSelectedRowsDialog();
+      return true;
+    case MENU_ITEM_ID_UPDATE_SELECTED_ROWS:
+      openUpdateSelectedRowsDialog(getProps().lastDataCellMenued.elementKey);
       return true;
     // In the context menu when you double click on a column heading.
     case MENU_ITEM_ID_SET_COLUMN_AS_GROUP_BY:
@@ -515,6 +1157,7 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
       return true;
     // In the same context menu you get from double tapping on a column heading
     case MENU_ITEM_ID_SET_COLUMN_AS_SORT:
+      updateThenBy(getProps().lastHeaderCellMenued.elementKey, false);
       getProps().setSort(getProps().lastHeaderCellMenued.elementKey);
       destroyAndRecreateFragment();
       return true;
@@ -540,12 +1183,26 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
       destroyAndRecreateFragment();
       return true;
     case MENU_ITEM_ID_SORT_ASC:
-      getProps().setSortOrder("ASC");
-      destroyAndRecreateFragment();
+      setSortOrder(getProps().lastHeaderCellMenued.elementKey, "ASC");
+      resortInPlace();
       return true;
     case MENU_ITEM_ID_SORT_DESC:
-      getProps().setSortOrder("DESC");
-      destroyAndRecreateFragment();
+      setSortOrder(getProps().lastHeaderCellMenued.elementKey, "DESC");
+      resortInPlace();
+      return true;
+    case MENU_ITEM_ID_COLUMN_STATISTICS:
+      showColumnStatistics(getProps().lastHeaderCellMenued.elementKey);
+      return true;
+    case MENU_ITEM_ID_SEARCH_COLUMN:
+      openSearch(getProps().lastHeaderCellMenued.elementKey);
+      return true;
+    case MENU_ITEM_ID_ADD_THEN_BY:
+      updateThenBy(getProps().lastHeaderCellMenued.elementKey, true);
+      resortInPlace();
+      return true;
+    case MENU_ITEM_ID_REMOVE_THEN_BY:
+      updateThenBy(getProps().lastHeaderCellMenued.elementKey, false);
+      resortInPlace();
       return true;
     case MENU_ITEM_ID_PREFS:
       ActivityUtil
@@ -595,10 +1252,27 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     // Set the title to rowActions
     menu.setHeaderTitle(getString(R.string.row_actions));
 
-    // If we have group buys, give the user the "View collection" option
-    if (this.hasGroupBys() && !getActivity().getIntent().getExtras().containsKey("inCollection")) {
-      menu.add(ContextMenu.NONE, MENU_ITEM_ID_OPEN_COLLECTION, ContextMenu.NONE,
-          R.string.view_collection);
+    // If we have group buys, give the user the "View collection" option. The counts and
+    // aggregates are only shown once the groups have been loaded in the background.
+    boolean grouped = isGrouped();
+    if (grouped) {
+      GroupAggregateCache.Groups groups = getCachedGroups();
+      TypedRow row = spreadsheetTable.getRowAtIndex(cellInfo.rowId);
+      int group = row == null || groups == null ? -1 : groups.indexOf(row);
+      if (group < 0) {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_OPEN_COLLECTION, ContextMenu.NONE,
+            R.string.view_collection);
+      } else {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_OPEN_COLLECTION, ContextMenu.NONE,
+            getString(R.string.view_collection_count, groups.getCount(group)));
+        if (groups.hasAggregates(cellInfo.elementKey)) {
+          menu.add(ContextMenu.NONE, MENU_ITEM_ID_COLLECTION_SUMMARY, ContextMenu.NONE,
+              getString(R.string.collection_aggregates,
+                  groups.getSum(group, cellInfo.elementKey),
+                  groups.getMin(group, cellInfo.elementKey),
+                  groups.getMax(group, cellInfo.elementKey))).setEnabled(false);
+        }
+      }
     }
 
     String access = spreadsheetTable.getRowAtIndex(cellInfo.rowId)
@@ -616,24 +1290,34 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     }
 
     // check a join association with this column; add a join... option if
-    // it is applicable.
-    ArrayList<JoinColumn> joinColumns;
-    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
-    DbHandle db = null;
-    try {
-      db = dbInterface.openDatabase(getAppName());
-      joinColumns = ColumnUtil.get()
-          .getJoins(dbInterface, getAppName(), db, getTableId(), cellInfo.elementKey);
-    } finally {
-      if (db != null) {
-        dbInterface.closeDatabase(getAppName(), db);
-      }
-    }
-
-    if (joinColumns != null && !joinColumns.isEmpty()) {
+    // it is applicable. The joins were loaded with the column metadata.
+    if (!spreadsheetTable.getJoinColumns(cellInfo.elementKey).isEmpty()) {
       menu.add(ContextMenu.NONE, MENU_ITEM_ID_OPEN_JOIN_TABLE, ContextMenu.NONE,
           getString(R.string.open_join_table));
     }
+
+    // A row of a grouped table stands for a whole group, so only ungrouped rows can be selected
+    if (!grouped) {
+      String rowId = spreadsheetTable.getRowAtIndex(cellInfo.rowId)
+          .getStringValueByKey(DataTableColumns.ID);
+      if (getProps().isRowSelected(rowId)) {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_DESELECT_ROW, ContextMenu.NONE,
+            getString(R.string.deselect_row));
+      } else {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_SELECT_ROW, ContextMenu.NONE,
+            getString(R.string.select_row));
+      }
+      int selected = getProps().getSelectedRowCount();
+      if (selected != 0) {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_DELETE_SELECTED_ROWS, ContextMenu.NONE,
+            getString(R.string.delete_selected_rows, selected));
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_UPDATE_SELECTED_ROWS, ContextMenu.NONE,
+            getString(R.string.update_selected_rows,
+                spreadsheetTable.getDisplayName(cellInfo.elementKey), selected));
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_CLEAR_SELECTION, ContextMenu.NONE,
+            getString(R.string.clear_selection));
+      }
+    }
   }
 
   /**
@@ -674,6 +1358,8 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
 
     // Do not let the user change group by settings if we're viewing a collection, it breaks things
     boolean isSort = cellInfo.elementKey.equals(getProps().getSort());
+    boolean isThenBy = Arrays.asList(getProps().getThenBy()).contains(cellInfo.elementKey);
+    boolean hasSort = getProps().getSort() != null && !getProps().getSort().isEmpty();
     boolean isGroup = Arrays.asList(getProps().getGroupBy()).contains(cellInfo.elementKey);
     boolean isCollection = getActivity().getIntent().getExtras().containsKey("inCollection");
     boolean isFrozen = cellInfo.elementKey.equals(getProps().getFrozen());
@@ -690,6 +1376,16 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
         menu.add(ContextMenu.NONE, MENU_ITEM_ID_SORT_ASC, ContextMenu.NONE,
             getString(R.string.sort_asc));
       }
+    } else if (isThenBy) {
+      menu.add(ContextMenu.NONE, MENU_ITEM_ID_REMOVE_THEN_BY, ContextMenu.NONE,
+          getString(R.string.unset_then_sort_by));
+      if ("ASC".equals(getSortOrder(cellInfo.elementKey))) {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_SORT_DESC, ContextMenu.NONE,
+            getString(R.string.sort_desc));
+      } else {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_SORT_ASC, ContextMenu.NONE,
+            getString(R.string.sort_asc));
+      }
     } else {
       if (!isCollection) {
         menu.add(ContextMenu.NONE, MENU_ITEM_ID_SET_COLUMN_AS_GROUP_BY, ContextMenu.NONE,
@@ -697,6 +1393,10 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
       }
       menu.add(ContextMenu.NONE, MENU_ITEM_ID_SET_COLUMN_AS_SORT, ContextMenu.NONE,
           getString(R.string.set_as_sort));
+      if (hasSort) {
+        menu.add(ContextMenu.NONE, MENU_ITEM_ID_ADD_THEN_BY, ContextMenu.NONE,
+            getString(R.string.then_sort_by));
+      }
     }
     if (isFrozen) {
       menu.add(ContextMenu.NONE, MENU_ITEM_ID_UNSET_AS_INDEXED_COL, ContextMenu.NONE,
@@ -706,6 +1406,12 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
           getString(R.string.freeze_column));
     }
 
+    menu.add(ContextMenu.NONE, MENU_ITEM_ID_SEARCH_COLUMN, ContextMenu.NONE,
+        getString(R.string.search_column));
+
+    menu.add(ContextMenu.NONE, MENU_ITEM_ID_COLUMN_STATISTICS, ContextMenu.NONE,
+        getString(R.string.column_statistics));
+
     menu.add(ContextMenu.NONE, MENU_ITEM_ID_PREFS, ContextMenu.NONE,
         getString(R.string.column_prefs));
 
@@ -743,6 +1449,7 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
     AlertDialog confirmDeleteAlert;
     // Prompt an alert box
     final String rowId = cell.row.getStringValueByKey(DataTableColumns.ID);
+    final int position = getProps().lastDataCellMenued.rowId;
     AlertDialog.Builder alert = new AlertDialog.Builder(getActivity());
     alert.setTitle(getString(R.string.confirm_delete_row))
         .setMessage(getString(R.string.are_you_sure_delete_row, rowId));
@@ -753,7 +1460,7 @@ public class SpreadsheetFragment extends AbsTableDisplayFragment
         try {
           getProps().deleteDialogOpen = false;
           deleteRow(rowId);
-          destroyAndRecreateFragment();
+          removeRowInPlace(position);
         } catch (ActionNotAuthorizedException e) {
           WebLogger.getLogger(activity.getAppName()).printStackTrace(e);
           WebLogger.getLogger(activity.getAppName())
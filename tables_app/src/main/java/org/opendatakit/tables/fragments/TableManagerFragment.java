@@ -21,6 +21,8 @@ import android.content.ComponentName;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.ContextMenu;
 import android.view.LayoutInflater;
 import android.view.MenuInflater;
@@ -28,15 +30,14 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
+import android.widget.EditText;
 import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 import org.opendatakit.activities.IAppAwareActivity;
 import org.opendatakit.consts.IntentConsts;
 import org.opendatakit.consts.RequestCodeConsts;
-import org.opendatakit.data.utilities.TableUtil;
 import org.opendatakit.database.service.DbHandle;
-import org.opendatakit.database.service.UserDbInterface;
 import org.opendatakit.exception.ServicesAvailabilityException;
 import org.opendatakit.listener.DatabaseConnectionListener;
 import org.opendatakit.logging.WebLogger;
@@ -48,14 +49,16 @@ import org.opendatakit.tables.activities.MainActivity;
 import org.opendatakit.tables.activities.TableDisplayActivity;
 import org.opendatakit.tables.activities.TableLevelPreferencesActivity;
 import org.opendatakit.tables.application.Tables;
+import org.opendatakit.tables.logic.TableListIndex;
 import org.opendatakit.tables.utils.ActivityUtil;
 import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.StartupOrchestrator;
+import org.opendatakit.tables.utils.TableHealthCache;
+import org.opendatakit.tables.utils.TableListCache;
 import org.opendatakit.tables.utils.TableNameStruct;
 import org.opendatakit.tables.views.components.TableNameStructAdapter;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -69,6 +72,18 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
   private static final int ID = R.layout.fragment_table_list;
 
   private TableNameStructAdapter mTpAdapter = null;
+  /**
+   * Sorted index over every table, rebuilt when the table list or the sort order changes
+   */
+  private TableListIndex mTableIndex = null;
+  /**
+   * What the user has typed into the filter box
+   */
+  private String mFilterText = "";
+  /**
+   * Whether the last attempt to load the table list failed
+   */
+  private boolean mLoadFailed = false;
 
   @Override
   public void onCreate(Bundle savedInstanceState) {
@@ -79,7 +94,25 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
   public View onCreateView(LayoutInflater inflater, ViewGroup container,
       Bundle savedInstanceState) {
     WebLogger.getLogger(((IAppAwareActivity) getActivity()).getAppName()).d(TAG, "[onCreateView]");
-    return inflater.inflate(ID, container, false);
+    View view = inflater.inflate(ID, container, false);
+    EditText filter = view.findViewById(R.id.table_list_filter);
+    mFilterText = filter.getText().toString();
+    filter.addTextChangedListener(new TextWatcher() {
+      @Override
+      public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+      }
+
+      @Override
+      public void onTextChanged(CharSequence s, int start, int before, int count) {
+      }
+
+      @Override
+      public void afterTextChanged(Editable s) {
+        mFilterText = s.toString();
+        applyFilter();
+      }
+    });
+    return view;
   }
 
   @Override
@@ -96,7 +129,9 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
   }
 
   /**
-   * Refresh the list of tables that is being displayed by the fragment.
+   * Refresh the list of tables that is being displayed by the fragment. The list comes from the
+   * {@link TableListCache}; if it isn't cached for the current locale it is loaded in the
+   * background and displayed when it arrives.
    */
   protected void updateTableIdList() {
     AbsBaseActivity baseActivity = (AbsBaseActivity) getActivity();
@@ -108,63 +143,68 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
     PropertiesSingleton props = CommonToolProperties.get(getActivity().getApplication(), appName);
     String userSelectedDefaultLocale = props.getUserSelectedDefaultLocale();
 
-    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
-    DbHandle db = null;
-
-    List<TableNameStruct> tableNameStructs = new ArrayList<>();
-    final Constants.TABLE_SORT_ORDER fragSortOrder = getArguments() == null ? null : Constants.TABLE_SORT_ORDER.valueOf(this.getArguments().getString(CommonToolProperties.KEY_PREF_TABLES_SORT_BY_ORDER) );
-
-    if (Tables.getInstance().getDatabase() != null) {
-
-      try {
-        db = dbInterface.openDatabase(appName);
+    if (Tables.getInstance().getDatabase() == null) {
+      mLoadFailed = false;
+      displayTableList(Collections.<TableNameStruct>emptyList());
+      return;
+    }
 
-        List<String> tableIds = dbInterface.getAllTableIds(appName, db);
+    // during startup the list is loaded in the background; MainActivity calls notifyUIChanges()
+    // when it is ready.
+    if (baseActivity instanceof MainActivity && ((MainActivity) baseActivity)
+        .getStartupOrchestrator().isPhaseRunning(StartupOrchestrator.Phase.TABLE_LIST_WARMUP)) {
+      return;
+    }
 
-        for (String tableId : tableIds) {
-          String localizedDisplayName = TableUtil.get()
-              .getLocalizedDisplayName(userSelectedDefaultLocale, dbInterface, appName, db,
-                  tableId);
+    TableListCache cache = TableListCache.get(appName);
+    List<TableNameStruct> cached = cache.getCached(userSelectedDefaultLocale);
+    if (cached != null) {
+      mLoadFailed = false;
+      displayTableList(cached);
+      return;
+    }
+    cache.loadInBackground(userSelectedDefaultLocale,
+        new TableListCache.LoadListener() {
+          @Override
+          public void tableListLoaded(List<TableNameStruct> tables, boolean success) {
+            if (getActivity() == null) {
+              return;
+            }
+            WebLogger.getLogger(((IAppAwareActivity) getActivity()).getAppName())
+                .d(TAG, "got tableId list of size: " + tables.size());
+            mLoadFailed = !success;
+            displayTableList(tables);
+          }
+        });
+  }
 
-          TableNameStruct tableNameStruct = new TableNameStruct(tableId, localizedDisplayName);
+  /**
+   * Indexes the given tables in the current sort order and shows the ones matching the filter.
+   *
+   * @param tables the tables to display, not modified
+   */
+  private void displayTableList(List<TableNameStruct> tables) {
+    final Constants.TABLE_SORT_ORDER fragSortOrder = getArguments() == null ? null : Constants.TABLE_SORT_ORDER.valueOf(this.getArguments().getString(CommonToolProperties.KEY_PREF_TABLES_SORT_BY_ORDER) );
+    mTableIndex = new TableListIndex(tables, fragSortOrder);
+    applyFilter();
+  }
 
-          tableNameStructs.add(tableNameStruct);
-        }
-        WebLogger.getLogger(baseActivity.getAppName())
-            .e(TAG, "got tableId list of size: " + tableNameStructs.size());
-      } catch (ServicesAvailabilityException e) {
-        WebLogger.getLogger(baseActivity.getAppName()).e(TAG, "error while fetching tableId list");
-        WebLogger.getLogger(baseActivity.getAppName()).printStackTrace(e);
-      } finally {
-        if (db != null) {
-          try {
-            dbInterface.closeDatabase(appName, db);
-          } catch (ServicesAvailabilityException e) {
-            WebLogger.getLogger(baseActivity.getAppName()).e(TAG, "error while closing database");
-            WebLogger.getLogger(baseActivity.getAppName()).printStackTrace(e);
-          }
-        }
-      }
-    }
-    if(fragSortOrder != null) {
-      Collections.sort(tableNameStructs, new Comparator<TableNameStruct>() {
-        @Override
-        public int compare(TableNameStruct o1, TableNameStruct o2)
-        {
-          if( fragSortOrder == Constants.TABLE_SORT_ORDER.SORT_DESC )
-            return o2.getLocalizedDisplayName().compareTo(o1.getLocalizedDisplayName());
-          else
-            return o1.getLocalizedDisplayName().compareTo(o2.getLocalizedDisplayName());
-        }
-      });
+  /**
+   * Shows the tables in the index that match the filter text, updating the adapter in place.
+   */
+  private void applyFilter() {
+    AbsBaseActivity baseActivity = (AbsBaseActivity) getActivity();
+    if (baseActivity == null || mTableIndex == null) {
+      return;
     }
 
+    List<TableNameStruct> tableNameStructs = mTableIndex.filter(mFilterText);
+
     if (mTpAdapter == null) {
       this.mTpAdapter = new TableNameStructAdapter(baseActivity, tableNameStructs);
       this.setListAdapter(this.mTpAdapter);
     } else {
-      this.mTpAdapter.clear();
-      this.mTpAdapter.addAll(tableNameStructs);
+      this.mTpAdapter.update(tableNameStructs);
     }
     // and set visibility of the no data vs. list
     if (this.getView() != null) {
@@ -173,6 +213,10 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
       if (tableNameStructs.isEmpty()) {
         if (Tables.getInstance().getDatabase() == null) {
           none.setText(R.string.database_unavailable);
+        } else if (mLoadFailed) {
+          none.setText(R.string.error_accessing_database);
+        } else if (mTableIndex.size() != 0) {
+          none.setText(R.string.no_matching_tables);
         } else {
           none.setText(R.string.no_table_data);
         }
@@ -183,7 +227,6 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
         none.setVisibility(View.GONE);
       }
     }
-    this.mTpAdapter.notifyDataSetChanged();
   }
 
   @Override
@@ -243,6 +286,8 @@ public class TableManagerFragment extends ListFragment implements DatabaseConnec
               db = Tables.getInstance().getDatabase().openDatabase(appName);
               Tables.getInstance().getDatabase()
                   .deleteTableAndAllData(appName, db, tableIdOfSelectedItem);
+              TableListCache.get(appName).invalidate();
+              TableHealthCache.get(appName).invalidate();
             } finally {
               if (db != null) {
                 Tables.getInstance().getDatabase().closeDatabase(appName, db);
@@ -52,11 +52,16 @@ import org.opendatakit.logging.WebLogger;
 import org.opendatakit.tables.R;
 import org.opendatakit.tables.activities.AbsBaseActivity;
 import org.opendatakit.tables.activities.TableDisplayActivity;
+import org.opendatakit.tables.activities.TableDisplayViewModel;
 import org.opendatakit.tables.application.Tables;
 import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.PerfMetrics;
+import org.opendatakit.tables.utils.PerfTrace;
+import org.opendatakit.tables.utils.TypedColumnCache;
 import org.opendatakit.utilities.ODKFileUtils;
 import org.opendatakit.utilities.RuntimePermissionUtils;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -123,6 +128,11 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
    */
   private Marker mCurrentMarker = null;
   private ColorGuideGroup mColorGuideGroup = null;
+  /**
+   * Where the markers go and what color they are, worked out from the database or kept by the
+   * activity across a configuration change
+   */
+  private TableDisplayViewModel.MapMarkers mMarkers = null;
   /**
    * the latitide elementKey to use for plotting
    */
@@ -237,7 +247,14 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
       map.clear();
     }
     try {
-      resetColorProperties();
+      // after a rotation the activity still has the markers, so skip the database
+      mMarkers = ((TableDisplayActivity) activity).getMapMarkers();
+      if (mMarkers == null) {
+        resetColorProperties();
+      } else {
+        mLatitudeElementKey = mMarkers.latitudeElementKey;
+        mLongitudeElementKey = mMarkers.longitudeElementKey;
+      }
       setMarkers();
     } catch (ServicesAvailabilityException e) {
       WebLogger.getLogger(activity.getAppName()).printStackTrace(e);
@@ -310,7 +327,12 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
 
       if (mColorGroup != null) {
         UserTable userTableForColor = activity.getUserTable();
-        mColorGuideGroup = new ColorGuideGroup(mColorGroup, userTableForColor);
+        long start = PerfTrace.begin(PerfTrace.COLOR_RULE_EVALUATION);
+        try {
+          mColorGuideGroup = new ColorGuideGroup(mColorGroup, userTableForColor);
+        } finally {
+          PerfTrace.end(PerfTrace.COLOR_RULE_EVALUATION, start);
+        }
       }
     } finally {
       if (db != null) {
@@ -324,18 +346,30 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
    * properties.
    */
   private void setMarkers() {
-    TableDisplayActivity activity = (TableDisplayActivity) getActivity();
-
-    if (mMarkerIds != null) {
-      mMarkerIds.clear();
+    long start = PerfTrace.begin(PerfTrace.MAP_SET_MARKERS);
+    try {
+      if (mMarkers == null) {
+        mMarkers = loadMarkers();
+        ((TableDisplayActivity) getActivity()).setMapMarkers(mMarkers);
+      }
+      addMarkers();
+    } finally {
+      PerfTrace.end(PerfTrace.MAP_SET_MARKERS, start);
     }
+  }
 
-    mMarkerIds = new HashMap<>();
+  /**
+   * Queries for the locations of the rows and works out the hue of each of their markers
+   *
+   * @return the markers, or null if they can't be placed
+   */
+  private TableDisplayViewModel.MapMarkers loadMarkers() {
+    TableDisplayActivity activity = (TableDisplayActivity) getActivity();
 
     if (mLatitudeElementKey == null || mLongitudeElementKey == null) {
       Toast.makeText(getActivity(), getActivity().getString(R.string.lat_long_not_set),
               Toast.LENGTH_LONG).show();
-      return;
+      return null;
     }
 
     OrderedColumns orderedDefns = activity.getColumnDefinitions();
@@ -358,63 +392,122 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
       } else {
         String appName = ((IAppAwareActivity) getActivity()).getAppName();
         WebLogger.getLogger(appName).e(TAG, "invalid query type");
-        return;
+        return null;
       }
     } catch (ServicesAvailabilityException sae) {
       String appName = ((IAppAwareActivity) getActivity()).getAppName();
       WebLogger.getLogger(appName).e(TAG, "simpleQuery failed");
       WebLogger.getLogger(appName).printStackTrace(sae);
-      return;
+      return null;
     }
 
-    if (table != null && orderedDefns != null) {
-      // Try to find the map columns in the store.
-      ColumnDefinition latitudeColumn = orderedDefns.find(mLatitudeElementKey);
-      ColumnDefinition longitudeColumn = orderedDefns.find(mLongitudeElementKey);
-
-      // Find the locations from entries in the table.
-      LatLngBounds.Builder builder = new LatLngBounds.Builder();
-      int markers = 0;
-      LatLng onlyLocation = null;
-
-      // Go through each row and create a marker at the specified location.
-      for (int i = 0; i < table.getNumberOfRows(); i++) {
-        TypedRow row = table.getRowAtIndex(i);
-        String latitudeString = row.getStringValueByKey(latitudeColumn.getElementKey());
-        String longitudeString = row.getStringValueByKey(longitudeColumn.getElementKey());
-        if (latitudeString == null || longitudeString == null || latitudeString.isEmpty()
-                || longitudeString.isEmpty()) {
-          continue;
-        }
+    if (table == null || orderedDefns == null) {
+      return null;
+    }
+    // Try to find the map columns in the store.
+    ColumnDefinition latitudeColumn = orderedDefns.find(mLatitudeElementKey);
+    ColumnDefinition longitudeColumn = orderedDefns.find(mLongitudeElementKey);
 
-        // Create a LatLng from the latitude and longitude strings.
-        LatLng location = parseLocationFromString(latitudeString, longitudeString);
-        if (location == null) {
-          continue;
-        }
-        markers++;
-        builder.include(location);
-        onlyLocation = location;
-
-        if (map != null) {
-          Marker marker = map.addMarker(new MarkerOptions().position(location).draggable(false)
-                  .icon(BitmapDescriptorFactory.defaultMarker(getHueForRow(i))));
-          mMarkerIds.put(marker, i);
-          if (mCurrentIndex == i) {
-            WebLogger.getLogger(activity.getAppName())
-                    .d(TAG, "[setMarkers] selecting marker: " + i);
-            selectMarker(marker);
-          }
-        }
+    // Parse the coordinates once, a column at a time
+    final UserTable locations = table;
+    TypedColumnCache typedColumns = new TypedColumnCache(new TypedColumnCache.Source() {
+      @Override
+      public int getRowCount() {
+        return locations.getNumberOfRows();
       }
 
-      if (markers > 1) {
-        map.moveCamera(CameraUpdateFactory.newLatLngBounds(builder.build(), PADDING));
-      } else if (markers == 1) {
-        map.moveCamera(CameraUpdateFactory.newLatLngZoom(onlyLocation, 12f));
+      @Override
+      public String getValue(String elementKey, int rowIndex) {
+        return locations.getRowAtIndex(rowIndex).getStringValueByKey(elementKey);
       }
-      map.setOnMarkerClickListener(getOnMarkerClickListener());
+    });
+    TypedColumnCache.DoubleColumn latitudes = typedColumns
+        .getDoubles(latitudeColumn.getElementKey());
+    TypedColumnCache.DoubleColumn longitudes = typedColumns
+        .getDoubles(longitudeColumn.getElementKey());
+
+    // Find the rows that have a location, and the hue of every row
+    int rowCount = table.getNumberOfRows();
+    int[] rowIndexes = new int[rowCount];
+    double[] markerLatitudes = new double[rowCount];
+    double[] markerLongitudes = new double[rowCount];
+    float[] hueByRow = new float[rowCount];
+    int markers = 0;
+    for (int i = 0; i < rowCount; i++) {
+      hueByRow[i] = computeHueForRow(i);
+      if (!latitudes.isNumber(i) || !longitudes.isNumber(i)) {
+        continue;
+      }
+      rowIndexes[markers] = i;
+      markerLatitudes[markers] = latitudes.get(i);
+      markerLongitudes[markers] = longitudes.get(i);
+      markers++;
     }
+    return new TableDisplayViewModel.MapMarkers(mLatitudeElementKey, mLongitudeElementKey,
+        Arrays.copyOf(rowIndexes, markers), Arrays.copyOf(markerLatitudes, markers),
+        Arrays.copyOf(markerLongitudes, markers), hueByRow);
+  }
+
+  /**
+   * Puts a marker on the map for every row that has a location
+   */
+  private void addMarkers() {
+    TableDisplayActivity activity = (TableDisplayActivity) getActivity();
+
+    if (mMarkerIds != null) {
+      mMarkerIds.clear();
+    }
+
+    mMarkerIds = new HashMap<>();
+
+    if (mMarkers == null) {
+      return;
+    }
+
+    // Find the locations from entries in the table.
+    LatLngBounds.Builder builder = new LatLngBounds.Builder();
+    int markers = mMarkers.rowIndexes.length;
+    LatLng onlyLocation = null;
+
+    // Go through each row and create a marker at the specified location.
+    for (int k = 0; k < markers; k++) {
+      int i = mMarkers.rowIndexes[k];
+      LatLng location = new LatLng(mMarkers.latitudes[k], mMarkers.longitudes[k]);
+      builder.include(location);
+      onlyLocation = location;
+
+      if (map != null) {
+        Marker marker = map.addMarker(new MarkerOptions().position(location).draggable(false)
+                .icon(BitmapDescriptorFactory.defaultMarker(getHueForRow(i))));
+        mMarkerIds.put(marker, i);
+        if (mCurrentIndex == i) {
+          WebLogger.getLogger(activity.getAppName())
+                  .d(TAG, "[setMarkers] selecting marker: " + i);
+          selectMarker(marker);
+        }
+      }
+    }
+
+    PerfMetrics.increment(PerfTrace.COUNTER_MAP_MARKERS, markers);
+    if (markers > 1) {
+      map.moveCamera(CameraUpdateFactory.newLatLngBounds(builder.build(), PADDING));
+    } else if (markers == 1) {
+      map.moveCamera(CameraUpdateFactory.newLatLngZoom(onlyLocation, 12f));
+    }
+    map.setOnMarkerClickListener(getOnMarkerClickListener());
+  }
+
+  /**
+   * Retrieves the hue of the marker of the specified row
+   *
+   * @param index The index of the row to search for.
+   * @return The hue worked out for the row when the markers were loaded
+   */
+  private float getHueForRow(int index) {
+    if (mMarkers != null && index < mMarkers.hueByRow.length) {
+      return mMarkers.hueByRow[index];
+    }
+    return DEFAULT_MARKER_HUE;
   }
 
   /**
@@ -425,7 +518,7 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
    * @return The hue depending on the color rules for this row, or the default
    * marker color if no rules apply to the row.
    */
-  private float getHueForRow(int index) {
+  private float computeHueForRow(int index) {
     TableDisplayActivity activity = (TableDisplayActivity) getActivity();
 
     UserTable table = activity.getUserTable();
@@ -478,21 +571,6 @@ public class TableMapInnerFragment extends SupportMapFragment implements OnMapRe
     return null;
   }
 
-  /**
-   * Parses the latitude and longitude strings and creates a LatLng.
-   */
-  private LatLng parseLocationFromString(String latitude, String longitude) {
-    try {
-      return new LatLng(Double.parseDouble(latitude), Double.parseDouble(longitude));
-    } catch (Exception e) {
-      String appName = ((IAppAwareActivity) getActivity()).getAppName();
-      WebLogger.getLogger(appName)
-          .e(TAG, "The following location did not parse correctly: " + latitude + "," + longitude);
-      WebLogger.getLogger(appName).printStackTrace(e);
-    }
-    return null;
-  }
-
   /**
    * If a marker is selected, deselect it.
    */
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.logic;
+
+import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.TableNameStruct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A searchable index over the tables shown in the table manager. If a sort order is given, the
+ * tables are sorted once when the index is built; otherwise they keep the order they came in,
+ * which is the database order. Filtering returns the tables whose localized name (or table id)
+ * starts with the query first, followed by the ones that merely contain it, each group in
+ * display order.
+ * <p>
+ * Prefix matches are found with a binary search over the lower-cased names. When the user keeps
+ * typing, so that the new query extends the previous one, only the previous matches are
+ * searched again.
+ */
+public class TableListIndex {
+
+  private static final int[] NO_MATCHES = new int[0];
+
+  /**
+   * The tables in display order
+   */
+  private final TableNameStruct[] mTables;
+  /**
+   * Lower-cased display names, indexed like mTables
+   */
+  private final String[] mNames;
+  /**
+   * Lower-cased table ids, indexed like mTables
+   */
+  private final String[] mIds;
+  /**
+   * Positions in mTables, sorted by mNames, for the prefix search
+   */
+  private final Integer[] mByName;
+  private final String[] mSortedNames;
+
+  private String mLastQuery = null;
+  private int[] mLastMatches = null;
+
+  /**
+   * Builds the index
+   *
+   * @param tables    the tables, in database order
+   * @param sortOrder the order to display the tables in by name, or null to keep the given order
+   */
+  public TableListIndex(List<TableNameStruct> tables, final Constants.TABLE_SORT_ORDER sortOrder) {
+    mTables = tables.toArray(new TableNameStruct[tables.size()]);
+    if (sortOrder != null) {
+      Arrays.sort(mTables, new Comparator<TableNameStruct>() {
+        @Override
+        public int compare(TableNameStruct o1, TableNameStruct o2) {
+          if (sortOrder == Constants.TABLE_SORT_ORDER.SORT_DESC)
+            return o2.getLocalizedDisplayName().compareTo(o1.getLocalizedDisplayName());
+          else
+            return o1.getLocalizedDisplayName().compareTo(o2.getLocalizedDisplayName());
+        }
+      });
+    }
+
+    mNames = new String[mTables.length];
+    mIds = new String[mTables.length];
+    mByName = new Integer[mTables.length];
+    for (int i = 0; i < mTables.length; ++i) {
+      mNames[i] = normalize(mTables[i].getLocalizedDisplayName());
+      mIds[i] = normalize(mTables[i].getTableId());
+      mByName[i] = i;
+    }
+    Arrays.sort(mByName, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return mNames[o1].compareTo(mNames[o2]);
+      }
+    });
+    mSortedNames = new String[mTables.length];
+    for (int i = 0; i < mTables.length; ++i) {
+      mSortedNames[i] = mNames[mByName[i]];
+    }
+  }
+
+  /**
+   * @return the number of tables in the index
+   */
+  public int size() {
+    return mTables.length;
+  }
+
+  /**
+   * Returns the tables that match the query
+   *
+   * @param query what the user typed, may be null or empty to get every table
+   * @return the matching tables, prefix matches first
+   */
+  public List<TableNameStruct> filter(String query) {
+    String q = normalize(query).trim();
+    if (q.isEmpty()) {
+      mLastQuery = null;
+      mLastMatches = null;
+      return Collections.unmodifiableList(Arrays.asList(mTables));
+    }
+
+    int[] matches;
+    if (mLastQuery != null && q.startsWith(mLastQuery)) {
+      matches = refine(mLastMatches, q);
+    } else {
+      matches = search(q);
+    }
+    mLastQuery = q;
+    mLastMatches = matches;
+
+    List<TableNameStruct> result = new ArrayList<>(matches.length);
+    for (int position : matches) {
+      result.add(mTables[position]);
+    }
+    return result;
+  }
+
+  /**
+   * Full search: binary search for the prefix matches, then a scan for the rest
+   */
+  private int[] search(String q) {
+    boolean[] isPrefix = new boolean[mTables.length];
+    int low = lowerBound(q);
+    for (int i = low; i < mSortedNames.length && mSortedNames[i].startsWith(q); ++i) {
+      isPrefix[mByName[i]] = true;
+    }
+    for (int i = 0; i < mTables.length; ++i) {
+      if (!isPrefix[i] && mIds[i].startsWith(q)) {
+        isPrefix[i] = true;
+      }
+    }
+
+    int[] matches = new int[mTables.length];
+    int count = 0;
+    for (int i = 0; i < mTables.length; ++i) {
+      if (isPrefix[i]) {
+        matches[count++] = i;
+      }
+    }
+    for (int i = 0; i < mTables.length; ++i) {
+      if (!isPrefix[i] && (mNames[i].contains(q) || mIds[i].contains(q))) {
+        matches[count++] = i;
+      }
+    }
+    return count == 0 ? NO_MATCHES : Arrays.copyOf(matches, count);
+  }
+
+  /**
+   * Incremental search: every match for q is also a match for the shorter previous query, so
+   * only those candidates need to be checked.
+   */
+  private int[] refine(int[] candidates, String q) {
+    int[] prefix = new int[candidates.length];
+    int[] contains = new int[candidates.length];
+    int prefixCount = 0;
+    int containsCount = 0;
+    for (int position : candidates) {
+      if (mNames[position].startsWith(q) || mIds[position].startsWith(q)) {
+        prefix[prefixCount++] = position;
+      } else if (mNames[position].contains(q) || mIds[position].contains(q)) {
+        contains[containsCount++] = position;
+      }
+    }
+    // candidates were prefix matches first, so restore display order within each group
+    Arrays.sort(prefix, 0, prefixCount);
+    Arrays.sort(contains, 0, containsCount);
+    if (prefixCount + containsCount == 0) {
+      return NO_MATCHES;
+    }
+    int[] matches = new int[prefixCount + containsCount];
+    System.arraycopy(prefix, 0, matches, 0, prefixCount);
+    System.arraycopy(contains, 0, matches, prefixCount, containsCount);
+    return matches;
+  }
+
+  /**
+   * @return the first index into mSortedNames whose name is not less than q
+   */
+  private int lowerBound(String q) {
+    int low = 0;
+    int high = mSortedNames.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (mSortedNames[mid].compareTo(q) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static String normalize(String value) {
+    return value == null ? "" : value.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.tasks;
+
+import android.content.ContentValues;
+import android.os.AsyncTask;
+import org.opendatakit.aggregate.odktables.rest.ElementDataType;
+import org.opendatakit.database.data.ColumnDefinition;
+import org.opendatakit.database.data.OrderedColumns;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ActionNotAuthorizedException;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.tables.application.Tables;
+import org.opendatakit.tables.utils.ColumnStatisticsCache;
+import org.opendatakit.tables.utils.GroupAggregateCache;
+
+/**
+ * A task that deletes a set of rows, or sets one column of a set of rows to the same value, in
+ * the background. All the rows are changed through a single database handle that is opened once
+ * and closed once, and the caller is told once at the end, so it can refresh once no matter how
+ * many rows were changed.
+ * <p>
+ * The listener can be swapped while the task runs, so a fragment that is recreated during a
+ * rotation can pick up the result. A result that arrives while nobody is listening is kept until
+ * the next listener is set.
+ */
+public class BulkRowTask extends AsyncTask<Void, Void, Integer> {
+
+  // Used for logging
+  private static final String TAG = BulkRowTask.class.getSimpleName();
+
+  /**
+   * Told on the UI thread when the task is done
+   */
+  public interface Listener {
+    /**
+     * @param task   the task that is done
+     * @param result what it did
+     */
+    void bulkRowTaskComplete(BulkRowTask task, Result result);
+  }
+
+  /**
+   * What the task did
+   */
+  public static final class Result {
+    /**
+     * How many rows were deleted or updated
+     */
+    public final int changed;
+    /**
+     * How many rows were asked for
+     */
+    public final int total;
+    /**
+     * How many rows the user wasn't allowed to change
+     */
+    public final int unauthorized;
+    /**
+     * How many rows the database refused to change for another reason
+     */
+    public final int failed;
+    /**
+     * Whether the value doesn't fit the type of the column, in which case no row was touched
+     */
+    public final boolean invalidValue;
+
+    Result(int changed, int total, int unauthorized, int failed, boolean invalidValue) {
+      this.changed = changed;
+      this.total = total;
+      this.unauthorized = unauthorized;
+      this.failed = failed;
+      this.invalidValue = invalidValue;
+    }
+  }
+
+  private final String appName;
+  private final String tableId;
+  private final OrderedColumns orderedDefns;
+  private final String[] rowIds;
+  // the column to update and its new value, or a null element key to delete
+  private final String elementKey;
+  private final String value;
+  private Listener listener;
+  private Result result = null;
+  // set on the UI thread once the caches are invalidated, so the result can be handed out
+  private boolean done = false;
+  private boolean delivered = false;
+
+  private BulkRowTask(String appName, String tableId, OrderedColumns orderedDefns,
+      String[] rowIds, String elementKey, String value, Listener listener) {
+    super();
+    this.appName = appName;
+    this.tableId = tableId;
+    this.orderedDefns = orderedDefns;
+    this.rowIds = rowIds.clone();
+    this.elementKey = elementKey;
+    this.value = value;
+    this.listener = listener;
+  }
+
+  /**
+   * Creates a task that deletes rows
+   *
+   * @param appName      the app name
+   * @param tableId      the table the rows are in
+   * @param orderedDefns the columns of the table
+   * @param rowIds       the ids of the rows to delete
+   * @param listener     told when the rows are deleted
+   * @return the task, not yet executed
+   */
+  public static BulkRowTask delete(String appName, String tableId, OrderedColumns orderedDefns,
+      String[] rowIds, Listener listener) {
+    return new BulkRowTask(appName, tableId, orderedDefns, rowIds, null, null, listener);
+  }
+
+  /**
+   * Creates a task that sets one column of some rows to the same value
+   *
+   * @param appName      the app name
+   * @param tableId      the table the rows are in
+   * @param orderedDefns the columns of the table
+   * @param rowIds       the ids of the rows to update
+   * @param elementKey   the column to set
+   * @param value        the new value, or null to clear the column
+   * @param listener     told when the rows are updated
+   * @return the task, not yet executed
+   */
+  public static BulkRowTask update(String appName, String tableId, OrderedColumns orderedDefns,
+      String[] rowIds, String elementKey, String value, Listener listener) {
+    return new BulkRowTask(appName, tableId, orderedDefns, rowIds, elementKey, value, listener);
+  }
+
+  /**
+   * Sets the listener, or clears it with null. If the task is already done and its result
+   * hasn't been delivered yet, the new listener gets it right away. Must be called on the UI
+   * thread.
+   *
+   * @param listener told when the task is done
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+    deliver();
+  }
+
+  /**
+   * @return whether the result has been given to a listener
+   */
+  public boolean isDelivered() {
+    return delivered;
+  }
+
+  /**
+   * Converts a value typed by the user to the form the column stores, so that text typed into an
+   * integer column is caught before any row is touched rather than failing in the database
+   *
+   * @param type  the type of the column
+   * @param value the value, not null
+   * @return the value as a Long, Double, Boolean or String
+   * @throws IllegalArgumentException if the value doesn't fit the type
+   */
+  static Object toColumnValue(ElementDataType type, String value) {
+    String trimmed = value.trim();
+    if (type == ElementDataType.integer) {
+      return Long.valueOf(trimmed);
+    } else if (type == ElementDataType.number) {
+      double number = Double.parseDouble(trimmed);
+      if (Double.isNaN(number) || Double.isInfinite(number)) {
+        throw new IllegalArgumentException("Not a finite number: " + value);
+      }
+      return number;
+    } else if (type == ElementDataType.bool) {
+      if (trimmed.equalsIgnoreCase("true") || trimmed.equals("1")) {
+        return Boolean.TRUE;
+      } else if (trimmed.equalsIgnoreCase("false") || trimmed.equals("0")) {
+        return Boolean.FALSE;
+      }
+      throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+    return value;
+  }
+
+  /**
+   * @param values where to put the new value of the column
+   * @return whether the value fits the column
+   */
+  private boolean putValue(ContentValues values) {
+    if (value == null) {
+      values.putNull(elementKey);
+      return true;
+    }
+    Object converted;
+    try {
+      ColumnDefinition cd = orderedDefns.find(elementKey);
+      // NumberFormatException is an IllegalArgumentException
+      converted = toColumnValue(cd.getType().getDataType(), value);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    if (converted instanceof Long) {
+      values.put(elementKey, (Long) converted);
+    } else if (converted instanceof Double) {
+      values.put(elementKey, (Double) converted);
+    } else if (converted instanceof Boolean) {
+      values.put(elementKey, (Boolean) converted);
+    } else {
+      values.put(elementKey, (String) converted);
+    }
+    return true;
+  }
+
+  /**
+   * Changes the rows
+   *
+   * @param params unused
+   * @return how many rows were changed
+   */
+  @Override
+  protected Integer doInBackground(Void... params) {
+    result = changeRows(Tables.getInstance().getDatabase());
+    return result.changed;
+  }
+
+  /**
+   * Changes the rows, one after the other on the same database handle. A row the user isn't
+   * allowed to change, or that the database refuses to change, is skipped and counted; losing
+   * the database stops the task.
+   *
+   * @param dbInterface the database to change the rows in
+   * @return what was done
+   */
+  Result changeRows(UserDbInterface dbInterface) {
+    long start = System.currentTimeMillis();
+    ContentValues values = null;
+    if (elementKey != null) {
+      values = new ContentValues();
+      if (!putValue(values)) {
+        WebLogger.getLogger(appName).w(TAG, "not a valid value for " + elementKey);
+        return new Result(0, rowIds.length, 0, 0, true);
+      }
+    }
+    int changed = 0;
+    int unauthorized = 0;
+    int failed = 0;
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(appName);
+      for (String rowId : rowIds) {
+        try {
+          if (values == null) {
+            dbInterface.deleteRowWithId(appName, db, tableId, orderedDefns, rowId);
+          } else {
+            dbInterface.updateRowWithId(appName, db, tableId, orderedDefns, values, rowId);
+          }
+          ++changed;
+        } catch (ActionNotAuthorizedException e) {
+          ++unauthorized;
+        } catch (RuntimeException e) {
+          // e.g. a constraint the row doesn't meet; the other rows can still be changed
+          WebLogger.getLogger(appName).printStackTrace(e);
+          WebLogger.getLogger(appName).e(TAG, "Unable to change row " + rowId);
+          ++failed;
+        }
+      }
+    } catch (ServicesAvailabilityException e) {
+      WebLogger.getLogger(appName).printStackTrace(e);
+      WebLogger.getLogger(appName).e(TAG, "Unable to access database");
+    } finally {
+      if (db != null) {
+        try {
+          dbInterface.closeDatabase(appName, db);
+        } catch (ServicesAvailabilityException e) {
+          WebLogger.getLogger(appName).printStackTrace(e);
+          WebLogger.getLogger(appName).e(TAG, "Error closing database");
+        }
+      }
+    }
+    WebLogger.getLogger(appName).i(TAG, (values == null ? "deleted " : "updated ") + changed
+        + " of " + rowIds.length + " rows of " + tableId + " in "
+        + Long.toString(System.currentTimeMillis() - start) + " ms");
+    return new Result(changed, rowIds.length, unauthorized, failed, false);
+  }
+
+  /**
+   * Drops what was cached about the rows of the table and tells the listener, if there is one
+   *
+   * @param changed how many rows were changed
+   */
+  @Override
+  protected void onPostExecute(Integer changed) {
+    GroupAggregateCache.get(appName).invalidate(tableId);
+    ColumnStatisticsCache.get(appName).invalidate(tableId);
+    done = true;
+    deliver();
+  }
+
+  private void deliver() {
+    if (!done || delivered || listener == null) {
+      return;
+    }
+    delivered = true;
+    listener.bulkRowTaskComplete(this, result);
+  }
+}
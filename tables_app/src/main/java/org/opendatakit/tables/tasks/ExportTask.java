@@ -28,6 +28,8 @@ import org.opendatakit.tables.R;
 import org.opendatakit.tables.activities.AbsBaseActivity;
 import org.opendatakit.tables.application.Tables;
 import org.opendatakit.tables.fragments.ImportExportDialogFragment;
+import org.opendatakit.tables.utils.PerfMetrics;
+import org.opendatakit.tables.utils.PerfTrace;
 
 /**
  * Represents a task to export a table to some csv files using CsvUtil
@@ -41,6 +43,9 @@ public class ExportTask extends AsyncTask<ExportRequest, Integer, Boolean>
   private final String appName;
   // The context the progress dialog needs
   private AbsBaseActivity context;
+  // when the current batch of rows started, and the last row reported, for PerfMetrics
+  private long batchStart;
+  private int lastReportedRow = 0;
 
   /**
    * Constructor that stores off its arguments
@@ -62,6 +67,7 @@ public class ExportTask extends AsyncTask<ExportRequest, Integer, Boolean>
    */
   protected Boolean doInBackground(ExportRequest... exportRequests) {
     ExportRequest request = exportRequests[0];
+    batchStart = PerfTrace.now();
     CsvUtil cu = new CsvUtil(new CsvUtilSupervisor() {
       @Override
       public UserDbInterface getDatabase() {
@@ -125,6 +131,10 @@ public class ExportTask extends AsyncTask<ExportRequest, Integer, Boolean>
    */
   @Override
   public void updateProgressDetail(int row, int total) {
+    PerfTrace.record(PerfTrace.CSV_EXPORT_BATCH, batchStart);
+    PerfMetrics.increment(PerfTrace.COUNTER_CSV_EXPORT_ROWS, row - lastReportedRow);
+    lastReportedRow = row;
+    batchStart = PerfTrace.now();
     ImportExportDialogFragment.activeDialogFragment
             .updateProgressDialogStatusString(context, R.string.export_in_progress_row, row, total);
   }
@@ -26,6 +26,14 @@ import org.opendatakit.tables.R;
 import org.opendatakit.tables.activities.AbsBaseActivity;
 import org.opendatakit.tables.application.Tables;
 import org.opendatakit.tables.fragments.ImportExportDialogFragment;
+import org.opendatakit.tables.utils.ColumnStatisticsCache;
+import org.opendatakit.tables.utils.GroupAggregateCache;
+import org.opendatakit.tables.utils.PerfMetrics;
+import org.opendatakit.tables.utils.PerfTrace;
+import org.opendatakit.tables.utils.TableHealthCache;
+import org.opendatakit.tables.utils.TableListCache;
+import org.opendatakit.tables.views.SpreadsheetColumnMetadata;
+import org.opendatakit.tables.views.SpreadsheetSearchIndex;
 
 /**
  * A task that imports csv files
@@ -42,6 +50,9 @@ public class ImportTask extends AsyncTask<ImportRequest, Integer, Boolean>
   // a task that needs to be passed to progressDialogFragment so it can update the progress
   // dialog's message
   private AbsBaseActivity context;
+  // when the current batch of rows started, and the last row reported, for PerfMetrics
+  private long batchStart;
+  private int lastReportedRow = 0;
 
   /**
    * Constructor that stores off its arguments. Used by ImportCSVActivity
@@ -64,6 +75,7 @@ public class ImportTask extends AsyncTask<ImportRequest, Integer, Boolean>
   @Override
   protected Boolean doInBackground(ImportRequest... importRequests) {
     ImportRequest request = importRequests[0];
+    batchStart = PerfTrace.now();
     CsvUtil cu = new CsvUtil(new CsvUtilSupervisor() {
       @Override
       public UserDbInterface getDatabase() {
@@ -98,6 +110,10 @@ public class ImportTask extends AsyncTask<ImportRequest, Integer, Boolean>
    */
   @Override
   public void updateProgressDetail(int row, int total) {
+    PerfTrace.record(PerfTrace.CSV_IMPORT_BATCH, batchStart);
+    PerfMetrics.increment(PerfTrace.COUNTER_CSV_IMPORT_ROWS, row - lastReportedRow);
+    lastReportedRow = row;
+    batchStart = PerfTrace.now();
     ImportExportDialogFragment.activeDialogFragment
         .updateProgressDialogStatusString(context, R.string.import_in_progress_row, row, total);
   }
@@ -117,6 +133,13 @@ public class ImportTask extends AsyncTask<ImportRequest, Integer, Boolean>
    * message, or one of the three failure messages.
    */
   protected void onPostExecute(Boolean result) {
+    // imported rows may carry conflicts or checkpoints, and the import may create a table
+    TableHealthCache.get(appName).invalidate();
+    TableListCache.get(appName).invalidate();
+    SpreadsheetColumnMetadata.invalidateAll(appName);
+    SpreadsheetSearchIndex.invalidateAll(appName);
+    GroupAggregateCache.get(appName).invalidate();
+    ColumnStatisticsCache.get(appName).invalidate();
     ImportExportDialogFragment.activeDialogFragment.dismiss();
     if (result) {
       ImportExportDialogFragment
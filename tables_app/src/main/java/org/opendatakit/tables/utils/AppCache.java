@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The common part of the query result caches that are shared by every view of an app: one
+ * instance per app and cache type, registered with the {@link MemoryCacheManager}, and a
+ * generation that is bumped on every invalidation so that a load that started before the change
+ * doesn't store its now stale result. Eviction under memory pressure is the same as
+ * invalidating everything.
+ * <p>
+ * A load reads {@link #getGeneration()} before it queries the database and stores its result,
+ * holding the lock of the cache, only if {@link #isCurrent(int)} still holds afterwards.
+ */
+public abstract class AppCache implements MemoryCacheManager.Evictable {
+
+  /**
+   * Creates the cache of one app
+   *
+   * @param <T> the type of cache
+   */
+  public interface Factory<T extends AppCache> {
+    /**
+     * @param appName the app name
+     * @return a new, empty cache for that app
+     */
+    T create(String appName);
+  }
+
+  private static final Map<Class<?>, Map<String, AppCache>> caches = new HashMap<>();
+
+  protected final String mAppName;
+  private int mGeneration = 0;
+
+  protected AppCache(String appName) {
+    this.mAppName = appName;
+  }
+
+  /**
+   * Gets the cache of a type for an app, creating and registering it if needed
+   *
+   * @param type    the type of cache
+   * @param appName the app name
+   * @param factory creates the cache if this app doesn't have one yet
+   * @param <T>     the type of cache
+   * @return the cache of that type for that app
+   */
+  protected static synchronized <T extends AppCache> T get(Class<T> type, String appName,
+      Factory<T> factory) {
+    Map<String, AppCache> byApp = caches.get(type);
+    if (byApp == null) {
+      byApp = new HashMap<>();
+      caches.put(type, byApp);
+    }
+    AppCache cache = byApp.get(appName);
+    if (cache == null) {
+      cache = factory.create(appName);
+      byApp.put(appName, cache);
+      MemoryCacheManager.get().register(cache);
+    }
+    return type.cast(cache);
+  }
+
+  /**
+   * Drops everything cached. Called with the lock of the cache held.
+   */
+  protected abstract void clear();
+
+  /**
+   * Drops everything cached for this app, for example after a sync or import
+   */
+  public synchronized void invalidate() {
+    clear();
+    ++mGeneration;
+  }
+
+  /**
+   * Drops the entries of one table. The keys of the entries must start with the table id
+   * followed by a newline.
+   *
+   * @param byKey   the cached entries
+   * @param tableId the table that changed
+   */
+  protected synchronized void invalidate(Map<String, ?> byKey, String tableId) {
+    String prefix = tableId + "\n";
+    Iterator<String> keys = byKey.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(prefix)) {
+        keys.remove();
+      }
+    }
+    ++mGeneration;
+  }
+
+  /**
+   * @return the generation to pass to {@link #isCurrent(int)} once a load is done
+   */
+  protected synchronized int getGeneration() {
+    return mGeneration;
+  }
+
+  /**
+   * @param generation what {@link #getGeneration()} returned when the load started
+   * @return whether nothing was invalidated since, so the result of the load can be stored
+   */
+  protected synchronized boolean isCurrent(int generation) {
+    return generation == mGeneration;
+  }
+
+  @Override
+  public int getPriority() {
+    return MemoryCacheManager.PRIORITY_QUERY_RESULTS;
+  }
+
+  /**
+   * Drops everything cached, it is loaded again when next asked for
+   */
+  @Override
+  public void evict() {
+    invalidate();
+  }
+}
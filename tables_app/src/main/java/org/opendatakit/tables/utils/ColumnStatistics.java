@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary statistics of one column, accumulated one value at a time so that a column of any
+ * length can be summarized in a single pass with constant memory: the number of values, how many
+ * are null, the minimum, maximum and mean, an approximate number of distinct values and the most
+ * common values.
+ * <p>
+ * The distinct count is a HyperLogLog estimate, within a few percent of the true count. The most
+ * common values are tracked with the Space-Saving algorithm over a fixed number of counters; they
+ * are exact while the column has no more distinct values than there are counters, and otherwise
+ * every reported count is at most {@link #getTopError} too high.
+ */
+public final class ColumnStatistics {
+
+  /**
+   * log2 of the number of HyperLogLog registers; 2^10 registers give about 3% error
+   */
+  private static final int HLL_PRECISION = 10;
+  private static final int HLL_REGISTERS = 1 << HLL_PRECISION;
+  /**
+   * How many values the Space-Saving algorithm keeps counters for
+   */
+  private static final int TOP_COUNTERS = 64;
+
+  /**
+   * A value and how many times it was seen
+   */
+  public static final class ValueCount {
+    /**
+     * The value
+     */
+    public final String value;
+    /**
+     * How many times it was seen, possibly overestimated by at most {@link #error}
+     */
+    public final long count;
+    /**
+     * How much count may be too high by
+     */
+    public final long error;
+
+    ValueCount(String value, long count, long error) {
+      this.value = value;
+      this.count = count;
+      this.error = error;
+    }
+  }
+
+  private final boolean mNumeric;
+  private long mCount = 0;
+  private long mNulls = 0;
+  private long mNumbers = 0;
+  private double mSum = 0;
+  private double mMinNumber = Double.POSITIVE_INFINITY;
+  private double mMaxNumber = Double.NEGATIVE_INFINITY;
+  private String mMinText = null;
+  private String mMaxText = null;
+  private final byte[] mRegisters = new byte[HLL_REGISTERS];
+  /**
+   * value to { count, error } for at most TOP_COUNTERS values
+   */
+  private final Map<String, long[]> mCounters = new HashMap<>();
+
+  /**
+   * @param numeric whether the column holds integers or numbers, in which case the minimum,
+   *                maximum and mean are numeric; otherwise the minimum and maximum are compared
+   *                as text and there is no mean
+   */
+  public ColumnStatistics(boolean numeric) {
+    this.mNumeric = numeric;
+  }
+
+  /**
+   * Adds the next value of the column
+   *
+   * @param value the raw value, or null
+   */
+  public void add(String value) {
+    ++mCount;
+    if (value == null) {
+      ++mNulls;
+      return;
+    }
+    if (mNumeric) {
+      try {
+        double number = Double.parseDouble(value);
+        ++mNumbers;
+        mSum += number;
+        mMinNumber = Math.min(mMinNumber, number);
+        mMaxNumber = Math.max(mMaxNumber, number);
+      } catch (NumberFormatException e) {
+        // not a number, only counted
+      }
+    } else {
+      if (mMinText == null || value.compareTo(mMinText) < 0) {
+        mMinText = value;
+      }
+      if (mMaxText == null || value.compareTo(mMaxText) > 0) {
+        mMaxText = value;
+      }
+    }
+    addToSketch(value);
+    addToCounters(value);
+  }
+
+  /**
+   * @return whether the column was summarized as a numeric column
+   */
+  public boolean isNumeric() {
+    return mNumeric;
+  }
+
+  /**
+   * @return how many values were added, including nulls
+   */
+  public long getCount() {
+    return mCount;
+  }
+
+  /**
+   * @return how many of the values were null
+   */
+  public long getNullCount() {
+    return mNulls;
+  }
+
+  /**
+   * @return the smallest value, or null if there were no non-null values
+   */
+  public String getMin() {
+    if (!mNumeric) {
+      return mMinText;
+    }
+    return mNumbers == 0 ? null : formatNumber(mMinNumber);
+  }
+
+  /**
+   * @return the largest value, or null if there were no non-null values
+   */
+  public String getMax() {
+    if (!mNumeric) {
+      return mMaxText;
+    }
+    return mNumbers == 0 ? null : formatNumber(mMaxNumber);
+  }
+
+  /**
+   * @return the mean of the numeric values, or null for a text column or if there were none
+   */
+  public Double getMean() {
+    return mNumbers == 0 ? null : mSum / mNumbers;
+  }
+
+  /**
+   * @return the estimated number of distinct non-null values
+   */
+  public long getDistinctCount() {
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : mRegisters) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        ++zeros;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / HLL_REGISTERS);
+    double estimate = alpha * HLL_REGISTERS * HLL_REGISTERS / sum;
+    if (estimate <= 2.5 * HLL_REGISTERS && zeros != 0) {
+      // linear counting is more accurate for small cardinalities
+      estimate = HLL_REGISTERS * Math.log((double) HLL_REGISTERS / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * @param k how many values to return
+   * @return up to k of the most common non-null values, most common first
+   */
+  public List<ValueCount> getTop(int k) {
+    List<ValueCount> values = new ArrayList<>(mCounters.size());
+    for (Map.Entry<String, long[]> entry : mCounters.entrySet()) {
+      values.add(new ValueCount(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+    }
+    Collections.sort(values, new Comparator<ValueCount>() {
+      @Override
+      public int compare(ValueCount lhs, ValueCount rhs) {
+        if (lhs.count != rhs.count) {
+          return lhs.count > rhs.count ? -1 : 1;
+        }
+        return lhs.value.compareTo(rhs.value);
+      }
+    });
+    return values.size() > k ? values.subList(0, k) : values;
+  }
+
+  /**
+   * @return the most any count returned by {@link #getTop} can be too high by
+   */
+  public long getTopError() {
+    long error = 0;
+    for (long[] counter : mCounters.values()) {
+      error = Math.max(error, counter[1]);
+    }
+    return error;
+  }
+
+  private void addToSketch(String value) {
+    long hash = hash(value);
+    int register = (int) (hash >>> (64 - HLL_PRECISION));
+    // position of the first one bit in the remaining bits, counting from 1
+    byte rank = (byte) Math.min(Long.numberOfLeadingZeros(hash << HLL_PRECISION) + 1,
+        64 - HLL_PRECISION + 1);
+    if (rank > mRegisters[register]) {
+      mRegisters[register] = rank;
+    }
+  }
+
+  private void addToCounters(String value) {
+    long[] counter = mCounters.get(value);
+    if (counter != null) {
+      ++counter[0];
+      return;
+    }
+    if (mCounters.size() < TOP_COUNTERS) {
+      mCounters.put(value, new long[] { 1, 0 });
+      return;
+    }
+    // replace the smallest counter; the new value may have been seen up to that many times
+    String smallest = null;
+    long[] smallestCounter = null;
+    for (Map.Entry<String, long[]> entry : mCounters.entrySet()) {
+      if (smallestCounter == null || entry.getValue()[0] < smallestCounter[0]) {
+        smallest = entry.getKey();
+        smallestCounter = entry.getValue();
+      }
+    }
+    mCounters.remove(smallest);
+    mCounters.put(value, new long[] { smallestCounter[0] + 1, smallestCounter[0] });
+  }
+
+  /**
+   * A 64 bit hash of a string: FNV-1a over the chars, followed by the MurmurHash3 finalizer so
+   * that the high bits, which pick the register, are well mixed
+   */
+  static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); ++i) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static String formatNumber(double number) {
+    if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+      return Long.toString((long) number);
+    }
+    return Double.toString(number);
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import org.opendatakit.aggregate.odktables.rest.ElementDataType;
+import org.opendatakit.database.data.BaseTable;
+import org.opendatakit.database.data.ColumnDefinition;
+import org.opendatakit.database.queries.BindArgs;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.tables.application.Tables;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The statistics of the columns of a spreadsheet, as shown by the column statistics header menu
+ * item. Each is computed with one query over the column, read in a single pass, and cached per
+ * table, column and query until {@link #invalidate(String)} is called, which happens whenever
+ * rows of the table may have been added, changed or removed.
+ */
+public final class ColumnStatisticsCache extends AppCache {
+
+  private static final String TAG = ColumnStatisticsCache.class.getSimpleName();
+
+  /**
+   * How many column statistics to keep, per app
+   */
+  private static final int MAX_CACHED_COLUMNS = 16;
+
+  /**
+   * Roughly what the statistics of one column cost in memory, mostly the distinct value
+   * estimator and the counters of the most common values
+   */
+  private static final int ESTIMATED_STATISTICS_BYTES = 8 * 1024;
+
+  private static final Factory<ColumnStatisticsCache> factory =
+      new Factory<ColumnStatisticsCache>() {
+        @Override
+        public ColumnStatisticsCache create(String appName) {
+          return new ColumnStatisticsCache(appName);
+        }
+      };
+
+  private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Receives the result of {@link #loadInBackground} on the UI thread
+   */
+  public interface LoadListener {
+    /**
+     * @param elementKey the column
+     * @param statistics the statistics of the column
+     */
+    void columnStatisticsLoaded(String elementKey, ColumnStatistics statistics);
+
+    /**
+     * @param elementKey the column
+     * @param e          what went wrong
+     */
+    void columnStatisticsFailed(String elementKey, Exception e);
+  }
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, ColumnStatistics> mByColumn = new LinkedHashMap<String,
+      ColumnStatistics>(MAX_CACHED_COLUMNS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, ColumnStatistics> eldest) {
+      return size() > MAX_CACHED_COLUMNS;
+    }
+  };
+
+  private ColumnStatisticsCache(String appName) {
+    super(appName);
+  }
+
+  /**
+   * Gets the cache for an app, creating it if needed
+   *
+   * @param appName the app name
+   * @return the column statistics cache for that app
+   */
+  public static ColumnStatisticsCache get(String appName) {
+    return get(ColumnStatisticsCache.class, appName, factory);
+  }
+
+  /**
+   * Drops the statistics of every column of one table. Call after adding, editing or deleting
+   * rows.
+   *
+   * @param tableId the table that changed
+   */
+  public void invalidate(String tableId) {
+    invalidate(mByColumn, tableId);
+  }
+
+  /**
+   * Drops the statistics of every table in this app, for example after a sync or import
+   */
+  @Override
+  protected void clear() {
+    mByColumn.clear();
+  }
+
+  @Override
+  public synchronized long getApproximateSize() {
+    return (long) mByColumn.size() * ESTIMATED_STATISTICS_BYTES;
+  }
+
+  /**
+   * Returns the statistics of a column over the rows of a query, computing them if they are not
+   * cached. This reads the whole column, so call it off the UI thread.
+   *
+   * @param tableId the table id
+   * @param column  the column
+   * @param query   the where clause and bind args of the rows to summarize; group by and
+   *                ordering are ignored
+   * @return the statistics
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public ColumnStatistics getStatistics(String tableId, ColumnDefinition column,
+      SQLQueryStruct query) throws ServicesAvailabilityException {
+    String key = cacheKey(tableId, column.getElementKey(), query);
+    int generation;
+    synchronized (this) {
+      ColumnStatistics statistics = mByColumn.get(key);
+      if (statistics != null) {
+        return statistics;
+      }
+      generation = getGeneration();
+    }
+
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    DbHandle db = null;
+    ColumnStatistics statistics;
+    try {
+      db = dbInterface.openDatabase(mAppName);
+      statistics = load(dbInterface, db, tableId, column, query);
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(mAppName, db);
+      }
+    }
+
+    synchronized (this) {
+      if (isCurrent(generation)) {
+        mByColumn.put(key, statistics);
+      }
+    }
+    return statistics;
+  }
+
+  /**
+   * Computes the statistics of a column on a background thread, unless they are cached, and
+   * reports them on the UI thread. The listener is held weakly, so it has to stay in a field of
+   * whoever asked; a listener that has been garbage collected by then is not told.
+   *
+   * @param tableId  the table id
+   * @param column   the column
+   * @param query    the where clause and bind args of the rows to summarize
+   * @param listener notified with the statistics, or of the failure
+   */
+  public void loadInBackground(final String tableId, final ColumnDefinition column,
+      final SQLQueryStruct query, LoadListener listener) {
+    final WeakReference<LoadListener> listenerRef = new WeakReference<>(listener);
+    loadExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        ColumnStatistics statistics = null;
+        Exception failure = null;
+        try {
+          statistics = getStatistics(tableId, column, query);
+        } catch (ServicesAvailabilityException | RuntimeException e) {
+          WebLogger.getLogger(mAppName).e(TAG, "loadInBackground -- unable to compute statistics "
+              + "of " + column.getElementKey());
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+          failure = e;
+        }
+        final ColumnStatistics result = statistics;
+        final Exception error = failure;
+        mHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            LoadListener l = listenerRef.get();
+            if (l == null) {
+              return;
+            }
+            if (result == null) {
+              l.columnStatisticsFailed(column.getElementKey(), error);
+            } else {
+              l.columnStatisticsLoaded(column.getElementKey(), result);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private ColumnStatistics load(UserDbInterface dbInterface, DbHandle db, String tableId,
+      ColumnDefinition column, SQLQueryStruct query) throws ServicesAvailabilityException {
+    long start = System.currentTimeMillis();
+    String elementKey = column.getElementKey();
+    ElementDataType type = column.getType().getDataType();
+    ColumnStatistics statistics = new ColumnStatistics(
+        type == ElementDataType.integer || type == ElementDataType.number);
+
+    StringBuilder sql = new StringBuilder();
+    sql.append("SELECT \"").append(elementKey).append("\" FROM ").append(tableId);
+    if (query.whereClause != null && !query.whereClause.isEmpty()) {
+      sql.append(" WHERE ").append(query.whereClause);
+    }
+    BindArgs bindArgs = query.selectionArgs == null || query.selectionArgs.bindArgs == null ?
+        new BindArgs(new Object[0]) :
+        query.selectionArgs;
+
+    // one query, so every value comes from the same snapshot of the table
+    BaseTable result = dbInterface.arbitrarySqlQuery(mAppName, db, tableId, sql.toString(),
+        bindArgs, -1, 0);
+    int rows = result == null ? 0 : result.getNumberOfRows();
+    for (int i = 0; i < rows; ++i) {
+      statistics.add(result.getRowAtIndex(i).getRawStringByKey(elementKey));
+    }
+
+    WebLogger.getLogger(mAppName).i(TAG, "load -- " + elementKey + " of " + tableId + " over "
+        + rows + " rows in " + Long.toString(System.currentTimeMillis() - start) + " ms");
+    return statistics;
+  }
+
+  private static String cacheKey(String tableId, String elementKey, SQLQueryStruct query) {
+    return tableId + "\n" + elementKey + "\n" + query.whereClause + "\n" + (
+        query.selectionArgs == null ? null : Arrays.deepToString(query.selectionArgs.bindArgs));
+  }
+}
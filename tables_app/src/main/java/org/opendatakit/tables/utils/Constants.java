@@ -105,6 +105,12 @@ public final class Constants {
      */
     public static final String CONTAINS_PROPS = "containsProps";
 
+    /**
+     * The {@link org.opendatakit.tables.utils.QueryDescriptor} of the query to display, put in
+     * place of the separate sql keys when the intent comes from within Tables
+     */
+    public static final String QUERY_DESCRIPTOR = "queryDescriptor";
+
     private IntentKeys() {
     }
   }
@@ -0,0 +1,412 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.Window;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.utilities.ODKFileUtils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An opt-in monitor of the frame times of one activity. On API 24 and up it reads the total
+ * duration of every frame from FrameMetrics; on older devices it falls back to the interval
+ * between Choreographer callbacks, which only tells whether vsyncs were missed.
+ * <p>
+ * Frames are grouped into segments by view type, table and table size. When a segment ends
+ * (the view type changes or the activity pauses) one line with its janky frame count and frame
+ * time distribution is appended to output/performance/frames.csv in the app folder. The file
+ * rolls over to frames.1.csv when it gets large, so field teams can copy a snapshot off the
+ * device without needing a network.
+ * <p>
+ * The monitor is off unless {@link #setEnabled(Context, boolean)} turned it on, from the
+ * performance diagnostics screen.
+ */
+public final class FrameMonitor {
+
+  private static final String TAG = FrameMonitor.class.getSimpleName();
+
+  private static final String PREFERENCES_NAME = "performance";
+  private static final String KEY_ENABLED = "frame_monitor_enabled";
+
+  private static final String FOLDER_NAME = "performance";
+  private static final String FILE_NAME = "frames.csv";
+  private static final String ROLLED_FILE_NAME = "frames.1.csv";
+  private static final long MAX_FILE_BYTES = 512 * 1024;
+
+  private static final long NANOS_PER_MILLI = 1000000L;
+  /**
+   * Frames longer than this are frozen, the user sees the app as hung
+   */
+  private static final long FROZEN_FRAME_NS = 700 * NANOS_PER_MILLI;
+  /**
+   * Upper bounds of the frame time buckets, in ms. The last bucket is everything longer.
+   */
+  private static final int[] BUCKET_BOUNDS_MS = { 8, 16, 24, 33, 50, 100, 250, 700 };
+
+  private static final String HEADER = "time,device,sdk,source,view_type,table_id,rows,"
+      + "row_bucket,seconds,frames,janky,frozen,janky_percent,mean_ms,max_ms,le_8ms,le_16ms,"
+      + "le_24ms,le_33ms,le_50ms,le_100ms,le_250ms,le_700ms,gt_700ms";
+
+  private static final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+
+  /**
+   * The frames counted for one view type, table and table size
+   */
+  private static final class Segment {
+    final String viewType;
+    final String tableId;
+    final long startTime = System.currentTimeMillis();
+    int rowCount = -1;
+    long frames = 0;
+    long janky = 0;
+    long frozen = 0;
+    long totalNs = 0;
+    long maxNs = 0;
+    final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+
+    Segment(String viewType, String tableId) {
+      this.viewType = viewType;
+      this.tableId = tableId;
+    }
+
+    void add(long durationNs, boolean isJanky) {
+      ++frames;
+      totalNs += durationNs;
+      maxNs = Math.max(maxNs, durationNs);
+      if (isJanky) {
+        ++janky;
+      }
+      if (durationNs > FROZEN_FRAME_NS) {
+        ++frozen;
+      }
+      int bucket = 0;
+      while (bucket < BUCKET_BOUNDS_MS.length
+          && durationNs > BUCKET_BOUNDS_MS[bucket] * NANOS_PER_MILLI) {
+        ++bucket;
+      }
+      ++buckets[bucket];
+    }
+  }
+
+  private final String mAppName;
+  private final Window mWindow;
+  private final long mRefreshPeriodNs;
+  private final boolean mUseFrameMetrics = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+
+  private Segment mSegment = null;
+  private boolean mRunning = false;
+  private HandlerThread mMetricsThread = null;
+  private Object mMetricsListener = null;
+  private Choreographer.FrameCallback mFrameCallback = null;
+
+  /**
+   * @param context any context
+   * @return whether the user turned frame monitoring on
+   */
+  public static boolean isEnabled(Context context) {
+    return getPreferences(context).getBoolean(KEY_ENABLED, false);
+  }
+
+  /**
+   * Turns frame monitoring on or off. Takes effect the next time a table is opened.
+   *
+   * @param context any context
+   * @param enabled whether to monitor
+   */
+  public static void setEnabled(Context context, boolean enabled) {
+    getPreferences(context).edit().putBoolean(KEY_ENABLED, enabled).apply();
+  }
+
+  private static SharedPreferences getPreferences(Context context) {
+    return context.getApplicationContext()
+        .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+  }
+
+  /**
+   * @param activity the activity whose window is monitored
+   * @param appName  the app whose output folder the frame log goes in
+   */
+  public FrameMonitor(Activity activity, String appName) {
+    this.mAppName = appName;
+    this.mWindow = activity.getWindow();
+    float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+    this.mRefreshPeriodNs = (long) (1000000000L / (refreshRate > 1 ? refreshRate : 60f));
+  }
+
+  /**
+   * Starts a new segment, ending the current one. Call whenever a different view is shown.
+   *
+   * @param viewType the view type now displayed
+   * @param tableId  the table now displayed
+   */
+  public synchronized void setSegment(String viewType, String tableId) {
+    if (mSegment != null && mSegment.viewType.equals(viewType) && mSegment.tableId
+        .equals(tableId)) {
+      return;
+    }
+    int rowCount = mSegment == null ? -1 : mSegment.rowCount;
+    boolean sameTable = mSegment != null && mSegment.tableId.equals(tableId);
+    flush();
+    mSegment = new Segment(viewType, tableId);
+    if (sameTable) {
+      mSegment.rowCount = rowCount;
+    }
+  }
+
+  /**
+   * Records the size of the displayed table, once it is known
+   *
+   * @param rowCount the number of rows in the displayed table
+   */
+  public synchronized void setRowCount(int rowCount) {
+    if (mSegment != null) {
+      mSegment.rowCount = rowCount;
+    }
+  }
+
+  /**
+   * Starts listening for frames. Call from onResume.
+   */
+  public void start() {
+    if (mRunning) {
+      return;
+    }
+    mRunning = true;
+    if (mUseFrameMetrics) {
+      startFrameMetrics();
+    } else {
+      startChoreographer();
+    }
+  }
+
+  /**
+   * Stops listening and writes out the current segment. Call from onPause.
+   */
+  public void stop() {
+    if (!mRunning) {
+      return;
+    }
+    mRunning = false;
+    if (mUseFrameMetrics) {
+      stopFrameMetrics();
+    } else {
+      Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+      mFrameCallback = null;
+    }
+    synchronized (this) {
+      String viewType = mSegment == null ? null : mSegment.viewType;
+      String tableId = mSegment == null ? null : mSegment.tableId;
+      int rowCount = mSegment == null ? -1 : mSegment.rowCount;
+      flush();
+      if (viewType != null) {
+        // resuming continues with the same view in a new segment
+        mSegment = new Segment(viewType, tableId);
+        mSegment.rowCount = rowCount;
+      }
+    }
+  }
+
+  private synchronized void frame(long durationNs, boolean isJanky) {
+    if (mSegment == null) {
+      return;
+    }
+    mSegment.add(durationNs, isJanky);
+    PerfMetrics.recordNanos("Frames." + mSegment.viewType, durationNs);
+  }
+
+  @TargetApi(Build.VERSION_CODES.N)
+  private void startFrameMetrics() {
+    mMetricsThread = new HandlerThread(TAG);
+    mMetricsThread.start();
+    Window.OnFrameMetricsAvailableListener listener = new Window.OnFrameMetricsAvailableListener() {
+      @Override
+      public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics,
+          int dropCountSinceLastInvocation) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+            && frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+          // the first frame of a window includes inflation and is not a scrolling frame
+          return;
+        }
+        long total = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        frame(total, total > mRefreshPeriodNs);
+      }
+    };
+    mMetricsListener = listener;
+    mWindow.addOnFrameMetricsAvailableListener(listener, new Handler(mMetricsThread.getLooper()));
+  }
+
+  @TargetApi(Build.VERSION_CODES.N)
+  private void stopFrameMetrics() {
+    try {
+      mWindow.removeOnFrameMetricsAvailableListener(
+          (Window.OnFrameMetricsAvailableListener) mMetricsListener);
+    } catch (IllegalArgumentException e) {
+      // the window was already torn down
+    }
+    mMetricsListener = null;
+    mMetricsThread.quitSafely();
+    mMetricsThread = null;
+  }
+
+  /**
+   * Without FrameMetrics the only signal is the time between vsync callbacks, so a frame counts
+   * as janky when more than half a refresh period was missed
+   */
+  private void startChoreographer() {
+    mFrameCallback = new Choreographer.FrameCallback() {
+      private long mLastFrameNs = -1;
+
+      @Override
+      public void doFrame(long frameTimeNanos) {
+        if (mLastFrameNs >= 0) {
+          long interval = frameTimeNanos - mLastFrameNs;
+          frame(interval, interval > mRefreshPeriodNs * 3 / 2);
+        }
+        mLastFrameNs = frameTimeNanos;
+        if (mRunning) {
+          Choreographer.getInstance().postFrameCallback(this);
+        }
+      }
+    };
+    Choreographer.getInstance().postFrameCallback(mFrameCallback);
+  }
+
+  /**
+   * Queues the current segment for writing if it saw any frames, and clears it
+   */
+  private synchronized void flush() {
+    final Segment segment = mSegment;
+    mSegment = null;
+    if (segment == null || segment.frames == 0) {
+      return;
+    }
+    final String source = mUseFrameMetrics ? "framemetrics" : "choreographer";
+    writeExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          append(toCsvLine(segment, source));
+        } catch (IOException e) {
+          WebLogger.getLogger(mAppName).e(TAG, "unable to write the frame log");
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+        }
+      }
+    });
+  }
+
+  private String toCsvLine(Segment s, String source) {
+    StringBuilder b = new StringBuilder();
+    b.append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", Locale.US)
+        .format(new Date(s.startTime))).append(',');
+    b.append(csv(Build.MANUFACTURER + " " + Build.MODEL)).append(',');
+    b.append(Build.VERSION.SDK_INT).append(',');
+    b.append(source).append(',');
+    b.append(s.viewType).append(',');
+    b.append(csv(s.tableId)).append(',');
+    b.append(s.rowCount < 0 ? "" : Integer.toString(s.rowCount)).append(',');
+    b.append(rowBucket(s.rowCount)).append(',');
+    b.append((System.currentTimeMillis() - s.startTime) / 1000).append(',');
+    b.append(s.frames).append(',');
+    b.append(s.janky).append(',');
+    b.append(s.frozen).append(',');
+    b.append(String.format(Locale.US, "%.1f", 100.0 * s.janky / s.frames)).append(',');
+    b.append(String.format(Locale.US, "%.2f", (double) s.totalNs / s.frames / NANOS_PER_MILLI))
+        .append(',');
+    b.append(String.format(Locale.US, "%.2f", (double) s.maxNs / NANOS_PER_MILLI));
+    for (long count : s.buckets) {
+      b.append(',').append(count);
+    }
+    return b.append('\n').toString();
+  }
+
+  /**
+   * Groups table sizes by order of magnitude so that lines from different devices compare
+   */
+  private static String rowBucket(int rowCount) {
+    if (rowCount < 0) {
+      return "";
+    }
+    if (rowCount < 100) {
+      return "<100";
+    }
+    if (rowCount < 1000) {
+      return "<1k";
+    }
+    if (rowCount < 10000) {
+      return "<10k";
+    }
+    if (rowCount < 100000) {
+      return "<100k";
+    }
+    return "100k+";
+  }
+
+  private static String csv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+      return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    return value;
+  }
+
+  private void append(String line) throws IOException {
+    File folder = new File(ODKFileUtils.getOutputFolder(mAppName), FOLDER_NAME);
+    if (!folder.exists() && !folder.mkdirs()) {
+      throw new IOException("unable to create " + folder.getAbsolutePath());
+    }
+    File file = new File(folder, FILE_NAME);
+    if (file.length() > MAX_FILE_BYTES) {
+      File rolled = new File(folder, ROLLED_FILE_NAME);
+      if (rolled.exists() && !rolled.delete()) {
+        throw new IOException("unable to delete " + rolled.getAbsolutePath());
+      }
+      if (!file.renameTo(rolled)) {
+        throw new IOException("unable to roll " + file.getAbsolutePath());
+      }
+    }
+    boolean isNew = !file.exists();
+    Writer w = new FileWriter(file, true);
+    try {
+      if (isNew) {
+        w.write(HEADER);
+        w.write('\n');
+      }
+      w.write(line);
+    } finally {
+      w.close();
+    }
+  }
+}
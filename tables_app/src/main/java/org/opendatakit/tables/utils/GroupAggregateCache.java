@@ -0,0 +1,523 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import org.opendatakit.aggregate.odktables.rest.ElementDataType;
+import org.opendatakit.database.data.BaseTable;
+import org.opendatakit.database.data.ColumnDefinition;
+import org.opendatakit.database.data.OrderedColumns;
+import org.opendatakit.database.data.Row;
+import org.opendatakit.database.data.TypedRow;
+import org.opendatakit.database.queries.BindArgs;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.tables.application.Tables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The groups of a grouped spreadsheet, computed with one aggregate query: the group keys, how
+ * many rows are in each group and, for every numeric column, the sum, minimum and maximum within
+ * the group. The row ids of every group are then read in one scan, so opening and leaving
+ * collections does not go back to the table to find out what is in them. Both are loaded in the
+ * background with {@link #loadInBackground} when a grouped spreadsheet is shown, and the UI
+ * thread only ever reads what is already cached.
+ * <p>
+ * Results are cached per table, query and group by columns until {@link #invalidate(String)}
+ * is called, which happens whenever rows of the table may have been added, changed or removed,
+ * or until memory runs low.
+ */
+public final class GroupAggregateCache extends AppCache {
+
+  private static final String TAG = GroupAggregateCache.class.getSimpleName();
+
+  private static final String COUNT_COLUMN = "_group_count";
+  private static final String SUM_PREFIX = "_sum_";
+  private static final String MIN_PREFIX = "_min_";
+  private static final String MAX_PREFIX = "_max_";
+
+  /**
+   * How many queries to keep the groups of, per app
+   */
+  private static final int MAX_CACHED_QUERIES = 8;
+
+  /**
+   * Roughly what a cached group key, aggregate or row id costs in memory
+   */
+  private static final int ESTIMATED_STRING_BYTES = 80;
+
+  private static final Factory<GroupAggregateCache> factory = new Factory<GroupAggregateCache>() {
+    @Override
+    public GroupAggregateCache create(String appName) {
+      return new GroupAggregateCache(appName);
+    }
+  };
+
+  private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+
+  /**
+   * The groups of one query. Group numbers are positions in the result of the aggregate query,
+   * which is ordered by the group by columns.
+   */
+  public static final class Groups {
+    private final String mTableId;
+    private final String[] mGroupBy;
+    private final String[][] mKeys;
+    private final int[] mCounts;
+    private final Map<List<String>, Integer> mIndexByKey;
+    private final Map<String, String[]> mSums;
+    private final Map<String, String[]> mMins;
+    private final Map<String, String[]> mMaxes;
+    /**
+     * The row ids of every group, laid out one group after the other. Group g occupies
+     * [mStarts[g], mStarts[g] + mCounts[g]). Null until the first drill-down.
+     */
+    private String[] mRowIds = null;
+    private int[] mStarts = null;
+
+    Groups(String tableId, String[] groupBy, String[][] keys, int[] counts,
+        Map<String, String[]> sums, Map<String, String[]> mins, Map<String, String[]> maxes) {
+      this.mTableId = tableId;
+      this.mGroupBy = groupBy;
+      this.mKeys = keys;
+      this.mCounts = counts;
+      this.mSums = sums;
+      this.mMins = mins;
+      this.mMaxes = maxes;
+      mIndexByKey = new HashMap<>(keys.length * 2);
+      for (int i = 0; i < keys.length; ++i) {
+        mIndexByKey.put(Arrays.asList(keys[i]), i);
+      }
+    }
+
+    /**
+     * @return the number of groups
+     */
+    public int size() {
+      return mCounts.length;
+    }
+
+    /**
+     * @return the columns the rows are grouped by. Do not modify.
+     */
+    public String[] getGroupBy() {
+      return mGroupBy;
+    }
+
+    /**
+     * Finds the group that a row belongs to
+     *
+     * @param row any row of the table
+     * @return the group number, or -1 if the row is not in any known group
+     */
+    public int indexOf(TypedRow row) {
+      String[] key = new String[mGroupBy.length];
+      for (int i = 0; i < mGroupBy.length; ++i) {
+        key[i] = row.getStringValueByKey(mGroupBy[i]);
+      }
+      Integer index = mIndexByKey.get(Arrays.asList(key));
+      return index == null ? -1 : index;
+    }
+
+    /**
+     * @param group the group number
+     * @return the values of the group by columns for that group, null for a null value
+     */
+    public String[] getKey(int group) {
+      return mKeys[group].clone();
+    }
+
+    /**
+     * @param group the group number
+     * @return how many rows are in that group
+     */
+    public int getCount(int group) {
+      return mCounts[group];
+    }
+
+    /**
+     * @param elementKey a numeric column
+     * @return whether sum, minimum and maximum were computed for that column
+     */
+    public boolean hasAggregates(String elementKey) {
+      return mSums.containsKey(elementKey);
+    }
+
+    /**
+     * @param group      the group number
+     * @param elementKey a numeric column
+     * @return the sum of that column within the group, or null if all values are null
+     */
+    public String getSum(int group, String elementKey) {
+      String[] values = mSums.get(elementKey);
+      return values == null ? null : values[group];
+    }
+
+    /**
+     * @param group      the group number
+     * @param elementKey a numeric column
+     * @return the smallest value of that column within the group, or null
+     */
+    public String getMin(int group, String elementKey) {
+      String[] values = mMins.get(elementKey);
+      return values == null ? null : values[group];
+    }
+
+    /**
+     * @param group      the group number
+     * @param elementKey a numeric column
+     * @return the largest value of that column within the group, or null
+     */
+    public String getMax(int group, String elementKey) {
+      String[] values = mMaxes.get(elementKey);
+      return values == null ? null : values[group];
+    }
+
+    synchronized long getApproximateSize() {
+      long strings = (long) mCounts.length * (mGroupBy.length + 3 * mSums.size());
+      if (mRowIds != null) {
+        strings += mRowIds.length;
+      }
+      return strings * ESTIMATED_STRING_BYTES;
+    }
+
+    synchronized boolean hasRowIds() {
+      return mRowIds != null;
+    }
+
+    /**
+     * @param group the group number
+     * @return the ids of the rows in that group, or null if they have not been read yet
+     */
+    public synchronized String[] getRowIds(int group) {
+      if (mRowIds == null) {
+        return null;
+      }
+      return Arrays.copyOfRange(mRowIds, mStarts[group], mStarts[group] + mCounts[group]);
+    }
+
+    synchronized void setRowIds(String[] rowIds, int[] starts) {
+      mRowIds = rowIds;
+      mStarts = starts;
+    }
+  }
+
+  private final Map<String, Groups> mByQuery = new LinkedHashMap<String, Groups>(
+      MAX_CACHED_QUERIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Groups> eldest) {
+      return size() > MAX_CACHED_QUERIES;
+    }
+  };
+
+  private GroupAggregateCache(String appName) {
+    super(appName);
+  }
+
+  /**
+   * Gets the cache for an app, creating it if needed
+   *
+   * @param appName the app name
+   * @return the group aggregate cache for that app
+   */
+  public static GroupAggregateCache get(String appName) {
+    return get(GroupAggregateCache.class, appName, factory);
+  }
+
+  /**
+   * Drops the groups of every query on one table. Call after adding, editing or deleting rows.
+   *
+   * @param tableId the table that changed
+   */
+  public void invalidate(String tableId) {
+    invalidate(mByQuery, tableId);
+  }
+
+  /**
+   * Drops the groups of every table in this app, for example after a sync or import
+   */
+  @Override
+  protected void clear() {
+    mByQuery.clear();
+  }
+
+  @Override
+  public synchronized long getApproximateSize() {
+    long size = 0;
+    for (Groups groups : mByQuery.values()) {
+      size += groups.getApproximateSize();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the groups of a query if they are cached. This never touches the database, so it
+   * can be called on the UI thread.
+   *
+   * @param tableId the table id
+   * @param query   the where clause and bind args of the grouped view
+   * @param groupBy the columns to group by
+   * @return the groups, or null if they have not been loaded
+   */
+  public synchronized Groups getCachedGroups(String tableId, SQLQueryStruct query,
+      String[] groupBy) {
+    return mByQuery.get(cacheKey(tableId, query, groupBy));
+  }
+
+  /**
+   * Loads the groups of a query and the row ids of every group on a background thread, unless
+   * they are already cached. Afterwards {@link #getCachedGroups} returns them. Failures are
+   * logged; the groups are simply not cached.
+   *
+   * @param tableId      the table id
+   * @param orderedDefns the columns of the table
+   * @param query        the where clause and bind args of the grouped view
+   * @param groupBy      the columns to group by, must not be empty
+   */
+  public void loadInBackground(final String tableId, final OrderedColumns orderedDefns,
+      final SQLQueryStruct query, final String[] groupBy) {
+    loadExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Groups groups = getGroups(tableId, orderedDefns, query, groupBy);
+          if (!groups.hasRowIds()) {
+            loadRowIds(groups, query);
+          }
+        } catch (ServicesAvailabilityException | RuntimeException e) {
+          WebLogger.getLogger(mAppName).e(TAG, "loadInBackground -- unable to load the groups of "
+              + tableId);
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the groups of a query, running the aggregate query if they are not cached. This may
+   * query the database, so call it off the UI thread.
+   *
+   * @param tableId      the table id
+   * @param orderedDefns the columns of the table
+   * @param query        the where clause and bind args of the grouped view; its own group by
+   *                     and ordering are ignored
+   * @param groupBy      the columns to group by, must not be empty
+   * @return the groups
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public Groups getGroups(String tableId, OrderedColumns orderedDefns, SQLQueryStruct query,
+      String[] groupBy) throws ServicesAvailabilityException {
+    String key = cacheKey(tableId, query, groupBy);
+    int generation;
+    synchronized (this) {
+      Groups groups = mByQuery.get(key);
+      if (groups != null) {
+        return groups;
+      }
+      generation = getGeneration();
+    }
+
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    DbHandle db = null;
+    Groups groups;
+    try {
+      db = dbInterface.openDatabase(mAppName);
+      groups = load(dbInterface, db, tableId, orderedDefns, query, groupBy);
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(mAppName, db);
+      }
+    }
+
+    synchronized (this) {
+      if (isCurrent(generation)) {
+        mByQuery.put(key, groups);
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Reads the ids of the rows of every group in a single scan, after which
+   * {@link Groups#getRowIds(int)} answers from memory. If the table changed since the groups
+   * were computed, they are dropped instead.
+   *
+   * @param groups the groups, from {@link #getGroups}
+   * @param query  the same query that was passed to {@link #getGroups}
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  private void loadRowIds(Groups groups, SQLQueryStruct query)
+      throws ServicesAvailabilityException {
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(mAppName);
+      if (!loadRowIds(dbInterface, db, groups, query)) {
+        invalidate(groups.mTableId);
+      }
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(mAppName, db);
+      }
+    }
+  }
+
+  private Groups load(UserDbInterface dbInterface, DbHandle db, String tableId,
+      OrderedColumns orderedDefns, SQLQueryStruct query, String[] groupBy)
+      throws ServicesAvailabilityException {
+    long start = System.currentTimeMillis();
+    List<String> groupByList = Arrays.asList(groupBy);
+    List<String> numericColumns = new ArrayList<>();
+    for (ColumnDefinition cd : orderedDefns.getColumnDefinitions()) {
+      ElementDataType type = cd.getType().getDataType();
+      if (cd.isUnitOfRetention() && !groupByList.contains(cd.getElementKey()) && (
+          type == ElementDataType.integer || type == ElementDataType.number)) {
+        numericColumns.add(cd.getElementKey());
+      }
+    }
+
+    StringBuilder groupList = new StringBuilder();
+    for (String elementKey : groupBy) {
+      if (groupList.length() != 0) {
+        groupList.append(", ");
+      }
+      groupList.append(quote(elementKey));
+    }
+    StringBuilder sql = new StringBuilder();
+    sql.append("SELECT ").append(groupList).append(", COUNT(*) AS ").append(COUNT_COLUMN);
+    for (String elementKey : numericColumns) {
+      sql.append(", SUM(").append(quote(elementKey)).append(") AS ").append(SUM_PREFIX)
+          .append(elementKey);
+      sql.append(", MIN(").append(quote(elementKey)).append(") AS ").append(MIN_PREFIX)
+          .append(elementKey);
+      sql.append(", MAX(").append(quote(elementKey)).append(") AS ").append(MAX_PREFIX)
+          .append(elementKey);
+    }
+    sql.append(" FROM ").append(tableId);
+    appendWhere(sql, query);
+    sql.append(" GROUP BY ").append(groupList).append(" ORDER BY ").append(groupList);
+
+    BaseTable result = dbInterface.arbitrarySqlQuery(mAppName, db, tableId, sql.toString(),
+        bindArgs(query), -1, 0);
+    int size = result == null ? 0 : result.getNumberOfRows();
+    String[][] keys = new String[size][groupBy.length];
+    int[] counts = new int[size];
+    Map<String, String[]> sums = new HashMap<>();
+    Map<String, String[]> mins = new HashMap<>();
+    Map<String, String[]> maxes = new HashMap<>();
+    for (String elementKey : numericColumns) {
+      sums.put(elementKey, new String[size]);
+      mins.put(elementKey, new String[size]);
+      maxes.put(elementKey, new String[size]);
+    }
+    for (int i = 0; i < size; ++i) {
+      Row row = result.getRowAtIndex(i);
+      for (int j = 0; j < groupBy.length; ++j) {
+        keys[i][j] = row.getRawStringByKey(groupBy[j]);
+      }
+      counts[i] = Integer.parseInt(row.getRawStringByKey(COUNT_COLUMN));
+      for (String elementKey : numericColumns) {
+        sums.get(elementKey)[i] = row.getRawStringByKey(SUM_PREFIX + elementKey);
+        mins.get(elementKey)[i] = row.getRawStringByKey(MIN_PREFIX + elementKey);
+        maxes.get(elementKey)[i] = row.getRawStringByKey(MAX_PREFIX + elementKey);
+      }
+    }
+    WebLogger.getLogger(mAppName).i(TAG, "load -- " + size + " groups of " + tableId + " in "
+        + Long.toString(System.currentTimeMillis() - start) + " ms");
+    return new Groups(tableId, groupBy.clone(), keys, counts, sums, mins, maxes);
+  }
+
+  /**
+   * Reads the id and group key of every row in one scan and buckets the ids by group
+   *
+   * @return false if a row did not fit the groups, meaning the table changed in the meantime
+   */
+  private boolean loadRowIds(UserDbInterface dbInterface, DbHandle db, Groups groups,
+      SQLQueryStruct query) throws ServicesAvailabilityException {
+    long start = System.currentTimeMillis();
+    StringBuilder sql = new StringBuilder();
+    sql.append("SELECT ").append(DataTableColumns.ID);
+    for (String elementKey : groups.mGroupBy) {
+      sql.append(", ").append(quote(elementKey));
+    }
+    sql.append(" FROM ").append(groups.mTableId);
+    appendWhere(sql, query);
+
+    BaseTable result = dbInterface.arbitrarySqlQuery(mAppName, db, groups.mTableId,
+        sql.toString(), bindArgs(query), -1, 0);
+    int total = 0;
+    int[] starts = new int[groups.size()];
+    for (int g = 0; g < starts.length; ++g) {
+      starts[g] = total;
+      total += groups.mCounts[g];
+    }
+    int rowCount = result == null ? 0 : result.getNumberOfRows();
+    if (rowCount != total) {
+      return false;
+    }
+    String[] rowIds = new String[total];
+    int[] filled = new int[starts.length];
+    String[] key = new String[groups.mGroupBy.length];
+    for (int i = 0; i < rowCount; ++i) {
+      Row row = result.getRowAtIndex(i);
+      for (int j = 0; j < key.length; ++j) {
+        key[j] = row.getRawStringByKey(groups.mGroupBy[j]);
+      }
+      Integer g = groups.mIndexByKey.get(Arrays.asList(key));
+      if (g == null || filled[g] == groups.mCounts[g]) {
+        return false;
+      }
+      rowIds[starts[g] + filled[g]++] = row.getRawStringByKey(DataTableColumns.ID);
+    }
+    groups.setRowIds(rowIds, starts);
+    WebLogger.getLogger(mAppName).i(TAG, "loadRowIds -- " + total + " rows of "
+        + groups.mTableId + " in " + Long.toString(System.currentTimeMillis() - start) + " ms");
+    return true;
+  }
+
+  private static void appendWhere(StringBuilder sql, SQLQueryStruct query) {
+    if (query.whereClause != null && !query.whereClause.isEmpty()) {
+      sql.append(" WHERE ").append(query.whereClause);
+    }
+  }
+
+  private static BindArgs bindArgs(SQLQueryStruct query) {
+    if (query.selectionArgs == null || query.selectionArgs.bindArgs == null) {
+      return new BindArgs(new Object[0]);
+    }
+    return query.selectionArgs;
+  }
+
+  private static String quote(String elementKey) {
+    return "\"" + elementKey + "\"";
+  }
+
+  private static String cacheKey(String tableId, SQLQueryStruct query, String[] groupBy) {
+    return tableId + "\n" + query.whereClause + "\n" + (query.selectionArgs == null ?
+        null :
+        Arrays.deepToString(query.selectionArgs.bindArgs)) + "\n" + Arrays.toString(groupBy);
+  }
+}
@@ -63,13 +63,19 @@ public final class IntentUtil {
   }
 
   /**
-   * Retrieve a {@link SQLQueryStruct} from bundle. The various components
-   * should be keyed to the SQL intent keys in {@link Constants.IntentKeys}.
+   * Retrieve a {@link SQLQueryStruct} from bundle. It is taken from the
+   * {@link QueryDescriptor} if there is one, otherwise the various components
+   * should be keyed to the SQL intent keys in {@link OdkData.IntentKeys}, as
+   * in intents from javascript or other apps.
    *
    * @param bundle the bundle to try and pull the query params from
    * @return the sql query struct pulled from the bundle
    */
   public static SQLQueryStruct getSQLQueryStructFromBundle(Bundle bundle) {
+    QueryDescriptor descriptor = bundle.getParcelable(IntentKeys.QUERY_DESCRIPTOR);
+    if (descriptor != null) {
+      return descriptor.toSQLQueryStruct();
+    }
     String sqlWhereClause = bundle.containsKey(OdkData.IntentKeys.SQL_WHERE) ?
         bundle.getString(OdkData.IntentKeys.SQL_WHERE) :
         null;
@@ -111,16 +117,63 @@ public final class IntentUtil {
   }
 
   /**
-   * Thin wrapper for addSQLKeysToBundle
+   * Thin wrapper for {@link #addQueryDescriptorToBundle}
    *
    * @param bundle      the bundle to put the query parameters into
    * @param queryStruct the query parameters to put into the bundle
    */
   public static void addSQLQueryStructToBundle(Bundle bundle, SQLQueryStruct queryStruct) {
-    IntentUtil.addSQLKeysToBundle(bundle, queryStruct.whereClause, queryStruct.selectionArgs,
-        queryStruct.groupBy, queryStruct.having, queryStruct.orderByElementKey,
-        queryStruct.orderByDirection);
+    addQueryDescriptorToBundle(bundle, QueryDescriptor.simple(queryStruct));
+  }
 
+  /**
+   * Add the query to the bundle keyed to {@link IntentKeys#QUERY_DESCRIPTOR}, and also as the
+   * separate sql keys, which are what the web views read through OdkData. If bundle or
+   * descriptor is null, does nothing.
+   *
+   * @param bundle     the bundle to put the query in
+   * @param descriptor the query
+   */
+  public static void addQueryDescriptorToBundle(Bundle bundle, QueryDescriptor descriptor) {
+    if (bundle == null || descriptor == null) {
+      return;
+    }
+    bundle.putParcelable(IntentKeys.QUERY_DESCRIPTOR, descriptor);
+    addQueryTypeToBundle(bundle, descriptor.getQueryType());
+    if (OdkData.QueryTypes.ARBITRARY_QUERY.equals(descriptor.getQueryType())) {
+      addSqlCommandToBundle(bundle, descriptor.getSqlCommand());
+      addSelectionArgsToBundle(bundle, descriptor.getSelectionArgs());
+    } else {
+      SQLQueryStruct queryStruct = descriptor.toSQLQueryStruct();
+      addWhereClauseToBundle(bundle, queryStruct.whereClause);
+      addSelectionArgsToBundle(bundle, queryStruct.selectionArgs);
+      addGroupByToBundle(bundle, queryStruct.groupBy);
+      addHavingToBundle(bundle, queryStruct.having);
+      addOrderByElementKeyToBundle(bundle, queryStruct.orderByElementKey);
+      addOrderByDirectionToBundle(bundle, queryStruct.orderByDirection);
+    }
+  }
+
+  /**
+   * Return the query from the bundle. If it was passed as separate sql keys, as in intents from
+   * javascript or other apps, it is put together from those.
+   *
+   * @param bundle the bundle to pull the query from
+   * @return the query, null if bundle is null
+   */
+  public static QueryDescriptor retrieveQueryDescriptorFromBundle(Bundle bundle) {
+    if (bundle == null) {
+      return null;
+    }
+    QueryDescriptor descriptor = bundle.getParcelable(IntentKeys.QUERY_DESCRIPTOR);
+    if (descriptor != null) {
+      return descriptor;
+    }
+    if (OdkData.QueryTypes.ARBITRARY_QUERY.equals(retrieveQueryTypeFromBundle(bundle))) {
+      return QueryDescriptor.arbitrary(retrieveSqlCommandFromBundle(bundle),
+          retrieveSelectionArgsFromBundle(bundle));
+    }
+    return QueryDescriptor.simple(getSQLQueryStructFromBundle(bundle));
   }
 
   /**
@@ -150,6 +203,10 @@ public final class IntentUtil {
     if (bundle == null) {
       return null;
     }
+    QueryDescriptor descriptor = bundle.getParcelable(IntentKeys.QUERY_DESCRIPTOR);
+    if (descriptor != null) {
+      return descriptor.getQueryType();
+    }
     return bundle.getString(OdkData.IntentKeys.QUERY_TYPE);
   }
 
@@ -165,6 +222,10 @@ public final class IntentUtil {
     if (bundle == null) {
       return null;
     }
+    QueryDescriptor descriptor = bundle.getParcelable(IntentKeys.QUERY_DESCRIPTOR);
+    if (descriptor != null) {
+      return descriptor.getSqlCommand();
+    }
     return bundle.getString(OdkData.IntentKeys.SQL_COMMAND);
   }
 
@@ -290,6 +351,10 @@ public final class IntentUtil {
     if (bundle == null) {
       return null;
     }
+    QueryDescriptor descriptor = bundle.getParcelable(IntentKeys.QUERY_DESCRIPTOR);
+    if (descriptor != null) {
+      return descriptor.getSelectionArgs();
+    }
     String sqlSelectionArgsString = null;
     sqlSelectionArgsString = bundle.containsKey(OdkData.IntentKeys.SQL_SELECTION_ARGS) ?
             bundle.getString(OdkData.IntentKeys.SQL_SELECTION_ARGS) : null;
@@ -311,8 +376,9 @@ public final class IntentUtil {
   }
 
   /**
-   * Add the sql keys to the bundle. Convenience method for calling the
-   * corresponding add methods in this class.
+   * Add a simple query to the bundle as a {@link QueryDescriptor} and as the
+   * separate sql keys. Convenience method for
+   * {@link #addQueryDescriptorToBundle}.
    *
    * @param bundle            the bundle to put the other arguments in
    * @param whereClause       A sql clause that narrows down the list of returned rows
@@ -324,20 +390,21 @@ public final class IntentUtil {
    */
   public static void addSQLKeysToBundle(Bundle bundle, String whereClause, BindArgs selectionArgs,
       String[] groupBy, String having, String orderByElementKey, String orderByDirection) {
-    addQueryTypeToBundle(bundle, OdkData.QueryTypes.SIMPLE_QUERY);
-    addWhereClauseToBundle(bundle, whereClause);
-    addSelectionArgsToBundle(bundle, selectionArgs);
-    addGroupByToBundle(bundle, groupBy);
-    addHavingToBundle(bundle, having);
-    addOrderByElementKeyToBundle(bundle, orderByElementKey);
-    addOrderByDirectionToBundle(bundle, orderByDirection);
+    addSQLQueryStructToBundle(bundle, new SQLQueryStruct(whereClause, selectionArgs, groupBy,
+        having, orderByElementKey, orderByDirection));
   }
 
+  /**
+   * Add an arbitrary query to the bundle as a {@link QueryDescriptor} and as the separate sql
+   * keys
+   *
+   * @param bundle        the bundle to put the query in
+   * @param sqlCommand    the whole sql command
+   * @param selectionArgs the arguments to bind to the command
+   */
   public static void addArbitraryQueryToBundle(Bundle bundle, String sqlCommand,
                                                BindArgs selectionArgs) {
-    addQueryTypeToBundle(bundle, OdkData.QueryTypes.ARBITRARY_QUERY);
-    addSqlCommandToBundle(bundle, sqlCommand);
-    addSelectionArgsToBundle(bundle, selectionArgs);
+    addQueryDescriptorToBundle(bundle, QueryDescriptor.arbitrary(sqlCommand, selectionArgs));
   }
 
   /**
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps track of the data the app holds in memory only to avoid going back to the database, so
+ * that it can be dropped when the system runs low on memory. The application forwards the
+ * memory pressure signals it gets through onTrimMemory and onLowMemory as a priority, and
+ * everything registered at or below that priority is evicted, the cheapest to rebuild first.
+ * Whatever is evicted is loaded again the next time it is needed.
+ * <p>
+ * Entries are held weakly, so an entry that is garbage collected without being unregistered
+ * just disappears.
+ */
+public final class MemoryCacheManager {
+
+  /**
+   * Data worked out from other cached data, like parsed columns, evicted first
+   */
+  public static final int PRIORITY_DERIVED = 0;
+  /**
+   * The results of queries shared by all the views of an app, like the groups of a grouped
+   * spreadsheet
+   */
+  public static final int PRIORITY_QUERY_RESULTS = 1;
+  /**
+   * The rows loaded by an activity that isn't in the foreground
+   */
+  public static final int PRIORITY_HIDDEN_TABLE = 2;
+  /**
+   * The rows loaded by the activity in the foreground. Never evicted, since the view on screen
+   * is drawn from them.
+   */
+  public static final int PRIORITY_VISIBLE_TABLE = 3;
+
+  /**
+   * Something cached that can be dropped and loaded again later
+   */
+  public interface Evictable {
+    /**
+     * @return one of the PRIORITY_ constants; this may change over time, for example when an
+     * activity goes into the background
+     */
+    int getPriority();
+
+    /**
+     * @return roughly how many bytes evicting this would free
+     */
+    long getApproximateSize();
+
+    /**
+     * Drops what is cached. It must be loaded again, transparently, when next needed.
+     */
+    void evict();
+  }
+
+  private static final MemoryCacheManager instance = new MemoryCacheManager();
+
+  private final List<WeakReference<Evictable>> mEntries = new ArrayList<>();
+
+  MemoryCacheManager() {
+  }
+
+  /**
+   * @return the manager for this process
+   */
+  public static MemoryCacheManager get() {
+    return instance;
+  }
+
+  /**
+   * Starts tracking a cache. Registering the same cache twice has no effect.
+   *
+   * @param entry the cache
+   */
+  public synchronized void register(Evictable entry) {
+    if (indexOf(entry) < 0) {
+      mEntries.add(new WeakReference<>(entry));
+    }
+  }
+
+  /**
+   * Stops tracking a cache
+   *
+   * @param entry the cache
+   */
+  public synchronized void unregister(Evictable entry) {
+    int index = indexOf(entry);
+    if (index >= 0) {
+      mEntries.remove(index);
+    }
+  }
+
+  /**
+   * @return roughly how many bytes all the tracked caches hold
+   */
+  public long getApproximateSize() {
+    long size = 0;
+    for (Evictable entry : getEntries()) {
+      size += entry.getApproximateSize();
+    }
+    return size;
+  }
+
+  /**
+   * Evicts every tracked cache whose priority is at most the given one, lowest priority first
+   * and the largest first within a priority. Caches in the foreground are never evicted.
+   *
+   * @param maxPriority the highest priority to evict
+   * @return roughly how many bytes were freed
+   */
+  public long trim(int maxPriority) {
+    maxPriority = Math.min(maxPriority, PRIORITY_HIDDEN_TABLE);
+    // read each priority and size once, since evicting one cache may shrink another that
+    // shares its data
+    List<Victim> victims = new ArrayList<>();
+    for (Evictable entry : getEntries()) {
+      int priority = entry.getPriority();
+      if (priority <= maxPriority) {
+        victims.add(new Victim(entry, priority, entry.getApproximateSize()));
+      }
+    }
+    Collections.sort(victims, new Comparator<Victim>() {
+      @Override
+      public int compare(Victim a, Victim b) {
+        if (a.priority != b.priority) {
+          return a.priority < b.priority ? -1 : 1;
+        }
+        return a.size > b.size ? -1 : (a.size == b.size ? 0 : 1);
+      }
+    });
+    long freed = 0;
+    for (Victim victim : victims) {
+      victim.entry.evict();
+      freed += victim.size;
+    }
+    return freed;
+  }
+
+  private static final class Victim {
+    final Evictable entry;
+    final int priority;
+    final long size;
+
+    Victim(Evictable entry, int priority, long size) {
+      this.entry = entry;
+      this.priority = priority;
+      this.size = size;
+    }
+  }
+
+  /**
+   * @return the caches that are still alive, dropping the ones that were garbage collected
+   */
+  private synchronized List<Evictable> getEntries() {
+    List<Evictable> entries = new ArrayList<>(mEntries.size());
+    Iterator<WeakReference<Evictable>> iterator = mEntries.iterator();
+    while (iterator.hasNext()) {
+      Evictable entry = iterator.next().get();
+      if (entry == null) {
+        iterator.remove();
+      } else {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  private int indexOf(Evictable entry) {
+    for (int i = 0; i < mEntries.size(); ++i) {
+      if (mEntries.get(i).get() == entry) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
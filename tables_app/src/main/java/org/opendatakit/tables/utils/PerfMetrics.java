@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An in-process registry of named counters and latency histograms. The histograms keep the most
+ * recent {@link #SAMPLES_PER_HISTOGRAM} samples, so percentiles describe recent behaviour and
+ * memory use is bounded however long the process lives. Everything here is thread safe; the
+ * values are read by the diagnostics screen and by the performance tests.
+ */
+public final class PerfMetrics {
+
+  /**
+   * How many of the most recent samples each histogram keeps
+   */
+  public static final int SAMPLES_PER_HISTOGRAM = 1024;
+
+  private static final Map<String, Histogram> histograms = new TreeMap<>();
+  private static final Map<String, long[]> counters = new TreeMap<>();
+
+  /**
+   * Do not instantiate this class
+   */
+  private PerfMetrics() {
+  }
+
+  /**
+   * The latency samples recorded under one name
+   */
+  private static final class Histogram {
+    private final long[] mSamples = new long[SAMPLES_PER_HISTOGRAM];
+    private long mCount = 0;
+    private long mMax = 0;
+
+    synchronized void record(long nanos) {
+      mSamples[(int) (mCount % SAMPLES_PER_HISTOGRAM)] = nanos;
+      ++mCount;
+      mMax = Math.max(mMax, nanos);
+    }
+
+    synchronized Snapshot snapshot(String name) {
+      long[] sorted = Arrays.copyOf(mSamples, (int) Math.min(mCount, SAMPLES_PER_HISTOGRAM));
+      Arrays.sort(sorted);
+      return new Snapshot(name, mCount, sorted, mMax);
+    }
+  }
+
+  /**
+   * The state of one histogram at the time it was read. Times are in nanoseconds.
+   */
+  public static final class Snapshot {
+    private final String name;
+    private final long count;
+    private final long[] sortedSamples;
+    private final long max;
+
+    Snapshot(String name, long count, long[] sortedSamples, long max) {
+      this.name = name;
+      this.count = count;
+      this.sortedSamples = sortedSamples;
+      this.max = max;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the number of samples ever recorded, including the ones no longer kept
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return the largest sample ever recorded
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Nearest-rank percentile over the retained samples
+     *
+     * @param percentile between 0 and 100
+     * @return the sample at that percentile, or 0 if there are none
+     */
+    public long getPercentile(double percentile) {
+      if (sortedSamples.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(percentile / 100.0 * sortedSamples.length);
+      return sortedSamples[Math.min(Math.max(rank, 1), sortedSamples.length) - 1];
+    }
+  }
+
+  /**
+   * Adds a latency sample
+   *
+   * @param name  the name of the histogram, usually a {@link PerfTrace} section name
+   * @param nanos the duration
+   */
+  public static void recordNanos(String name, long nanos) {
+    Histogram histogram;
+    synchronized (histograms) {
+      histogram = histograms.get(name);
+      if (histogram == null) {
+        histogram = new Histogram();
+        histograms.put(name, histogram);
+      }
+    }
+    histogram.record(nanos);
+  }
+
+  /**
+   * Adds to a counter
+   *
+   * @param name  the name of the counter
+   * @param delta how much to add
+   */
+  public static void increment(String name, long delta) {
+    synchronized (counters) {
+      long[] counter = counters.get(name);
+      if (counter == null) {
+        counter = new long[1];
+        counters.put(name, counter);
+      }
+      counter[0] += delta;
+    }
+  }
+
+  /**
+   * @param name the name of a histogram
+   * @return its current state, or null if nothing was recorded under that name
+   */
+  public static Snapshot getHistogram(String name) {
+    Histogram histogram;
+    synchronized (histograms) {
+      histogram = histograms.get(name);
+    }
+    return histogram == null ? null : histogram.snapshot(name);
+  }
+
+  /**
+   * @return the current state of every histogram, sorted by name
+   */
+  public static List<Snapshot> getHistograms() {
+    List<Snapshot> snapshots = new ArrayList<>();
+    synchronized (histograms) {
+      for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+        snapshots.add(entry.getValue().snapshot(entry.getKey()));
+      }
+    }
+    return snapshots;
+  }
+
+  /**
+   * @return the value of every counter, sorted by name
+   */
+  public static Map<String, Long> getCounters() {
+    Map<String, Long> values = new TreeMap<>();
+    synchronized (counters) {
+      for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+        values.put(entry.getKey(), entry.getValue()[0]);
+      }
+    }
+    return Collections.unmodifiableMap(values);
+  }
+
+  /**
+   * Forgets every counter and histogram
+   */
+  public static void reset() {
+    synchronized (histograms) {
+      histograms.clear();
+    }
+    synchronized (counters) {
+      counters.clear();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.os.Trace;
+
+/**
+ * Named trace sections around the hot paths of Tables. Each section shows up in systrace and
+ * Perfetto captures of the app and its duration is also added to the {@link PerfMetrics}
+ * histogram of the same name, so the diagnostics screen can show latencies without a capture.
+ * <p>
+ * Use it as
+ * <pre>
+ * long start = PerfTrace.begin(PerfTrace.USER_TABLE_QUERY);
+ * try {
+ *   ...
+ * } finally {
+ *   PerfTrace.end(PerfTrace.USER_TABLE_QUERY, start);
+ * }
+ * </pre>
+ * begin and end must be called on the same thread and sections must nest. Work that starts on
+ * one callback and finishes on another is timed with {@link #now()} and
+ * {@link #record(String, long)} instead.
+ */
+public final class PerfTrace {
+
+  public static final String USER_TABLE_QUERY = "Tables.userTableQuery";
+  public static final String SPREADSHEET_TABLE_BUILD = "Tables.spreadsheetTableBuild";
+  public static final String TABULAR_VIEW_DRAW = "Tables.tabularViewDraw";
+  public static final String COLOR_RULE_EVALUATION = "Tables.colorRuleEvaluation";
+  public static final String MAP_SET_MARKERS = "Tables.mapSetMarkers";
+  public static final String CSV_IMPORT_BATCH = "Tables.csvImportBatch";
+  public static final String CSV_EXPORT_BATCH = "Tables.csvExportBatch";
+  public static final String WEBVIEW_PAGE_LOAD = "Tables.webViewPageLoad";
+  public static final String TABLE_HEALTH_SCAN = "Tables.tableHealthScan";
+
+  public static final String COUNTER_CSV_IMPORT_ROWS = "csvImportRows";
+  public static final String COUNTER_CSV_EXPORT_ROWS = "csvExportRows";
+  public static final String COUNTER_MAP_MARKERS = "mapMarkers";
+  public static final String COUNTER_USER_TABLE_ROWS = "userTableRows";
+
+  /**
+   * Do not instantiate this class
+   */
+  private PerfTrace() {
+  }
+
+  /**
+   * Opens a trace section
+   *
+   * @param section the section name, one of the constants of this class
+   * @return the start time, to pass to {@link #end(String, long)}
+   */
+  public static long begin(String section) {
+    Trace.beginSection(section);
+    return System.nanoTime();
+  }
+
+  /**
+   * Closes the innermost trace section and records its duration
+   *
+   * @param section the name it was opened with
+   * @param start   the value returned by {@link #begin(String)}
+   */
+  public static void end(String section, long start) {
+    long elapsed = System.nanoTime() - start;
+    Trace.endSection();
+    PerfMetrics.recordNanos(section, elapsed);
+  }
+
+  /**
+   * @return the current time, for {@link #record(String, long)}
+   */
+  public static long now() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the duration of an operation that was not traced as a section
+   *
+   * @param name  the histogram name
+   * @param start the value returned by {@link #now()} when the operation started
+   */
+  public static void record(String name, long start) {
+    PerfMetrics.recordNanos(name, System.nanoTime() - start);
+  }
+}
@@ -26,6 +26,7 @@ import org.opendatakit.exception.ServicesAvailabilityException;
 import org.opendatakit.logging.WebLogger;
 import org.opendatakit.tables.R;
 import org.opendatakit.tables.application.Tables;
+import org.opendatakit.tables.views.SpreadsheetColumnMetadata;
 
 /**
  * @author sudar.sam@gmail.com
@@ -107,6 +108,7 @@ public final class PreferenceUtil {
       ColumnUtil.get()
           .atomicSetColumnWidth(Tables.getInstance().getDatabase(), appName, tableId,
               elementKey, newColumnWidth);
+      SpreadsheetColumnMetadata.invalidate(appName, tableId);
     } catch (ServicesAvailabilityException e) {
       Toast.makeText(context, R.string.change_column_width_error, Toast.LENGTH_LONG).show();
       WebLogger.getLogger(appName).printStackTrace(e);
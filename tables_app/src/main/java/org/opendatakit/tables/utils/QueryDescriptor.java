@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import org.opendatakit.database.queries.BindArgs;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.views.OdkData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The query a table display activity or fragment is opened with, passed as one parcelable value
+ * instead of a bundle key per part. The bind arguments are written with their types rather than
+ * as a JSON string, so an Integer comes back as an Integer, and the row ids or column values a
+ * collection is narrowed down to are kept as values until the receiver builds the where clause
+ * from them. That keeps the intent small when a collection is selected by a long list of row
+ * ids.
+ * <p>
+ * The parcel starts with a format version, and a descriptor written by a newer version is
+ * rejected rather than misread.
+ */
+public final class QueryDescriptor implements Parcelable {
+
+  /**
+   * Parcelable cruft
+   */
+  public static final Parcelable.Creator<QueryDescriptor> CREATOR =
+      new Parcelable.Creator<QueryDescriptor>() {
+        public QueryDescriptor createFromParcel(Parcel in) {
+          return new QueryDescriptor(in);
+        }
+
+        public QueryDescriptor[] newArray(int size) {
+          return new QueryDescriptor[size];
+        }
+      };
+
+  /**
+   * The format version, written at the start of the parcel
+   */
+  static final int VERSION = 1;
+
+  /**
+   * The type tags written before each bind argument
+   */
+  private static final byte ARG_NULL = 0;
+  private static final byte ARG_STRING = 1;
+  private static final byte ARG_INTEGER = 2;
+  private static final byte ARG_LONG = 3;
+  private static final byte ARG_DOUBLE = 4;
+  private static final byte ARG_BOOLEAN = 5;
+
+  private static final String[] NO_STRINGS = new String[0];
+  private static final Object[] NO_ARGS = new Object[0];
+
+  private final boolean mArbitrary;
+  /**
+   * The where clause of a simple query, or the whole command of an arbitrary one
+   */
+  private final String mSql;
+  private final Object[] mBindArgs;
+  private final String[] mGroupBy;
+  private final String mHaving;
+  private final String mOrderByElementKey;
+  private final String mOrderByDirection;
+  /**
+   * Columns that must equal the value at the same index, ANDed with the where clause. A null
+   * value means the column must be null.
+   */
+  private final String[] mFilterColumns;
+  private final String[] mFilterValues;
+  /**
+   * If not null, the ids of the rows to select, used instead of the where clause and filters
+   */
+  private final String[] mRowIds;
+
+  private QueryDescriptor(boolean arbitrary, String sql, Object[] bindArgs, String[] groupBy,
+      String having, String orderByElementKey, String orderByDirection, String[] filterColumns,
+      String[] filterValues, String[] rowIds) {
+    this.mArbitrary = arbitrary;
+    this.mSql = sql;
+    this.mBindArgs = bindArgs == null ? NO_ARGS : bindArgs;
+    this.mGroupBy = groupBy;
+    this.mHaving = having;
+    this.mOrderByElementKey = orderByElementKey;
+    this.mOrderByDirection = orderByDirection;
+    this.mFilterColumns = filterColumns;
+    this.mFilterValues = filterValues;
+    this.mRowIds = rowIds;
+  }
+
+  private QueryDescriptor(Parcel in) {
+    int version = in.readInt();
+    if (version > VERSION) {
+      throw new IllegalArgumentException("Unsupported query descriptor version " + version);
+    }
+    mArbitrary = in.readByte() == 1;
+    mSql = readString(in);
+    mBindArgs = readBindArgs(in);
+    mGroupBy = readStrings(in);
+    mHaving = readString(in);
+    mOrderByElementKey = readString(in);
+    mOrderByDirection = readString(in);
+    mFilterColumns = readStrings(in);
+    mFilterValues = readStrings(in);
+    mRowIds = readStrings(in);
+  }
+
+  /**
+   * @param query a simple query
+   * @return the descriptor of the query
+   */
+  public static QueryDescriptor simple(SQLQueryStruct query) {
+    return new QueryDescriptor(false, query.whereClause,
+        query.selectionArgs == null ? null : query.selectionArgs.bindArgs, query.groupBy,
+        query.having, query.orderByElementKey, query.orderByDirection, NO_STRINGS, NO_STRINGS,
+        null);
+  }
+
+  /**
+   * @param sqlCommand    the whole sql command
+   * @param selectionArgs the arguments to bind to the command, or null
+   * @return the descriptor of an arbitrary query
+   */
+  public static QueryDescriptor arbitrary(String sqlCommand, BindArgs selectionArgs) {
+    return new QueryDescriptor(true, sqlCommand,
+        selectionArgs == null ? null : selectionArgs.bindArgs, null, null, null, null,
+        NO_STRINGS, NO_STRINGS, null);
+  }
+
+  /**
+   * @return {@link OdkData.QueryTypes#SIMPLE_QUERY} or
+   * {@link OdkData.QueryTypes#ARBITRARY_QUERY}
+   */
+  public String getQueryType() {
+    return mArbitrary ? OdkData.QueryTypes.ARBITRARY_QUERY : OdkData.QueryTypes.SIMPLE_QUERY;
+  }
+
+  /**
+   * @return the command of an arbitrary query, or null for a simple query
+   */
+  public String getSqlCommand() {
+    return mArbitrary ? mSql : null;
+  }
+
+  /**
+   * @return the arguments bound to the where clause or command, including the ones added by the
+   * row ids and filters
+   */
+  public BindArgs getSelectionArgs() {
+    if (mArbitrary) {
+      return new BindArgs(mBindArgs.clone());
+    }
+    return toSQLQueryStruct().selectionArgs;
+  }
+
+  /**
+   * Narrows a simple query down to the given rows. The rows are assumed to already satisfy the
+   * where clause, so it is dropped.
+   *
+   * @param rowIds the ids of the rows; if empty, the query matches no rows
+   * @return the narrowed query
+   */
+  public QueryDescriptor withRowIds(String[] rowIds) {
+    return new QueryDescriptor(false, null, null, mGroupBy, mHaving, mOrderByElementKey,
+        mOrderByDirection, NO_STRINGS, NO_STRINGS, rowIds);
+  }
+
+  /**
+   * Narrows a simple query down to the rows where each of the columns has the value at the same
+   * index
+   *
+   * @param columns the element keys of the columns
+   * @param values  the values, null where the column must be null
+   * @return the narrowed query
+   */
+  public QueryDescriptor withFilter(String[] columns, String[] values) {
+    String[] filterColumns = new String[mFilterColumns.length + columns.length];
+    String[] filterValues = new String[filterColumns.length];
+    System.arraycopy(mFilterColumns, 0, filterColumns, 0, mFilterColumns.length);
+    System.arraycopy(columns, 0, filterColumns, mFilterColumns.length, columns.length);
+    System.arraycopy(mFilterValues, 0, filterValues, 0, mFilterValues.length);
+    System.arraycopy(values, 0, filterValues, mFilterValues.length, values.length);
+    return new QueryDescriptor(false, mSql, mBindArgs, mGroupBy, mHaving, mOrderByElementKey,
+        mOrderByDirection, filterColumns, filterValues, mRowIds);
+  }
+
+  /**
+   * Builds the simple query, in the same form {@link IntentUtil#getSQLQueryStructFromBundle}
+   * has always returned it: the selection arguments are only kept with a where clause, the
+   * having clause only with a group by, and the sort direction defaults to ascending.
+   *
+   * @return the query
+   */
+  public SQLQueryStruct toSQLQueryStruct() {
+    List<Object> args = new ArrayList<>();
+    StringBuilder where = new StringBuilder();
+    if (mRowIds != null && mRowIds.length == 0) {
+      // "IN ()" is not valid sql
+      where.append("1 = 0");
+    } else if (mRowIds != null) {
+      where.append(DataTableColumns.ID).append(" IN (");
+      for (int i = 0; i < mRowIds.length; ++i) {
+        where.append(i == 0 ? "?" : ", ?");
+        args.add(mRowIds[i]);
+      }
+      where.append(")");
+    } else {
+      if (mSql != null && !mSql.isEmpty()) {
+        for (Object arg : mBindArgs) {
+          args.add(arg);
+        }
+        if (mFilterColumns.length == 0) {
+          where.append(mSql);
+        } else {
+          where.append("(").append(mSql).append(") AND ");
+        }
+      }
+      for (int i = 0; i < mFilterColumns.length; ++i) {
+        if (i != 0) {
+          where.append(" AND ");
+        }
+        where.append("\"").append(mFilterColumns[i]).append("\"");
+        if (mFilterValues[i] == null) {
+          where.append(" IS NULL");
+        } else {
+          where.append(" = ?");
+          args.add(mFilterValues[i]);
+        }
+      }
+    }
+    String whereClause = where.length() == 0 ? mSql : where.toString();
+
+    String having = mGroupBy != null && mGroupBy.length != 0 ? mHaving : null;
+    String orderByDirection = null;
+    if (mOrderByElementKey != null && !mOrderByElementKey.isEmpty()) {
+      orderByDirection = mOrderByDirection == null || mOrderByDirection.isEmpty() ?
+          "ASC" :
+          mOrderByDirection;
+    }
+    return new SQLQueryStruct(whereClause, new BindArgs(args.toArray()), mGroupBy, having,
+        mOrderByElementKey, orderByDirection);
+  }
+
+  @Override
+  public int describeContents() {
+    return 0;
+  }
+
+  @Override
+  public void writeToParcel(Parcel dest, int flags) {
+    dest.writeInt(VERSION);
+    dest.writeByte((byte) (mArbitrary ? 1 : 0));
+    writeString(dest, mSql);
+    dest.writeInt(mBindArgs.length);
+    for (Object arg : mBindArgs) {
+      if (arg == null) {
+        dest.writeByte(ARG_NULL);
+      } else if (arg instanceof Integer) {
+        dest.writeByte(ARG_INTEGER);
+        dest.writeInt((Integer) arg);
+      } else if (arg instanceof Long) {
+        dest.writeByte(ARG_LONG);
+        dest.writeLong((Long) arg);
+      } else if (arg instanceof Double) {
+        dest.writeByte(ARG_DOUBLE);
+        dest.writeDouble((Double) arg);
+      } else if (arg instanceof Boolean) {
+        dest.writeByte(ARG_BOOLEAN);
+        dest.writeByte((byte) ((Boolean) arg ? 1 : 0));
+      } else {
+        dest.writeByte(ARG_STRING);
+        dest.writeString(arg.toString());
+      }
+    }
+    writeStrings(dest, mGroupBy);
+    writeString(dest, mHaving);
+    writeString(dest, mOrderByElementKey);
+    writeString(dest, mOrderByDirection);
+    writeStrings(dest, mFilterColumns);
+    writeStrings(dest, mFilterValues);
+    writeStrings(dest, mRowIds);
+  }
+
+  private static void writeString(Parcel dest, String value) {
+    if (value == null) {
+      dest.writeByte((byte) 0);
+    } else {
+      dest.writeByte((byte) 1);
+      dest.writeString(value);
+    }
+  }
+
+  private static String readString(Parcel in) {
+    return in.readByte() == 1 ? in.readString() : null;
+  }
+
+  private static void writeStrings(Parcel dest, String[] values) {
+    // -1 for a null array, then each element with its own null flag
+    if (values == null) {
+      dest.writeInt(-1);
+      return;
+    }
+    dest.writeInt(values.length);
+    for (String value : values) {
+      writeString(dest, value);
+    }
+  }
+
+  private static String[] readStrings(Parcel in) {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    String[] values = new String[length];
+    for (int i = 0; i < length; ++i) {
+      values[i] = readString(in);
+    }
+    return values;
+  }
+
+  private static Object[] readBindArgs(Parcel in) {
+    Object[] args = new Object[in.readInt()];
+    for (int i = 0; i < args.length; ++i) {
+      byte type = in.readByte();
+      switch (type) {
+      case ARG_NULL:
+        break;
+      case ARG_STRING:
+        args[i] = in.readString();
+        break;
+      case ARG_INTEGER:
+        args[i] = in.readInt();
+        break;
+      case ARG_LONG:
+        args[i] = in.readLong();
+        break;
+      case ARG_DOUBLE:
+        args[i] = in.readDouble();
+        break;
+      case ARG_BOOLEAN:
+        args[i] = in.readByte() == 1;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown bind argument type " + type);
+      }
+    }
+    return args;
+  }
+}
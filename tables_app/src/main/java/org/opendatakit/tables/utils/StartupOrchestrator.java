@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.webkit.WebSettings;
+import org.opendatakit.database.service.TableHealthInfo;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.properties.CommonToolProperties;
+import org.opendatakit.properties.PropertiesSingleton;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the independent pieces of MainActivity startup concurrently instead of one after another
+ * on the UI thread. The table health scan and the WebView framework preload do not depend on
+ * initialization and start as soon as the database is available; the table list warmup reads
+ * tables that initialization may still be creating, so it is held back until initialization
+ * completes.
+ * <p>
+ * All callbacks and all state changes happen on the UI thread. Each phase logs how long it ran
+ * and when it started relative to the creation of the orchestrator, so cold-start regressions
+ * show up in the log.
+ */
+public final class StartupOrchestrator {
+
+  private static final String TAG = StartupOrchestrator.class.getSimpleName();
+
+  /**
+   * The WebView provider is loaded once per process, so only preload it once
+   */
+  private static boolean webViewPreloaded = false;
+
+  /**
+   * The phases of startup that are timed
+   */
+  public enum Phase {
+    INITIALIZATION, HEALTH_SCAN, TABLE_LIST_WARMUP, WEBVIEW_PRELOAD
+  }
+
+  /**
+   * Receives the results of the background phases, always on the UI thread
+   */
+  public interface StartupListener {
+    /**
+     * Called when the health scan finished successfully
+     *
+     * @param tableHealthList the health of every table in the app
+     */
+    void tableHealthScanned(List<TableHealthInfo> tableHealthList);
+
+    /**
+     * Called when the health scan could not be run, because the database was unavailable or
+     * the scan threw. Nobody has the health of the tables yet, so it has to be scanned again.
+     */
+    void tableHealthScanFailed();
+
+    /**
+     * Called when the table list warmup finished, whether or not it succeeded. If it did, the
+     * list is in the {@link TableListCache} for the user's locale; if not, whoever needs the
+     * list finds the cache empty and loads it again.
+     */
+    void tableListWarmed();
+  }
+
+  private final String mAppName;
+  private final Context mContext;
+  private final StartupListener mListener;
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final ExecutorService mExecutor = Executors.newFixedThreadPool(2);
+
+  private final long mOrigin = SystemClock.elapsedRealtime();
+  private final Map<Phase, Long> mPhaseStart = new EnumMap<>(Phase.class);
+  /**
+   * Phases asked for again while they were running, to be run once more when they finish
+   */
+  private final Map<Phase, Callable<Runnable>> mQueued = new HashMap<>();
+  private boolean mStarted = false;
+  private boolean mInitializationPending = false;
+  private boolean mShutdown = false;
+
+  /**
+   * Constructs an orchestrator for the given app. Nothing runs until {@link #start(boolean)}
+   *
+   * @param context  any context, only the application context is retained
+   * @param appName  the app name
+   * @param listener notified on the UI thread when background phases finish
+   */
+  public StartupOrchestrator(Context context, String appName, StartupListener listener) {
+    this.mContext = context.getApplicationContext();
+    this.mAppName = appName;
+    this.mListener = listener;
+  }
+
+  /**
+   * Starts every phase that can run now. Safe to call on every databaseAvailable; only the
+   * first call after construction or {@link #reset()} does anything.
+   *
+   * @param initializationPending whether the InitializationFragment is about to run
+   */
+  public void start(boolean initializationPending) {
+    if (mStarted || mShutdown) {
+      return;
+    }
+    mStarted = true;
+    mInitializationPending = initializationPending;
+    WebLogger.getLogger(mAppName).i(TAG, "start -- initialization pending: "
+        + Boolean.toString(initializationPending));
+
+    if (initializationPending) {
+      phaseStarted(Phase.INITIALIZATION);
+    }
+    if (TableHealthCache.get(mAppName).getFreshSnapshot() == null) {
+      submitHealthScan();
+    }
+    preloadWebView();
+    String locale = CommonToolProperties.get(mContext, mAppName).getUserSelectedDefaultLocale();
+    if (!initializationPending && TableListCache.get(mAppName).getCached(locale) == null) {
+      submitTableListWarmup();
+    }
+  }
+
+  /**
+   * Called by the activity when the InitializationFragment reports completion. Releases the
+   * phases that were waiting on it, and invalidates and rescans table health because
+   * initialization may have created tables.
+   */
+  public void initializationCompleted() {
+    if (mShutdown) {
+      return;
+    }
+    if (mInitializationPending) {
+      mInitializationPending = false;
+      phaseFinished(Phase.INITIALIZATION);
+    }
+    TableHealthCache.get(mAppName).invalidate();
+    TableListCache.get(mAppName).invalidate();
+    submitHealthScan();
+    submitTableListWarmup();
+  }
+
+  /**
+   * Forget that we have started, so the next database connection runs the phases again
+   */
+  public void reset() {
+    mStarted = false;
+  }
+
+  /**
+   * Stops accepting work. Called when the owning activity is destroyed
+   */
+  public void shutdown() {
+    mShutdown = true;
+    mExecutor.shutdownNow();
+    mHandler.removeCallbacksAndMessages(null);
+  }
+
+  /**
+   * @param phase the phase to check
+   * @return whether that phase has started but not yet finished
+   */
+  public boolean isPhaseRunning(Phase phase) {
+    return mPhaseStart.containsKey(phase);
+  }
+
+  private void submitHealthScan() {
+    runInBackground(Phase.HEALTH_SCAN, new Callable<Runnable>() {
+      @Override
+      public Runnable call() {
+        List<TableHealthInfo> scanned = null;
+        try {
+          scanned = TableHealthCache.get(mAppName).scan();
+        } catch (Exception e) {
+          // the activity skips its own scan while this phase runs, so it has to hear about
+          // failures too
+          WebLogger.getLogger(mAppName).e(TAG, "phase " + Phase.HEALTH_SCAN.name() + " failed");
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+        }
+        final List<TableHealthInfo> tableHealthList = scanned;
+        return new Runnable() {
+          @Override
+          public void run() {
+            if (tableHealthList == null) {
+              mListener.tableHealthScanFailed();
+            } else {
+              mListener.tableHealthScanned(tableHealthList);
+            }
+          }
+        };
+      }
+    });
+  }
+
+  private void submitTableListWarmup() {
+    PropertiesSingleton props = CommonToolProperties.get(mContext, mAppName);
+    final String locale = props.getUserSelectedDefaultLocale();
+    runInBackground(Phase.TABLE_LIST_WARMUP, new Callable<Runnable>() {
+      @Override
+      public Runnable call() {
+        try {
+          TableListCache.get(mAppName).load(locale);
+        } catch (Exception e) {
+          // the table manager is waiting on this phase, so it has to hear about failures too
+          WebLogger.getLogger(mAppName).e(TAG, "phase " + Phase.TABLE_LIST_WARMUP.name()
+              + " failed");
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+        }
+        return new Runnable() {
+          @Override
+          public void run() {
+            mListener.tableListWarmed();
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Loading the WebView provider is the most expensive part of creating the first WebView. Do
+   * it when the UI thread goes idle so that the home screen does not pay for it.
+   */
+  private void preloadWebView() {
+    if (webViewPreloaded) {
+      return;
+    }
+    webViewPreloaded = true;
+    phaseStarted(Phase.WEBVIEW_PRELOAD);
+    Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+      @Override
+      public boolean queueIdle() {
+        if (!mShutdown) {
+          try {
+            WebSettings.getDefaultUserAgent(mContext);
+          } catch (RuntimeException e) {
+            // no WebView provider installed; the web fragment will report it
+            WebLogger.getLogger(mAppName).w(TAG, "unable to preload the WebView provider");
+          }
+        }
+        phaseFinished(Phase.WEBVIEW_PRELOAD);
+        return false;
+      }
+    });
+  }
+
+  /**
+   * Runs the task on the executor. The Runnable it returns, if any, is run on the UI thread
+   * after the phase has been marked finished. If the phase is already running, the task is run
+   * once it finishes instead, since whatever asked for it again may have changed what the
+   * running one reads.
+   */
+  private void runInBackground(final Phase phase, final Callable<Runnable> task) {
+    if (mShutdown) {
+      return;
+    }
+    if (isPhaseRunning(phase)) {
+      mQueued.put(phase, task);
+      return;
+    }
+    phaseStarted(phase);
+    mExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Runnable onUiThread = null;
+        try {
+          onUiThread = task.call();
+        } catch (Exception e) {
+          WebLogger.getLogger(mAppName).e(TAG, "phase " + phase.name() + " failed");
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+        }
+        final Runnable result = onUiThread;
+        mHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            phaseFinished(phase);
+            if (result != null && !mShutdown) {
+              result.run();
+            }
+            Callable<Runnable> queued = mQueued.remove(phase);
+            if (queued != null) {
+              runInBackground(phase, queued);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void phaseStarted(Phase phase) {
+    mPhaseStart.put(phase, SystemClock.elapsedRealtime());
+  }
+
+  private void phaseFinished(Phase phase) {
+    Long start = mPhaseStart.remove(phase);
+    if (start == null) {
+      return;
+    }
+    long now = SystemClock.elapsedRealtime();
+    WebLogger.getLogger(mAppName).i(TAG, "phase " + phase.name() + " completed in "
+        + Long.toString(now - start) + " ms (started at +" + Long.toString(start - mOrigin)
+        + " ms)");
+    if (mPhaseStart.isEmpty()) {
+      WebLogger.getLogger(mAppName).i(TAG, "all startup phases completed at +"
+          + Long.toString(now - mOrigin) + " ms");
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.TableHealthInfo;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.tables.application.Tables;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds the most recent result of getTableHealthStatuses for an app so that resuming an activity
+ * doesn't have to scan every table for checkpoints and conflicts. The snapshot is thrown away
+ * whenever something signals that table health may have changed (a sync, a csv import, a survey
+ * edit, a resolver returning) and is treated as expired after {@link #getTimeToLive()} ms, which
+ * covers changes made outside of Tables.
+ */
+public final class TableHealthCache extends AppCache {
+
+  private static final String TAG = TableHealthCache.class.getSimpleName();
+
+  /**
+   * How long a snapshot is trusted when nothing has signalled a change, in milliseconds
+   */
+  public static final long DEFAULT_TTL_MS = 5L * 60L * 1000L;
+
+  /**
+   * Roughly what the health of one table costs in memory
+   */
+  private static final int ESTIMATED_TABLE_BYTES = 100;
+
+  private static final Factory<TableHealthCache> factory = new Factory<TableHealthCache>() {
+    @Override
+    public TableHealthCache create(String appName) {
+      return new TableHealthCache(appName);
+    }
+  };
+
+  /**
+   * Shared by all apps; scans are short and rare so one thread is plenty
+   */
+  private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Receives the result of {@link #refreshInBackground(RefreshListener)} on the UI thread
+   */
+  public interface RefreshListener {
+    /**
+     * @param tableHealthList the freshly scanned health of every table in the app
+     */
+    void tableHealthRefreshed(List<TableHealthInfo> tableHealthList);
+
+    /**
+     * The scan failed or the database wasn't available. The next refresh scans again.
+     *
+     * @param e what went wrong, or null if there was no database to scan
+     */
+    void tableHealthRefreshFailed(Exception e);
+  }
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+  private List<TableHealthInfo> mSnapshot = null;
+  private long mSnapshotTime = 0L;
+  private long mTimeToLive = DEFAULT_TTL_MS;
+  private boolean mRefreshInBackground = true;
+  /**
+   * The listeners waiting for the running scan, or null if none is running. They are held
+   * weakly because this cache outlives the activities that ask it for a refresh.
+   */
+  private List<WeakReference<RefreshListener>> mPendingListeners = null;
+
+  private TableHealthCache(String appName) {
+    super(appName);
+  }
+
+  /**
+   * Gets the cache for an app, creating it if needed
+   *
+   * @param appName the app name
+   * @return the health cache for that app
+   */
+  public static TableHealthCache get(String appName) {
+    return get(TableHealthCache.class, appName, factory);
+  }
+
+  /**
+   * Returns the cached snapshot if it has not been invalidated and has not expired
+   *
+   * @return the health of every table, or null if a scan is needed
+   */
+  public synchronized List<TableHealthInfo> getFreshSnapshot() {
+    if (mSnapshot == null
+        || SystemClock.elapsedRealtime() - mSnapshotTime > mTimeToLive) {
+      return null;
+    }
+    return mSnapshot;
+  }
+
+  /**
+   * Drops the snapshot because table health may have changed. The next caller will scan again.
+   */
+  @Override
+  protected void clear() {
+    WebLogger.getLogger(mAppName).d(TAG, "invalidate");
+    mSnapshot = null;
+  }
+
+  @Override
+  public synchronized long getApproximateSize() {
+    return mSnapshot == null ? 0 : (long) mSnapshot.size() * ESTIMATED_TABLE_BYTES;
+  }
+
+  public synchronized long getTimeToLive() {
+    return mTimeToLive;
+  }
+
+  public synchronized void setTimeToLive(long timeToLive) {
+    mTimeToLive = timeToLive;
+  }
+
+  /**
+   * @return whether callers should refresh an expired snapshot in the background instead of
+   * scanning on the UI thread
+   */
+  public synchronized boolean isRefreshInBackground() {
+    return mRefreshInBackground;
+  }
+
+  public synchronized void setRefreshInBackground(boolean refreshInBackground) {
+    mRefreshInBackground = refreshInBackground;
+  }
+
+  /**
+   * Scans every table using the given database handle and stores the result
+   *
+   * @param dbInterface the database interface
+   * @param db          an open database handle
+   * @return the health of every table in the app
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public List<TableHealthInfo> scan(UserDbInterface dbInterface, DbHandle db)
+      throws ServicesAvailabilityException {
+    int generation = getGeneration();
+    List<TableHealthInfo> tableHealthList;
+    long start = PerfTrace.begin(PerfTrace.TABLE_HEALTH_SCAN);
+    try {
+      tableHealthList = Collections
+          .unmodifiableList(new ArrayList<>(dbInterface.getTableHealthStatuses(mAppName, db)));
+    } finally {
+      PerfTrace.end(PerfTrace.TABLE_HEALTH_SCAN, start);
+    }
+    synchronized (this) {
+      if (isCurrent(generation)) {
+        mSnapshot = tableHealthList;
+        mSnapshotTime = SystemClock.elapsedRealtime();
+      }
+    }
+    return tableHealthList;
+  }
+
+  /**
+   * Opens the database and scans every table, storing the result
+   *
+   * @return the health of every table, or null if the database is not available
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public List<TableHealthInfo> scan() throws ServicesAvailabilityException {
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    if (dbInterface == null) {
+      return null;
+    }
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(mAppName);
+      return scan(dbInterface, db);
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(mAppName, db);
+      }
+    }
+  }
+
+  /**
+   * Scans on a background thread and reports the result on the UI thread. Requests made while a
+   * scan is already running share its result. Listeners that have been garbage collected by the
+   * time the scan ends are skipped.
+   *
+   * @param listener notified with the new snapshot, or of the failure
+   */
+  public void refreshInBackground(RefreshListener listener) {
+    synchronized (this) {
+      if (mPendingListeners != null) {
+        mPendingListeners.add(new WeakReference<>(listener));
+        return;
+      }
+      mPendingListeners = new ArrayList<>();
+      mPendingListeners.add(new WeakReference<>(listener));
+    }
+    refreshExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        List<TableHealthInfo> result = null;
+        Exception failure = null;
+        List<WeakReference<RefreshListener>> listeners;
+        try {
+          result = scan();
+        } catch (ServicesAvailabilityException | RuntimeException e) {
+          WebLogger.getLogger(mAppName)
+              .e(TAG, "refreshInBackground -- unable to scan table health");
+          WebLogger.getLogger(mAppName).printStackTrace(e);
+          failure = e;
+        } finally {
+          // always let the next request start a scan, whatever happened to this one
+          synchronized (TableHealthCache.this) {
+            listeners = mPendingListeners;
+            mPendingListeners = null;
+          }
+        }
+        final List<TableHealthInfo> tableHealthList = result;
+        final Exception error = failure;
+        final List<WeakReference<RefreshListener>> waiting = listeners;
+        mHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            for (WeakReference<RefreshListener> ref : waiting) {
+              RefreshListener l = ref.get();
+              if (l == null) {
+                continue;
+              }
+              if (tableHealthList == null) {
+                l.tableHealthRefreshFailed(error);
+              } else {
+                l.tableHealthRefreshed(tableHealthList);
+              }
+            }
+          }
+        });
+      }
+    });
+  }
+}
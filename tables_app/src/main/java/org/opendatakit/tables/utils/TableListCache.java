@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import org.opendatakit.data.utilities.TableUtil;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.tables.application.Tables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the list of tables in an app together with their localized display names in a single
+ * pass over one database handle. Results are cached per locale until {@link #invalidate()} is
+ * called, which happens whenever table definitions may have changed (sync, import,
+ * initialization, table deletion).
+ */
+public final class TableListCache extends AppCache {
+
+  private static final String TAG = TableListCache.class.getSimpleName();
+
+  /**
+   * Roughly what a cached table id and display name cost in memory
+   */
+  private static final int ESTIMATED_TABLE_BYTES = 200;
+
+  private static final Factory<TableListCache> factory = new Factory<TableListCache>() {
+    @Override
+    public TableListCache create(String appName) {
+      return new TableListCache(appName);
+    }
+  };
+
+  private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Receives the result of {@link #loadInBackground} on the UI thread
+   */
+  public interface LoadListener {
+    /**
+     * @param tables  every table in the app, unsorted, or an empty list if it could not be
+     *                loaded
+     * @param success false if the database was unavailable or the load failed
+     */
+    void tableListLoaded(List<TableNameStruct> tables, boolean success);
+  }
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, List<TableNameStruct>> mByLocale = new HashMap<>();
+
+  private TableListCache(String appName) {
+    super(appName);
+  }
+
+  /**
+   * Gets the cache for an app, creating it if needed
+   *
+   * @param appName the app name
+   * @return the table list cache for that app
+   */
+  public static TableListCache get(String appName) {
+    return get(TableListCache.class, appName, factory);
+  }
+
+  /**
+   * Returns the cached list for a locale
+   *
+   * @param locale the user selected default locale
+   * @return an unmodifiable, unsorted list, or null if it needs to be loaded
+   */
+  public synchronized List<TableNameStruct> getCached(String locale) {
+    return mByLocale.get(String.valueOf(locale));
+  }
+
+  /**
+   * Drops every cached list for this app
+   */
+  @Override
+  protected void clear() {
+    mByLocale.clear();
+  }
+
+  @Override
+  public synchronized long getApproximateSize() {
+    long size = 0;
+    for (List<TableNameStruct> tables : mByLocale.values()) {
+      size += (long) tables.size() * ESTIMATED_TABLE_BYTES;
+    }
+    return size;
+  }
+
+  /**
+   * Loads the table list using an open database handle and caches it
+   *
+   * @param dbInterface the database interface
+   * @param db          an open database handle
+   * @param locale      the user selected default locale
+   * @return an unmodifiable, unsorted list of every table in the app
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public List<TableNameStruct> load(UserDbInterface dbInterface, DbHandle db, String locale)
+      throws ServicesAvailabilityException {
+    long start = System.currentTimeMillis();
+    int generation = getGeneration();
+
+    List<String> tableIds = dbInterface.getAllTableIds(mAppName, db);
+    List<TableNameStruct> tables = new ArrayList<>(tableIds.size());
+    for (String tableId : tableIds) {
+      String localizedDisplayName = TableUtil.get()
+          .getLocalizedDisplayName(locale, dbInterface, mAppName, db, tableId);
+      tables.add(new TableNameStruct(tableId, localizedDisplayName));
+    }
+    tables = Collections.unmodifiableList(tables);
+
+    synchronized (this) {
+      if (isCurrent(generation)) {
+        mByLocale.put(String.valueOf(locale), tables);
+      }
+    }
+    WebLogger.getLogger(mAppName).i(TAG, "load -- " + tables.size() + " tables in "
+        + Long.toString(System.currentTimeMillis() - start) + " ms");
+    return tables;
+  }
+
+  /**
+   * Opens the database and loads the table list, caching it
+   *
+   * @param locale the user selected default locale
+   * @return the list, or null if the database is not available
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public List<TableNameStruct> load(String locale) throws ServicesAvailabilityException {
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    if (dbInterface == null) {
+      return null;
+    }
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(mAppName);
+      return load(dbInterface, db, locale);
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(mAppName, db);
+      }
+    }
+  }
+
+  /**
+   * Loads the table list on a background thread and reports it on the UI thread. The listener
+   * is always called, with an empty list if the database is unavailable or the load failed.
+   *
+   * @param locale   the user selected default locale
+   * @param listener notified with the list
+   */
+  public void loadInBackground(final String locale, final LoadListener listener) {
+    loadExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        List<TableNameStruct> result = getCached(locale);
+        if (result == null) {
+          try {
+            result = load(locale);
+          } catch (ServicesAvailabilityException e) {
+            WebLogger.getLogger(mAppName).e(TAG, "loadInBackground -- unable to access database");
+            WebLogger.getLogger(mAppName).printStackTrace(e);
+          } catch (RuntimeException e) {
+            WebLogger.getLogger(mAppName).e(TAG, "loadInBackground -- unable to load table list");
+            WebLogger.getLogger(mAppName).printStackTrace(e);
+          }
+        }
+        final boolean success = result != null;
+        final List<TableNameStruct> tables = success ? result :
+            Collections.<TableNameStruct>emptyList();
+        mHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            listener.tableListLoaded(tables, success);
+          }
+        });
+      }
+    });
+  }
+}
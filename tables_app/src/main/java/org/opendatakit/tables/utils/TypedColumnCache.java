@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The numeric columns of a loaded table, parsed once and stored column by column in primitive
+ * arrays. The rows of a table hand out every value as a string, so without this every sort,
+ * map redraw or other pass over a numeric column parses the same strings again.
+ * <p>
+ * Integer columns are stored as longs and number columns, including the latitude, longitude,
+ * altitude and accuracy of a geopoint, as doubles. Two bitmaps record which rows are null and
+ * which rows hold something that parsed as a number. A column is only parsed the first time it
+ * is asked for. The cache belongs to one loaded table and is dropped with it. Under memory
+ * pressure the parsed columns are evicted and parsed again when next asked for.
+ */
+public final class TypedColumnCache implements MemoryCacheManager.Evictable {
+
+  /**
+   * The rows of the table the cache belongs to
+   */
+  public interface Source {
+    /**
+     * @return the number of rows
+     */
+    int getRowCount();
+
+    /**
+     * @param elementKey the column
+     * @param rowIndex   the row, in the order the database returned it
+     * @return the raw value of the cell, or null
+     */
+    String getValue(String elementKey, int rowIndex);
+  }
+
+  /**
+   * One parsed numeric column
+   */
+  public abstract static class NumberColumn {
+    private final long[] mNulls;
+    private final long[] mNumbers;
+    private final int mSize;
+
+    NumberColumn(int size) {
+      this.mSize = size;
+      this.mNulls = new long[(size + 63) >>> 6];
+      this.mNumbers = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+      return mSize;
+    }
+
+    /**
+     * @param rowIndex the row
+     * @return whether the cell is null
+     */
+    public boolean isNull(int rowIndex) {
+      return (mNulls[rowIndex >>> 6] & (1L << rowIndex)) != 0;
+    }
+
+    /**
+     * @param rowIndex the row
+     * @return whether the cell holds a number, as opposed to null or text that didn't parse
+     */
+    public boolean isNumber(int rowIndex) {
+      return (mNumbers[rowIndex >>> 6] & (1L << rowIndex)) != 0;
+    }
+
+    /**
+     * @param rowIndex a row that holds a number
+     * @return the number, as a double
+     */
+    public abstract double getDouble(int rowIndex);
+
+    /**
+     * Compares the numbers of two rows that both hold one
+     *
+     * @param a a row
+     * @param b another row
+     * @return negative, zero or positive as the number of a is less than, equal to or greater
+     * than the number of b
+     */
+    public abstract int compare(int a, int b);
+
+    long getApproximateSize() {
+      return 8L * (mNulls.length + mNumbers.length + mSize);
+    }
+
+    void setNull(int rowIndex) {
+      mNulls[rowIndex >>> 6] |= 1L << rowIndex;
+    }
+
+    void setNumber(int rowIndex) {
+      mNumbers[rowIndex >>> 6] |= 1L << rowIndex;
+    }
+  }
+
+  /**
+   * An integer column
+   */
+  public static final class LongColumn extends NumberColumn {
+    private final long[] mValues;
+
+    LongColumn(int size) {
+      super(size);
+      this.mValues = new long[size];
+    }
+
+    /**
+     * @param rowIndex a row that holds a number
+     * @return the number
+     */
+    public long get(int rowIndex) {
+      return mValues[rowIndex];
+    }
+
+    @Override
+    public double getDouble(int rowIndex) {
+      return mValues[rowIndex];
+    }
+
+    @Override
+    public int compare(int a, int b) {
+      return mValues[a] < mValues[b] ? -1 : (mValues[a] == mValues[b] ? 0 : 1);
+    }
+  }
+
+  /**
+   * A number column, or one part of a geopoint
+   */
+  public static final class DoubleColumn extends NumberColumn {
+    private final double[] mValues;
+
+    DoubleColumn(int size) {
+      super(size);
+      this.mValues = new double[size];
+    }
+
+    /**
+     * @param rowIndex a row that holds a number
+     * @return the number
+     */
+    public double get(int rowIndex) {
+      return mValues[rowIndex];
+    }
+
+    @Override
+    public double getDouble(int rowIndex) {
+      return mValues[rowIndex];
+    }
+
+    @Override
+    public int compare(int a, int b) {
+      return Double.compare(mValues[a], mValues[b]);
+    }
+  }
+
+  private final Source mSource;
+  private final Map<String, LongColumn> mLongs = new HashMap<>();
+  private final Map<String, DoubleColumn> mDoubles = new HashMap<>();
+
+  /**
+   * @param source the rows of the loaded table
+   */
+  public TypedColumnCache(Source source) {
+    this.mSource = source;
+  }
+
+  /**
+   * Returns an integer column, parsing it the first time
+   *
+   * @param elementKey the column
+   * @return the parsed column
+   */
+  public synchronized LongColumn getLongs(String elementKey) {
+    LongColumn column = mLongs.get(elementKey);
+    if (column != null) {
+      return column;
+    }
+    int rowCount = mSource.getRowCount();
+    column = new LongColumn(rowCount);
+    for (int i = 0; i < rowCount; ++i) {
+      String value = mSource.getValue(elementKey, i);
+      if (value == null) {
+        column.setNull(i);
+        continue;
+      }
+      try {
+        column.mValues[i] = Long.parseLong(value);
+        column.setNumber(i);
+      } catch (NumberFormatException e) {
+        // maybe written as a double, like 3.0
+        try {
+          double number = Double.parseDouble(value);
+          if (number == Math.rint(number) && Math.abs(number) < 1e18) {
+            column.mValues[i] = (long) number;
+            column.setNumber(i);
+          }
+        } catch (NumberFormatException ignored) {
+          // text, left out of the numbers
+        }
+      }
+    }
+    mLongs.put(elementKey, column);
+    return column;
+  }
+
+  /**
+   * Returns a number column, parsing it the first time
+   *
+   * @param elementKey the column
+   * @return the parsed column
+   */
+  public synchronized DoubleColumn getDoubles(String elementKey) {
+    DoubleColumn column = mDoubles.get(elementKey);
+    if (column != null) {
+      return column;
+    }
+    int rowCount = mSource.getRowCount();
+    column = new DoubleColumn(rowCount);
+    for (int i = 0; i < rowCount; ++i) {
+      String value = mSource.getValue(elementKey, i);
+      if (value == null) {
+        column.setNull(i);
+        continue;
+      }
+      try {
+        column.mValues[i] = Double.parseDouble(value);
+        column.setNumber(i);
+      } catch (NumberFormatException e) {
+        // text, left out of the numbers
+      }
+    }
+    mDoubles.put(elementKey, column);
+    return column;
+  }
+
+  @Override
+  public int getPriority() {
+    return MemoryCacheManager.PRIORITY_DERIVED;
+  }
+
+  @Override
+  public synchronized long getApproximateSize() {
+    long size = 0;
+    for (NumberColumn column : mLongs.values()) {
+      size += column.getApproximateSize();
+    }
+    for (NumberColumn column : mDoubles.values()) {
+      size += column.getApproximateSize();
+    }
+    return size;
+  }
+
+  /**
+   * Drops every parsed column. Columns already handed out stay valid; the next request for a
+   * column parses it again.
+   */
+  @Override
+  public synchronized void evict() {
+    mLongs.clear();
+    mDoubles.clear();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import java.util.Arrays;
+
+/**
+ * The horizontal layout arithmetic of a {@link TabularView}. It has no Android dependencies so
+ * that it can be exercised by the JVM benchmarks.
+ */
+public final class ColumnSpans {
+
+  /**
+   * Do not instantiate this class
+   */
+  private ColumnSpans() {
+  }
+
+  /**
+   * Computes where each column starts, measured from the left edge of the view and ignoring the
+   * leading border.
+   *
+   * @param columnWidths the width of each column
+   * @param columnCount  how many of the columns are laid out
+   * @param borderWidth  the width of the border between two columns
+   * @return the start of each column, in ascending order
+   */
+  public static int[] computeSpans(int[] columnWidths, int columnCount, int borderWidth) {
+    int[] spans = new int[columnCount];
+    int total = 0;
+    for (int i = 0; i < columnCount; i++) {
+      spans[i] = total;
+      total += borderWidth + columnWidths[i];
+    }
+    return spans;
+  }
+
+  /**
+   * Finds the leftmost column of which anything should be displayed when the view is scrolled
+   * to xScroll.
+   *
+   * @param spans   the start of each column, from {@link #computeSpans(int[], int, int)}
+   * @param xScroll the horizontal scroll position
+   * @return the index of the column, or -1 if xScroll is left of the first column
+   */
+  public static int getLeftmostColumn(int[] spans, int xScroll) {
+    int bsResult = Arrays.binarySearch(spans, xScroll);
+    // If we've found an exact match, we know that we can just return it.
+    if (bsResult >= 0) {
+      return bsResult;
+    }
+    // in case of a miss binary search returns (-insertionPoint - 1), and the column we are
+    // inside of is the one before the insertion point
+    int col = -bsResult - 2;
+    if (col >= spans.length) {
+      return col - 1;
+    }
+    return col;
+  }
+}
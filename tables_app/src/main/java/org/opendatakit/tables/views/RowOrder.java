@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import org.opendatakit.tables.utils.TypedColumnCache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The order in which the spreadsheet displays the rows of an already loaded table. The rows
+ * themselves are never moved; a permutation maps each display position to a row of the table.
+ * <p>
+ * Every sort column is reduced once to an int rank per row, following SQLite's ordering: nulls
+ * first, then numbers, then text. Numeric columns are read from the already parsed
+ * {@link TypedColumnCache} of the table. Sorting compares those ranks only, so sorting again on the
+ * same columns, for example to reverse the direction, costs one stable merge sort over an int
+ * array and no parsing or string comparisons. Ties keep the order the database returned.
+ * <p>
+ * Rows can also be removed, for example after they were deleted, without loading the table
+ * again. The positions after a removed row move up by one and later sorts leave it out.
+ */
+public final class RowOrder {
+
+  /**
+   * Where the sort keys of a column come from
+   */
+  public interface ValueSource {
+    /**
+     * @param elementKey the column
+     * @param rowIndex   the row, in the order the database returned it
+     * @return the raw value of the cell, or null
+     */
+    String getValue(String elementKey, int rowIndex);
+
+    /**
+     * @param elementKey the column
+     * @return the parsed values of the column if it holds integers or numbers, otherwise null
+     */
+    TypedColumnCache.NumberColumn getNumbers(String elementKey);
+  }
+
+  private final int mRowCount;
+  private final ValueSource mSource;
+  private final Map<String, int[]> mRanks = new HashMap<>();
+  /**
+   * The number of rows that are displayed, which is mRowCount less the removed rows
+   */
+  private int mSize;
+  /**
+   * Which rows were removed, by row index; null until a row is removed
+   */
+  private boolean[] mRemoved = null;
+  /**
+   * display position to row index in its first mSize entries, null while the rows are in
+   * database order and none were removed
+   */
+  private int[] mOrder = null;
+  /**
+   * row index to display position, built on demand from mOrder
+   */
+  private int[] mPositions = null;
+  private int[] mScratch = null;
+
+  /**
+   * @param rowCount the number of rows in the table
+   * @param source   the values of the rows
+   */
+  public RowOrder(int rowCount, ValueSource source) {
+    this.mRowCount = rowCount;
+    this.mSource = source;
+    this.mSize = rowCount;
+  }
+
+  /**
+   * Sorts the rows. Columns sorted before are not read again.
+   *
+   * @param elementKeys the sort columns, most significant first
+   * @param descending  for each sort column, whether it is sorted in descending order
+   */
+  public void sort(String[] elementKeys, boolean[] descending) {
+    if (elementKeys.length == 0) {
+      clear();
+      return;
+    }
+    mPositions = null;
+    final int[][] ranks = new int[elementKeys.length][];
+    for (int k = 0; k < elementKeys.length; ++k) {
+      ranks[k] = getRanks(elementKeys[k]);
+    }
+    final boolean[] desc = descending.clone();
+    int[] order = remainingRows(mOrder);
+    mergeSort(order, mSize, new IntComparator() {
+      @Override
+      public int compare(int a, int b) {
+        for (int k = 0; k < ranks.length; ++k) {
+          int diff = ranks[k][a] - ranks[k][b];
+          if (diff != 0) {
+            return desc[k] ? -diff : diff;
+          }
+        }
+        return 0;
+      }
+    });
+    mOrder = order;
+  }
+
+  /**
+   * Puts the rows back in the order the database returned them. Removed rows stay removed.
+   */
+  public void clear() {
+    mOrder = mRemoved == null ? null : remainingRows(mOrder);
+    mPositions = null;
+  }
+
+  /**
+   * Removes the row displayed at a position. The rows displayed after it move up by one.
+   *
+   * @param position the display position
+   */
+  public void remove(int position) {
+    if (position < 0 || position >= mSize) {
+      return;
+    }
+    if (mOrder == null) {
+      mOrder = remainingRows(null);
+    }
+    if (mRemoved == null) {
+      mRemoved = new boolean[mRowCount];
+    }
+    mRemoved[mOrder[position]] = true;
+    System.arraycopy(mOrder, position + 1, mOrder, position, mSize - position - 1);
+    --mSize;
+    mPositions = null;
+  }
+
+  /**
+   * @return the number of rows that are displayed
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * @return whether the rows are displayed in a different order than the database returned them,
+   * or some of them were removed
+   */
+  public boolean isSorted() {
+    return mOrder != null;
+  }
+
+  /**
+   * @param position the display position
+   * @return the index of the row displayed there
+   */
+  public int getRowIndex(int position) {
+    if (mOrder == null || position < 0 || position >= mSize) {
+      return position;
+    }
+    return mOrder[position];
+  }
+
+  /**
+   * @param rowIndex the index of a row
+   * @return the display position of that row, or -1 if it was removed
+   */
+  public int getPosition(int rowIndex) {
+    if (mOrder == null || rowIndex < 0 || rowIndex >= mRowCount) {
+      return rowIndex;
+    }
+    if (mPositions == null) {
+      mPositions = new int[mRowCount];
+      Arrays.fill(mPositions, -1);
+      for (int i = 0; i < mSize; ++i) {
+        mPositions[mOrder[i]] = i;
+      }
+    }
+    return mPositions[rowIndex];
+  }
+
+  /**
+   * @param reuse an array to fill if it is large enough, may be null
+   * @return the indexes of the rows that were not removed, in database order
+   */
+  private int[] remainingRows(int[] reuse) {
+    int[] order = reuse != null && reuse.length >= mSize ? reuse : new int[mSize];
+    int k = 0;
+    for (int i = 0; i < mRowCount; ++i) {
+      if (mRemoved == null || !mRemoved[i]) {
+        order[k++] = i;
+      }
+    }
+    return order;
+  }
+
+  /**
+   * Ranks every row by one column, so that comparing two ranks is the same as comparing the
+   * values
+   */
+  private int[] getRanks(String elementKey) {
+    int[] ranks = mRanks.get(elementKey);
+    if (ranks != null) {
+      return ranks;
+    }
+    final String[] text = new String[mRowCount];
+    // 0 for null, 1 for a number, 2 for text
+    final byte[] kinds = new byte[mRowCount];
+    final TypedColumnCache.NumberColumn numbers = mSource.getNumbers(elementKey);
+    for (int i = 0; i < mRowCount; ++i) {
+      if (numbers != null && numbers.isNumber(i)) {
+        kinds[i] = 1;
+        continue;
+      }
+      if (numbers != null && numbers.isNull(i)) {
+        continue;
+      }
+      // text, which in a numeric column sorts after the numbers, as it would in SQLite
+      String value = mSource.getValue(elementKey, i);
+      if (value != null) {
+        kinds[i] = 2;
+        text[i] = value;
+      }
+    }
+
+    int[] byValue = new int[mRowCount];
+    for (int i = 0; i < mRowCount; ++i) {
+      byValue[i] = i;
+    }
+    IntComparator comparator = new IntComparator() {
+      @Override
+      public int compare(int a, int b) {
+        if (kinds[a] != kinds[b]) {
+          return kinds[a] - kinds[b];
+        }
+        if (kinds[a] == 1) {
+          return numbers.compare(a, b);
+        } else if (kinds[a] == 2) {
+          return text[a].compareTo(text[b]);
+        }
+        return 0;
+      }
+    };
+    mergeSort(byValue, mRowCount, comparator);
+
+    ranks = new int[mRowCount];
+    int rank = 0;
+    for (int i = 0; i < mRowCount; ++i) {
+      if (i > 0 && comparator.compare(byValue[i - 1], byValue[i]) != 0) {
+        ++rank;
+      }
+      ranks[byValue[i]] = rank;
+    }
+    mRanks.put(elementKey, ranks);
+    return ranks;
+  }
+
+  private interface IntComparator {
+    int compare(int a, int b);
+  }
+
+  /**
+   * A stable merge sort of the first length entries of an int array. Runs that are already in
+   * order are not merged, so input that the database already sorted costs a single pass.
+   */
+  private void mergeSort(int[] values, int length, IntComparator comparator) {
+    if (mScratch == null || mScratch.length < length) {
+      mScratch = new int[length];
+    }
+    mergeSort(values, mScratch, 0, length, comparator);
+  }
+
+  private static void mergeSort(int[] values, int[] scratch, int from, int to,
+      IntComparator comparator) {
+    if (to - from < 2) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    mergeSort(values, scratch, from, mid, comparator);
+    mergeSort(values, scratch, mid, to, comparator);
+    if (comparator.compare(values[mid - 1], values[mid]) <= 0) {
+      return;
+    }
+    System.arraycopy(values, from, scratch, from, to - from);
+    int i = from;
+    int j = mid;
+    for (int k = from; k < to; ++k) {
+      if (j >= to || (i < mid && comparator.compare(scratch[i], scratch[j]) <= 0)) {
+        values[k] = scratch[i++];
+      } else {
+        values[k] = scratch[j++];
+      }
+    }
+  }
+}
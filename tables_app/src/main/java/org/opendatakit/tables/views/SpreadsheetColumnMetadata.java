@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import android.content.Context;
+import org.opendatakit.aggregate.odktables.rest.KeyValueStoreConstants;
+import org.opendatakit.data.ColorRuleGroup;
+import org.opendatakit.data.JoinColumn;
+import org.opendatakit.data.utilities.ColumnUtil;
+import org.opendatakit.data.utilities.TableUtil;
+import org.opendatakit.database.data.ColumnDefinition;
+import org.opendatakit.database.data.KeyValueStoreEntry;
+import org.opendatakit.database.data.OrderedColumns;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.opendatakit.logging.WebLogger;
+import org.opendatakit.tables.application.Tables;
+import org.opendatakit.tables.utils.MemoryCacheManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the spreadsheet needs to know about a table's columns that lives in the key value
+ * store: the column order, the localized display names, the widths, the color rules, the index
+ * column, the font size and the joins that the row actions menu offers. It is read in one
+ * database session and cached per table, so reopening a spreadsheet or recreating it after a
+ * menu action does not go back to the database for each column, and the row actions menu finds
+ * the joins in memory.
+ * <p>
+ * Anything that writes one of these settings must call {@link #invalidate(String, String)}.
+ * <p>
+ * The snapshots are guarded by a private lock that is never held while reading the database,
+ * because the memory manager sizes and evicts them from the UI thread.
+ */
+public final class SpreadsheetColumnMetadata {
+
+  private static final String TAG = SpreadsheetColumnMetadata.class.getSimpleName();
+
+  /**
+   * How many tables to keep snapshots for
+   */
+  private static final int MAX_CACHED_TABLES = 8;
+
+  /**
+   * Roughly what the settings of one column cost in memory, including its color rules
+   */
+  private static final int ESTIMATED_COLUMN_BYTES = 400;
+
+  private static final Object lock = new Object();
+
+  /**
+   * Bumped whenever snapshots are dropped, so that a load that started before isn't stored.
+   * Guarded by {@link #lock}.
+   */
+  private static int generation = 0;
+
+  /**
+   * Guarded by {@link #lock}
+   */
+  private static final Map<String, SpreadsheetColumnMetadata> cache = new LinkedHashMap<String,
+      SpreadsheetColumnMetadata>(MAX_CACHED_TABLES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, SpreadsheetColumnMetadata> eldest) {
+      return size() > MAX_CACHED_TABLES;
+    }
+  };
+
+  /**
+   * Drops every snapshot under memory pressure. Held here because the manager only holds it
+   * weakly.
+   */
+  private static final MemoryCacheManager.Evictable evictable =
+      new MemoryCacheManager.Evictable() {
+        @Override
+        public int getPriority() {
+          return MemoryCacheManager.PRIORITY_QUERY_RESULTS;
+        }
+
+        @Override
+        public long getApproximateSize() {
+          long size = 0;
+          synchronized (lock) {
+            for (SpreadsheetColumnMetadata metadata : cache.values()) {
+              size += (long) metadata.elementKeys.length * ESTIMATED_COLUMN_BYTES;
+            }
+          }
+          return size;
+        }
+
+        @Override
+        public void evict() {
+          synchronized (lock) {
+            cache.clear();
+            ++generation;
+          }
+        }
+      };
+
+  static {
+    MemoryCacheManager.get().register(evictable);
+  }
+
+  private final String locale;
+  private final List<String> definedElementKeys;
+  private final String indexColumnElementKey;
+  private final String[] elementKeys;
+  private final String[] displayNames;
+  private final Map<String, Integer> columnWidths;
+  private final Map<String, ColorRuleGroup> columnColorRuleGroups;
+  private final ColorRuleGroup statusColumnRuleGroup;
+  private final ColorRuleGroup tableColorRuleGroup;
+  private final int fontSize;
+  private final Map<String, List<JoinColumn>> joinColumns;
+
+  /**
+   * Builds a snapshot from values that are already known. The database path goes through
+   * {@link #load}; tests and benchmarks use this directly to avoid the database.
+   */
+  SpreadsheetColumnMetadata(String locale, List<String> definedElementKeys,
+      String indexColumnElementKey, String[] elementKeys, String[] displayNames,
+      Map<String, Integer> columnWidths, Map<String, ColorRuleGroup> columnColorRuleGroups,
+      ColorRuleGroup statusColumnRuleGroup, ColorRuleGroup tableColorRuleGroup, int fontSize,
+      Map<String, List<JoinColumn>> joinColumns) {
+    this.locale = locale;
+    this.definedElementKeys = definedElementKeys;
+    this.indexColumnElementKey = indexColumnElementKey;
+    this.elementKeys = elementKeys;
+    this.displayNames = displayNames;
+    this.columnWidths = Collections.unmodifiableMap(columnWidths);
+    this.columnColorRuleGroups = Collections.unmodifiableMap(columnColorRuleGroups);
+    this.statusColumnRuleGroup = statusColumnRuleGroup;
+    this.tableColorRuleGroup = tableColorRuleGroup;
+    this.fontSize = fontSize;
+    this.joinColumns = Collections.unmodifiableMap(joinColumns);
+  }
+
+  private static SpreadsheetColumnMetadata load(Context context, UserDbInterface dbInterface,
+      String appName, DbHandle db, String tableId, OrderedColumns orderedDefns, String locale)
+      throws ServicesAvailabilityException {
+    String indexColumnElementKey = TableUtil.get().getIndexColumn(dbInterface, appName, db,
+        tableId);
+
+    ArrayList<String> colOrder = TableUtil.get()
+        .getColumnOrder(dbInterface, appName, db, tableId, orderedDefns);
+    String[] elementKeys = colOrder.toArray(new String[colOrder.size()]);
+    String[] displayNames = new String[elementKeys.length];
+    for (int i = 0; i < elementKeys.length; ++i) {
+      displayNames[i] = ColumnUtil.get()
+          .getLocalizedDisplayName(locale, dbInterface, appName, db, tableId, elementKeys[i]);
+    }
+
+    Map<String, Integer> columnWidths = ColumnUtil.get()
+        .getColumnWidths(dbInterface, appName, db, tableId, orderedDefns);
+
+    String[] adminColumns = dbInterface.getAdminColumns();
+    Map<String, ColorRuleGroup> colorRuleGroups = new HashMap<>();
+    for (ColumnDefinition cd : orderedDefns.getColumnDefinitions()) {
+      colorRuleGroups.put(cd.getElementKey(), ColorRuleGroup
+          .getColumnColorRuleGroup(dbInterface, appName, db, tableId, cd.getElementKey(),
+              adminColumns));
+    }
+    Map<String, List<JoinColumn>> joinColumns = loadJoinColumns(dbInterface, appName, db,
+        tableId);
+    ColorRuleGroup statusColumnRuleGroup = ColorRuleGroup
+        .getStatusColumnRuleGroup(dbInterface, appName, db, tableId, adminColumns);
+    ColorRuleGroup tableColorRuleGroup = ColorRuleGroup
+        .getTableColorRuleGroup(dbInterface, appName, db, tableId, adminColumns);
+
+    int fontSize = TableUtil.get()
+        .getSpreadsheetViewFontSize(context, dbInterface, appName, db, tableId);
+
+    return new SpreadsheetColumnMetadata(locale, definedElementKeys(orderedDefns),
+        indexColumnElementKey, elementKeys, displayNames, columnWidths, colorRuleGroups,
+        statusColumnRuleGroup, tableColorRuleGroup, fontSize, joinColumns);
+  }
+
+  /**
+   * Reads the joins of every column with one key value store query, rather than one per column
+   *
+   * @return the joins by element key, only for the columns that have any
+   */
+  private static Map<String, List<JoinColumn>> loadJoinColumns(UserDbInterface dbInterface,
+      String appName, DbHandle db, String tableId) throws ServicesAvailabilityException {
+    // a null aspect matches every column
+    List<KeyValueStoreEntry> entries = dbInterface
+        .getTableMetadata(appName, db, tableId, KeyValueStoreConstants.PARTITION_COLUMN, null,
+            KeyValueStoreConstants.COLUMN_JOINS, null).getEntries();
+    Map<String, List<JoinColumn>> joinColumns = new HashMap<>();
+    for (KeyValueStoreEntry entry : entries) {
+      if (entry.value == null || entry.value.isEmpty()) {
+        continue;
+      }
+      try {
+        List<JoinColumn> joins = JoinColumn.fromSerialization(entry.value);
+        if (joins != null && !joins.isEmpty()) {
+          joinColumns.put(entry.aspect, Collections.unmodifiableList(joins));
+        }
+      } catch (IOException e) {
+        WebLogger.getLogger(appName).e(TAG, "unable to parse the joins of " + entry.aspect);
+        WebLogger.getLogger(appName).printStackTrace(e);
+      }
+    }
+    return joinColumns;
+  }
+
+  /**
+   * Returns the cached snapshot for a table, reading it from the database if there is none or it
+   * was built for a different locale or a different set of columns. Two threads missing at the
+   * same time both read the database; the last one to finish is cached.
+   *
+   * @param context      used to resolve the default font size
+   * @param appName      the app name
+   * @param tableId      the table id
+   * @param orderedDefns the columns of the table
+   * @param locale       the user selected default locale
+   * @return the column metadata for the table
+   * @throws ServicesAvailabilityException if the database is down
+   */
+  public static SpreadsheetColumnMetadata get(Context context, String appName,
+      String tableId, OrderedColumns orderedDefns, String locale)
+      throws ServicesAvailabilityException {
+    String key = cacheKey(appName, tableId);
+    SpreadsheetColumnMetadata metadata;
+    int loadGeneration;
+    synchronized (lock) {
+      metadata = cache.get(key);
+      loadGeneration = generation;
+    }
+    if (metadata != null && metadata.definedElementKeys.equals(definedElementKeys(orderedDefns))
+        && (locale == null ?
+        metadata.locale == null :
+        locale.equals(metadata.locale))) {
+      return metadata;
+    }
+
+    long start = System.currentTimeMillis();
+    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
+    DbHandle db = null;
+    try {
+      db = dbInterface.openDatabase(appName);
+      metadata = load(context, dbInterface, appName, db, tableId, orderedDefns, locale);
+    } finally {
+      if (db != null) {
+        dbInterface.closeDatabase(appName, db);
+      }
+    }
+    synchronized (lock) {
+      if (loadGeneration == generation) {
+        cache.put(key, metadata);
+      }
+    }
+    WebLogger.getLogger(appName).i(TAG, "loaded column metadata for " + tableId + " in "
+        + Long.toString(System.currentTimeMillis() - start) + " ms");
+    return metadata;
+  }
+
+  /**
+   * Drops the snapshot for one table. Call after changing a column width, color rule, column
+   * order, index column, display name or join.
+   *
+   * @param appName the app name
+   * @param tableId the table that changed
+   */
+  public static void invalidate(String appName, String tableId) {
+    synchronized (lock) {
+      cache.remove(cacheKey(appName, tableId));
+      ++generation;
+    }
+  }
+
+  /**
+   * Drops the snapshots for every table in an app, for example after a sync or import
+   *
+   * @param appName the app name
+   */
+  public static void invalidateAll(String appName) {
+    String prefix = cacheKey(appName, "");
+    synchronized (lock) {
+      Iterator<String> keys = cache.keySet().iterator();
+      while (keys.hasNext()) {
+        if (keys.next().startsWith(prefix)) {
+          keys.remove();
+        }
+      }
+      ++generation;
+    }
+  }
+
+  private static List<String> definedElementKeys(OrderedColumns orderedDefns) {
+    List<String> keys = new ArrayList<>();
+    for (ColumnDefinition cd : orderedDefns.getColumnDefinitions()) {
+      keys.add(cd.getElementKey());
+    }
+    return keys;
+  }
+
+  private static String cacheKey(String appName, String tableId) {
+    return appName + "/" + tableId;
+  }
+
+  String getIndexColumnElementKey() {
+    return indexColumnElementKey;
+  }
+
+  /**
+   * @return the element keys of the displayed columns, in display order. Do not modify.
+   */
+  String[] getElementKeys() {
+    return elementKeys;
+  }
+
+  /**
+   * @return the localized display names, indexed like {@link #getElementKeys()}. Do not modify.
+   */
+  String[] getDisplayNames() {
+    return displayNames;
+  }
+
+  Map<String, Integer> getColumnWidths() {
+    return columnWidths;
+  }
+
+  Map<String, ColorRuleGroup> getColumnColorRuleGroups() {
+    return columnColorRuleGroups;
+  }
+
+  ColorRuleGroup getStatusColumnRuleGroup() {
+    return statusColumnRuleGroup;
+  }
+
+  ColorRuleGroup getTableColorRuleGroup() {
+    return tableColorRuleGroup;
+  }
+
+  int getFontSize() {
+    return fontSize;
+  }
+
+  /**
+   * @param elementKey a column
+   * @return the join definitions of the column, empty if it has none. Do not modify.
+   */
+  List<JoinColumn> getJoinColumns(String elementKey) {
+    List<JoinColumn> joins = joinColumns.get(elementKey);
+    return joins == null ? Collections.<JoinColumn>emptyList() : joins;
+  }
+}
@@ -5,6 +5,10 @@ import android.content.Intent;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Created by Niles on 6/20/17.
  * used in TableDisplayActivity to store stuff for SpreadsheetFragment
@@ -51,6 +55,17 @@ public class SpreadsheetProps implements Parcelable {
   private String sortOrder;
   private String frozen;
   private String[] groupBy;
+  /**
+   * Further sort columns, applied in memory to rows that tie on the sort column, and the
+   * direction of each
+   */
+  private String[] thenBy = new String[0];
+  private String[] thenByOrder = new String[0];
+  /**
+   * The ids of the rows the user selected for a bulk delete or update, in the order they were
+   * selected
+   */
+  private final Set<String> selectedRowIds = new LinkedHashSet<>();
   /**
    * the activity to put the properties into in order to update the parent about changes to the
    * four sql properties
@@ -78,6 +93,9 @@ public class SpreadsheetProps implements Parcelable {
       groupBy = new String[length];
       in.readStringArray(groupBy);
     }
+    thenBy = in.createStringArray();
+    thenByOrder = in.createStringArray();
+    selectedRowIds.addAll(Arrays.asList(in.createStringArray()));
     boolean[] bools = new boolean[3];
     in.readBooleanArray(bools);
     dataMenuOpen = bools[0];
@@ -161,6 +179,9 @@ public class SpreadsheetProps implements Parcelable {
       dest.writeInt(groupBy.length);
       dest.writeStringArray(groupBy);
     }
+    dest.writeStringArray(thenBy);
+    dest.writeStringArray(thenByOrder);
+    dest.writeStringArray(getSelectedRowIds());
     dest.writeBooleanArray(new boolean[] { dataMenuOpen, headerMenuOpen, deleteDialogOpen });
     writeCellInfo(dest, lastDataCellMenued);
     writeCellInfo(dest, lastHeaderCellMenued);
@@ -202,6 +223,79 @@ public class SpreadsheetProps implements Parcelable {
     updateParent();
   }
 
+  /**
+   * @return the columns to sort by after the sort column, most significant first. Do not modify.
+   */
+  public String[] getThenBy() {
+    return thenBy;
+  }
+
+  /**
+   * @return ASC or DESC for each column of {@link #getThenBy()}. Do not modify.
+   */
+  public String[] getThenByOrder() {
+    return thenByOrder;
+  }
+
+  /**
+   * Sets the columns to sort by after the sort column
+   *
+   * @param thenBy      the columns, most significant first
+   * @param thenByOrder ASC or DESC for each of the columns
+   */
+  public void setThenBy(String[] thenBy, String[] thenByOrder) {
+    if (thenBy.length != thenByOrder.length) {
+      throw new IllegalArgumentException("need a sort direction for every column");
+    }
+    this.thenBy = thenBy;
+    this.thenByOrder = thenByOrder;
+    updateParent();
+  }
+
+  /**
+   * @param rowId a row id
+   * @return whether the row is selected
+   */
+  public boolean isRowSelected(String rowId) {
+    return !selectedRowIds.isEmpty() && selectedRowIds.contains(rowId);
+  }
+
+  /**
+   * Selects or deselects a row. The selection isn't part of the sql query so the parent isn't
+   * updated.
+   *
+   * @param rowId    the row id
+   * @param selected whether the row should be selected
+   */
+  public void setRowSelected(String rowId, boolean selected) {
+    if (selected) {
+      selectedRowIds.add(rowId);
+    } else {
+      selectedRowIds.remove(rowId);
+    }
+  }
+
+  /**
+   * @return the ids of the selected rows, in the order they were selected
+   */
+  public String[] getSelectedRowIds() {
+    return selectedRowIds.toArray(new String[selectedRowIds.size()]);
+  }
+
+  /**
+   * @return how many rows are selected
+   */
+  public int getSelectedRowCount() {
+    return selectedRowIds.size();
+  }
+
+  /**
+   * Deselects every row
+   */
+  public void clearSelection() {
+    selectedRowIds.clear();
+  }
+
   /**
    * Puts props in the result so the calling intent will know about any changes made to the sql
    * properties. For example, if you open a collection view, freeze a column and reverse the sort
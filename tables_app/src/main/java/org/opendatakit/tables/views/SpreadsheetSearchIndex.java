@@ -0,0 +1,518 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import org.opendatakit.tables.utils.MemoryCacheManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An inverted index from the words in the display text of some columns of a table to the cells
+ * they appear in, for the spreadsheet's search bar. Words are runs of letters and digits,
+ * compared without case. A query matches a cell if the cell contains every word of the query,
+ * the last one as a prefix so that hits show up while the user is still typing it.
+ * <p>
+ * Rows are tracked by row id, and the text each cell was indexed with is kept. When the table
+ * is loaded again after an edit, {@link #update} compares each cell with what was indexed and
+ * only re-indexes the cells that changed and the rows that were added or removed. Indexes are
+ * kept per table so this also works across the fragment being recreated. An index only knows
+ * the generation of the rows it was built from, not the rows themselves, so it doesn't keep a
+ * loaded table alive. The indexes are dropped under memory pressure and built again on the next
+ * search.
+ */
+public final class SpreadsheetSearchIndex {
+
+  /**
+   * How many tables to keep indexes for
+   */
+  private static final int MAX_CACHED_TABLES = 4;
+
+  private static final Map<String, SpreadsheetSearchIndex> cache = new LinkedHashMap<String,
+      SpreadsheetSearchIndex>(MAX_CACHED_TABLES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, SpreadsheetSearchIndex> eldest) {
+      return size() > MAX_CACHED_TABLES;
+    }
+  };
+
+  /**
+   * Builds the indexes off the UI thread, one at a time
+   */
+  private static final ExecutorService indexExecutor = Executors.newSingleThreadExecutor();
+
+  /**
+   * Drops every index under memory pressure. Held here because the manager only holds it weakly.
+   */
+  private static final MemoryCacheManager.Evictable evictable = new MemoryCacheManager.Evictable() {
+    @Override
+    public int getPriority() {
+      return MemoryCacheManager.PRIORITY_DERIVED;
+    }
+
+    @Override
+    public long getApproximateSize() {
+      long size = 0;
+      synchronized (SpreadsheetSearchIndex.class) {
+        for (SpreadsheetSearchIndex index : cache.values()) {
+          size += index.mApproximateSize;
+        }
+      }
+      return size;
+    }
+
+    @Override
+    public void evict() {
+      synchronized (SpreadsheetSearchIndex.class) {
+        cache.clear();
+      }
+    }
+  };
+
+  static {
+    MemoryCacheManager.get().register(evictable);
+  }
+
+  /**
+   * The rows of the table as they are currently loaded
+   */
+  public interface RowSource {
+    /**
+     * @return the number of rows
+     */
+    int getRowCount();
+
+    /**
+     * @param rowIndex the position of the row in the loaded table
+     * @return the row id of the row
+     */
+    String getRowId(int rowIndex);
+
+    /**
+     * @param rowIndex   the position of the row in the loaded table
+     * @param elementKey the column
+     * @return the text displayed in the cell, or null
+     */
+    String getText(int rowIndex, String elementKey);
+  }
+
+  /**
+   * Told when {@link #updateInBackground} is done, on the indexing thread
+   */
+  public interface UpdateListener {
+    /**
+     * @param changed the number of cells that were re-indexed
+     */
+    void indexUpdated(int changed);
+  }
+
+  /**
+   * A cell that matched a query
+   */
+  public static final class Hit {
+    /**
+     * The position of the row in the loaded table
+     */
+    public final int rowIndex;
+    /**
+     * The column of the cell
+     */
+    public final String elementKey;
+
+    Hit(int rowIndex, String elementKey) {
+      this.rowIndex = rowIndex;
+      this.elementKey = elementKey;
+    }
+  }
+
+  /**
+   * A growable list of cells, each encoded as doc * number of columns + column
+   */
+  private static final class Postings {
+    int[] cells = new int[4];
+    int size = 0;
+
+    void add(int cell) {
+      if (size == cells.length) {
+        cells = Arrays.copyOf(cells, size * 2);
+      }
+      cells[size++] = cell;
+    }
+
+    void remove(int cell) {
+      for (int i = 0; i < size; ++i) {
+        if (cells[i] == cell) {
+          cells[i] = cells[--size];
+          return;
+        }
+      }
+    }
+  }
+
+  private final String[] mElementKeys;
+  private final TreeMap<String, Postings> mPostings = new TreeMap<>();
+  /**
+   * Each row id that was seen is given a doc number, which is reused once the row is gone
+   */
+  private final Map<String, Integer> mDocByRowId = new HashMap<>();
+  private final List<String[]> mTextByDoc = new ArrayList<>();
+  private final List<String> mRowIdByDoc = new ArrayList<>();
+  private final List<Integer> mFreeDocs = new ArrayList<>();
+  private int[] mRowIndexByDoc = new int[0];
+  /**
+   * The generation of the rows the index was last brought up to date with, or -1
+   */
+  private volatile long mGeneration = -1;
+  /**
+   * The generation a background update has been queued for, and who to tell when it is done
+   */
+  private long mQueuedGeneration = -1;
+  private UpdateListener mQueuedListener = null;
+  private volatile long mApproximateSize = 0;
+
+  /**
+   * @param elementKeys the columns to index, in display order
+   */
+  public SpreadsheetSearchIndex(String[] elementKeys) {
+    this.mElementKeys = elementKeys.clone();
+  }
+
+  /**
+   * Returns the index for a table, creating an empty one if there is none yet or the existing
+   * one covers different columns
+   *
+   * @param appName     the app name
+   * @param tableId     the table id
+   * @param elementKeys the columns to index, in display order
+   * @return the index, which has to be brought up to date with {@link #update} before searching
+   */
+  public static synchronized SpreadsheetSearchIndex get(String appName, String tableId,
+      String[] elementKeys) {
+    String key = getKey(appName, tableId);
+    SpreadsheetSearchIndex index = cache.get(key);
+    if (index == null || !Arrays.equals(index.mElementKeys, elementKeys)) {
+      index = new SpreadsheetSearchIndex(elementKeys);
+      cache.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * Drops the index of a table, for example because its columns changed
+   *
+   * @param appName the app name
+   * @param tableId the table id
+   */
+  public static synchronized void invalidate(String appName, String tableId) {
+    cache.remove(getKey(appName, tableId));
+  }
+
+  /**
+   * Drops the indexes of every table of an app, for example after a sync
+   *
+   * @param appName the app name
+   */
+  public static synchronized void invalidateAll(String appName) {
+    Iterator<String> keys = cache.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(appName + "/")) {
+        keys.remove();
+      }
+    }
+  }
+
+  private static String getKey(String appName, String tableId) {
+    return appName + "/" + tableId;
+  }
+
+  /**
+   * @return the indexed columns. Do not modify.
+   */
+  public String[] getElementKeys() {
+    return mElementKeys;
+  }
+
+  /**
+   * @param generation identifies the loaded rows; it changes whenever the table is loaded again
+   * @return whether the index was last brought up to date with those rows
+   */
+  public boolean isUpToDate(long generation) {
+    return mGeneration == generation;
+  }
+
+  /**
+   * Brings the index up to date on a background thread. Asking again for the same generation
+   * while that update is queued only replaces the listener. The listener is called even if the
+   * index was already up to date.
+   *
+   * @param source     the loaded rows, only read during the update
+   * @param generation identifies the loaded rows
+   * @param listener   told on the indexing thread when the index is up to date
+   */
+  public void updateInBackground(final RowSource source, final long generation,
+      UpdateListener listener) {
+    synchronized (this) {
+      if (mQueuedGeneration == generation) {
+        mQueuedListener = listener;
+        return;
+      }
+      mQueuedGeneration = generation;
+      mQueuedListener = listener;
+    }
+    indexExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        int changed = isUpToDate(generation) ? 0 : update(source, generation);
+        UpdateListener done;
+        synchronized (SpreadsheetSearchIndex.this) {
+          done = mQueuedListener;
+          if (mQueuedGeneration == generation) {
+            mQueuedGeneration = -1;
+            mQueuedListener = null;
+          }
+        }
+        if (done != null) {
+          done.indexUpdated(changed);
+        }
+      }
+    });
+  }
+
+  /**
+   * Brings the index up to date with the rows as they are now loaded. Only cells whose text
+   * differs from the text they were indexed with are re-indexed. The source isn't kept.
+   *
+   * @param source     the loaded rows
+   * @param generation identifies the loaded rows
+   * @return the number of cells that were re-indexed
+   */
+  public synchronized int update(RowSource source, long generation) {
+    int columns = mElementKeys.length;
+    int rowCount = source.getRowCount();
+    int[] rowIndexByDoc = new int[Math.max(mTextByDoc.size(), rowCount)];
+    Arrays.fill(rowIndexByDoc, -1);
+    int changed = 0;
+    for (int i = 0; i < rowCount; ++i) {
+      String rowId = source.getRowId(i);
+      Integer doc = mDocByRowId.get(rowId);
+      if (doc == null) {
+        doc = newDoc(rowId);
+        if (doc >= rowIndexByDoc.length) {
+          int oldLength = rowIndexByDoc.length;
+          rowIndexByDoc = Arrays.copyOf(rowIndexByDoc, Math.max(doc + 1, oldLength * 2));
+          Arrays.fill(rowIndexByDoc, oldLength, rowIndexByDoc.length, -1);
+        }
+      } else if (rowIndexByDoc[doc] != -1) {
+        // the same row id twice, as in a grouped view; only the first is searchable
+        continue;
+      }
+      rowIndexByDoc[doc] = i;
+      String[] texts = mTextByDoc.get(doc);
+      for (int c = 0; c < columns; ++c) {
+        String text = source.getText(i, mElementKeys[c]);
+        if (text == null ? texts[c] != null : !text.equals(texts[c])) {
+          removeCell(doc * columns + c, texts[c]);
+          addCell(doc * columns + c, text);
+          texts[c] = text;
+          ++changed;
+        }
+      }
+    }
+    // forget the rows that are gone
+    for (int doc = 0; doc < mTextByDoc.size(); ++doc) {
+      String rowId = mRowIdByDoc.get(doc);
+      if (rowId != null && rowIndexByDoc[doc] == -1) {
+        String[] texts = mTextByDoc.get(doc);
+        for (int c = 0; c < columns; ++c) {
+          removeCell(doc * columns + c, texts[c]);
+          texts[c] = null;
+        }
+        mDocByRowId.remove(rowId);
+        mRowIdByDoc.set(doc, null);
+        mFreeDocs.add(doc);
+        ++changed;
+      }
+    }
+    mRowIndexByDoc = rowIndexByDoc;
+    mGeneration = generation;
+    mApproximateSize = computeApproximateSize();
+    return changed;
+  }
+
+  /**
+   * @return roughly how many bytes the indexed text and postings take
+   */
+  private long computeApproximateSize() {
+    long size = 0;
+    for (String[] texts : mTextByDoc) {
+      for (String text : texts) {
+        size += text == null ? 4 : 40 + 2 * text.length();
+      }
+    }
+    for (Map.Entry<String, Postings> entry : mPostings.entrySet()) {
+      size += 80 + 2 * entry.getKey().length() + 4 * entry.getValue().cells.length;
+    }
+    return size;
+  }
+
+  /**
+   * Finds the cells that contain every word of the query, the last word as a prefix
+   *
+   * @param query what the user typed
+   * @return the matching cells ordered by row index, then by column
+   */
+  public synchronized List<Hit> search(String query) {
+    List<String> words = tokenize(query);
+    if (words.isEmpty()) {
+      return Collections.emptyList();
+    }
+    String last = words.get(words.size() - 1);
+    int[] cells = union(mPostings.subMap(last, true, last + Character.MAX_VALUE, true).values());
+    for (int w = 0; w < words.size() - 1 && cells.length != 0; ++w) {
+      Postings postings = mPostings.get(words.get(w));
+      cells = postings == null ? new int[0] : intersect(cells, postings);
+    }
+
+    int columns = mElementKeys.length;
+    List<Hit> hits = new ArrayList<>(cells.length);
+    long[] ordered = new long[cells.length];
+    int count = 0;
+    for (int cell : cells) {
+      int rowIndex = mRowIndexByDoc[cell / columns];
+      if (rowIndex != -1) {
+        ordered[count++] = ((long) rowIndex << 32) | (cell % columns);
+      }
+    }
+    Arrays.sort(ordered, 0, count);
+    for (int i = 0; i < count; ++i) {
+      hits.add(new Hit((int) (ordered[i] >>> 32), mElementKeys[(int) ordered[i]]));
+    }
+    return hits;
+  }
+
+  private int newDoc(String rowId) {
+    int doc;
+    if (mFreeDocs.isEmpty()) {
+      doc = mTextByDoc.size();
+      mTextByDoc.add(new String[mElementKeys.length]);
+      mRowIdByDoc.add(rowId);
+    } else {
+      doc = mFreeDocs.remove(mFreeDocs.size() - 1);
+      mRowIdByDoc.set(doc, rowId);
+    }
+    mDocByRowId.put(rowId, doc);
+    return doc;
+  }
+
+  private void addCell(int cell, String text) {
+    for (String word : new HashSet<>(tokenize(text))) {
+      Postings postings = mPostings.get(word);
+      if (postings == null) {
+        postings = new Postings();
+        mPostings.put(word, postings);
+      }
+      postings.add(cell);
+    }
+  }
+
+  private void removeCell(int cell, String text) {
+    for (String word : new HashSet<>(tokenize(text))) {
+      Postings postings = mPostings.get(word);
+      if (postings != null) {
+        postings.remove(cell);
+        if (postings.size == 0) {
+          mPostings.remove(word);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the distinct cells of all the postings, sorted
+   */
+  private static int[] union(Iterable<Postings> postingsList) {
+    Set<Integer> seen = new HashSet<>();
+    for (Postings postings : postingsList) {
+      for (int i = 0; i < postings.size; ++i) {
+        seen.add(postings.cells[i]);
+      }
+    }
+    int[] cells = new int[seen.size()];
+    int i = 0;
+    for (Integer cell : seen) {
+      cells[i++] = cell;
+    }
+    Arrays.sort(cells);
+    return cells;
+  }
+
+  /**
+   * @return the cells in the sorted array that are also in the postings, still sorted
+   */
+  private static int[] intersect(int[] sortedCells, Postings postings) {
+    boolean[] keep = new boolean[sortedCells.length];
+    for (int i = 0; i < postings.size; ++i) {
+      int found = Arrays.binarySearch(sortedCells, postings.cells[i]);
+      if (found >= 0) {
+        keep[found] = true;
+      }
+    }
+    int count = 0;
+    for (int i = 0; i < sortedCells.length; ++i) {
+      if (keep[i]) {
+        sortedCells[count++] = sortedCells[i];
+      }
+    }
+    return Arrays.copyOf(sortedCells, count);
+  }
+
+  /**
+   * Splits text into lower-cased runs of letters and digits
+   *
+   * @param text the text, may be null
+   * @return the words, in order
+   */
+  static List<String> tokenize(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    String lower = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lower.length(); ++i) {
+      boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+      if (wordChar && start == -1) {
+        start = i;
+      } else if (!wordChar && start != -1) {
+        words.add(lower.substring(start, i));
+        start = -1;
+      }
+    }
+    return words;
+  }
+}
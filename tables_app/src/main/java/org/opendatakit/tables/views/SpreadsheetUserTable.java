@@ -16,22 +16,26 @@
 package org.opendatakit.tables.views;
 
 import android.app.Activity;
+import org.opendatakit.aggregate.odktables.rest.ElementDataType;
 import org.opendatakit.data.ColorRuleGroup;
-import org.opendatakit.data.utilities.ColumnUtil;
-import org.opendatakit.data.utilities.TableUtil;
+import org.opendatakit.data.JoinColumn;
 import org.opendatakit.database.data.*;
 import org.opendatakit.database.service.DbHandle;
 import org.opendatakit.database.service.UserDbInterface;
 import org.opendatakit.exception.ServicesAvailabilityException;
 import org.opendatakit.properties.CommonToolProperties;
 import org.opendatakit.properties.PropertiesSingleton;
+import org.opendatakit.provider.DataTableColumns;
 import org.opendatakit.tables.activities.ISpreadsheetFragmentContainer;
-import org.opendatakit.tables.application.Tables;
 import org.opendatakit.tables.fragments.AbsTableDisplayFragment;
+import org.opendatakit.tables.utils.MemoryCacheManager;
+import org.opendatakit.tables.utils.SQLQueryStruct;
+import org.opendatakit.tables.utils.TypedColumnCache;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Wrapper class for UserTable that presents the table in the way that the
@@ -53,6 +57,17 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
   private final Map<String, Integer> elementKeyToSpreadsheetIndex;
   private SpreadsheetProps props;
   private UserTable userTable;
+  // Display names, widths, color rules etc. shared with the SpreadsheetView
+  private final SpreadsheetColumnMetadata columnMetadata;
+  // The display order of the rows of rowOrderTable, when it differs from the database order
+  private RowOrder rowOrder = null;
+  private UserTable rowOrderTable = null;
+  // Hands out a new generation whenever the search index sees a different loaded table
+  private static final AtomicLong searchGenerations = new AtomicLong();
+  // The rows as seen by the search index, the table they were read from and its generation
+  private SpreadsheetSearchIndex.RowSource searchSource = null;
+  private UserTable searchSourceTable = null;
+  private long searchGeneration = -1;
 
   /**
    * Constructs a SpreadsheetUserTable
@@ -61,57 +76,58 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
    * @throws ServicesAvailabilityException if the database is down
    */
   public SpreadsheetUserTable(AbsTableDisplayFragment frag) throws ServicesAvailabilityException {
+    this(frag, getContainerProps(frag), loadColumnMetadata(frag));
+  }
+
+  /**
+   * Constructs a SpreadsheetUserTable from column metadata that has already been loaded. Used
+   * directly by tests and benchmarks, which have no database.
+   *
+   * @param frag           the fragment we're embedded in
+   * @param props          the spreadsheet properties of the activity, may be null
+   * @param columnMetadata the column metadata of the table
+   */
+  SpreadsheetUserTable(AbsTableDisplayFragment frag, SpreadsheetProps props,
+      SpreadsheetColumnMetadata columnMetadata) {
     this.fragment = frag;
-    props = null;
+    this.props = props;
+    this.columnMetadata = columnMetadata;
+    userTable = getUserTable();
+    if (this.props != null) {
+      indexColumnElementKey = this.props.getFrozen();
+    } else {
+      indexColumnElementKey = columnMetadata.getIndexColumnElementKey();
+    }
+
+    header = columnMetadata.getDisplayNames();
+    header_keys = columnMetadata.getElementKeys();
+    spreadsheetIndexToElementKey = header_keys;
+    elementKeyToSpreadsheetIndex = new HashMap<>();
+    for (int i = 0; i < header_keys.length; ++i) {
+      elementKeyToSpreadsheetIndex.put(header_keys[i], i);
+    }
+    applySort();
+  }
+
+  private static SpreadsheetProps getContainerProps(AbsTableDisplayFragment frag) {
     if (frag == null) {
       throw new IllegalStateException("Must have a fragment to get appname to open database");
     }
     Activity act = frag.getActivity();
     if (act instanceof ISpreadsheetFragmentContainer) {
-      props = ((ISpreadsheetFragmentContainer) act).getProps();
+      return ((ISpreadsheetFragmentContainer) act).getProps();
     }
-    PropertiesSingleton props = CommonToolProperties.get(frag.getCommonApplication(), getAppName());
-    String userSelectedDefaultLocale = props.getUserSelectedDefaultLocale();
+    return null;
+  }
 
-    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
-    ArrayList<String> colOrder;
-    DbHandle db = null;
-    try {
-      db = dbInterface.openDatabase(frag.getAppName());
-      userTable = getUserTable();
-      if (this.props != null) {
-        indexColumnElementKey = this.props.getFrozen();
-      } else {
-        indexColumnElementKey = TableUtil.get()
-            .getIndexColumn(dbInterface, getAppName(), db, getTableId());
-        //indexColumnElementKey = null;
-      }
-      colOrder = TableUtil.get()
-          .getColumnOrder(dbInterface, frag.getAppName(), db, frag.getTableId(),
-              frag.getColumnDefinitions());
-
-      header = new String[colOrder.size()];
-      header_keys = new String[colOrder.size()];
-      spreadsheetIndexToElementKey = new String[colOrder.size()];
-      elementKeyToSpreadsheetIndex = new HashMap<>();
-
-      for (int i = 0; i < colOrder.size(); ++i) {
-        String elementKey = colOrder.get(i);
-        String localizedDisplayName;
-        localizedDisplayName = ColumnUtil.get()
-            .getLocalizedDisplayName(userSelectedDefaultLocale, dbInterface, getAppName(), db,
-                frag.getTableId(), elementKey);
-
-        header[i] = localizedDisplayName;
-        header_keys[i] = elementKey;
-        spreadsheetIndexToElementKey[i] = elementKey;
-        elementKeyToSpreadsheetIndex.put(elementKey, i);
-      }
-    } finally {
-      if (db != null) {
-        dbInterface.closeDatabase(frag.getAppName(), db);
-      }
-    }
+  private static SpreadsheetColumnMetadata loadColumnMetadata(AbsTableDisplayFragment frag)
+      throws ServicesAvailabilityException {
+    PropertiesSingleton props = CommonToolProperties
+        .get(frag.getCommonApplication(), frag.getAppName());
+    String userSelectedDefaultLocale = props.getUserSelectedDefaultLocale();
+    return SpreadsheetColumnMetadata
+        .get(frag.getActivity(), frag.getAppName(), frag.getTableId(),
+            frag.getColumnDefinitions(), userSelectedDefaultLocale);
   }
 
   public SpreadsheetProps getProps() {
@@ -147,12 +163,223 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
             adminColumns);
   }
 
+  /**
+   * Puts the rows in the order given by the sort column and the further sort columns of the
+   * props. The database already returns the rows ordered by the sort column, so when there are
+   * no further sort columns and the direction is the one the rows were queried with, nothing is
+   * done. Otherwise the loaded rows are sorted in memory, without going back to the database.
+   */
+  public void applySort() {
+    UserTable table = getUserTable();
+    if (table != rowOrderTable) {
+      rowOrder = null;
+      rowOrderTable = table;
+    }
+    if (props == null || table == null) {
+      return;
+    }
+    String sort = props.getSort();
+    String[] thenBy = props.getThenBy();
+    String[] thenByOrder = props.getThenByOrder();
+    boolean hasSort = sort != null && !sort.isEmpty();
+
+    if (thenBy.length == 0 && (!hasSort || isQueriedOrder(sort, props.getSortOrder()))) {
+      if (rowOrder != null) {
+        rowOrder.clear();
+      }
+      return;
+    }
+
+    String[] keys = new String[thenBy.length + (hasSort ? 1 : 0)];
+    boolean[] descending = new boolean[keys.length];
+    int k = 0;
+    if (hasSort) {
+      keys[k] = sort;
+      descending[k++] = "DESC".equals(props.getSortOrder());
+    }
+    for (int i = 0; i < thenBy.length; ++i) {
+      keys[k] = thenBy[i];
+      descending[k++] = "DESC".equals(thenByOrder[i]);
+    }
+    if (rowOrder == null) {
+      rowOrder = new RowOrder(table.getNumberOfRows(), new UserTableValues(table));
+    }
+    rowOrder.sort(keys, descending);
+  }
+
+  /**
+   * @return whether the rows were loaded from the database sorted by the given column and
+   * direction
+   */
+  private boolean isQueriedOrder(String sort, String sortOrder) {
+    SQLQueryStruct query = fragment.getUserTableQuery();
+    if (query == null || !sort.equals(query.orderByElementKey)) {
+      return false;
+    }
+    return normalizeSortOrder(sortOrder).equals(normalizeSortOrder(query.orderByDirection));
+  }
+
+  private static String normalizeSortOrder(String sortOrder) {
+    return sortOrder == null || sortOrder.isEmpty() ? "ASC" : sortOrder;
+  }
+
+  /**
+   * Maps a display position to the position of the row in the {@link UserTable}
+   *
+   * @param position the display position
+   * @return the index of the row in the user table
+   */
+  int getTableRowIndex(int position) {
+    syncRowOrder();
+    if (rowOrder == null) {
+      return position;
+    }
+    return rowOrder.getRowIndex(position);
+  }
+
+  /**
+   * Removes a row from the display without loading the table again, for example after it was
+   * deleted. The rows after it move up by one position. The removal lasts until a new
+   * {@link UserTable} is loaded, which no longer has the row in it.
+   *
+   * @param position the display position of the row
+   */
+  public void removeRow(int position) {
+    syncRowOrder();
+    UserTable table = getUserTable();
+    if (table == null) {
+      return;
+    }
+    if (rowOrder == null) {
+      rowOrder = new RowOrder(table.getNumberOfRows(), new UserTableValues(table));
+    }
+    rowOrder.remove(position);
+  }
+
+  /**
+   * Drops the display order if it belongs to a table that has since been loaded again
+   */
+  private void syncRowOrder() {
+    if (rowOrderTable != getUserTable()) {
+      applySort();
+    }
+  }
+
+  /**
+   * Maps the position of a row in the {@link UserTable} to the position it is displayed at
+   *
+   * @param tableRowIndex the index of the row in the user table
+   * @return the display position, or -1 if the row was removed
+   */
+  public int getDisplayPosition(int tableRowIndex) {
+    syncRowOrder();
+    if (rowOrder == null) {
+      return tableRowIndex;
+    }
+    return rowOrder.getPosition(tableRowIndex);
+  }
+
+  /**
+   * Returns the rows of the table to the search index. The row source and its
+   * {@link #getSearchGeneration() generation} stay the same as long as the same
+   * {@link UserTable} is loaded, so the index can tell when it is up to date.
+   *
+   * @return the loaded rows, or null if there are none
+   */
+  public SpreadsheetSearchIndex.RowSource getSearchSource() {
+    final UserTable table = getUserTable();
+    if (table == null) {
+      return null;
+    }
+    if (searchSource == null || searchSourceTable != table) {
+      searchSourceTable = table;
+      searchGeneration = searchGenerations.incrementAndGet();
+      searchSource = new SpreadsheetSearchIndex.RowSource() {
+        @Override
+        public int getRowCount() {
+          return table.getNumberOfRows();
+        }
+
+        @Override
+        public String getRowId(int rowIndex) {
+          return table.getRowAtIndex(rowIndex).getStringValueByKey(DataTableColumns.ID);
+        }
+
+        @Override
+        public String getText(int rowIndex, String elementKey) {
+          ColumnDefinition cd = getColumnDefinitions().find(elementKey);
+          return cd == null ?
+              null :
+              table.getDisplayTextOfData(rowIndex, cd.getType(), elementKey);
+        }
+      };
+    }
+    return searchSource;
+  }
+
+  /**
+   * @return identifies the rows returned by the last {@link #getSearchSource()}
+   */
+  public long getSearchGeneration() {
+    return searchGeneration;
+  }
+
+  /**
+   * Reads sort keys out of the loaded rows, and numbers out of the typed columns of the table
+   */
+  private final class UserTableValues implements RowOrder.ValueSource, TypedColumnCache.Source {
+    private final UserTable table;
+    private TypedColumnCache typedColumns = null;
+
+    UserTableValues(UserTable table) {
+      this.table = table;
+    }
+
+    @Override
+    public int getRowCount() {
+      return table.getNumberOfRows();
+    }
+
+    @Override
+    public String getValue(String elementKey, int rowIndex) {
+      return table.getRowAtIndex(rowIndex).getStringValueByKey(elementKey);
+    }
+
+    @Override
+    public TypedColumnCache.NumberColumn getNumbers(String elementKey) {
+      ColumnDefinition cd = getColumnDefinitions().find(elementKey);
+      if (cd == null) {
+        return null;
+      }
+      ElementDataType type = cd.getType().getDataType();
+      if (type != ElementDataType.integer && type != ElementDataType.number) {
+        return null;
+      }
+      if (typedColumns == null) {
+        // share the columns the activity parsed for this table, if it holds the same table
+        TypedColumnCache shared = fragment.getUserTable() == table ?
+            fragment.getTypedColumns() :
+            null;
+        if (shared != null) {
+          typedColumns = shared;
+        } else {
+          typedColumns = new TypedColumnCache(this);
+          MemoryCacheManager.get().register(typedColumns);
+        }
+      }
+      return type == ElementDataType.integer ?
+          typedColumns.getLongs(elementKey) :
+          typedColumns.getDoubles(elementKey);
+    }
+  }
+
   int getNumberOfRows() {
     UserTable table = fragment.getUserTable();
     if (table == null) {
       return 0;
     }
-    return table.getNumberOfRows();
+    syncRowOrder();
+    return rowOrder == null ? table.getNumberOfRows() : rowOrder.size();
   }
 
   /**
@@ -166,7 +393,22 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
     if (table == null) {
       return null;
     }
-    return table.getRowAtIndex(index);
+    return table.getRowAtIndex(getTableRowIndex(index));
+  }
+
+  /**
+   * Looks up the join definitions of a column. They are loaded with the rest of the column
+   * metadata, so this doesn't touch the database.
+   *
+   * @param elementKey the column
+   * @return the join definitions of the column, empty if it has none
+   */
+  public List<JoinColumn> getJoinColumns(String elementKey) {
+    return columnMetadata.getJoinColumns(elementKey);
+  }
+
+  SpreadsheetColumnMetadata getColumnMetadata() {
+    return columnMetadata;
   }
 
   UserTable getUserTable() {
@@ -174,9 +416,26 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
   }
 
   UserTable getCachedUserTable() {
+    if (userTable == null) {
+      // released after an eviction, load it again
+      userTable = getUserTable();
+    }
     return userTable;
   }
 
+  /**
+   * Drops every reference to the loaded rows and to what was worked out from them, the display
+   * order, the search rows and the typed columns, so that the rows the activity evicted can be
+   * garbage collected. They are worked out again from the reloaded rows when next needed.
+   */
+  public void releaseUserTable() {
+    userTable = null;
+    rowOrder = null;
+    rowOrderTable = null;
+    searchSource = null;
+    searchSourceTable = null;
+  }
+
   // Whether or not we have a frozen column...
 
   String getIndexedColumnElementKey() {
@@ -210,13 +469,14 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
     SpreadsheetCell cell = new SpreadsheetCell();
     userTable = getUserTable();
     cell.rowNum = cellInfo.rowId;
-    cell.row = userTable.getRowAtIndex(cellInfo.rowId);
+    int rowIndex = getTableRowIndex(cellInfo.rowId);
+    cell.row = userTable.getRowAtIndex(rowIndex);
     cell.elementKey = cellInfo.elementKey;
     OrderedColumns orderedDefns = getColumnDefinitions();
     ColumnDefinition cd = orderedDefns.find(cellInfo.elementKey);
     getTableId();
     cell.displayText = userTable
-        .getDisplayTextOfData(cellInfo.rowId, cd.getType(), cellInfo.elementKey);
+        .getDisplayTextOfData(rowIndex, cd.getType(), cellInfo.elementKey);
     cell.value = cell.row.getStringValueByKey(cellInfo.elementKey);
     return cell;
   }
@@ -245,6 +505,16 @@ public class SpreadsheetUserTable implements ISpreadsheetFragmentContainer {
     return header.length;
   }
 
+  /**
+   * @param elementKey the id of a column
+   * @return the localized name shown in the header of that column, or the element key if it is
+   * not displayed
+   */
+  public String getDisplayName(String elementKey) {
+    Integer index = getColumnIndexOfElementKey(elementKey);
+    return index == null ? elementKey : header[index];
+  }
+
   /**
    * TODO document
    *
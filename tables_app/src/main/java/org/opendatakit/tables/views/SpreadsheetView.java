@@ -25,18 +25,12 @@ import android.widget.LinearLayout;
 import android.widget.ScrollView;
 import android.widget.Toast;
 import org.opendatakit.data.ColorRuleGroup;
-import org.opendatakit.data.utilities.ColumnUtil;
-import org.opendatakit.data.utilities.TableUtil;
 import org.opendatakit.database.data.ColumnDefinition;
-import org.opendatakit.database.service.DbHandle;
-import org.opendatakit.database.service.UserDbInterface;
 import org.opendatakit.exception.ServicesAvailabilityException;
 import org.opendatakit.logging.WebLogger;
 import org.opendatakit.tables.R;
-import org.opendatakit.tables.application.Tables;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -83,6 +77,7 @@ public class SpreadsheetView extends LinearLayout implements TabularView.Control
   private TabularView mainHeader = null;
   private TabularView indexData;
   private TabularView indexHeader;
+  private TabularView statusData = null;
 
   private View.OnTouchListener mainDataCellClickListener;
   private View.OnTouchListener mainHeaderCellClickListener;
@@ -118,32 +113,16 @@ public class SpreadsheetView extends LinearLayout implements TabularView.Control
     this.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
 
     // We have to initialize the items that will be shared across the TabularView objects.
-    this.mElementKeyToColorRuleGroup = new HashMap<>();
-
+    // They all come from the column metadata snapshot the table loaded, so there is no
+    // database access here.
+    SpreadsheetColumnMetadata columnMetadata = table.getColumnMetadata();
+    this.mElementKeyToColorRuleGroup = columnMetadata.getColumnColorRuleGroups();
+    mStatusColumnRuleGroup = columnMetadata.getStatusColumnRuleGroup();
+    mTableColorRuleGroup = columnMetadata.getTableColorRuleGroup();
+    completeColWidths = getColumnWidths();
     // if a custom font size is defined in the KeyValueStore, use that if not, use the general
     // font size defined in preferences
-    String appName = table.getAppName();
-    UserDbInterface dbInterface = Tables.getInstance().getDatabase();
-    DbHandle db = null;
-    try {
-      db = dbInterface.openDatabase(appName);
-      String[] adminColumns = dbInterface.getAdminColumns();
-      for (ColumnDefinition cd : table.getColumnDefinitions().getColumnDefinitions()) {
-        mElementKeyToColorRuleGroup.put(cd.getElementKey(),
-            table.getColumnColorRuleGroup(dbInterface, db, cd.getElementKey(), adminColumns));
-      }
-      mStatusColumnRuleGroup = ColorRuleGroup
-          .getStatusColumnRuleGroup(dbInterface, appName, db, table.getTableId(), adminColumns);
-      mTableColorRuleGroup = ColorRuleGroup
-          .getTableColorRuleGroup(dbInterface, appName, db, table.getTableId(), adminColumns);
-      completeColWidths = getColumnWidths(db);
-      fontSize = TableUtil.get()
-          .getSpreadsheetViewFontSize(getContext(), dbInterface, appName, db, table.getTableId());
-    } finally {
-      if (db != null) {
-        dbInterface.closeDatabase(appName, db);
-      }
-    }
+    fontSize = columnMetadata.getFontSize();
 
     initListeners();
     if (!table.isIndexed()) {
@@ -574,6 +553,7 @@ public class SpreadsheetView extends LinearLayout implements TabularView.Control
             this.mElementKeyToColorRuleGroup, mStatusColumnRuleGroup);
     dataTable.setVerticalFadingEdgeEnabled(true);
     dataTable.setVerticalScrollBarEnabled(false);
+    statusData = dataTable;
     dataStatusScroll.addView(dataTable,
         new ViewGroup.LayoutParams(dataTable.getTableWidth(), dataTable.getTableHeight()));
     dataStatusScroll.setVerticalFadingEdgeEnabled(true);
@@ -593,6 +573,67 @@ public class SpreadsheetView extends LinearLayout implements TabularView.Control
     return wrapper;
   }
 
+  /**
+   * Redraws every part of the spreadsheet, for example after the rows were sorted again in
+   * memory. Nothing is rebuilt.
+   */
+  public void refreshRows() {
+    for (TabularView view : new TabularView[] { mainData, mainHeader, indexData, indexHeader,
+        statusData }) {
+      if (view != null) {
+        view.invalidate();
+      }
+    }
+  }
+
+  /**
+   * Removes a row from the spreadsheet in place, for example after it was deleted. The table and
+   * its display order drop the row, and each data view shrinks by a row and redraws only from
+   * that row down. Nothing is queried or rebuilt.
+   *
+   * @param position the display position of the row
+   */
+  public void removeRow(int position) {
+    table.removeRow(position);
+    for (TabularView view : new TabularView[] { mainData, indexData, statusData }) {
+      if (view != null) {
+        view.removeRow(position);
+      }
+    }
+  }
+
+  /**
+   * Highlights a cell and scrolls it into view, for example to show a search hit
+   *
+   * @param elementKey the column of the cell
+   * @param position   the display position of the row
+   */
+  public void scrollToCell(String elementKey, int position) {
+    boolean inIndex = indexData != null && elementKey.equals(table.getIndexedColumnElementKey());
+    TabularView target = inIndex ? indexData : mainData;
+    CellInfo cell = target.getCellInfo(elementKey, position);
+    if (cell == null) {
+      return;
+    }
+    mainData.highlight(inIndex ? null : cell);
+    if (indexData != null) {
+      indexData.highlight(inIndex ? cell : null);
+    }
+    lastHighlightedCellId = cell;
+
+    // leave a couple of rows above the hit so that it isn't pinned to the top edge
+    int y = target.getRowTop(Math.max(0, position - 2));
+    mainScroll.scrollTo(mainScroll.getScrollX(), y);
+    dataStatusScroll.scrollTo(dataStatusScroll.getScrollX(), y);
+    if (indexScroll != null) {
+      indexScroll.scrollTo(indexScroll.getScrollX(), y);
+    }
+    if (!inIndex) {
+      wrapScroll.scrollTo(target.getColumnLeft(cell.colPos), wrapScroll.getScrollY());
+    }
+    refreshRows();
+  }
+
   /**
    * Gets the x translation of the scroll. This is in particular how far you
    * have scrolled to look at columns that do not begin onscreen.
@@ -663,21 +704,13 @@ public class SpreadsheetView extends LinearLayout implements TabularView.Control
    * NB: If getting this from outside of spreadsheet view, you should really
    * consider if you need to be accessing column widths.
    *
-   * @param db The database to use
-   * @return an array of the widths for each column, taken from the database
-   * @throws ServicesAvailabilityException if the database is down
+   * @return an array of the widths for each column, taken from the column metadata snapshot
    */
-  public int[] getColumnWidths(DbHandle db) throws ServicesAvailabilityException {
-    // So what we want to do is go through and get the column widths for each
-    // column. A problem here is that there is no caching, and if you have a
-    // lot of columns you're really working the gut of the database.
+  public int[] getColumnWidths() {
     int numberOfDisplayColumns = table.getNumberOfDisplayColumns();
     int[] columnWidths = new int[numberOfDisplayColumns];
-    String appName = table.getAppName();
 
-    Map<String, Integer> colWidths = ColumnUtil.get()
-        .getColumnWidths(Tables.getInstance().getDatabase(), appName, db,
-            table.getTableId(), table.getColumnDefinitions());
+    Map<String, Integer> colWidths = table.getColumnMetadata().getColumnWidths();
 
     for (int i = 0; i < numberOfDisplayColumns; i++) {
       ColumnDefinition cd = table.getColumnByIndex(i);
@@ -23,6 +23,7 @@ import android.graphics.Typeface;
 import android.util.DisplayMetrics;
 import android.view.ContextMenu;
 import android.view.View;
+import android.view.ViewGroup;
 import org.opendatakit.data.ColorGuide;
 import org.opendatakit.data.ColorGuideGroup;
 import org.opendatakit.data.ColorRuleGroup;
@@ -30,6 +31,7 @@ import org.opendatakit.database.data.ColumnDefinition;
 import org.opendatakit.database.data.TypedRow;
 import org.opendatakit.logging.WebLogger;
 import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.tables.utils.PerfTrace;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -62,6 +64,7 @@ final class TabularView extends View {
   private static final int SORT_COLOR = Color.rgb(0xff, 0x80, 0x80); // pink-ish
   private static final int FROZEN_COLOR = Color.rgb(0xcc, 0xcc, 0xcc); // a lighter grey
   private static final int NULL_COLOR = Color.rgb(127, 127, 127); // grey
+  private static final int SELECTED_COLOR = Color.rgb(0xb3, 0xd9, 0xff); // light blue
   private static final int ROW_HEIGHT_PADDING = 14;
   private static final int HORIZONTAL_CELL_PADDING = 5;
   private static final int VERTICAL_CELL_PADDING = 9;
@@ -169,18 +172,23 @@ final class TabularView extends View {
 
     // Initialized the ColorGuideGroups
     if (mTable != null) {
-      this.mRowColorGuideGroup = new ColorGuideGroup(rowColorRuleGroup, mTable.getUserTable());
-
-      for (Map.Entry<String, ColorRuleGroup> stringColorRuleGroupEntry : elementKeyToColorRuleGroup
-          .entrySet()) {
-        ColorRuleGroup crg = stringColorRuleGroupEntry.getValue();
-        if (crg != null) {
-          if (this.mColumnColorGuideGroup == null) {
-            this.mColumnColorGuideGroup = new TreeMap<>();
+      long start = PerfTrace.begin(PerfTrace.COLOR_RULE_EVALUATION);
+      try {
+        this.mRowColorGuideGroup = new ColorGuideGroup(rowColorRuleGroup, mTable.getUserTable());
+
+        for (Map.Entry<String, ColorRuleGroup> stringColorRuleGroupEntry :
+            elementKeyToColorRuleGroup.entrySet()) {
+          ColorRuleGroup crg = stringColorRuleGroupEntry.getValue();
+          if (crg != null) {
+            if (this.mColumnColorGuideGroup == null) {
+              this.mColumnColorGuideGroup = new TreeMap<>();
+            }
+            this.mColumnColorGuideGroup.put(stringColorRuleGroupEntry.getKey(),
+                new ColorGuideGroup(crg, mTable.getUserTable()));
           }
-          this.mColumnColorGuideGroup.put(stringColorRuleGroupEntry.getKey(),
-              new ColorGuideGroup(crg, mTable.getUserTable()));
         }
+      } finally {
+        PerfTrace.end(PerfTrace.COLOR_RULE_EVALUATION, start);
       }
     }
 
@@ -222,14 +230,7 @@ final class TabularView extends View {
     } else {
       this.xs = new int[0];
     }
-    this.spans = new int[xs.length];
-    if (spans.length > 0) {
-      int total = 0;
-      for (int i = 0; i < this.spans.length; i++) {
-        spans[i] = total;
-        total += BORDER_WIDTH + columnWidths[i];
-      }
-    }
+    this.spans = ColumnSpans.computeSpans(columnWidths, xs.length, BORDER_WIDTH);
   }
 
   /**
@@ -384,6 +385,37 @@ final class TabularView extends View {
     return totalWidth;
   }
 
+  /**
+   * Gets the cell of this view in a given row and column
+   *
+   * @param elementKey the column
+   * @param row        the display position of the row
+   * @return the cell, or null if this view doesn't display that column or row
+   */
+  public CellInfo getCellInfo(String elementKey, int row) {
+    int col = mElementKeys.indexOf(elementKey);
+    if (col == -1 || row < 0 || row >= mNumberOfRows) {
+      return null;
+    }
+    return new CellInfo(elementKey, col, row);
+  }
+
+  /**
+   * @param row the display position of a row
+   * @return the y coordinate of the top of that row
+   */
+  int getRowTop(int row) {
+    return row * (rowHeight + BORDER_WIDTH);
+  }
+
+  /**
+   * @param colPos the position of a column in this view
+   * @return the x coordinate of the left side of that column
+   */
+  int getColumnLeft(int colPos) {
+    return colPos < xs.length ? xs[colPos] : 0;
+  }
+
   public CellInfo getCellInfo(int x, int y) {
     int row = y / (rowHeight + BORDER_WIDTH);
     int col = -1;
@@ -414,8 +446,47 @@ final class TabularView extends View {
     invalidate();
   }
 
+  /**
+   * Takes a row out of this view after it was removed from the {@link SpreadsheetUserTable},
+   * without rebuilding the view. The rows above it don't move, so only the area from the removed
+   * row down is redrawn. Header views are not affected.
+   *
+   * @param row the display position the row had
+   */
+  void removeRow(int row) {
+    if (this.type != TableLayoutType.INDEX_DATA && this.type != TableLayoutType.MAIN_DATA
+        && this.type != TableLayoutType.STATUS_DATA) {
+      return;
+    }
+    if (highlightedCellInfo != null && highlightedCellInfo.rowId >= row) {
+      highlightedCellInfo = highlightedCellInfo.rowId == row ?
+          null :
+          new CellInfo(highlightedCellInfo.elementKey, highlightedCellInfo.colPos,
+              highlightedCellInfo.rowId - 1);
+    }
+    int oldHeight = totalHeight;
+    mNumberOfRows = mTable.getNumberOfRows();
+    totalHeight = (rowHeight + BORDER_WIDTH) * mNumberOfRows + BORDER_WIDTH;
+    setMinimumHeight(totalHeight);
+    ViewGroup.LayoutParams lp = getLayoutParams();
+    if (lp != null) {
+      lp.height = totalHeight;
+      requestLayout();
+    }
+    invalidate(0, getRowTop(row), totalWidth, oldHeight);
+  }
+
   @Override
   public void onDraw(Canvas canvas) {
+    long start = PerfTrace.begin(PerfTrace.TABULAR_VIEW_DRAW);
+    try {
+      drawTable(canvas);
+    } finally {
+      PerfTrace.end(PerfTrace.TABULAR_VIEW_DRAW, start);
+    }
+  }
+
+  private void drawTable(Canvas canvas) {
     // We don't want to do anything if we're not responsible for drawing any
     // of the rows or columns.
     if (mNumberOfRows == 0 || mElementKeys.isEmpty()) {
@@ -631,6 +702,7 @@ final class TabularView extends View {
 
       // we only need to fetch this once for a given row...
       ColorGuide rowGuide = null;
+      boolean selected = false;
       if (this.type == TableLayoutType.STATUS_DATA || this.type == TableLayoutType.INDEX_DATA
           || this.type == TableLayoutType.MAIN_DATA) {
         // these are the only cases (below) where this value is used...
@@ -644,6 +716,7 @@ final class TabularView extends View {
           String checkNull = theRow.getStringValueByKey(DataTableColumns.ID);
           if (checkNull != null) {
             rowGuide = mRowColorGuideGroup.getColorGuideForRowId(checkNull);
+            selected = mTable.getProps() != null && mTable.getProps().isRowSelected(checkNull);
           }
         } else {
           break;
@@ -665,7 +738,8 @@ final class TabularView extends View {
 
           ColumnDefinition cd = this.mTable.getColumnByIndex(userDataIndex[j]);
           datum = this.mTable.getCachedUserTable()
-              .getDisplayTextOfData(theRowIndex, cd.getType(), cd.getElementKey());
+              .getDisplayTextOfData(this.mTable.getTableRowIndex(theRowIndex), cd.getType(),
+                  cd.getElementKey());
         } else {
           WebLogger.getLogger(this.mTable.getAppName())
               .e(TAG, "unrecognized table type: " + this.type.name());
@@ -697,11 +771,16 @@ final class TabularView extends View {
             backgroundColor = rowGuide.getBackground();
           }
         }
+        // Selected rows are marked over any color rule
+        if (selected) {
+          backgroundColor = SELECTED_COLOR;
+        }
         if (type == TableLayoutType.MAIN_HEADER || type == TableLayoutType.INDEX_HEADER
             || type == TableLayoutType.STATUS_HEADER) {
           if (Arrays.asList(mTable.getProps().getGroupBy()).contains(columnKey)) {
             backgroundColor = GROUP_BY_COLOR;
-          } else if (columnKey != null && columnKey.equals(mTable.getProps().getSort())) {
+          } else if (columnKey != null && (columnKey.equals(mTable.getProps().getSort())
+              || Arrays.asList(mTable.getProps().getThenBy()).contains(columnKey))) {
             backgroundColor = SORT_COLOR;
           }
           if (columnKey != null && columnKey.equals(mTable.getProps().getFrozen())) {
@@ -733,25 +812,7 @@ final class TabularView extends View {
    * xScroll int.
    */
   private int getLeftmostColumnBasedOnXScroll(int xScroll) {
-    int bsResult; // will hold the binary search result.
-    bsResult = Arrays.binarySearch(this.spans, xScroll);
-    // now we need to do some checking. If we've found an exact match, we know
-    // that we can just return it.
-    if (bsResult >= 0) {
-      return bsResult;
-    } else {
-      // we need to do a calculation.
-      // in case of a miss binary search return (-insertionPoint - 1).
-      int col = (bsResult + 1) * -1;
-      col -= 1; // to set it correctly.
-      // however, we need to do another check. it is possible that we will have
-      // added a new element to the array. Let's do this check.
-      if (col >= xs.length) {
-        return col - 1;
-      } else {
-        return col;
-      }
-    }
+    return ColumnSpans.getLeftmostColumn(this.spans, xScroll);
   }
 
   private void drawCell(Canvas canvas, int x, int y, String datum, int backgroundColor,
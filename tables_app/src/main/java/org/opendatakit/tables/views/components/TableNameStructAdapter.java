@@ -26,7 +26,9 @@ import org.opendatakit.tables.R;
 import org.opendatakit.tables.activities.AbsBaseActivity;
 import org.opendatakit.tables.utils.TableNameStruct;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * An adapter for displaying TableProperties.
@@ -53,6 +55,63 @@ public class TableNameStructAdapter extends ArrayAdapter<TableNameStruct> {
     this.addAll(values);
   }
 
+  /**
+   * Table ids are unique, so they make stable item ids. This lets the ListView keep its scroll
+   * position and selection across updates.
+   */
+  @Override
+  public long getItemId(int position) {
+    TableNameStruct nameStruct = getItem(position);
+    return nameStruct == null ? position : nameStruct.getTableId().hashCode();
+  }
+
+  @Override
+  public boolean hasStableIds() {
+    return true;
+  }
+
+  /**
+   * Makes the adapter hold exactly the given items, in order, by removing the items that are
+   * gone and inserting the new ones rather than clearing and re-adding everything. Observers are
+   * notified once, and only if something changed.
+   *
+   * @param values the new contents of the adapter
+   * @return whether the contents changed
+   */
+  public boolean update(List<TableNameStruct> values) {
+    Set<TableNameStruct> wanted = new HashSet<>(values);
+    boolean changed = false;
+    setNotifyOnChange(false);
+    try {
+      // drop everything that is no longer shown
+      for (int i = getCount() - 1; i >= 0; --i) {
+        TableNameStruct item = getItem(i);
+        if (!wanted.contains(item)) {
+          remove(item);
+          changed = true;
+        }
+      }
+      // walk both lists, inserting the missing items and moving misplaced ones
+      for (int i = 0; i < values.size(); ++i) {
+        TableNameStruct value = values.get(i);
+        if (i < getCount() && value.equals(getItem(i))) {
+          continue;
+        }
+        if (getPosition(value) >= 0) {
+          remove(value);
+        }
+        insert(value, i);
+        changed = true;
+      }
+    } finally {
+      setNotifyOnChange(true);
+    }
+    if (changed) {
+      notifyDataSetChanged();
+    }
+    return changed;
+  }
+
   @NonNull
   @Override
   public View getView(int position, android.view.View convertView,
@@ -2,9 +2,11 @@ package org.opendatakit.tables.views.webkits;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.os.Build;
 import android.util.AttributeSet;
 import org.opendatakit.tables.activities.IOdkTablesActivity;
 import org.opendatakit.tables.utils.Constants;
+import org.opendatakit.tables.utils.PerfTrace;
 import org.opendatakit.views.ODKWebView;
 
 /**
@@ -21,6 +23,49 @@ public class OdkTablesWebView extends ODKWebView {
     */
    @SuppressWarnings("FieldCanBeLocal") private OdkTables tables;
 
+   /**
+    * How often to check whether a page load has finished, and when to stop checking
+    */
+   private static final long PAGE_LOAD_POLL_MS = 50;
+   private static final long PAGE_LOAD_TIMEOUT_NS = 60L * 1000 * 1000 * 1000;
+
+   /**
+    * When the page being timed started loading, or -1 if none is
+    */
+   private long pageLoadStart = -1;
+
+   /**
+    * The page load callbacks belong to the library's WebViewClient, so the load is timed by
+    * watching the progress. Once it reaches 100 the time is recorded when the new content is
+    * first drawn.
+    */
+   private final Runnable pageLoadPoll = new Runnable() {
+      @Override public void run() {
+         if (pageLoadStart < 0) {
+            return;
+         }
+         if (PerfTrace.now() - pageLoadStart > PAGE_LOAD_TIMEOUT_NS) {
+            pageLoadStart = -1;
+            return;
+         }
+         if (getProgress() < 100) {
+            postDelayed(this, PAGE_LOAD_POLL_MS);
+            return;
+         }
+         final long start = pageLoadStart;
+         pageLoadStart = -1;
+         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            postVisualStateCallback(start, new VisualStateCallback() {
+               @Override public void onComplete(long requestId) {
+                  PerfTrace.record(PerfTrace.WEBVIEW_PAGE_LOAD, requestId);
+               }
+            });
+         } else {
+            PerfTrace.record(PerfTrace.WEBVIEW_PAGE_LOAD, start);
+         }
+      }
+   };
+
    /**
     * Constructs a new WebView for use with tables
     *
@@ -62,7 +107,10 @@ public class OdkTablesWebView extends ODKWebView {
           .getUrlBaseLocation(false, getContainerFragmentID());
 
       if (baseUrl != null) {
+         removeCallbacks(pageLoadPoll);
+         pageLoadStart = PerfTrace.now();
          loadPageOnUiThread(baseUrl, getContainerFragmentID());
+         postDelayed(pageLoadPoll, PAGE_LOAD_POLL_MS);
       } else {
          log.w(TAG, "reloadPage: framework did not load -- cannot load anything!");
       }
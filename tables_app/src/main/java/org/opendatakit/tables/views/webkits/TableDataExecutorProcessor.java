@@ -28,6 +28,7 @@ import org.opendatakit.exception.ServicesAvailabilityException;
 import org.opendatakit.logging.WebLogger;
 import org.opendatakit.tables.R;
 import org.opendatakit.tables.activities.IOdkTablesActivity;
+import org.opendatakit.tables.utils.PerfTrace;
 import org.opendatakit.views.ExecutorContext;
 import org.opendatakit.views.ExecutorProcessor;
 
@@ -85,7 +86,13 @@ public class TableDataExecutorProcessor extends ExecutorProcessor {
       return;
     }
 
-    ColorGuideGroup cgg = new ColorGuideGroup(crg, userTable);
+    long start = PerfTrace.begin(PerfTrace.COLOR_RULE_EVALUATION);
+    ColorGuideGroup cgg;
+    try {
+      cgg = new ColorGuideGroup(crg, userTable);
+    } finally {
+      PerfTrace.end(PerfTrace.COLOR_RULE_EVALUATION, start);
+    }
 
     // Loop through the rows
     for (int i = 0; i < userTable.getNumberOfRows(); i++) {
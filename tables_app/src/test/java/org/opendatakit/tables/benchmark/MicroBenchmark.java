@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small timing harness for the benchmarks that need the Android framework and so cannot run
+ * under JMH in tables_benchmark. Each suite measures a few operations and writes them to
+ * {@code <benchmark.outputDir>/<suite>.json} in the format of the JMH JSON results: one entry
+ * per operation, named by the fully qualified class and the operation, with the JVM, the
+ * iteration counts, the {@link #param parameters} and a primary metric holding the raw data, so
+ * the same tooling can compare both across releases. The one difference is that the score error
+ * is the standard deviation of the iterations rather than JMH's confidence interval.
+ * <p>
+ * The numbers are less rigorous than JMH's (no forking, no blackhole) but are stable enough to
+ * compare two builds on the same machine. The suites are left out of the normal unit test run
+ * and only run when gradle is given -Pbenchmark.
+ */
+public final class MicroBenchmark {
+
+  /**
+   * System property holding the directory the results are written to
+   */
+  public static final String OUTPUT_DIR_PROPERTY = "benchmark.outputDir";
+
+  /**
+   * One unit of measured work
+   */
+  public interface Operation {
+    /**
+     * @param iteration the number of the call, to let the operation cycle through its inputs
+     * @return anything derived from the work, so it can't be optimized away
+     */
+    Object run(int iteration) throws Exception;
+  }
+
+  /**
+   * The outcome of one measured operation
+   */
+  public static final class Result {
+    public final String name;
+    public final int warmupIterations;
+    public final int opsPerIteration;
+    /**
+     * Average nanoseconds per operation in each measurement iteration
+     */
+    public final double[] nsPerOp;
+
+    Result(String name, int warmupIterations, int opsPerIteration, double[] nsPerOp) {
+      this.name = name;
+      this.warmupIterations = warmupIterations;
+      this.opsPerIteration = opsPerIteration;
+      this.nsPerOp = nsPerOp;
+    }
+
+    public double getScore() {
+      double sum = 0;
+      for (double d : nsPerOp) {
+        sum += d;
+      }
+      return sum / nsPerOp.length;
+    }
+
+    /**
+     * @return the sample standard deviation of the iterations
+     */
+    public double getError() {
+      if (nsPerOp.length < 2) {
+        return 0;
+      }
+      double mean = getScore();
+      double sum = 0;
+      for (double d : nsPerOp) {
+        sum += (d - mean) * (d - mean);
+      }
+      return Math.sqrt(sum / (nsPerOp.length - 1));
+    }
+  }
+
+  private final Class<?> mSuite;
+  private final Map<String, String> mParams = new LinkedHashMap<>();
+  private final List<Result> mResults = new ArrayList<>();
+  private final List<String> mExtraMetrics = new ArrayList<>();
+  private int mSink = 0;
+
+  /**
+   * @param suite the test class, which names the results
+   */
+  public MicroBenchmark(Class<?> suite) {
+    this.mSuite = suite;
+  }
+
+  /**
+   * Records a parameter of the run, like the number of rows. The parameters are written with
+   * every result and are part of the name of the output file.
+   *
+   * @return this benchmark
+   */
+  public MicroBenchmark param(String name, Object value) {
+    mParams.put(name, String.valueOf(value));
+    return this;
+  }
+
+  /**
+   * Runs the operation warmupIterations times opsPerIteration times without recording, then
+   * iterations times opsPerIteration times recording the average time of each iteration.
+   *
+   * @return the result, also kept for {@link #writeResults()}
+   * @throws Exception if the operation throws
+   */
+  public Result measure(String name, int warmupIterations, int iterations, int opsPerIteration,
+      Operation operation) throws Exception {
+    int call = 0;
+    for (int i = 0; i < warmupIterations; i++) {
+      for (int j = 0; j < opsPerIteration; j++) {
+        consume(operation.run(call++));
+      }
+    }
+    double[] nsPerOp = new double[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      for (int j = 0; j < opsPerIteration; j++) {
+        consume(operation.run(call++));
+      }
+      nsPerOp[i] = (System.nanoTime() - start) / (double) opsPerIteration;
+    }
+    Result result = new Result(mSuite.getName() + "." + name, warmupIterations, opsPerIteration,
+        nsPerOp);
+    mResults.add(result);
+    return result;
+  }
+
+  /**
+   * Records a metric that was measured outside of {@link #measure}, for example a call count
+   *
+   * @param name  the name of the metric, prefixed with the suite name in the output
+   * @param value the value
+   * @param unit  the unit, for example "calls/frame"
+   */
+  public void record(String name, double value, String unit) {
+    mExtraMetrics.add(toJson(mSuite.getName() + "." + name, 0, 1, 1, value, 0, unit,
+        new double[] { value }));
+  }
+
+  /**
+   * Writes every result so far to the output directory, or does nothing if the output
+   * directory property is not set
+   *
+   * @return the file written, or null
+   * @throws IOException if the file can't be written
+   */
+  public File writeResults() throws IOException {
+    String outputDir = System.getProperty(OUTPUT_DIR_PROPERTY);
+    if (outputDir == null) {
+      return null;
+    }
+    File dir = new File(outputDir);
+    if (!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("unable to create " + dir.getAbsolutePath());
+    }
+    List<String> entries = new ArrayList<>();
+    for (Result r : mResults) {
+      entries.add(toJson(r.name, r.warmupIterations, r.nsPerOp.length, r.opsPerIteration,
+          r.getScore(), r.getError(), "ns/op", r.nsPerOp));
+    }
+    entries.addAll(mExtraMetrics);
+
+    StringBuilder fileName = new StringBuilder(mSuite.getSimpleName());
+    for (String value : mParams.values()) {
+      fileName.append('_').append(value);
+    }
+    File file = new File(dir, fileName + ".json");
+    try (Writer w = new OutputStreamWriter(new FileOutputStream(file),
+        StandardCharsets.UTF_8)) {
+      w.write("[\n");
+      for (int i = 0; i < entries.size(); i++) {
+        w.write(entries.get(i));
+        w.write(i == entries.size() - 1 ? "\n" : ",\n");
+      }
+      w.write("]\n");
+    }
+    return file;
+  }
+
+  /**
+   * @return the number of bytes allocated so far by the current thread, or -1 if the JVM can't
+   * tell
+   */
+  public static long getAllocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1L;
+  }
+
+  /**
+   * @return a value depending on every result consumed, so the JIT can't drop the work
+   */
+  public int getSink() {
+    return mSink;
+  }
+
+  private void consume(Object o) {
+    mSink += o == null ? 1 : System.identityHashCode(o);
+  }
+
+  private String toJson(String benchmark, int warmupIterations, int iterations, int batchSize,
+      double score, double error, String unit, double[] raw) {
+    StringBuilder b = new StringBuilder();
+    b.append("  {\"benchmark\": ").append(quote(benchmark))
+        .append(", \"mode\": \"avgt\", \"threads\": 1, \"forks\": 0")
+        .append(", \"jvm\": ").append(quote(System.getProperty("java.home")))
+        .append(", \"jdkVersion\": ").append(quote(System.getProperty("java.version")))
+        .append(", \"vmName\": ").append(quote(System.getProperty("java.vm.name")))
+        .append(", \"vmVersion\": ").append(quote(System.getProperty("java.vm.version")))
+        .append(", \"warmupIterations\": ").append(warmupIterations)
+        .append(", \"warmupBatchSize\": ").append(batchSize)
+        .append(", \"measurementIterations\": ").append(iterations)
+        .append(", \"measurementBatchSize\": ").append(batchSize);
+    if (!mParams.isEmpty()) {
+      b.append(", \"params\": {");
+      String separator = "";
+      for (Map.Entry<String, String> param : mParams.entrySet()) {
+        b.append(separator).append(quote(param.getKey())).append(": ")
+            .append(quote(param.getValue()));
+        separator = ", ";
+      }
+      b.append('}');
+    }
+    b.append(", \"primaryMetric\": {\"score\": ").append(score)
+        .append(", \"scoreError\": ").append(error)
+        .append(", \"scoreConfidence\": [").append(score - error).append(", ")
+        .append(score + error).append("], \"scoreUnit\": ").append(quote(unit))
+        .append(", \"rawData\": [[");
+    for (int i = 0; i < raw.length; i++) {
+      if (i > 0) {
+        b.append(", ");
+      }
+      b.append(raw[i]);
+    }
+    b.append("]]}, \"secondaryMetrics\": {}}");
+    return b.toString();
+  }
+
+  private static String quote(String s) {
+    if (s == null) {
+      return "null";
+    }
+    return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
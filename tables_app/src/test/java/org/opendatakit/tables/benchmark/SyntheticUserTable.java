@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opendatakit.aggregate.odktables.rest.entity.Column;
+import org.opendatakit.database.data.OrderedColumns;
+import org.opendatakit.database.data.TypedRow;
+import org.opendatakit.database.data.UserTable;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.tables.benchmark.dataset.SyntheticAppGenerator;
+import org.opendatakit.tables.benchmark.dataset.SyntheticTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * An in-memory stand-in for a {@link UserTable} of any size, for benchmarks that run without the
+ * database. The data comes from a {@link SyntheticTable} without a geopoint column, so it is the
+ * same table the generator writes for the on-device tests.
+ */
+public final class SyntheticUserTable {
+
+  public static final String APP_NAME = "default";
+  public static final String TABLE_ID = "synthetic";
+
+  private final int mRows;
+  private final String[] mElementKeys;
+  private final Map<String, Integer> mColumnIndex = new HashMap<>();
+  private final SyntheticTable mTable;
+  private final OrderedColumns mOrderedColumns;
+  private final UserTable mUserTable;
+
+  /**
+   * Generates the table
+   *
+   * @param rows    the number of rows
+   * @param columns the number of user defined columns
+   */
+  public SyntheticUserTable(int rows, int columns) {
+    mRows = rows;
+    SyntheticAppGenerator.Spec spec = new SyntheticAppGenerator.Spec();
+    spec.tableId = TABLE_ID;
+    spec.rows = rows;
+    spec.columns = columns;
+    spec.geopointDensity = 0;
+    mTable = new SyntheticAppGenerator(spec).generateTable();
+
+    mElementKeys = new String[columns];
+    List<Column> columnList = new ArrayList<>();
+    for (int c = 0; c < columns; c++) {
+      mElementKeys[c] = "col_" + c;
+      mColumnIndex.put(mElementKeys[c], c);
+      columnList.add(new Column(mElementKeys[c], mElementKeys[c], mTable.getElementTypes().get(c),
+          "[]"));
+    }
+    mOrderedColumns = new OrderedColumns(APP_NAME, TABLE_ID, columnList);
+
+    mUserTable = mock(UserTable.class);
+    doReturn(rows).when(mUserTable).getNumberOfRows();
+    doReturn(mOrderedColumns).when(mUserTable).getColumnDefinitions();
+    final TypedRow[] typedRows = new TypedRow[rows];
+    for (int r = 0; r < rows; r++) {
+      typedRows[r] = mock(TypedRow.class, withSettings().defaultAnswer(new RowAnswer(r)));
+    }
+    doAnswer(new Answer<TypedRow>() {
+      @Override
+      public TypedRow answer(InvocationOnMock invocation) {
+        int index = invocation.getArgument(0);
+        return index >= 0 && index < mRows ? typedRows[index] : null;
+      }
+    }).when(mUserTable).getRowAtIndex(anyInt());
+    doAnswer(new Answer<String>() {
+      @Override
+      public String answer(InvocationOnMock invocation) {
+        return getValue((Integer) invocation.getArgument(0), (String) invocation.getArgument(2));
+      }
+    }).when(mUserTable).getDisplayTextOfData(anyInt(), any(), anyString());
+  }
+
+  /**
+   * @return the row id of a row
+   */
+  public static String getRowId(int row) {
+    return "uuid:" + Integer.toString(row);
+  }
+
+  /**
+   * @return the value of a cell, or null
+   */
+  public String getValue(int row, String elementKey) {
+    if (DataTableColumns.ID.equals(elementKey)) {
+      return getRowId(row);
+    }
+    Integer column = mColumnIndex.get(elementKey);
+    if (column == null || row < 0 || row >= mRows) {
+      return null;
+    }
+    return mTable.getValue(row, column);
+  }
+
+  public String[] getElementKeys() {
+    return mElementKeys;
+  }
+
+  public OrderedColumns getOrderedColumns() {
+    return mOrderedColumns;
+  }
+
+  public UserTable getUserTable() {
+    return mUserTable;
+  }
+
+  /**
+   * Answers the value lookups of one row and falls back to the mock defaults for the rest
+   */
+  private final class RowAnswer implements Answer<Object> {
+    private final int mRow;
+
+    RowAnswer(int row) {
+      this.mRow = row;
+    }
+
+    @Override
+    public Object answer(InvocationOnMock invocation) throws Throwable {
+      String method = invocation.getMethod().getName();
+      if ((method.equals("getStringValueByKey") || method.equals("getRawStringByKey"))
+          && invocation.getArguments().length == 1) {
+        return getValue(mRow, (String) invocation.getArgument(0));
+      }
+      return RETURNS_DEFAULTS.answer(invocation);
+    }
+  }
+}
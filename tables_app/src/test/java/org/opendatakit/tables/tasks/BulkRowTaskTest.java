@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.tasks;
+
+import android.app.Application;
+import android.content.ContentValues;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opendatakit.aggregate.odktables.rest.ElementDataType;
+import org.opendatakit.aggregate.odktables.rest.ElementType;
+import org.opendatakit.database.data.ColumnDefinition;
+import org.opendatakit.database.data.OrderedColumns;
+import org.opendatakit.database.service.DbHandle;
+import org.opendatakit.database.service.UserDbInterface;
+import org.opendatakit.exception.ActionNotAuthorizedException;
+import org.opendatakit.exception.ServicesAvailabilityException;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks how {@link BulkRowTask} counts the rows it couldn't change, and that it opens and closes
+ * the database once however many rows fail.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class BulkRowTaskTest {
+
+  private static final String APP_NAME = "default";
+  private static final String TABLE_ID = "people";
+  private static final String[] ROW_IDS = { "uuid:1", "uuid:2", "uuid:3", "uuid:4" };
+
+  private UserDbInterface dbInterface;
+  private DbHandle db;
+  private OrderedColumns orderedDefns;
+
+  @Before
+  public void setUp() throws Exception {
+    dbInterface = mock(UserDbInterface.class);
+    db = mock(DbHandle.class);
+    doReturn(db).when(dbInterface).openDatabase(APP_NAME);
+    ColumnDefinition age = mock(ColumnDefinition.class);
+    doReturn(ElementType.parseElementType("integer", false)).when(age).getType();
+    orderedDefns = mock(OrderedColumns.class);
+    doReturn(age).when(orderedDefns).find("age");
+  }
+
+  @Test
+  public void countsUnauthorizedAndFailedRows() throws Exception {
+    doThrow(new ActionNotAuthorizedException("not yours")).when(dbInterface)
+        .deleteRowWithId(APP_NAME, db, TABLE_ID, orderedDefns, "uuid:2");
+    doThrow(new IllegalStateException("constraint")).when(dbInterface)
+        .deleteRowWithId(APP_NAME, db, TABLE_ID, orderedDefns, "uuid:3");
+
+    BulkRowTask.Result result = BulkRowTask.delete(APP_NAME, TABLE_ID, orderedDefns, ROW_IDS,
+        null).changeRows(dbInterface);
+    assertEquals(2, result.changed);
+    assertEquals(4, result.total);
+    assertEquals(1, result.unauthorized);
+    assertEquals(1, result.failed);
+    assertFalse(result.invalidValue);
+    // the rows after the failures were still deleted
+    verify(dbInterface).deleteRowWithId(APP_NAME, db, TABLE_ID, orderedDefns, "uuid:4");
+    verify(dbInterface, times(1)).openDatabase(APP_NAME);
+    verify(dbInterface, times(1)).closeDatabase(APP_NAME, db);
+  }
+
+  @Test
+  public void invalidValueTouchesNoRow() throws Exception {
+    BulkRowTask.Result result = BulkRowTask.update(APP_NAME, TABLE_ID, orderedDefns, ROW_IDS,
+        "age", "forty", null).changeRows(dbInterface);
+    assertTrue(result.invalidValue);
+    assertEquals(0, result.changed);
+    assertEquals(4, result.total);
+    verify(dbInterface, never()).openDatabase(anyString());
+  }
+
+  @Test
+  public void updatesWithTheConvertedValue() throws Exception {
+    BulkRowTask.Result result = BulkRowTask.update(APP_NAME, TABLE_ID, orderedDefns, ROW_IDS,
+        "age", " 40 ", null).changeRows(dbInterface);
+    assertEquals(4, result.changed);
+    ContentValues expected = new ContentValues();
+    expected.put("age", 40L);
+    verify(dbInterface).updateRowWithId(APP_NAME, db, TABLE_ID, orderedDefns, expected,
+        "uuid:1");
+  }
+
+  @Test
+  public void lostDatabaseStopsTheTask() throws Exception {
+    doThrow(new ServicesAvailabilityException("gone")).when(dbInterface)
+        .deleteRowWithId(APP_NAME, db, TABLE_ID, orderedDefns, "uuid:2");
+
+    BulkRowTask.Result result = BulkRowTask.delete(APP_NAME, TABLE_ID, orderedDefns, ROW_IDS,
+        null).changeRows(dbInterface);
+    assertEquals(1, result.changed);
+    assertEquals(0, result.unauthorized);
+    assertEquals(0, result.failed);
+    // the rows that weren't tried are in neither count
+    assertTrue(result.changed + result.unauthorized + result.failed < result.total);
+    verify(dbInterface, never()).deleteRowWithId(eq(APP_NAME), eq(db), eq(TABLE_ID),
+        any(OrderedColumns.class), eq("uuid:3"));
+    verify(dbInterface).closeDatabase(APP_NAME, db);
+  }
+
+  @Test
+  public void unavailableDatabaseChangesNothing() throws Exception {
+    doThrow(new ServicesAvailabilityException("down")).when(dbInterface).openDatabase(APP_NAME);
+
+    BulkRowTask.Result result = BulkRowTask.delete(APP_NAME, TABLE_ID, orderedDefns, ROW_IDS,
+        null).changeRows(dbInterface);
+    assertEquals(0, result.changed);
+    assertEquals(4, result.total);
+    verify(dbInterface, never()).closeDatabase(anyString(), any(DbHandle.class));
+  }
+
+  @Test
+  public void convertsValuesToTheColumnType() {
+    assertEquals(40L, BulkRowTask.toColumnValue(ElementDataType.integer, " 40"));
+    assertEquals(2.5, BulkRowTask.toColumnValue(ElementDataType.number, "2.5"));
+    assertEquals(Boolean.TRUE, BulkRowTask.toColumnValue(ElementDataType.bool, "1"));
+    assertEquals(Boolean.FALSE, BulkRowTask.toColumnValue(ElementDataType.bool, "False"));
+    assertEquals(" text ", BulkRowTask.toColumnValue(ElementDataType.string, " text "));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNonFiniteNumbers() {
+    BulkRowTask.toColumnValue(ElementDataType.number, "NaN");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsOtherBooleans() {
+    BulkRowTask.toColumnValue(ElementDataType.bool, "yes");
+  }
+}
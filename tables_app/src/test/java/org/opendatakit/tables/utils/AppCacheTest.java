@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the per-app instances and the invalidation shared by the query result caches.
+ */
+public class AppCacheTest {
+
+  private static final class KeyedCache extends AppCache {
+    private static final Factory<KeyedCache> factory = new Factory<KeyedCache>() {
+      @Override
+      public KeyedCache create(String appName) {
+        return new KeyedCache(appName);
+      }
+    };
+
+    final Map<String, String> byKey = new HashMap<>();
+
+    private KeyedCache(String appName) {
+      super(appName);
+    }
+
+    static KeyedCache get(String appName) {
+      return get(KeyedCache.class, appName, factory);
+    }
+
+    void invalidate(String tableId) {
+      invalidate(byKey, tableId);
+    }
+
+    @Override
+    protected void clear() {
+      byKey.clear();
+    }
+
+    @Override
+    public long getApproximateSize() {
+      return byKey.size();
+    }
+  }
+
+  @Test
+  public void oneCachePerApp() {
+    KeyedCache cache = KeyedCache.get("default");
+    assertSame(cache, KeyedCache.get("default"));
+    assertNotSame(cache, KeyedCache.get("survey"));
+    assertEquals(MemoryCacheManager.PRIORITY_QUERY_RESULTS, cache.getPriority());
+  }
+
+  @Test
+  public void invalidatingOneTableKeepsTheOthers() {
+    KeyedCache cache = new KeyedCache("tables");
+    cache.byKey.put("plot\nwhere a", "1");
+    cache.byKey.put("plot\nwhere b", "2");
+    cache.byKey.put("plots\nwhere a", "3");
+    int generation = cache.getGeneration();
+
+    cache.invalidate("plot");
+    assertEquals(1, cache.byKey.size());
+    assertTrue(cache.byKey.containsKey("plots\nwhere a"));
+    assertFalse(cache.isCurrent(generation));
+  }
+
+  @Test
+  public void evictingDropsEverything() {
+    KeyedCache cache = new KeyedCache("tables");
+    cache.byKey.put("plot\nwhere a", "1");
+    int generation = cache.getGeneration();
+    assertTrue(cache.isCurrent(generation));
+
+    cache.evict();
+    assertEquals(0, cache.getApproximateSize());
+    assertFalse(cache.isCurrent(generation));
+    assertTrue(cache.isCurrent(cache.getGeneration()));
+  }
+}
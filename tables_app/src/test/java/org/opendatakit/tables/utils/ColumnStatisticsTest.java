@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the exact statistics of {@link ColumnStatistics} and the error bounds of its distinct
+ * count estimate and most common values.
+ */
+public class ColumnStatisticsTest {
+
+  private static final int ROWS = 100000;
+
+  @Test
+  public void summarizesNumbers() {
+    ColumnStatistics statistics = new ColumnStatistics(true);
+    for (String value : new String[] { "3", null, "10", "-2", "3", "x", null }) {
+      statistics.add(value);
+    }
+    assertEquals(7, statistics.getCount());
+    assertEquals(2, statistics.getNullCount());
+    assertEquals("-2", statistics.getMin());
+    assertEquals("10", statistics.getMax());
+    assertEquals(3.5, statistics.getMean(), 1e-9);
+    // 3, 10, -2 and x
+    assertEquals(4, statistics.getDistinctCount());
+    List<ColumnStatistics.ValueCount> top = statistics.getTop(1);
+    assertEquals("3", top.get(0).value);
+    assertEquals(2, top.get(0).count);
+  }
+
+  @Test
+  public void summarizesText() {
+    ColumnStatistics statistics = new ColumnStatistics(false);
+    statistics.add("pear");
+    statistics.add("apple");
+    statistics.add("zucchini");
+    assertEquals("apple", statistics.getMin());
+    assertEquals("zucchini", statistics.getMax());
+    assertNull(statistics.getMean());
+  }
+
+  @Test
+  public void emptyAndAllNullColumns() {
+    ColumnStatistics statistics = new ColumnStatistics(true);
+    assertEquals(0, statistics.getCount());
+    assertNull(statistics.getMin());
+    assertNull(statistics.getMean());
+    assertEquals(0, statistics.getDistinctCount());
+    assertTrue(statistics.getTop(5).isEmpty());
+
+    statistics.add(null);
+    statistics.add(null);
+    assertEquals(2, statistics.getCount());
+    assertEquals(2, statistics.getNullCount());
+    assertNull(statistics.getMax());
+    assertEquals(0, statistics.getDistinctCount());
+    assertTrue(statistics.getTop(5).isEmpty());
+  }
+
+  @Test
+  public void topValuesAreExactWithFewDistinctValues() {
+    ColumnStatistics statistics = new ColumnStatistics(false);
+    for (int i = 0; i < ROWS; ++i) {
+      statistics.add("value " + (i % 50));
+    }
+    assertEquals(0, statistics.getTopError());
+    List<ColumnStatistics.ValueCount> top = statistics.getTop(50);
+    assertEquals(50, top.size());
+    for (ColumnStatistics.ValueCount count : top) {
+      assertEquals(ROWS / 50, count.count);
+      assertEquals(0, count.error);
+    }
+    // ties are broken by value
+    assertEquals("value 0", top.get(0).value);
+    // the distinct count stays an estimate even for small columns
+    assertTrue(Math.abs(statistics.getDistinctCount() - 50) <= 2);
+  }
+
+  @Test
+  public void distinctCountIsClose() {
+    for (int distinct : new int[] { 100, 5000, ROWS }) {
+      ColumnStatistics statistics = new ColumnStatistics(false);
+      for (int i = 0; i < ROWS; ++i) {
+        statistics.add("value " + (i % distinct));
+      }
+      double error = Math.abs(statistics.getDistinctCount() - distinct) / (double) distinct;
+      assertTrue(distinct + " estimated as " + statistics.getDistinctCount(), error < 0.1);
+    }
+  }
+
+  @Test
+  public void topValuesAreFoundInALongTail() {
+    Random random = new Random(42);
+    ColumnStatistics statistics = new ColumnStatistics(false);
+    Map<String, Integer> exact = new HashMap<>();
+    for (int i = 0; i < ROWS; ++i) {
+      int pick = random.nextInt(10);
+      // a third of the rows are "common", a sixth "frequent", the rest mostly unique
+      String value = pick < 3 ? "common" : pick < 5 ? "frequent" : "rare " + random.nextInt();
+      statistics.add(value);
+      Integer count = exact.get(value);
+      exact.put(value, count == null ? 1 : count + 1);
+    }
+    List<ColumnStatistics.ValueCount> top = statistics.getTop(2);
+    assertEquals("common", top.get(0).value);
+    assertEquals("frequent", top.get(1).value);
+    for (ColumnStatistics.ValueCount count : statistics.getTop(64)) {
+      // counts are never too low, and too high by at most their error
+      long actual = exact.get(count.value);
+      assertTrue(count.value, count.count >= actual);
+      assertTrue(count.value, count.count - count.error <= actual);
+      assertTrue(count.error <= statistics.getTopError());
+    }
+  }
+}
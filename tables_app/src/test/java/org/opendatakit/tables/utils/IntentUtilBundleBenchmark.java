@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Parcel;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opendatakit.database.queries.BindArgs;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.tables.benchmark.MicroBenchmark;
+import org.opendatakit.views.OdkData;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures converting a {@link SQLQueryStruct} to and from the bundle that is passed to every
+ * table display activity and fragment, and how much smaller the {@link QueryDescriptor} is than
+ * the separate sql keys for a collection selected by its row ids.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class IntentUtilBundleBenchmark {
+
+  private static final int WARMUP = 5;
+  private static final int ITERATIONS = 10;
+  private static final int OPS = 2000;
+  private static final int ROW_IDS = 2000;
+
+  private static MicroBenchmark benchmark;
+
+  @BeforeClass
+  public static void setUpClass() {
+    benchmark = new MicroBenchmark(IntentUtilBundleBenchmark.class);
+  }
+
+  @AfterClass
+  public static void tearDownClass() throws Exception {
+    benchmark.writeResults();
+  }
+
+  private static SQLQueryStruct createQuery() {
+    return new SQLQueryStruct("Region = ? AND Age > ?", new BindArgs(new Object[] { "North", 18 }),
+        new String[] { "Region", "District" }, "COUNT(*) > 1", "Date_of_Birth", "DESC");
+  }
+
+  private static int marshalledSize(Bundle bundle) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      bundle.writeToParcel(parcel, 0);
+      return parcel.dataSize();
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  private static String[] createRowIds() {
+    String[] rowIds = new String[ROW_IDS];
+    for (int i = 0; i < ROW_IDS; ++i) {
+      rowIds[i] = "uuid:" + new UUID(42, i);
+    }
+    return rowIds;
+  }
+
+  @Test
+  public void marshalRowIds() throws Exception {
+    String[] rowIds = createRowIds();
+    StringBuilder where = new StringBuilder(DataTableColumns.ID).append(" IN (");
+    for (int i = 0; i < rowIds.length; ++i) {
+      where.append(i == 0 ? "?" : ", ?");
+    }
+    where.append(")");
+    final Bundle keys = new Bundle();
+    bundleSeparateKeys(keys, where.toString(), rowIds);
+    // the intent carries the separate keys as well, for the web views; this compares the
+    // descriptor the spreadsheet reads against them
+    final Bundle descriptor = new Bundle();
+    descriptor.putParcelable(Constants.IntentKeys.QUERY_DESCRIPTOR,
+        QueryDescriptor.simple(createQuery()).withRowIds(rowIds));
+    benchmark.record("separateKeysBytes", marshalledSize(keys), "B");
+    benchmark.record("queryDescriptorBytes", marshalledSize(descriptor), "B");
+    assertTrue(marshalledSize(descriptor) < marshalledSize(keys));
+
+    benchmark.measure("marshalSeparateKeys", WARMUP, ITERATIONS, 10,
+        new MicroBenchmark.Operation() {
+          @Override
+          public Object run(int iteration) {
+            return marshalledSize(keys);
+          }
+        });
+    benchmark.measure("marshalQueryDescriptor", WARMUP, ITERATIONS, 10,
+        new MicroBenchmark.Operation() {
+          @Override
+          public Object run(int iteration) {
+            return marshalledSize(descriptor);
+          }
+        });
+  }
+
+  /**
+   * The keys the query used to be passed as
+   */
+  private static void bundleSeparateKeys(Bundle bundle, String whereClause, String[] rowIds) {
+    SQLQueryStruct query = createQuery();
+    bundle.putString(OdkData.IntentKeys.QUERY_TYPE, OdkData.QueryTypes.SIMPLE_QUERY);
+    bundle.putString(OdkData.IntentKeys.SQL_WHERE, whereClause);
+    bundle.putString(OdkData.IntentKeys.SQL_SELECTION_ARGS,
+        new BindArgs(Arrays.copyOf(rowIds, rowIds.length, Object[].class)).asJSON());
+    bundle.putStringArray(OdkData.IntentKeys.SQL_GROUP_BY_ARGS, query.groupBy);
+    bundle.putString(OdkData.IntentKeys.SQL_HAVING, query.having);
+    bundle.putString(OdkData.IntentKeys.SQL_ORDER_BY_ELEMENT_KEY, query.orderByElementKey);
+    bundle.putString(OdkData.IntentKeys.SQL_ORDER_BY_DIRECTION, query.orderByDirection);
+  }
+
+  @Test
+  public void addToBundle() throws Exception {
+    final SQLQueryStruct query = createQuery();
+    benchmark.measure("addSQLQueryStructToBundle", WARMUP, ITERATIONS, OPS,
+        new MicroBenchmark.Operation() {
+          @Override
+          public Object run(int iteration) {
+            Bundle bundle = new Bundle();
+            IntentUtil.addSQLQueryStructToBundle(bundle, query);
+            return bundle;
+          }
+        });
+  }
+
+  @Test
+  public void getFromBundle() throws Exception {
+    final Bundle bundle = new Bundle();
+    IntentUtil.addSQLQueryStructToBundle(bundle, createQuery());
+    benchmark.measure("getSQLQueryStructFromBundle", WARMUP, ITERATIONS, OPS,
+        new MicroBenchmark.Operation() {
+          @Override
+          public Object run(int iteration) {
+            return IntentUtil.getSQLQueryStructFromBundle(bundle);
+          }
+        });
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.app.Application;
+import android.os.Bundle;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opendatakit.database.queries.BindArgs;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.views.OdkData;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks how {@link IntentUtil} puts a query in a bundle and gets it back out, both as a
+ * {@link QueryDescriptor} and as the separate sql keys the web views and other apps use.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class IntentUtilTest {
+
+  private static SQLQueryStruct createQuery() {
+    return new SQLQueryStruct("Region = ? AND Age > ?", new BindArgs(new Object[] { "North", 18 }),
+        new String[] { "Region", "District" }, "COUNT(*) > 1", "Date_of_Birth", "DESC");
+  }
+
+  @Test
+  public void roundTripIsLossless() {
+    Bundle bundle = new Bundle();
+    IntentUtil.addSQLQueryStructToBundle(bundle, createQuery());
+    SQLQueryStruct restored = IntentUtil.getSQLQueryStructFromBundle(bundle);
+    assertEquals("Region = ? AND Age > ?", restored.whereClause);
+    assertEquals(createQuery().selectionArgs.asJSON(), restored.selectionArgs.asJSON());
+    assertArrayEquals(new String[] { "Region", "District" }, restored.groupBy);
+    assertEquals("COUNT(*) > 1", restored.having);
+    assertEquals("Date_of_Birth", restored.orderByElementKey);
+    assertEquals("DESC", restored.orderByDirection);
+  }
+
+  @Test
+  public void writesSeparateSqlKeys() {
+    // the web views read the query through OdkData, which only knows the separate keys
+    Bundle bundle = new Bundle();
+    IntentUtil.addQueryDescriptorToBundle(bundle,
+        QueryDescriptor.simple(createQuery()).withRowIds(new String[] { "a", "b" }));
+    assertEquals(OdkData.QueryTypes.SIMPLE_QUERY,
+        bundle.getString(OdkData.IntentKeys.QUERY_TYPE));
+    assertEquals(DataTableColumns.ID + " IN (?, ?)",
+        bundle.getString(OdkData.IntentKeys.SQL_WHERE));
+    assertEquals(new BindArgs(new Object[] { "a", "b" }).asJSON(),
+        bundle.getString(OdkData.IntentKeys.SQL_SELECTION_ARGS));
+    assertEquals("Date_of_Birth", bundle.getString(OdkData.IntentKeys.SQL_ORDER_BY_ELEMENT_KEY));
+
+    bundle = new Bundle();
+    IntentUtil.addArbitraryQueryToBundle(bundle, "SELECT * FROM t WHERE a = ?",
+        new BindArgs(new Object[] { "x" }));
+    assertEquals(OdkData.QueryTypes.ARBITRARY_QUERY,
+        bundle.getString(OdkData.IntentKeys.QUERY_TYPE));
+    assertEquals("SELECT * FROM t WHERE a = ?", bundle.getString(OdkData.IntentKeys.SQL_COMMAND));
+  }
+
+  @Test
+  public void readsSeparateSqlKeys() {
+    // as put in intents by javascript and other apps
+    Bundle bundle = new Bundle();
+    bundle.putString(OdkData.IntentKeys.SQL_WHERE, "Region = ?");
+    bundle.putString(OdkData.IntentKeys.SQL_SELECTION_ARGS, "[\"North\"]");
+    bundle.putString(OdkData.IntentKeys.SQL_ORDER_BY_ELEMENT_KEY, "Date_of_Birth");
+    SQLQueryStruct query = IntentUtil.retrieveQueryDescriptorFromBundle(bundle)
+        .toSQLQueryStruct();
+    assertEquals("Region = ?", query.whereClause);
+    assertArrayEquals(new Object[] { "North" }, query.selectionArgs.bindArgs);
+    assertEquals("ASC", query.orderByDirection);
+    assertNull(IntentUtil.retrieveQueryTypeFromBundle(bundle));
+  }
+
+  @Test
+  public void prefersTheDescriptor() {
+    Bundle bundle = new Bundle();
+    IntentUtil.addQueryDescriptorToBundle(bundle,
+        QueryDescriptor.simple(createQuery()).withRowIds(new String[] { "a" }));
+    SQLQueryStruct query = IntentUtil.retrieveQueryDescriptorFromBundle(bundle)
+        .toSQLQueryStruct();
+    assertEquals(DataTableColumns.ID + " IN (?)", query.whereClause);
+    assertArrayEquals(new String[] { "Region", "District" }, query.groupBy);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks which caches {@link MemoryCacheManager#trim} evicts and in what order.
+ */
+public class MemoryCacheManagerTest {
+
+  private static final class Entry implements MemoryCacheManager.Evictable {
+    private final String name;
+    private final int priority;
+    private final long size;
+    private final List<String> evictions;
+    private boolean evicted = false;
+
+    Entry(String name, int priority, long size, List<String> evictions) {
+      this.name = name;
+      this.priority = priority;
+      this.size = size;
+      this.evictions = evictions;
+    }
+
+    @Override
+    public int getPriority() {
+      return priority;
+    }
+
+    @Override
+    public long getApproximateSize() {
+      return evicted ? 0 : size;
+    }
+
+    @Override
+    public void evict() {
+      evicted = true;
+      evictions.add(name);
+    }
+  }
+
+  @Test
+  public void evictsUpToThePriorityCheapestAndLargestFirst() {
+    List<String> evictions = new ArrayList<>();
+    Entry small = new Entry("small", MemoryCacheManager.PRIORITY_DERIVED, 10, evictions);
+    Entry large = new Entry("large", MemoryCacheManager.PRIORITY_DERIVED, 1000, evictions);
+    Entry query = new Entry("query", MemoryCacheManager.PRIORITY_QUERY_RESULTS, 5000, evictions);
+    Entry hidden = new Entry("hidden", MemoryCacheManager.PRIORITY_HIDDEN_TABLE, 100, evictions);
+    MemoryCacheManager manager = new MemoryCacheManager();
+    for (Entry entry : new Entry[] { hidden, query, small, large }) {
+      manager.register(entry);
+    }
+    assertEquals(6110, manager.getApproximateSize());
+
+    assertEquals(6010, manager.trim(MemoryCacheManager.PRIORITY_QUERY_RESULTS));
+    assertEquals(Arrays.asList("large", "small", "query"), evictions);
+    assertFalse(hidden.evicted);
+    assertEquals(100, manager.getApproximateSize());
+  }
+
+  @Test
+  public void neverEvictsTheVisibleTable() {
+    List<String> evictions = new ArrayList<>();
+    Entry hidden = new Entry("hidden", MemoryCacheManager.PRIORITY_HIDDEN_TABLE, 100, evictions);
+    Entry visible = new Entry("visible", MemoryCacheManager.PRIORITY_VISIBLE_TABLE, 100,
+        evictions);
+    MemoryCacheManager manager = new MemoryCacheManager();
+    manager.register(hidden);
+    manager.register(visible);
+
+    assertEquals(100, manager.trim(MemoryCacheManager.PRIORITY_VISIBLE_TABLE));
+    assertTrue(hidden.evicted);
+    assertFalse(visible.evicted);
+  }
+
+  @Test
+  public void registersOnce() {
+    List<String> evictions = new ArrayList<>();
+    Entry entry = new Entry("entry", MemoryCacheManager.PRIORITY_DERIVED, 100, evictions);
+    MemoryCacheManager manager = new MemoryCacheManager();
+    manager.register(entry);
+    manager.register(entry);
+    assertEquals(100, manager.getApproximateSize());
+    assertEquals(100, manager.trim(MemoryCacheManager.PRIORITY_DERIVED));
+    assertEquals(1, evictions.size());
+
+    manager.unregister(entry);
+    assertEquals(0, manager.getApproximateSize());
+    assertEquals(0, manager.trim(MemoryCacheManager.PRIORITY_HIDDEN_TABLE));
+  }
+
+  @Test
+  public void evictedTypedColumnsAreDropped() {
+    TypedColumnCache cache = new TypedColumnCache(new TypedColumnCache.Source() {
+      @Override
+      public int getRowCount() {
+        return 3;
+      }
+
+      @Override
+      public String getValue(String elementKey, int rowIndex) {
+        return rowIndex == 1 ? null : Integer.toString(rowIndex);
+      }
+    });
+    cache.getLongs("x");
+    long size = cache.getApproximateSize();
+    assertTrue(size > 0);
+    MemoryCacheManager manager = new MemoryCacheManager();
+    manager.register(cache);
+    assertEquals(size, manager.trim(MemoryCacheManager.PRIORITY_DERIVED));
+    assertEquals(0, cache.getApproximateSize());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import android.app.Application;
+import android.os.Parcel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opendatakit.database.queries.BindArgs;
+import org.opendatakit.provider.DataTableColumns;
+import org.opendatakit.views.OdkData;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that a {@link QueryDescriptor} survives parceling with its bind argument types, that
+ * the queries it builds for collections are right, and that a descriptor written by a newer
+ * version is refused.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class QueryDescriptorTest {
+
+  private static SQLQueryStruct createQuery() {
+    return new SQLQueryStruct("Region = ? AND Age > ?", new BindArgs(new Object[] { "North", 18 }),
+        new String[] { "Region", "District" }, "COUNT(*) > 1", "Date_of_Birth", "DESC");
+  }
+
+  private static QueryDescriptor parcel(QueryDescriptor descriptor) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      descriptor.writeToParcel(parcel, 0);
+      parcel.setDataPosition(0);
+      return QueryDescriptor.CREATOR.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  @Test
+  public void simpleQueryRoundTrips() {
+    QueryDescriptor descriptor = parcel(QueryDescriptor.simple(createQuery()));
+    assertEquals(OdkData.QueryTypes.SIMPLE_QUERY, descriptor.getQueryType());
+    assertNull(descriptor.getSqlCommand());
+    SQLQueryStruct query = descriptor.toSQLQueryStruct();
+    assertEquals("Region = ? AND Age > ?", query.whereClause);
+    assertArrayEquals(new Object[] { "North", 18 }, query.selectionArgs.bindArgs);
+    assertArrayEquals(new String[] { "Region", "District" }, query.groupBy);
+    assertEquals("COUNT(*) > 1", query.having);
+    assertEquals("Date_of_Birth", query.orderByElementKey);
+    assertEquals("DESC", query.orderByDirection);
+  }
+
+  @Test
+  public void keepsEveryArgumentType() {
+    Object[] args = new Object[] { "text", 7, 1L << 40, 2.5, true, null };
+    QueryDescriptor descriptor = parcel(
+        QueryDescriptor.arbitrary("SELECT * FROM t WHERE a = ?", new BindArgs(args)));
+    assertEquals(OdkData.QueryTypes.ARBITRARY_QUERY, descriptor.getQueryType());
+    assertEquals("SELECT * FROM t WHERE a = ?", descriptor.getSqlCommand());
+    Object[] restored = descriptor.getSelectionArgs().bindArgs;
+    assertArrayEquals(args, restored);
+    assertEquals(Integer.class, restored[1].getClass());
+    assertEquals(Long.class, restored[2].getClass());
+  }
+
+  @Test
+  public void defaultsMatchTheSeparateKeys() {
+    SQLQueryStruct query = parcel(QueryDescriptor.simple(
+        new SQLQueryStruct(null, null, null, "COUNT(*) > 1", "Name", null))).toSQLQueryStruct();
+    assertNull(query.whereClause);
+    assertNull(query.groupBy);
+    // a having clause without a group by is dropped, the direction defaults to ascending
+    assertNull(query.having);
+    assertEquals("ASC", query.orderByDirection);
+  }
+
+  @Test
+  public void buildsCollectionQueries() {
+    QueryDescriptor descriptor = parcel(QueryDescriptor.simple(createQuery())
+        .withFilter(new String[] { "Region", "District" }, new String[] { "South", null }));
+    SQLQueryStruct query = descriptor.toSQLQueryStruct();
+    assertEquals("(Region = ? AND Age > ?) AND \"Region\" = ? AND \"District\" IS NULL",
+        query.whereClause);
+    assertArrayEquals(new Object[] { "North", 18, "South" }, query.selectionArgs.bindArgs);
+    assertEquals("Date_of_Birth", query.orderByElementKey);
+
+    query = parcel(QueryDescriptor.simple(createQuery())
+        .withRowIds(new String[] { "a", "b" })).toSQLQueryStruct();
+    assertEquals(DataTableColumns.ID + " IN (?, ?)", query.whereClause);
+    assertArrayEquals(new Object[] { "a", "b" }, query.selectionArgs.bindArgs);
+    assertArrayEquals(new String[] { "Region", "District" }, query.groupBy);
+
+    query = parcel(QueryDescriptor.simple(createQuery()).withRowIds(new String[0]))
+        .toSQLQueryStruct();
+    assertEquals("1 = 0", query.whereClause);
+    assertEquals(0, query.selectionArgs.bindArgs.length);
+  }
+
+  @Test
+  public void writesItsVersionFirst() {
+    Parcel parcel = Parcel.obtain();
+    try {
+      QueryDescriptor.simple(createQuery()).writeToParcel(parcel, 0);
+      parcel.setDataPosition(0);
+      assertEquals(QueryDescriptor.VERSION, parcel.readInt());
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void newerVersionIsRejected() {
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.writeInt(QueryDescriptor.VERSION + 1);
+      parcel.setDataPosition(0);
+      QueryDescriptor.CREATOR.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks how {@link TypedColumnCache} parses and encodes columns, in particular nulls and values
+ * that don't fit the type of the column.
+ */
+public class TypedColumnCacheTest {
+
+  private static final class Values implements TypedColumnCache.Source {
+    private final String[] values;
+
+    Values(String... values) {
+      this.values = values;
+    }
+
+    @Override
+    public int getRowCount() {
+      return values.length;
+    }
+
+    @Override
+    public String getValue(String elementKey, int rowIndex) {
+      return values[rowIndex];
+    }
+  }
+
+  @Test
+  public void parsesNullsNumbersAndText() {
+    TypedColumnCache cache = new TypedColumnCache(new Values("3", null, "x", "4.0", "-7"));
+    TypedColumnCache.LongColumn longs = cache.getLongs("age");
+    assertEquals(5, longs.size());
+    assertTrue(longs.isNumber(0));
+    assertEquals(3, longs.get(0));
+    assertTrue(longs.isNull(1));
+    assertFalse(longs.isNumber(1));
+    assertFalse(longs.isNull(2));
+    assertFalse(longs.isNumber(2));
+    assertEquals(4, longs.get(3));
+    assertTrue(longs.compare(4, 0) < 0);
+    assertSame(longs, cache.getLongs("age"));
+
+    TypedColumnCache.DoubleColumn doubles = cache.getDoubles("age");
+    assertEquals(4.0, doubles.get(3), 0);
+    assertFalse(doubles.isNumber(2));
+  }
+
+  @Test
+  public void emptyStringsAreNotNull() {
+    TypedColumnCache cache = new TypedColumnCache(new Values("", " ", null));
+    TypedColumnCache.DoubleColumn doubles = cache.getDoubles("x");
+    for (int i = 0; i < 2; ++i) {
+      assertFalse(doubles.isNull(i));
+      assertFalse(doubles.isNumber(i));
+    }
+    assertTrue(doubles.isNull(2));
+  }
+
+  @Test
+  public void integersThatDontFitAreNotNumbers() {
+    TypedColumnCache.LongColumn longs = new TypedColumnCache(
+        new Values("2.5", "1e19", "9223372036854775807", "-3.0")).getLongs("x");
+    assertFalse(longs.isNumber(0));
+    assertFalse(longs.isNull(0));
+    assertFalse(longs.isNumber(1));
+    assertEquals(Long.MAX_VALUE, longs.get(2));
+    assertEquals(-3, longs.get(3));
+  }
+
+  @Test
+  public void allNullAndEmptyColumns() {
+    TypedColumnCache cache = new TypedColumnCache(new Values(null, null, null));
+    TypedColumnCache.LongColumn longs = cache.getLongs("x");
+    for (int i = 0; i < 3; ++i) {
+      assertTrue(longs.isNull(i));
+      assertFalse(longs.isNumber(i));
+    }
+
+    cache = new TypedColumnCache(new Values());
+    assertEquals(0, cache.getDoubles("x").size());
+    assertEquals(0, cache.getLongs("x").size());
+  }
+
+  @Test
+  public void bitmapsSpanWords() {
+    String[] values = new String[130];
+    values[64] = "1.5";
+    values[129] = "2";
+    TypedColumnCache.DoubleColumn doubles = new TypedColumnCache(new Values(values))
+        .getDoubles("x");
+    for (int i = 0; i < values.length; ++i) {
+      assertEquals(values[i] != null, doubles.isNumber(i));
+      assertEquals(values[i] == null, doubles.isNull(i));
+    }
+  }
+
+  @Test
+  public void evictedColumnsAreParsedAgain() {
+    TypedColumnCache cache = new TypedColumnCache(new Values("1", "2", null, "a", "a"));
+    TypedColumnCache.LongColumn longs = cache.getLongs("x");
+    assertTrue(cache.getApproximateSize() > 0);
+
+    cache.evict();
+    assertEquals(0, cache.getApproximateSize());
+    // evicted columns stay usable and are parsed again on the next request
+    assertEquals(2, longs.get(1));
+    TypedColumnCache.LongColumn parsed = cache.getLongs("x");
+    assertFalse(longs == parsed);
+    assertEquals(2, parsed.get(1));
+    assertTrue(parsed.isNull(2));
+  }
+}
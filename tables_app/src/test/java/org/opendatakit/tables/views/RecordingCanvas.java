@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * A canvas that counts the calls TabularView makes and draws nothing, so that a benchmark
+ * measures the draw path of the view rather than the rasterizer.
+ */
+class RecordingCanvas extends Canvas {
+
+  int drawRectCount = 0;
+  int drawTextCount = 0;
+  int drawLineCount = 0;
+  int clipRectCount = 0;
+  int saveCount = 0;
+
+  void reset() {
+    drawRectCount = 0;
+    drawTextCount = 0;
+    drawLineCount = 0;
+    clipRectCount = 0;
+    saveCount = 0;
+  }
+
+  @Override
+  public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    ++drawRectCount;
+  }
+
+  @Override
+  public void drawText(String text, float x, float y, Paint paint) {
+    ++drawTextCount;
+  }
+
+  @Override
+  public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+    ++drawLineCount;
+  }
+
+  @Override
+  public boolean clipRect(int left, int top, int right, int bottom) {
+    ++clipRectCount;
+    return true;
+  }
+
+  @Override
+  public boolean clipRect(float left, float top, float right, float bottom) {
+    ++clipRectCount;
+    return true;
+  }
+
+  @Override
+  public int save() {
+    return ++saveCount;
+  }
+
+  @Override
+  public void restore() {
+  }
+}
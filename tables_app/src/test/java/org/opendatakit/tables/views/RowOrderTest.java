@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import org.junit.Test;
+import org.opendatakit.tables.utils.TypedColumnCache;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the ordering produced by {@link RowOrder}: SQLite's ordering of nulls, numbers and text,
+ * stable ties, several sort columns in either direction, and removed rows.
+ */
+public class RowOrderTest {
+
+  /**
+   * Column "region" is text, "age" is an integer column
+   */
+  private static final class Values implements RowOrder.ValueSource, TypedColumnCache.Source {
+    private final String[] regions;
+    private final String[] ages;
+    private final TypedColumnCache typedColumns = new TypedColumnCache(this);
+
+    Values(String[] regions, String[] ages) {
+      this.regions = regions;
+      this.ages = ages;
+    }
+
+    @Override
+    public String getValue(String elementKey, int rowIndex) {
+      return "region".equals(elementKey) ? regions[rowIndex] : ages[rowIndex];
+    }
+
+    @Override
+    public int getRowCount() {
+      return regions.length;
+    }
+
+    @Override
+    public TypedColumnCache.NumberColumn getNumbers(String elementKey) {
+      return "age".equals(elementKey) ? typedColumns.getLongs(elementKey) : null;
+    }
+  }
+
+  private static Values createValues() {
+    return new Values(new String[] { "b", "a", "b", "a", null },
+        new String[] { "10", "9", null, "9", "100" });
+  }
+
+  private static int[] order(RowOrder order) {
+    int[] result = new int[order.size()];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = order.getRowIndex(i);
+    }
+    return result;
+  }
+
+  @Test
+  public void unsortedOrderIsTheDatabaseOrder() {
+    RowOrder order = new RowOrder(5, createValues());
+    assertFalse(order.isSorted());
+    assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, order(order));
+    assertEquals(3, order.getPosition(3));
+  }
+
+  @Test
+  public void sortsNullsFirstNumericallyAndStably() {
+    RowOrder order = new RowOrder(5, createValues());
+
+    order.sort(new String[] { "age" }, new boolean[] { false });
+    assertTrue(order.isSorted());
+    // null first, then 9, 9 in database order, then 10 and 100 compared as numbers
+    assertArrayEquals(new int[] { 2, 1, 3, 0, 4 }, order(order));
+    assertEquals(0, order.getPosition(2));
+    assertEquals(4, order.getPosition(4));
+
+    order.sort(new String[] { "region", "age" }, new boolean[] { false, true });
+    assertArrayEquals(new int[] { 4, 1, 3, 0, 2 }, order(order));
+
+    order.sort(new String[] { "region", "age" }, new boolean[] { true, true });
+    assertArrayEquals(new int[] { 0, 2, 1, 3, 4 }, order(order));
+
+    order.clear();
+    assertFalse(order.isSorted());
+    assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, order(order));
+  }
+
+  @Test
+  public void descendingKeepsTiesInDatabaseOrder() {
+    RowOrder order = new RowOrder(5, createValues());
+    order.sort(new String[] { "age" }, new boolean[] { true });
+    // 100, 10, then both 9s still in database order, then null
+    assertArrayEquals(new int[] { 4, 0, 1, 3, 2 }, order(order));
+  }
+
+  @Test
+  public void textInANumericColumnSortsAfterNumbers() {
+    Values values = new Values(new String[] { "a", "a", "a", "a" },
+        new String[] { "abc", "20", null, "3" });
+    RowOrder order = new RowOrder(4, values);
+    order.sort(new String[] { "age" }, new boolean[] { false });
+    assertArrayEquals(new int[] { 2, 3, 1, 0 }, order(order));
+  }
+
+  @Test
+  public void removedRowsStayRemoved() {
+    RowOrder order = new RowOrder(5, createValues());
+
+    order.remove(1);
+    assertEquals(4, order.size());
+    assertArrayEquals(new int[] { 0, 2, 3, 4 }, order(order));
+    assertEquals(-1, order.getPosition(1));
+    assertEquals(2, order.getPosition(3));
+
+    order.sort(new String[] { "age" }, new boolean[] { false });
+    assertArrayEquals(new int[] { 2, 3, 0, 4 }, order(order));
+    order.remove(0);
+    assertArrayEquals(new int[] { 3, 0, 4 }, order(order));
+
+    order.clear();
+    assertArrayEquals(new int[] { 0, 3, 4 }, order(order));
+  }
+
+  @Test
+  public void multiKeyOrderIsConsistent() {
+    int rows = 2000;
+    Random random = new Random(42);
+    String[] regions = new String[rows];
+    String[] ages = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      regions[i] = "Region " + random.nextInt(20);
+      ages[i] = random.nextInt(10) == 0 ? null : Integer.toString(random.nextInt(100));
+    }
+    RowOrder order = new RowOrder(rows, new Values(regions, ages));
+    order.sort(new String[] { "region", "age" }, new boolean[] { false, true });
+    for (int i = 1; i < rows; ++i) {
+      int a = order.getRowIndex(i - 1);
+      int b = order.getRowIndex(i);
+      int byRegion = regions[a].compareTo(regions[b]);
+      assertTrue(byRegion <= 0);
+      // descending, so the nulls come last
+      if (byRegion == 0 && ages[b] != null) {
+        assertTrue(ages[a] != null && Integer.parseInt(ages[a]) >= Integer.parseInt(ages[b]));
+      }
+    }
+  }
+}
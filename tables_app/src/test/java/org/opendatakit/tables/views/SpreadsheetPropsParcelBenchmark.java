@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import android.app.Application;
+import android.os.Parcel;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opendatakit.tables.benchmark.MicroBenchmark;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Measures saving and restoring the spreadsheet properties, which happens on every rotation and
+ * every time a collection view returns its props to the spreadsheet.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class SpreadsheetPropsParcelBenchmark {
+
+  private static final int WARMUP = 5;
+  private static final int ITERATIONS = 10;
+  private static final int OPS = 2000;
+
+  private static MicroBenchmark benchmark;
+
+  @BeforeClass
+  public static void setUpClass() {
+    benchmark = new MicroBenchmark(SpreadsheetPropsParcelBenchmark.class);
+  }
+
+  @AfterClass
+  public static void tearDownClass() throws Exception {
+    benchmark.writeResults();
+  }
+
+  private static SpreadsheetProps createProps(boolean full) {
+    SpreadsheetProps props = new SpreadsheetProps();
+    props.setSort("Date_of_Birth");
+    props.setSortOrder("DESC");
+    if (full) {
+      props.setFrozen("Name");
+      props.setGroupBy(new String[] { "Region", "District", "Village" });
+      props.dataMenuOpen = true;
+      props.lastDataCellMenued = new CellInfo("Name", 3, 1200);
+      props.lastHeaderCellMenued = new CellInfo("Region", 0, -1);
+      props.setRowSelected("uuid:2", true);
+      props.setRowSelected("uuid:1", true);
+    }
+    return props;
+  }
+
+  private static SpreadsheetProps roundTrip(SpreadsheetProps props) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      props.writeToParcel(parcel, 0);
+      parcel.setDataPosition(0);
+      return SpreadsheetProps.CREATOR.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  @Test
+  public void parcelMinimalProps() throws Exception {
+    final SpreadsheetProps props = createProps(false);
+    benchmark.measure("parcelMinimalProps", WARMUP, ITERATIONS, OPS,
+        new MicroBenchmark.Operation() {
+          @Override
+          public Object run(int iteration) {
+            return roundTrip(props);
+          }
+        });
+  }
+
+  @Test
+  public void parcelFullProps() throws Exception {
+    final SpreadsheetProps props = createProps(true);
+    benchmark.measure("parcelFullProps", WARMUP, ITERATIONS, OPS,
+        new MicroBenchmark.Operation() {
+          @Override
+          public Object run(int iteration) {
+            return roundTrip(props);
+          }
+        });
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import android.app.Application;
+import android.os.Parcel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the spreadsheet properties survive being saved across a rotation.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class SpreadsheetPropsTest {
+
+  private static SpreadsheetProps roundTrip(SpreadsheetProps props) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      props.writeToParcel(parcel, 0);
+      parcel.setDataPosition(0);
+      return SpreadsheetProps.CREATOR.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  @Test
+  public void roundTripIsLossless() {
+    SpreadsheetProps props = new SpreadsheetProps();
+    props.setSort("Date_of_Birth");
+    props.setSortOrder("DESC");
+    props.setThenBy(new String[] { "Name" }, new String[] { "ASC" });
+    props.setFrozen("Name");
+    props.setGroupBy(new String[] { "Region", "District", "Village" });
+    props.dataMenuOpen = true;
+    props.lastDataCellMenued = new CellInfo("Name", 3, 1200);
+    props.lastHeaderCellMenued = new CellInfo("Region", 0, -1);
+    props.setRowSelected("uuid:2", true);
+    props.setRowSelected("uuid:1", true);
+
+    SpreadsheetProps restored = roundTrip(props);
+    assertEquals("Date_of_Birth", restored.getSort());
+    assertEquals("DESC", restored.getSortOrder());
+    assertArrayEquals(new String[] { "Name" }, restored.getThenBy());
+    assertArrayEquals(new String[] { "ASC" }, restored.getThenByOrder());
+    assertEquals("Name", restored.getFrozen());
+    assertArrayEquals(new String[] { "Region", "District", "Village" }, restored.getGroupBy());
+    assertTrue(restored.dataMenuOpen);
+    assertFalse(restored.headerMenuOpen);
+    assertEquals(1200, restored.lastDataCellMenued.rowId);
+    assertEquals("Region", restored.lastHeaderCellMenued.elementKey);
+    assertArrayEquals(new String[] { "uuid:2", "uuid:1" }, restored.getSelectedRowIds());
+    assertTrue(restored.isRowSelected("uuid:1"));
+  }
+
+  @Test
+  public void emptyPropsStayEmpty() {
+    SpreadsheetProps restored = roundTrip(new SpreadsheetProps());
+    assertNull(restored.getSort());
+    assertNull(restored.getFrozen());
+    assertNull(restored.getGroupBy());
+    assertEquals(0, restored.getThenBy().length);
+    assertEquals(0, restored.getSelectedRowCount());
+    assertNull(restored.lastDataCellMenued);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import android.app.Application;
+import android.view.View;
+import android.view.ViewGroup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opendatakit.data.ColorRule;
+import org.opendatakit.data.ColorRuleGroup;
+import org.opendatakit.data.JoinColumn;
+import org.opendatakit.tables.benchmark.MicroBenchmark;
+import org.opendatakit.tables.benchmark.SyntheticUserTable;
+import org.opendatakit.tables.fragments.AbsTableDisplayFragment;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the cost of drawing the spreadsheet without a device. A SpreadsheetView is built over
+ * a {@link SyntheticUserTable}, then every TabularView in it is drawn onto a
+ * {@link RecordingCanvas} at a sequence of scroll positions, as if the user flung down and
+ * across the table.
+ * <p>
+ * Reported per frame: draw time (mean, p50, p95, max), bytes allocated, and the number of
+ * drawText and drawRect calls. The time to build the view, which evaluates the color rules for
+ * every row, is reported separately. The size of the table is set with the system properties
+ * benchmark.rows, benchmark.columns, benchmark.colorRules and benchmark.frames, which gradle
+ * passes through from -P properties of the same name.
+ * <p>
+ * Cell values come from Mockito answers, which add a fixed cost per cell, so compare runs with
+ * each other rather than with timings from a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, qualifiers = "w360dp-h640dp-xhdpi")
+public class SpreadsheetRenderBenchmark {
+
+  private static final int WARMUP_FRAMES = 30;
+  private static final int DEFAULT_COLUMN_WIDTH = 125;
+  private static final int FONT_SIZE = 16;
+
+  private final int rows = Integer.getInteger("benchmark.rows", 2000);
+  private final int columns = Integer.getInteger("benchmark.columns", 30);
+  private final int colorRules = Integer.getInteger("benchmark.colorRules", 5);
+  private final int frames = Integer.getInteger("benchmark.frames", 120);
+
+  private MicroBenchmark benchmark;
+  private SyntheticUserTable data;
+  private SpreadsheetUserTable table;
+
+  /**
+   * A spreadsheet whose scroll position is set by the benchmark instead of by its scroll views
+   */
+  private static final class ScrolledSpreadsheetView extends SpreadsheetView {
+    int scrollX = 0;
+    int scrollY = 0;
+
+    ScrolledSpreadsheetView(SpreadsheetUserTable table) throws Exception {
+      super(RuntimeEnvironment.getApplication(), mock(SpreadsheetView.Controller.class), table);
+    }
+
+    @Override
+    public int getMainScrollX() {
+      return scrollX;
+    }
+
+    @Override
+    public int getMainScrollY() {
+      return scrollY;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    benchmark = new MicroBenchmark(SpreadsheetRenderBenchmark.class).param("rows", rows)
+        .param("columns", columns).param("colorRules", colorRules);
+    data = new SyntheticUserTable(rows, columns);
+
+    AbsTableDisplayFragment fragment = mock(AbsTableDisplayFragment.class);
+    doReturn(SyntheticUserTable.APP_NAME).when(fragment).getAppName();
+    doReturn(SyntheticUserTable.TABLE_ID).when(fragment).getTableId();
+    doReturn(data.getOrderedColumns()).when(fragment).getColumnDefinitions();
+    doReturn(data.getUserTable()).when(fragment).getUserTable();
+
+    SpreadsheetProps props = new SpreadsheetProps();
+    props.setGroupBy(new String[0]);
+    props.setSort(data.getElementKeys()[0]);
+    table = new SpreadsheetUserTable(fragment, props, createColumnMetadata());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    benchmark.writeResults();
+  }
+
+  private SpreadsheetColumnMetadata createColumnMetadata() {
+    String[] elementKeys = data.getElementKeys();
+    Map<String, Integer> widths = new HashMap<>();
+    Map<String, ColorRuleGroup> columnGroups = new HashMap<>();
+    for (String elementKey : elementKeys) {
+      widths.put(elementKey, DEFAULT_COLUMN_WIDTH);
+      columnGroups.put(elementKey, createRuleGroup(elementKey, 0));
+    }
+    // the table rules are the ones applied to every row while drawing; match on the first
+    // integer column so a fraction of the rows get colored
+    ColorRuleGroup tableGroup = createRuleGroup(elementKeys.length > 1 ? elementKeys[1] :
+        elementKeys[0], colorRules);
+    return new SpreadsheetColumnMetadata(null, Arrays.asList(elementKeys), null, elementKeys,
+        elementKeys, widths, columnGroups, createRuleGroup(elementKeys[0], 0), tableGroup,
+        FONT_SIZE, new HashMap<String, List<JoinColumn>>());
+  }
+
+  private static ColorRuleGroup createRuleGroup(String elementKey, int ruleCount) {
+    List<ColorRule> rules = new ArrayList<>();
+    for (int i = 0; i < ruleCount; i++) {
+      rules.add(new ColorRule(elementKey, ColorRule.RuleType.EQUAL, Integer.toString(i * 7),
+          0xff000000, 0xffffff00 - i * 0x1100));
+    }
+    ColorRuleGroup group = mock(ColorRuleGroup.class);
+    doReturn(rules).when(group).getColorRules();
+    return group;
+  }
+
+  private static void collectTabularViews(View view, List<TabularView> out) {
+    if (view instanceof TabularView) {
+      out.add((TabularView) view);
+    } else if (view instanceof ViewGroup) {
+      ViewGroup group = (ViewGroup) view;
+      for (int i = 0; i < group.getChildCount(); i++) {
+        collectTabularViews(group.getChildAt(i), out);
+      }
+    }
+  }
+
+  @Test
+  public void renderScrolling() throws Exception {
+    long buildStart = System.nanoTime();
+    ScrolledSpreadsheetView view = new ScrolledSpreadsheetView(table);
+    benchmark.record("buildViewMs", (System.nanoTime() - buildStart) / 1e6, "ms");
+
+    List<TabularView> tabularViews = new ArrayList<>();
+    collectTabularViews(view, tabularViews);
+    assertFalse(tabularViews.isEmpty());
+
+    int maxScrollX = 0;
+    int maxScrollY = 0;
+    for (TabularView tv : tabularViews) {
+      maxScrollX = Math.max(maxScrollX, tv.getTableWidth());
+      maxScrollY = Math.max(maxScrollY, tv.getTableHeight());
+    }
+    int screenWidth = RuntimeEnvironment.getApplication().getResources().getDisplayMetrics()
+        .widthPixels;
+    int screenHeight = RuntimeEnvironment.getApplication().getResources().getDisplayMetrics()
+        .heightPixels;
+    maxScrollX = Math.max(0, maxScrollX - screenWidth);
+    maxScrollY = Math.max(0, maxScrollY - screenHeight);
+
+    RecordingCanvas canvas = new RecordingCanvas();
+    for (int f = 0; f < WARMUP_FRAMES; f++) {
+      drawFrame(view, tabularViews, canvas, f, WARMUP_FRAMES, maxScrollX, maxScrollY);
+    }
+
+    double[] frameNs = new double[frames];
+    long totalAllocated = 0;
+    long totalText = 0;
+    long totalRect = 0;
+    for (int f = 0; f < frames; f++) {
+      canvas.reset();
+      long allocatedBefore = MicroBenchmark.getAllocatedBytes();
+      long start = System.nanoTime();
+      drawFrame(view, tabularViews, canvas, f, frames, maxScrollX, maxScrollY);
+      frameNs[f] = System.nanoTime() - start;
+      totalAllocated += MicroBenchmark.getAllocatedBytes() - allocatedBefore;
+      totalText += canvas.drawTextCount;
+      totalRect += canvas.drawRectCount;
+    }
+    assertTrue(totalText > 0);
+
+    double[] sorted = frameNs.clone();
+    Arrays.sort(sorted);
+    double sum = 0;
+    for (double d : frameNs) {
+      sum += d;
+    }
+    benchmark.record("frameMeanUs", sum / frames / 1e3, "us/frame");
+    benchmark.record("frameP50Us", sorted[frames / 2] / 1e3, "us/frame");
+    benchmark.record("frameP95Us", sorted[(int) Math.min(frames - 1, frames * 0.95)] / 1e3,
+        "us/frame");
+    benchmark.record("frameMaxUs", sorted[frames - 1] / 1e3, "us/frame");
+    benchmark.record("allocatedBytesPerFrame", totalAllocated / (double) frames, "B/frame");
+    benchmark.record("drawTextPerFrame", totalText / (double) frames, "calls/frame");
+    benchmark.record("drawRectPerFrame", totalRect / (double) frames, "calls/frame");
+  }
+
+  /**
+   * Scrolls down through the whole table over the frames, sweeping right and back left along
+   * the way, and draws every TabularView once
+   */
+  private static void drawFrame(ScrolledSpreadsheetView view, List<TabularView> tabularViews,
+      RecordingCanvas canvas, int frame, int frameCount, int maxScrollX, int maxScrollY) {
+    double progress = frameCount <= 1 ? 0 : frame / (double) (frameCount - 1);
+    view.scrollY = (int) (progress * maxScrollY);
+    double sweep = progress * 2.0;
+    view.scrollX = (int) ((sweep <= 1.0 ? sweep : 2.0 - sweep) * maxScrollX);
+    for (TabularView tv : tabularViews) {
+      tv.onDraw(canvas);
+    }
+  }
+}
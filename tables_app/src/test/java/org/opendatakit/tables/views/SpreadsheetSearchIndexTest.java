@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.views;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the matches returned by {@link SpreadsheetSearchIndex}, and that updating it only
+ * touches the rows that changed.
+ */
+public class SpreadsheetSearchIndexTest {
+
+  private static final String[] COLUMNS = { "name", "village" };
+
+  private static final class Rows implements SpreadsheetSearchIndex.RowSource {
+    private final String[] ids;
+    private final String[] names;
+    private final String[] villages;
+
+    Rows(String[] ids, String[] names, String[] villages) {
+      this.ids = ids;
+      this.names = names;
+      this.villages = villages;
+    }
+
+    @Override
+    public int getRowCount() {
+      return ids.length;
+    }
+
+    @Override
+    public String getRowId(int rowIndex) {
+      return ids[rowIndex];
+    }
+
+    @Override
+    public String getText(int rowIndex, String elementKey) {
+      return "name".equals(elementKey) ? names[rowIndex] : villages[rowIndex];
+    }
+  }
+
+  private static Rows createRows() {
+    return new Rows(new String[] { "a", "b", "c" },
+        new String[] { "Ada Lovelace", "Alan Turing", "Grace Hopper" },
+        new String[] { "London", "Wilmslow", null });
+  }
+
+  @Test
+  public void matchesWordsAndPrefixes() {
+    SpreadsheetSearchIndex index = new SpreadsheetSearchIndex(COLUMNS);
+    assertFalse(index.isUpToDate(1));
+    assertEquals(5, index.update(createRows(), 1));
+    assertTrue(index.isUpToDate(1));
+
+    List<SpreadsheetSearchIndex.Hit> hits = index.search("l");
+    // Lovelace and London; Wilmslow does not match as words only match from their start
+    assertEquals(2, hits.size());
+    assertEquals(0, hits.get(0).rowIndex);
+    assertEquals("name", hits.get(0).elementKey);
+    assertEquals("village", hits.get(1).elementKey);
+
+    assertEquals(1, index.search("alan TUR").size());
+    assertEquals(0, index.search("alan hop").size());
+    assertEquals(0, index.search("").size());
+  }
+
+  @Test
+  public void updatesOnlyChangedCells() {
+    SpreadsheetSearchIndex index = new SpreadsheetSearchIndex(COLUMNS);
+    index.update(createRows(), 1);
+    assertEquals(0, index.update(createRows(), 2));
+    assertTrue(index.isUpToDate(2));
+
+    // one edited cell, one removed row and the rest moved
+    Rows edited = new Rows(new String[] { "c", "a" },
+        new String[] { "Grace Hopper", "Ada King" },
+        new String[] { null, "London" });
+    assertEquals(2, index.update(edited, 3));
+    assertFalse(index.isUpToDate(2));
+    assertEquals(0, index.search("lovelace").size());
+    assertEquals(0, index.search("alan").size());
+    List<SpreadsheetSearchIndex.Hit> hits = index.search("king");
+    assertEquals(1, hits.size());
+    assertEquals(1, hits.get(0).rowIndex);
+    hits = index.search("grace");
+    assertEquals(1, hits.size());
+    assertEquals(0, hits.get(0).rowIndex);
+  }
+
+  @Test
+  public void updatesInBackgroundAndInvalidates() throws Exception {
+    final SpreadsheetSearchIndex index = SpreadsheetSearchIndex.get("app", "people", COLUMNS);
+    final CountDownLatch done = new CountDownLatch(1);
+    index.updateInBackground(createRows(), 7, new SpreadsheetSearchIndex.UpdateListener() {
+      @Override
+      public void indexUpdated(int changed) {
+        done.countDown();
+      }
+    });
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertTrue(index.isUpToDate(7));
+    assertSame(index, SpreadsheetSearchIndex.get("app", "people", COLUMNS));
+
+    SpreadsheetSearchIndex.invalidateAll("app");
+    assertNotSame(index, SpreadsheetSearchIndex.get("app", "people", COLUMNS));
+  }
+}
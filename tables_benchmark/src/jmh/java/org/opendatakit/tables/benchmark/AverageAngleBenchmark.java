@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.logic.AverageAngle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures adding a compass reading to the smoothing ring buffer, which recomputes the circular
+ * mean over every frame on each sensor event.
+ */
+@State(Scope.Thread)
+public class AverageAngleBenchmark {
+
+  private static final int SAMPLES = 1024;
+
+  @Param({ "5", "20", "100" })
+  public int frames;
+
+  private AverageAngle averageAngle;
+  private double[] samples;
+  private int index = 0;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    samples = new double[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      samples[i] = random.nextDouble() * 2.0 * Math.PI - Math.PI;
+    }
+    averageAngle = new AverageAngle(frames);
+    for (int i = 0; i < frames; i++) {
+      averageAngle.add(samples[i]);
+    }
+  }
+
+  @Benchmark
+  public double add() {
+    averageAngle.add(samples[index]);
+    index = (index + 1) & (SAMPLES - 1);
+    return averageAngle.getAverage();
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.utils.TypedColumnCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures matching the color rules of a column against every row, as building the
+ * ColorGuideGroups of the spreadsheet does, for a select one column and for an integer column.
+ * <p>
+ * ColorRule and ColorRuleGroup come from the ODK library, which can't be compiled into this
+ * module, so {@link Rule} is a copy of the comparison in ColorRule.checkMatch: numbers are
+ * parsed on every check, text is compared with compareTo, nulls never match and the first
+ * matching rule of the group wins. Keep it in step with the library. The last benchmark runs
+ * the same numeric rules over a column parsed once by {@link TypedColumnCache}.
+ */
+@State(Scope.Thread)
+public class ColorRuleBenchmark {
+
+  @Param({ "10000", "100000" })
+  public int rows;
+
+  private enum Operator {
+    LESS_THAN, LESS_THAN_OR_EQUAL, EQUAL, GREATER_THAN_OR_EQUAL, GREATER_THAN
+  }
+
+  /**
+   * The comparison of one color rule, as ColorRule.checkMatch does it
+   */
+  private static final class Rule {
+    private final Operator operator;
+    private final String value;
+    private final int color;
+
+    Rule(Operator operator, String value, int color) {
+      this.operator = operator;
+      this.value = value;
+      this.color = color;
+    }
+
+    boolean matches(String testValue, boolean numeric) {
+      if (testValue == null) {
+        return false;
+      }
+      int compVal;
+      try {
+        if (numeric) {
+          compVal = Double.compare(Double.parseDouble(testValue), Double.parseDouble(value));
+        } else {
+          compVal = testValue.compareTo(value);
+        }
+      } catch (NumberFormatException e) {
+        return false;
+      }
+      return matches(compVal);
+    }
+
+    boolean matches(int compVal) {
+      switch (operator) {
+      case LESS_THAN:
+        return compVal < 0;
+      case LESS_THAN_OR_EQUAL:
+        return compVal <= 0;
+      case EQUAL:
+        return compVal == 0;
+      case GREATER_THAN_OR_EQUAL:
+        return compVal >= 0;
+      case GREATER_THAN:
+        return compVal > 0;
+      default:
+        return false;
+      }
+    }
+  }
+
+  private static final class Values implements TypedColumnCache.Source {
+    private final String[] values;
+
+    Values(String[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public int getRowCount() {
+      return values.length;
+    }
+
+    @Override
+    public String getValue(String elementKey, int rowIndex) {
+      return values[rowIndex];
+    }
+  }
+
+  private String[] answers;
+  private String[] ages;
+  private Rule[] answerRules;
+  private Rule[] ageRules;
+  private double[] ageRuleValues;
+  private TypedColumnCache.LongColumn parsedAges;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    answers = new String[rows];
+    ages = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      answers[i] = random.nextInt(20) == 0 ? null : "choice_" + random.nextInt(8);
+      ages[i] = random.nextInt(20) == 0 ? null : Integer.toString(random.nextInt(100));
+    }
+    answerRules = new Rule[] {
+        new Rule(Operator.EQUAL, "choice_1", 1),
+        new Rule(Operator.EQUAL, "choice_3", 2),
+        new Rule(Operator.EQUAL, "choice_5", 3),
+        new Rule(Operator.EQUAL, "choice_7", 4) };
+    ageRules = new Rule[] {
+        new Rule(Operator.LESS_THAN, "5", 1),
+        new Rule(Operator.LESS_THAN, "18", 2),
+        new Rule(Operator.GREATER_THAN_OR_EQUAL, "65", 3),
+        new Rule(Operator.EQUAL, "40", 4) };
+    ageRuleValues = new double[ageRules.length];
+    for (int i = 0; i < ageRules.length; ++i) {
+      ageRuleValues[i] = Double.parseDouble(ageRules[i].value);
+    }
+    parsedAges = new TypedColumnCache(new Values(ages)).getLongs("age");
+  }
+
+  private static int firstMatch(Rule[] rules, String value, boolean numeric) {
+    for (Rule rule : rules) {
+      if (rule.matches(value, numeric)) {
+        return rule.color;
+      }
+    }
+    return 0;
+  }
+
+  @Benchmark
+  public long selectOneColumn() {
+    long sum = 0;
+    for (String answer : answers) {
+      sum += firstMatch(answerRules, answer, false);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long integerColumn() {
+    long sum = 0;
+    for (String age : ages) {
+      sum += firstMatch(ageRules, age, true);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long integerColumnParsedOnce() {
+    long sum = 0;
+    for (int i = 0; i < rows; ++i) {
+      if (!parsedAges.isNumber(i)) {
+        continue;
+      }
+      double age = parsedAges.get(i);
+      for (int j = 0; j < ageRules.length; ++j) {
+        if (ageRules[j].matches(Double.compare(age, ageRuleValues[j]))) {
+          sum += ageRules[j].color;
+          break;
+        }
+      }
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.views.ColumnSpans;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures the lookups TabularView does on every draw to find the first and last visible column
+ * for a horizontal scroll position, plus the span computation done when the view is built.
+ */
+@State(Scope.Thread)
+public class ColumnLookupBenchmark {
+
+  private static final int BORDER_WIDTH = 1;
+  private static final int SCROLL_POSITIONS = 1024;
+
+  @Param({ "10", "100", "1000" })
+  public int columns;
+
+  private int[] columnWidths;
+  private int[] spans;
+  private int[] scrollPositions;
+  private int index = 0;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    columnWidths = new int[columns];
+    int totalWidth = 0;
+    for (int i = 0; i < columns; i++) {
+      columnWidths[i] = 50 + random.nextInt(250);
+      totalWidth += columnWidths[i] + BORDER_WIDTH;
+    }
+    spans = ColumnSpans.computeSpans(columnWidths, columns, BORDER_WIDTH);
+    scrollPositions = new int[SCROLL_POSITIONS];
+    for (int i = 0; i < SCROLL_POSITIONS; i++) {
+      scrollPositions[i] = random.nextInt(totalWidth);
+    }
+  }
+
+  @Benchmark
+  public int getLeftmostColumn() {
+    int xScroll = scrollPositions[index];
+    index = (index + 1) & (SCROLL_POSITIONS - 1);
+    return ColumnSpans.getLeftmostColumn(spans, xScroll);
+  }
+
+  /**
+   * Both ends of a 1080 pixel wide screen, as TabularView.onDraw does
+   */
+  @Benchmark
+  public int visibleColumnRange() {
+    int xScroll = scrollPositions[index];
+    index = (index + 1) & (SCROLL_POSITIONS - 1);
+    return ColumnSpans.getLeftmostColumn(spans, xScroll + 1080) - ColumnSpans
+        .getLeftmostColumn(spans, xScroll);
+  }
+
+  @Benchmark
+  public int[] computeSpans() {
+    return ColumnSpans.computeSpans(columnWidths, columns, BORDER_WIDTH);
+  }
+}
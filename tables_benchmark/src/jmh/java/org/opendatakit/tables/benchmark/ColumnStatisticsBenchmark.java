@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.utils.ColumnStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures summarizing a whole column in one pass, as the column statistics action of the
+ * spreadsheet does, for a numeric column and for a text column with a long tail of distinct
+ * values.
+ */
+@State(Scope.Thread)
+public class ColumnStatisticsBenchmark {
+
+  @Param({ "10000", "100000" })
+  public int rows;
+
+  private String[] numbers;
+  private String[] text;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    numbers = new String[rows];
+    text = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      numbers[i] = random.nextInt(20) == 0 ? null : Integer.toString(random.nextInt(1000));
+      text[i] = random.nextInt(3) == 0 ? "common" : "rare " + random.nextInt(rows);
+    }
+  }
+
+  @Benchmark
+  public long numericColumn() {
+    ColumnStatistics statistics = new ColumnStatistics(true);
+    for (String value : numbers) {
+      statistics.add(value);
+    }
+    return statistics.getDistinctCount();
+  }
+
+  @Benchmark
+  public long textColumn() {
+    ColumnStatistics statistics = new ColumnStatistics(false);
+    for (String value : text) {
+      statistics.add(value);
+    }
+    return statistics.getDistinctCount();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.utils.DistanceUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures the Vincenty distance used to sort map markers by distance from the user. Points are
+ * random but seeded, and cycled so the JIT can't fold the inputs.
+ */
+@State(Scope.Thread)
+public class DistanceUtilBenchmark {
+
+  private static final int POINTS = 1024;
+
+  private double[] lats;
+  private double[] lons;
+  private int index = 0;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    lats = new double[POINTS];
+    lons = new double[POINTS];
+    for (int i = 0; i < POINTS; i++) {
+      lats[i] = random.nextDouble() * 170.0 - 85.0;
+      lons[i] = random.nextDouble() * 360.0 - 180.0;
+    }
+  }
+
+  @Benchmark
+  public double getDistance() {
+    int i = index;
+    int j = (i + 1) & (POINTS - 1);
+    index = j;
+    return DistanceUtil.getDistance(lats[i], lons[i], lats[j], lons[j]);
+  }
+
+  /**
+   * Nearby points, as when the markers of one site are compared to the user's location
+   */
+  @Benchmark
+  public double getDistanceNearby() {
+    int i = index;
+    index = (i + 1) & (POINTS - 1);
+    return DistanceUtil.getDistance(lats[i], lons[i], lats[i] + 0.001, lons[i] - 0.001);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.utils.TypedColumnCache;
+import org.opendatakit.tables.views.RowOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures re-sorting a loaded table in memory: the first sort on new columns, toggling the
+ * direction of columns that were already sorted on, which is what the spreadsheet does when the
+ * user flips a sort direction, and removing deleted rows from a sorted order.
+ */
+@State(Scope.Thread)
+public class RowOrderBenchmark {
+
+  private static final String[] SORT_COLUMNS = { "region", "age" };
+  private static final int REMOVED_ROWS = 100;
+
+  @Param({ "10000", "50000" })
+  public int rows;
+
+  /**
+   * Column "region" is text with many ties, "age" is an integer column with some nulls
+   */
+  private static final class Values implements RowOrder.ValueSource, TypedColumnCache.Source {
+    private final String[] regions;
+    private final String[] ages;
+    private final TypedColumnCache typedColumns = new TypedColumnCache(this);
+
+    Values(String[] regions, String[] ages) {
+      this.regions = regions;
+      this.ages = ages;
+    }
+
+    @Override
+    public String getValue(String elementKey, int rowIndex) {
+      return "region".equals(elementKey) ? regions[rowIndex] : ages[rowIndex];
+    }
+
+    @Override
+    public int getRowCount() {
+      return regions.length;
+    }
+
+    @Override
+    public TypedColumnCache.NumberColumn getNumbers(String elementKey) {
+      return "age".equals(elementKey) ? typedColumns.getLongs(elementKey) : null;
+    }
+  }
+
+  /**
+   * A freshly sorted order for every call of {@link #removeRows}, which uses it up
+   */
+  @State(Scope.Thread)
+  public static class Removal {
+    RowOrder order;
+
+    @Setup(Level.Invocation)
+    public void setUp(RowOrderBenchmark benchmark) {
+      order = new RowOrder(benchmark.rows, benchmark.values);
+      order.sort(SORT_COLUMNS, new boolean[] { false, false });
+    }
+  }
+
+  private Values values;
+  private RowOrder sorted;
+  private boolean descending = false;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    String[] regions = new String[rows];
+    String[] ages = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      regions[i] = "Region " + random.nextInt(20);
+      ages[i] = random.nextInt(10) == 0 ? null : Integer.toString(random.nextInt(100));
+    }
+    values = new Values(regions, ages);
+    sorted = new RowOrder(rows, values);
+    sorted.sort(SORT_COLUMNS, new boolean[] { false, false });
+  }
+
+  @Benchmark
+  public int firstSort() {
+    RowOrder order = new RowOrder(rows, values);
+    order.sort(SORT_COLUMNS, new boolean[] { false, false });
+    return order.getRowIndex(0);
+  }
+
+  @Benchmark
+  public int toggleDirection() {
+    descending = !descending;
+    sorted.sort(SORT_COLUMNS, new boolean[] { descending, false });
+    return sorted.getRowIndex(0);
+  }
+
+  @Benchmark
+  public int removeRows(Removal removal) {
+    RowOrder order = removal.order;
+    for (int i = 0; i < REMOVED_ROWS; ++i) {
+      order.remove((i * 7919) % order.size());
+    }
+    return order.size();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.views.SpreadsheetSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the spreadsheet search index: building it for a loaded table, answering the queries
+ * typed one character at a time, and bringing it up to date after one cell was edited.
+ */
+@State(Scope.Thread)
+public class SpreadsheetSearchIndexBenchmark {
+
+  private static final String[] COLUMNS = { "name", "village" };
+  private static final String[] TYPED = { "v", "vi", "vil", "village", "village 1",
+      "village 12" };
+
+  @Param({ "10000", "50000" })
+  public int rows;
+
+  private static final class Rows implements SpreadsheetSearchIndex.RowSource {
+    private final String[] ids;
+    private final String[] names;
+    private final String[] villages;
+
+    Rows(String[] ids, String[] names, String[] villages) {
+      this.ids = ids;
+      this.names = names;
+      this.villages = villages;
+    }
+
+    @Override
+    public int getRowCount() {
+      return ids.length;
+    }
+
+    @Override
+    public String getRowId(int rowIndex) {
+      return ids[rowIndex];
+    }
+
+    @Override
+    public String getText(int rowIndex, String elementKey) {
+      return "name".equals(elementKey) ? names[rowIndex] : villages[rowIndex];
+    }
+  }
+
+  private Rows source;
+  private SpreadsheetSearchIndex index;
+  private long generation = 0;
+  private int typed = 0;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    String[] ids = new String[rows];
+    String[] names = new String[rows];
+    String[] villages = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      ids[i] = "uuid:" + i;
+      names[i] = "Person " + random.nextInt(rows);
+      villages[i] = random.nextInt(10) == 0 ? null : "Village " + random.nextInt(300);
+    }
+    source = new Rows(ids, names, villages);
+    index = new SpreadsheetSearchIndex(COLUMNS);
+    index.update(source, generation);
+  }
+
+  @Benchmark
+  public int build() {
+    return new SpreadsheetSearchIndex(COLUMNS).update(source, 0);
+  }
+
+  @Benchmark
+  public List<SpreadsheetSearchIndex.Hit> searchWhileTyping() {
+    typed = (typed + 1) % TYPED.length;
+    return index.search(TYPED[typed]);
+  }
+
+  /**
+   * The edited cell, and the cell edited in the previous call going back
+   */
+  @Benchmark
+  public int updateAfterEdit() {
+    ++generation;
+    String[] names = source.names.clone();
+    names[(int) (generation % rows)] = "Edited " + generation;
+    return index.update(new Rows(source.ids, names, source.villages), generation);
+  }
+}
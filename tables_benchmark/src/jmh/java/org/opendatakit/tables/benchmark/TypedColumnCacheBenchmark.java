@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark;
+
+import org.opendatakit.tables.utils.TypedColumnCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures a pass over a numeric column, such as a map redraw over the latitudes, parsing the
+ * strings every time against reading the {@link TypedColumnCache}, and what it costs to fill the
+ * cache in the first place.
+ */
+@State(Scope.Thread)
+public class TypedColumnCacheBenchmark {
+
+  @Param({ "10000", "100000" })
+  public int rows;
+
+  private static final class Values implements TypedColumnCache.Source {
+    private final String[] values;
+
+    Values(String[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public int getRowCount() {
+      return values.length;
+    }
+
+    @Override
+    public String getValue(String elementKey, int rowIndex) {
+      return values[rowIndex];
+    }
+  }
+
+  private Values latitudes;
+  private TypedColumnCache cache;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    String[] latitudeValues = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      latitudeValues[i] = random.nextInt(20) == 0 ?
+          null :
+          Double.toString(random.nextDouble() * 180 - 90);
+    }
+    latitudes = new Values(latitudeValues);
+    cache = new TypedColumnCache(latitudes);
+    cache.getDoubles("latitude");
+  }
+
+  @Benchmark
+  public double parseEveryPass() {
+    double sum = 0;
+    for (int i = 0; i < rows; ++i) {
+      String value = latitudes.getValue("latitude", i);
+      if (value != null) {
+        sum += Double.parseDouble(value);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double cachedPass() {
+    TypedColumnCache.DoubleColumn column = cache.getDoubles("latitude");
+    double sum = 0;
+    for (int i = 0; i < rows; ++i) {
+      if (column.isNumber(i)) {
+        sum += column.get(i);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public TypedColumnCache.DoubleColumn parseColumn() {
+    return new TypedColumnCache(latitudes).getDoubles("latitude");
+  }
+}
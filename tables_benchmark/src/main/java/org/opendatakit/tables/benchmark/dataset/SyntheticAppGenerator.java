@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark.dataset;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a reproducible ODK app directory with one table of any size, for performance and stress
+ * testing. The layout is the one the services initialization and Tables' csv import expect:
+ * <pre>
+ * &lt;app&gt;/config/tables/&lt;tableId&gt;/definition.csv
+ * &lt;app&gt;/config/tables/&lt;tableId&gt;/properties.csv   display names, color rules, views
+ * &lt;app&gt;/config/tables/&lt;tableId&gt;/html/&lt;tableId&gt;_list.html   list and map list view
+ * &lt;app&gt;/config/assets/csv/&lt;tableId&gt;.csv           the rows, imported on initialization
+ * &lt;app&gt;/config/assets/tables.init                 only written by {@link #writeApp(File)}
+ * &lt;app&gt;/benchmark/&lt;tableId&gt;.server.csv         server copies of the conflicting rows
+ * &lt;app&gt;/benchmark/&lt;tableId&gt;.spec.properties    the spec, to reproduce the data set
+ * </pre>
+ * Checkpoints are rows imported with a savepoint type of INCOMPLETE. A csv import cannot create
+ * sync conflicts, so the rows chosen to conflict are written with different values to the
+ * server csv instead; uploading that file to a sync server and syncing the device puts those
+ * rows in conflict.
+ * <p>
+ * Run it from the command line with
+ * {@code ./gradlew :tables_benchmark:generateSyntheticApp -Pargs="--out=build/app --rows=100000"}
+ * or call {@link #writeApp(File)} from a test.
+ */
+public final class SyntheticAppGenerator {
+
+  /**
+   * What to generate. The defaults make a medium sized table with a map column, a few color
+   * rules and no checkpoints or conflicts.
+   */
+  public static final class Spec {
+    public String tableId = "synthetic";
+    public int rows = 10000;
+    /**
+     * Number of user columns, not counting the geopoint
+     */
+    public int columns = 20;
+    /**
+     * Fraction of rows, from 0 to 1, that have a location. 0 leaves out the geopoint column
+     */
+    public double geopointDensity = 0.5;
+    /**
+     * Percentage of rows saved as checkpoints
+     */
+    public double checkpointPercent = 0.0;
+    /**
+     * Percentage of rows that have a conflicting server version
+     */
+    public double conflictPercent = 0.0;
+    /**
+     * Number of table color rules; each integer column also gets this many column rules
+     */
+    public int colorRules = 5;
+    public long seed = 42L;
+
+    /**
+     * Reads the spec from command line style arguments, e.g. --rows=1000. Unknown arguments are
+     * returned so the caller can handle them.
+     */
+    public List<String> parse(String[] args) {
+      List<String> unknown = new ArrayList<>();
+      for (String arg : args) {
+        int eq = arg.indexOf('=');
+        String name = eq < 0 ? arg : arg.substring(0, eq);
+        String value = eq < 0 ? "" : arg.substring(eq + 1);
+        switch (name) {
+        case "--tableId":
+          tableId = value;
+          break;
+        case "--rows":
+          rows = Integer.parseInt(value);
+          break;
+        case "--columns":
+          columns = Integer.parseInt(value);
+          break;
+        case "--geopoints":
+          geopointDensity = Double.parseDouble(value);
+          break;
+        case "--checkpoints":
+          checkpointPercent = Double.parseDouble(value);
+          break;
+        case "--conflicts":
+          conflictPercent = Double.parseDouble(value);
+          break;
+        case "--colorRules":
+          colorRules = Integer.parseInt(value);
+          break;
+        case "--seed":
+          seed = Long.parseLong(value);
+          break;
+        default:
+          unknown.add(arg);
+          break;
+        }
+      }
+      return unknown;
+    }
+
+    @Override
+    public String toString() {
+      return "tableId=" + tableId + "\nrows=" + rows + "\ncolumns=" + columns
+          + "\ngeopointDensity=" + geopointDensity + "\ncheckpointPercent=" + checkpointPercent
+          + "\nconflictPercent=" + conflictPercent + "\ncolorRules=" + colorRules + "\nseed="
+          + seed + "\n";
+    }
+  }
+
+  /**
+   * Savepoint timestamps are nanosecond precision strings
+   */
+  private static final String SAVEPOINT_TIMESTAMP = "2017-07-12T18:00:00.000000000";
+  private static final String SAVEPOINT_CREATOR = "anonymous";
+
+  private static final int[] RULE_BACKGROUNDS = { 0xffffff66, 0xff99ccff, 0xffff9999, 0xff99ff99,
+      0xffffcc66, 0xffcc99ff };
+  private static final int RULE_FOREGROUND = 0xff000000;
+
+  /**
+   * The id of the first row in the generated list view
+   */
+  public static final String FIRST_ROW_ID = "first-row";
+  private static final int LIST_VIEW_PAGE_SIZE = 100;
+
+  private final Spec mSpec;
+
+  public SyntheticAppGenerator(Spec spec) {
+    this.mSpec = spec;
+  }
+
+  /**
+   * @return the table described by the spec, without writing anything
+   */
+  public SyntheticTable generateTable() {
+    return new SyntheticTable(mSpec);
+  }
+
+  /**
+   * Generates the table and writes the app directory, replacing the generated files if they
+   * are already there. Other files in the app directory are left alone.
+   *
+   * @param appDir the app directory, e.g. /sdcard/opendatakit/default
+   * @return the generated table
+   * @throws IOException if a file can't be written
+   */
+  public SyntheticTable writeApp(File appDir) throws IOException {
+    SyntheticTable table = writeTable(appDir);
+    String tableId = table.getTableId();
+    File assetsDir = new File(appDir, "config" + File.separator + "assets");
+    try (Writer w = open(new File(assetsDir, "tables.init"))) {
+      w.write("table_keys=" + tableId + "\n");
+      w.write(tableId + ".filename=config/assets/csv/" + tableId + ".csv\n");
+    }
+    return table;
+  }
+
+  /**
+   * Generates the table and writes its files into an existing app without touching
+   * tables.init, so that the app's own tables are not affected. The table is then created by
+   * importing config/assets/csv/&lt;tableId&gt;.csv.
+   *
+   * @param appDir the app directory
+   * @return the generated table
+   * @throws IOException if a file can't be written
+   */
+  public SyntheticTable writeTable(File appDir) throws IOException {
+    SyntheticTable table = generateTable();
+    String tableId = table.getTableId();
+    File tableDir = new File(appDir, "config" + File.separator + "tables" + File.separator
+        + tableId);
+    File csvDir = new File(appDir, "config" + File.separator + "assets" + File.separator + "csv");
+    File benchmarkDir = new File(appDir, "benchmark");
+
+    writeDefinition(table, new File(mkdirs(tableDir), "definition.csv"));
+    writeProperties(table, new File(tableDir, "properties.csv"));
+    try (Writer w = open(new File(mkdirs(new File(tableDir, "html")), tableId + "_list.html"))) {
+      w.write(listView(tableId));
+    }
+    writeRows(table, new File(mkdirs(csvDir), tableId + ".csv"), false);
+    writeRows(table, new File(mkdirs(benchmarkDir), tableId + ".server.csv"), true);
+    try (Writer w = open(new File(benchmarkDir, tableId + ".spec.properties"))) {
+      w.write(mSpec.toString());
+    }
+    return table;
+  }
+
+  /**
+   * A list view that shows the first column of each row. The first row gets the id
+   * {@value #FIRST_ROW_ID} so tests can wait for the first content.
+   */
+  private String listView(String tableId) {
+    String firstColumn = mSpec.columns > 0 ? "col_0" : "_id";
+    return "<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>" + tableId
+        + "</title>\n"
+        + "<script type=\"text/javascript\" src=\"../../../../system/js/odkCommon.js\"></script>\n"
+        + "<script type=\"text/javascript\" src=\"../../../../system/js/odkData.js\"></script>\n"
+        + "</head>\n<body>\n<ul id=\"list\"></ul>\n<script>\n"
+        + "odkData.getViewData(function (result) {\n"
+        + "  var list = document.getElementById('list');\n"
+        + "  for (var i = 0; i < result.getCount(); i++) {\n"
+        + "    var item = document.createElement('li');\n"
+        + "    if (i === 0) { item.id = '" + FIRST_ROW_ID + "'; }\n"
+        + "    item.textContent = result.getData(i, '" + firstColumn + "');\n"
+        + "    list.appendChild(item);\n"
+        + "  }\n"
+        + "}, function (error) {\n"
+        + "  document.getElementById('list').textContent = error;\n"
+        + "}, " + LIST_VIEW_PAGE_SIZE + ", 0);\n"
+        + "</script>\n</body>\n</html>\n";
+  }
+
+  private void writeDefinition(SyntheticTable table, File file) throws IOException {
+    try (Writer w = open(file)) {
+      writeCsvRow(w, "_element_key", "_element_name", "_element_type",
+          "_list_child_element_keys");
+      List<String> keys = table.getElementKeys();
+      List<String> types = table.getElementTypes();
+      for (int c = 0; c < mSpec.columns; c++) {
+        writeCsvRow(w, keys.get(c), keys.get(c), types.get(c), "[]");
+      }
+      if (table.hasLocation()) {
+        writeCsvRow(w, SyntheticTable.LOCATION, SyntheticTable.LOCATION,
+            SyntheticTable.GEOPOINT, jsonArray(SyntheticTable.LATITUDE, SyntheticTable.LONGITUDE,
+                SyntheticTable.ALTITUDE, SyntheticTable.ACCURACY));
+        writeCsvRow(w, SyntheticTable.LATITUDE, "latitude", SyntheticTable.NUMBER, "[]");
+        writeCsvRow(w, SyntheticTable.LONGITUDE, "longitude", SyntheticTable.NUMBER, "[]");
+        writeCsvRow(w, SyntheticTable.ALTITUDE, "altitude", SyntheticTable.NUMBER, "[]");
+        writeCsvRow(w, SyntheticTable.ACCURACY, "accuracy", SyntheticTable.NUMBER, "[]");
+      }
+    }
+  }
+
+  private void writeProperties(SyntheticTable table, File file) throws IOException {
+    List<String> keys = table.getElementKeys();
+    List<String> types = table.getElementTypes();
+    List<String> columnOrder = new ArrayList<>(keys.subList(0, mSpec.columns));
+    if (table.hasLocation()) {
+      columnOrder.add(SyntheticTable.LOCATION);
+    }
+    try (Writer w = open(file)) {
+      writeCsvRow(w, "_partition", "_aspect", "_key", "_type", "_value");
+      writeCsvRow(w, "Table", "default", "displayName", "object", jsonText(String
+          .format(Locale.US, "Synthetic %d x %d", mSpec.rows, mSpec.columns)));
+      writeCsvRow(w, "Table", "default", "defaultViewType", "string", "SPREADSHEET");
+      String listView = "config/tables/" + table.getTableId() + "/html/" + table.getTableId()
+          + "_list.html";
+      writeCsvRow(w, "Table", "default", "listViewFileName", "string", listView);
+      writeCsvRow(w, "Table", "default", "mapListViewFileName", "string", listView);
+      writeCsvRow(w, "Table", "default", "colOrder", "array",
+          jsonArray(columnOrder.toArray(new String[columnOrder.size()])));
+      for (int c = 0; c < mSpec.columns; c++) {
+        writeCsvRow(w, "Column", keys.get(c), "displayName", "object",
+            jsonText("Column " + c + " (" + types.get(c) + ")"));
+      }
+      if (mSpec.colorRules > 0 && mSpec.columns > 1) {
+        // rules on the first integer column: one value each, so a few percent of rows match
+        String ruleColumn = keys.get(1);
+        writeCsvRow(w, "TableColorRuleGroup", "default", "TableColorRuleGroup.ruleList", "object",
+            colorRuleList("table", ruleColumn));
+        for (int c = 0; c < mSpec.columns; c++) {
+          if (types.get(c).equals(SyntheticTable.INTEGER)) {
+            writeCsvRow(w, "ColumnColorRuleGroup", keys.get(c), "ColumnColorRuleGroup.ruleList",
+                "object", colorRuleList(keys.get(c), keys.get(c)));
+          }
+        }
+      }
+    }
+  }
+
+  private void writeRows(SyntheticTable table, File file, boolean serverCopy) throws IOException {
+    List<String> keys = table.getElementKeys();
+    List<String> header = new ArrayList<>();
+    header.add("_id");
+    header.add("_form_id");
+    header.add("_locale");
+    header.add("_savepoint_type");
+    header.add("_savepoint_timestamp");
+    header.add("_savepoint_creator");
+    header.addAll(keys);
+    header.add("_default_access");
+    header.add("_row_owner");
+    String[] row = new String[header.size()];
+    try (Writer w = open(file)) {
+      writeCsvRow(w, header.toArray(row));
+      for (int r = 0; r < table.getNumberOfRows(); r++) {
+        if (serverCopy && !table.isConflict(r)) {
+          continue;
+        }
+        int i = 0;
+        row[i++] = SyntheticTable.getRowId(r);
+        row[i++] = table.getTableId();
+        row[i++] = "default";
+        row[i++] = table.isCheckpoint(r) ?
+            SyntheticTable.SAVEPOINT_INCOMPLETE :
+            SyntheticTable.SAVEPOINT_COMPLETE;
+        row[i++] = SAVEPOINT_TIMESTAMP;
+        row[i++] = SAVEPOINT_CREATOR;
+        for (int c = 0; c < keys.size(); c++) {
+          row[i++] = serverCopy ? table.getServerValue(r, c) : table.getValue(r, c);
+        }
+        row[i++] = "FULL";
+        row[i] = SAVEPOINT_CREATOR;
+        writeCsvRow(w, row);
+      }
+    }
+  }
+
+  private String colorRuleList(String idPrefix, String elementKey) {
+    StringBuilder b = new StringBuilder("[");
+    for (int i = 0; i < mSpec.colorRules; i++) {
+      if (i > 0) {
+        b.append(',');
+      }
+      b.append("{\"mId\":\"").append(idPrefix).append("_rule_").append(i)
+          .append("\",\"mElementKey\":\"").append(elementKey)
+          .append("\",\"mOperator\":\"EQUAL\",\"mValue\":\"").append(i * 7)
+          .append("\",\"mForeground\":").append(RULE_FOREGROUND).append(",\"mBackground\":")
+          .append(RULE_BACKGROUNDS[i % RULE_BACKGROUNDS.length]).append('}');
+    }
+    return b.append(']').toString();
+  }
+
+  private static String jsonText(String text) {
+    return "{\"text\":\"" + text.replace("\"", "\\\"") + "\"}";
+  }
+
+  private static String jsonArray(String... values) {
+    StringBuilder b = new StringBuilder("[");
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        b.append(',');
+      }
+      b.append('"').append(values[i]).append('"');
+    }
+    return b.append(']').toString();
+  }
+
+  private static void writeCsvRow(Writer w, String... values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        w.write(',');
+      }
+      String value = values[i];
+      if (value == null) {
+        continue;
+      }
+      if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+      } else {
+        w.write(value);
+      }
+    }
+    w.write("\r\n");
+  }
+
+  private static File mkdirs(File dir) throws IOException {
+    if (!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("unable to create " + dir.getAbsolutePath());
+    }
+    return dir;
+  }
+
+  private static Writer open(File file) throws IOException {
+    return new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Command line entry point. Takes --out=&lt;app directory&gt; plus the {@link Spec} options.
+   */
+  public static void main(String[] args) throws IOException {
+    Spec spec = new Spec();
+    File out = null;
+    for (String arg : spec.parse(args)) {
+      if (arg.startsWith("--out=")) {
+        out = new File(arg.substring("--out=".length()));
+      } else {
+        System.err.println("unknown argument: " + arg);
+        System.exit(1);
+      }
+    }
+    if (out == null) {
+      System.err.println("usage: SyntheticAppGenerator --out=<app directory> [--tableId=]"
+          + " [--rows=] [--columns=] [--geopoints=0..1] [--checkpoints=%] [--conflicts=%]"
+          + " [--colorRules=] [--seed=]");
+      System.exit(1);
+    }
+    long start = System.currentTimeMillis();
+    SyntheticTable table = new SyntheticAppGenerator(spec).writeApp(out);
+    System.out.println("wrote " + table.getNumberOfRows() + " rows of " + table.getTableId()
+        + " to " + out.getAbsolutePath() + " in " + (System.currentTimeMillis() - start)
+        + " ms");
+  }
+}
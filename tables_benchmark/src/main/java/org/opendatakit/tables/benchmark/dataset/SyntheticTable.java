@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 University of Washington
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opendatakit.tables.benchmark.dataset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The contents of one generated table, held in memory. The same data is written to disk by
+ * {@link SyntheticAppGenerator} and wrapped by the JVM benchmarks, so a number measured in one
+ * place can be reproduced in the other.
+ * <p>
+ * User columns cycle through string, integer and number types and about one value in twenty is
+ * null. If the spec asks for geopoints the table also has a geopoint column named
+ * {@link #LOCATION}, stored as its four number sub-columns.
+ */
+public final class SyntheticTable {
+
+  public static final String STRING = "string";
+  public static final String INTEGER = "integer";
+  public static final String NUMBER = "number";
+  public static final String GEOPOINT = "geopoint";
+
+  /**
+   * Element key of the geopoint column
+   */
+  public static final String LOCATION = "location";
+  public static final String LATITUDE = LOCATION + "_latitude";
+  public static final String LONGITUDE = LOCATION + "_longitude";
+  public static final String ALTITUDE = LOCATION + "_altitude";
+  public static final String ACCURACY = LOCATION + "_accuracy";
+
+  /**
+   * Value of _savepoint_type for a row saved as a checkpoint
+   */
+  public static final String SAVEPOINT_INCOMPLETE = "INCOMPLETE";
+  public static final String SAVEPOINT_COMPLETE = "COMPLETE";
+
+  private static final String[] USER_TYPES = { STRING, INTEGER, NUMBER };
+
+  private final SyntheticAppGenerator.Spec mSpec;
+  private final List<String> mElementKeys = new ArrayList<>();
+  private final List<String> mElementTypes = new ArrayList<>();
+  /**
+   * Values by row, then by index into mElementKeys
+   */
+  private final String[][] mValues;
+  private final boolean[] mCheckpoint;
+  private final boolean[] mConflict;
+
+  SyntheticTable(SyntheticAppGenerator.Spec spec) {
+    mSpec = spec;
+    for (int c = 0; c < spec.columns; c++) {
+      mElementKeys.add("col_" + c);
+      mElementTypes.add(USER_TYPES[c % USER_TYPES.length]);
+    }
+    boolean hasLocation = spec.geopointDensity > 0;
+    if (hasLocation) {
+      for (String key : new String[] { LATITUDE, LONGITUDE, ALTITUDE, ACCURACY }) {
+        mElementKeys.add(key);
+        mElementTypes.add(NUMBER);
+      }
+    }
+
+    Random random = new Random(spec.seed);
+    mValues = new String[spec.rows][mElementKeys.size()];
+    mCheckpoint = new boolean[spec.rows];
+    mConflict = new boolean[spec.rows];
+    for (int r = 0; r < spec.rows; r++) {
+      for (int c = 0; c < spec.columns; c++) {
+        if (random.nextInt(20) == 0) {
+          continue;
+        }
+        switch (c % USER_TYPES.length) {
+        case 0:
+          mValues[r][c] = "value " + Integer.toString(random.nextInt(10000), 36);
+          break;
+        case 1:
+          mValues[r][c] = Integer.toString(random.nextInt(100));
+          break;
+        default:
+          mValues[r][c] = Double.toString(Math.round(random.nextDouble() * 100000) / 100.0);
+          break;
+        }
+      }
+      if (hasLocation && random.nextDouble() < spec.geopointDensity) {
+        // cluster the points around a few sites so the map has dense and sparse areas
+        int site = random.nextInt(8);
+        double lat = -30.0 + site * 7.5 + random.nextGaussian() * 0.05;
+        double lon = 20.0 + site * 4.0 + random.nextGaussian() * 0.05;
+        mValues[r][spec.columns] = Double.toString(lat);
+        mValues[r][spec.columns + 1] = Double.toString(lon);
+        mValues[r][spec.columns + 2] = Double.toString(Math.round(random.nextDouble() * 2000));
+        mValues[r][spec.columns + 3] = Double.toString(Math.round(random.nextDouble() * 50));
+      }
+      // only draw when asked for, so the values don't depend on the row state settings
+      mCheckpoint[r] = spec.checkpointPercent > 0
+          && random.nextDouble() * 100.0 < spec.checkpointPercent;
+      mConflict[r] = !mCheckpoint[r] && spec.conflictPercent > 0
+          && random.nextDouble() * 100.0 < spec.conflictPercent;
+    }
+  }
+
+  public String getTableId() {
+    return mSpec.tableId;
+  }
+
+  public int getNumberOfRows() {
+    return mValues.length;
+  }
+
+  /**
+   * @return the element keys of every stored column, user columns first, then the geopoint
+   * sub-columns if there are any
+   */
+  public List<String> getElementKeys() {
+    return Collections.unmodifiableList(mElementKeys);
+  }
+
+  /**
+   * @return the ODK element type of each column in {@link #getElementKeys()}
+   */
+  public List<String> getElementTypes() {
+    return Collections.unmodifiableList(mElementTypes);
+  }
+
+  public boolean hasLocation() {
+    return mElementKeys.contains(LATITUDE);
+  }
+
+  /**
+   * @param row    the row index
+   * @param column an index into {@link #getElementKeys()}
+   * @return the value, or null
+   */
+  public String getValue(int row, int column) {
+    return mValues[row][column];
+  }
+
+  public static String getRowId(int row) {
+    return "uuid:" + Integer.toString(row);
+  }
+
+  /**
+   * @return whether the row is saved as a checkpoint rather than a complete row
+   */
+  public boolean isCheckpoint(int row) {
+    return mCheckpoint[row];
+  }
+
+  /**
+   * @return whether the row has a different server version, so that syncing puts it in conflict
+   */
+  public boolean isConflict(int row) {
+    return mConflict[row];
+  }
+
+  /**
+   * @return the value the server holds for a conflicting row
+   */
+  String getServerValue(int row, int column) {
+    String local = mValues[row][column];
+    if (column >= mSpec.columns || local == null) {
+      return local;
+    }
+    return mElementTypes.get(column).equals(STRING) ? local + " (server)" : "0";
+  }
+}